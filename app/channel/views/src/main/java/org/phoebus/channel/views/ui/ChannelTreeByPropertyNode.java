@@ -1,11 +1,11 @@
 package org.phoebus.channel.views.ui;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.epics.vtype.Alarm;
@@ -80,7 +80,7 @@ public class ChannelTreeByPropertyNode {
                     {
                         try {
                             final PV pv = PVPool.getPV(channel.getName());
-                            pv.onValueEvent().throttleLatest(100, TimeUnit.MILLISECONDS).subscribe(value -> {
+                            pv.onValueEvent(Duration.ofMillis(100)).subscribe(value -> {
                                 this.model.nodePVValues.put(pv.getName(), value);
                             });
                             this.model.nodePVs.add(pv);
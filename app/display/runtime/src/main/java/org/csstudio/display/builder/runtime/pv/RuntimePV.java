@@ -9,9 +9,9 @@ package org.csstudio.display.builder.runtime.pv;
 
 import static org.csstudio.display.builder.runtime.WidgetRuntime.logger;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.csstudio.display.builder.runtime.Preferences;
@@ -42,8 +42,7 @@ public class RuntimePV // TODO (Almost) remove. Use vtype.pv, only add setValue
     RuntimePV(final PV pv)
     {
         this.pv = pv;
-        value_flow = pv.onValueEvent()
-                .throttleLatest(Preferences.update_throttle_ms, TimeUnit.MILLISECONDS)
+        value_flow = pv.onValueEvent(Duration.ofMillis(Preferences.update_throttle_ms))
                 .subscribe(this::valueChanged);
         writable_flow = pv.onAccessRightsEvent()
                           .subscribe(this::writableChanged);
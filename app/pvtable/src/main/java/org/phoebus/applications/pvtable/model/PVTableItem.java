@@ -9,6 +9,7 @@ package org.phoebus.applications.pvtable.model;
 
 import static org.phoebus.applications.pvtable.PVTableApplication.logger;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -138,8 +139,7 @@ public class PVTableItem
         {
             updateValue(VString.of("", Alarm.disconnected(), Time.now()));
             new_pv = PVPool.getPV(name);
-            value_flow = new_pv.onValueEvent()
-                               .throttleLatest(Settings.max_update_period_ms, TimeUnit.MILLISECONDS)
+            value_flow = new_pv.onValueEvent(Duration.ofMillis(Settings.max_update_period_ms))
                                .subscribe(this::updateValue);
             permission_flow = new_pv.onAccessRightsEvent()
                                     .subscribe(writable -> listener.tableItemChanged(PVTableItem.this));
@@ -38,11 +38,11 @@ import org.phoebus.saveandrestore.util.Threshold;
 import org.phoebus.saveandrestore.util.Utilities;
 import org.phoebus.saveandrestore.util.VNoData;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -491,12 +491,11 @@ public class TableEntry {
     public void connect() {
         try {
             pv = PVPool.getPV(pvNameProperty().get());
-            pv.onValueEvent().throttleLatest(TABLE_UPDATE_INTERVAL, TimeUnit.MILLISECONDS)
+            pv.onValueEvent(Duration.ofMillis(TABLE_UPDATE_INTERVAL))
                     .subscribe(value -> setLiveValue(PV.isDisconnected(value) ? VDisconnectedData.INSTANCE : value));
             if(readbackName.isNotNull().get() && !readbackName.get().isEmpty()) {
                 readbackPv = PVPool.getPV(readbackName.get());
-                readbackPv.onValueEvent()
-                        .throttleLatest(TABLE_UPDATE_INTERVAL, TimeUnit.MILLISECONDS)
+                readbackPv.onValueEvent(Duration.ofMillis(TABLE_UPDATE_INTERVAL))
                         .subscribe(value -> setReadbackValue(PV.isDisconnected(value) ? VDisconnectedData.INSTANCE : value));
             }
             else {
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import java.io.EOFException;
+
+/** Stream of bits, most significant bit first
+ *  @author Kay Kasemir
+ */
+class BitInput
+{
+    private final byte[] data;
+
+    /** Number of bits read */
+    private long bits = 0;
+
+    /** @param data Bytes to read */
+    BitInput(final byte[] data)
+    {
+        this.data = data;
+    }
+
+    /** @param count Number of bits to read, 0..64
+     *  @return Value of the bits
+     *  @throws EOFException when reading beyond the data
+     */
+    long read(int count) throws EOFException
+    {
+        if (bits + count > 8L * data.length)
+            throw new EOFException();
+        long value = 0;
+        while (count > 0)
+        {
+            final int index = (int) (bits >>> 3);
+            final int available = 8 - (int) (bits & 7);
+            final int take = Math.min(available, count);
+            final int chunk = (data[index] >>> (available - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bits += take;
+            count -= take;
+        }
+        return value;
+    }
+
+    /** @param count Number of bits to read, 1..64
+     *  @return Sign-extended value of the bits
+     *  @throws EOFException when reading beyond the data
+     */
+    long readSigned(final int count) throws EOFException
+    {
+        final int shift = 64 - count;
+        return (read(count) << shift) >> shift;
+    }
+
+    /** @return Next bit
+     *  @throws EOFException when reading beyond the data
+     */
+    boolean readBit() throws EOFException
+    {
+        return read(1) != 0;
+    }
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import static org.phoebus.archive.reader.ArchiveReaders.logger;
+
+import java.io.File;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+
+import org.phoebus.archive.reader.ArchiveReader;
+import org.phoebus.archive.reader.AveragedValueIterator;
+import org.phoebus.archive.reader.UnknownChannelException;
+import org.phoebus.archive.reader.ValueIterator;
+import org.phoebus.util.time.TimeDuration;
+
+/** ArchiveReader for column archive files written by the archive engine
+ *
+ *  <p>Each channel has a sub-directory, named by the URL-encoded channel name,
+ *  with one partition file per UTC day, "yyyy-MM-dd.col".
+ *  Only the partitions for the requested time range are scanned,
+ *  and only blocks within the time range are decoded.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnArchiveReader implements ArchiveReader
+{
+    private static final String EXTENSION = ".col";
+
+    private final File root;
+
+    /** @param root Root directory of the column archive
+     *  @throws Exception on error
+     */
+    public ColumnArchiveReader(final File root) throws Exception
+    {
+        if (! root.isDirectory())
+            throw new Exception("Cannot find column archive directory " + root);
+        this.root = root;
+    }
+
+    @Override
+    public String getDescription()
+    {
+        return "Column archive files in " + root;
+    }
+
+    @Override
+    public List<String> getNamesByPattern(final String glob_pattern) throws Exception
+    {
+        final List<String> result = new ArrayList<>();
+        if (glob_pattern.isEmpty())
+            return result;
+        final String reg_exp = glob_pattern.replace("\\", "\\\\")
+                                           .replace(".", "\\.")
+                                           .replace("*", ".*")
+                                           .replace("?", ".");
+        final Pattern pattern = Pattern.compile(reg_exp, Pattern.CASE_INSENSITIVE);
+        final File[] dirs = root.listFiles(File::isDirectory);
+        if (dirs != null)
+            for (File dir : dirs)
+            {
+                final String name = URLDecoder.decode(dir.getName(), StandardCharsets.UTF_8);
+                if (pattern.matcher(name).matches())
+                    result.add(name);
+            }
+        result.sort(String::compareTo);
+        return result;
+    }
+
+    /** @param name Channel name
+     *  @param start Start time
+     *  @param end End time
+     *  @return Blocks in time range, sorted by time, starting with the last block before the start time
+     *  @throws Exception on error
+     */
+    private List<ColumnBlock> getBlocks(final String name, final Instant start, final Instant end) throws Exception
+    {
+        final File dir = new File(root, URLEncoder.encode(name, StandardCharsets.UTF_8).replace("*", "%2A"));
+        if (! dir.isDirectory())
+            throw new UnknownChannelException(name);
+
+        // Partition file names sort by time.
+        // Use those in the time range and the one before, which might hold the sample before 'start'
+        final String first = LocalDate.ofInstant(start, ZoneOffset.UTC) + EXTENSION;
+        final String last = LocalDate.ofInstant(end, ZoneOffset.UTC) + EXTENSION;
+        final File[] files = dir.listFiles((d, n) -> n.endsWith(EXTENSION));
+        Arrays.sort(files);
+        final List<File> partitions = new ArrayList<>();
+        File previous = null;
+        for (File file : files)
+        {
+            final String partition = file.getName();
+            if (partition.compareTo(first) < 0)
+                previous = file;
+            else if (partition.compareTo(last) <= 0)
+                partitions.add(file);
+        }
+        if (previous != null)
+            partitions.add(0, previous);
+
+        final long start_nanos = ColumnBlock.toNanos(start), end_nanos = ColumnBlock.toNanos(end);
+        final List<ColumnBlock> blocks = new ArrayList<>();
+        ColumnBlock before = null;
+        for (File file : partitions)
+            for (ColumnBlock block : ColumnBlock.scan(file))
+            {
+                if (block.latest < start_nanos)
+                {
+                    if (before == null  ||  block.latest > before.latest)
+                        before = block;
+                }
+                else if (block.earliest <= end_nanos)
+                    blocks.add(block);
+            }
+        blocks.sort(Comparator.comparingLong(block -> block.earliest));
+        if (before != null)
+            blocks.add(0, before);
+        logger.log(Level.FINE, () -> name + " has " + blocks.size() + " blocks in " + partitions.size() + " partitions");
+        return blocks;
+    }
+
+    /** Estimate the number of samples in a time range from the block headers
+     *
+     *  <p>Blocks may overlap, for example when samples that had been
+     *  spilled to disk are written after newer samples,
+     *  and may extend beyond the time range.
+     *  Each block is therefore counted by the fraction of its time range
+     *  that falls within the requested range, assuming a constant rate.
+     *
+     *  @param blocks Blocks
+     *  @param start Start time [epoch nanoseconds]
+     *  @param end End time [epoch nanoseconds]
+     *  @return Estimated number of samples within the time range
+     */
+    static long estimateCount(final List<ColumnBlock> blocks, final long start, final long end)
+    {
+        double counted = 0;
+        for (ColumnBlock block : blocks)
+        {
+            final long from = Math.max(start, block.earliest), to = Math.min(end, block.latest);
+            if (from > to)
+                continue;
+            if (block.latest > block.earliest)
+                counted += block.count * ((double) (to - from) / (block.latest - block.earliest));
+            else
+                counted += block.count;
+        }
+        return (long) Math.ceil(counted);
+    }
+
+    @Override
+    public ValueIterator getRawValues(final String name, final Instant start, final Instant end)
+            throws UnknownChannelException, Exception
+    {
+        return new ColumnValueIterator(getBlocks(name, start, end), start, end);
+    }
+
+    @Override
+    public ValueIterator getOptimizedValues(final String name, final Instant start, final Instant end, final int count)
+            throws UnknownChannelException, Exception
+    {
+        final List<ColumnBlock> blocks = getBlocks(name, start, end);
+        final ValueIterator raw_data = new ColumnValueIterator(blocks, start, end);
+        if (estimateCount(blocks, ColumnBlock.toNanos(start), ColumnBlock.toNanos(end)) < count)
+            return raw_data;
+        final double seconds = TimeDuration.toSecondsDouble(Duration.between(start, end)) / count;
+        return new AveragedValueIterator(raw_data, seconds);
+    }
+}
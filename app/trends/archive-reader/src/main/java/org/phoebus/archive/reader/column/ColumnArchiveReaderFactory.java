@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import java.io.File;
+
+import org.phoebus.archive.reader.ArchiveReader;
+import org.phoebus.archive.reader.spi.ArchiveReaderFactory;
+
+/** SPI for "column:" archive URLs
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnArchiveReaderFactory implements ArchiveReaderFactory
+{
+    /** Data source prefix */
+    public final static String PREFIX = "column:";
+
+    @Override
+    public String getPrefix()
+    {
+        return PREFIX;
+    }
+
+    @Override
+    public ArchiveReader createReader(final String url) throws Exception
+    {
+        return new ColumnArchiveReader(new File(url.substring(PREFIX.length())));
+    }
+}
@@ -0,0 +1,346 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import static org.phoebus.archive.reader.ArchiveReaders.logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.stats.Range;
+import org.epics.util.text.NumberFormats;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.EnumDisplay;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VString;
+import org.epics.vtype.VType;
+
+/** Block of samples in a column archive partition file
+ *
+ *  <p>The block header with sample count and time range
+ *  is read when scanning a file,
+ *  while the compressed columns are only decoded when needed.
+ *
+ *  <p>The format is written by the archive engine's
+ *  <code>ColumnBlockEncoder</code>:
+ *  <pre>
+ *  int  magic "COL1"
+ *  int  length of the rest of the block
+ *  int  sample count
+ *  long earliest time stamp [epoch nanoseconds]
+ *  long latest time stamp [epoch nanoseconds]
+ *  byte kind of values
+ *  DOUBLE, LONG, DOUBLE_ARRAY: display (8 doubles for display, alarm, warning, control range,
+ *                        string units, int precision or -1)
+ *  ENUM: int label count, labels
+ *  int  length, time stamp column (first stamp, then bit-encoded delta of delta)
+ *  int  length, alarm column (runs of int count, byte severity, byte status, string name)
+ *  int  length, value column (bit-encoded XOR of doubles or longs, int index of enums, or strings)
+ *  </pre>
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class ColumnBlock
+{
+    private static final int MAGIC = 0x434F4C31;
+
+    private static final byte DOUBLE = 0, DOUBLE_ARRAY = 1, ENUM = 2, STRING = 3, LONG = 4;
+
+    /** Size of the block header read when scanning */
+    private static final int HEADER = 28;
+
+    private final File file;
+    private final long offset;
+    private final int length;
+
+    /** Number of samples */
+    final int count;
+
+    /** Time range of samples [epoch nanoseconds] */
+    final long earliest, latest;
+
+    private ColumnBlock(final File file, final long offset, final int length,
+                        final int count, final long earliest, final long latest)
+    {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.count = count;
+        this.earliest = earliest;
+        this.latest = latest;
+    }
+
+    /** @param file Partition file
+     *  @return Blocks in file
+     *  @throws IOException on error
+     */
+    static List<ColumnBlock> scan(final File file) throws IOException
+    {
+        final List<ColumnBlock> blocks = new ArrayList<>();
+        try
+        (
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+        )
+        {
+            final long size = raf.length();
+            final ByteBuffer header = ByteBuffer.allocate(HEADER);
+            long pos = 0;
+            while (pos + HEADER <= size)
+            {
+                raf.seek(pos);
+                raf.readFully(header.array());
+                final int magic = header.getInt(0);
+                final int length = header.getInt(4);
+                if (magic != MAGIC  ||  length < HEADER - 8  ||  pos + 8 + length > size)
+                {   // Incomplete block while file is written, or damaged file
+                    logger.log(Level.FINE, "Ignoring data at offset " + pos + " of " + file);
+                    break;
+                }
+                blocks.add(new ColumnBlock(file, pos, length, header.getInt(8), header.getLong(12), header.getLong(20)));
+                pos += 8 + length;
+            }
+        }
+        return blocks;
+    }
+
+    /** @param nanos Epoch nanoseconds
+     *  @return {@link Instant}
+     */
+    static Instant toInstant(final long nanos)
+    {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1000000000L), Math.floorMod(nanos, 1000000000L));
+    }
+
+    /** @param stamp {@link Instant}
+     *  @return Epoch nanoseconds
+     */
+    static long toNanos(final Instant stamp)
+    {
+        return stamp.getEpochSecond() * 1000000000L + stamp.getNano();
+    }
+
+    /** @return Samples in block
+     *  @throws IOException on error
+     */
+    List<VType> decode() throws IOException
+    {
+        final byte[] data = new byte[length];
+        try
+        (
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+        )
+        {
+            raf.seek(offset + 8);
+            raf.readFully(data);
+        }
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        in.skipBytes(HEADER - 8);
+        final byte kind = in.readByte();
+        Display display = null;
+        EnumDisplay labels = null;
+        if (kind == DOUBLE  ||  kind == LONG  ||  kind == DOUBLE_ARRAY)
+            display = readDisplay(in);
+        else if (kind == ENUM)
+        {
+            final int N = in.readInt();
+            final List<String> choices = new ArrayList<>(N);
+            for (int i=0; i<N; ++i)
+                choices.add(readString(in));
+            labels = EnumDisplay.of(choices);
+        }
+        else if (kind != STRING)
+            throw new IOException("Unknown kind of values " + kind + " in " + file + " at " + offset);
+
+        final long[] times = readTimes(readColumn(in));
+        final Alarm[] alarms = readAlarms(new DataInputStream(new ByteArrayInputStream(readColumn(in))));
+        final byte[] values = readColumn(in);
+
+        final List<VType> samples = new ArrayList<>(count);
+        if (kind == DOUBLE  ||  kind == LONG  ||  kind == DOUBLE_ARRAY)
+        {
+            final DoubleDecoder doubles = new DoubleDecoder(new BitInput(values));
+            for (int i=0; i<count; ++i)
+            {
+                final Time time = Time.of(toInstant(times[i]));
+                if (kind == DOUBLE)
+                    samples.add(VDouble.of(doubles.next(), alarms[i], time, display));
+                else if (kind == LONG)
+                    samples.add(VLong.of(doubles.nextBits(), alarms[i], time, display));
+                else
+                {
+                    final double[] array = new double[(int) doubles.input.read(32)];
+                    for (int e=0; e<array.length; ++e)
+                        array[e] = doubles.next();
+                    samples.add(VDoubleArray.of(ArrayDouble.of(array), alarms[i], time, display));
+                }
+            }
+        }
+        else
+        {
+            final DataInputStream value_in = new DataInputStream(new ByteArrayInputStream(values));
+            for (int i=0; i<count; ++i)
+            {
+                final Time time = Time.of(toInstant(times[i]));
+                if (kind == ENUM)
+                    samples.add(VEnum.of(value_in.readInt(), labels, alarms[i], time));
+                else
+                    samples.add(VString.of(readString(value_in), alarms[i], time));
+            }
+        }
+        return samples;
+    }
+
+    private long[] readTimes(final byte[] column) throws IOException
+    {
+        final long[] times = new long[count];
+        if (count <= 0)
+            return times;
+        final BitInput in = new BitInput(column);
+        long time = in.read(64), delta = 0;
+        times[0] = time;
+        for (int i=1; i<count; ++i)
+        {
+            final long dod;
+            if (! in.readBit())
+                dod = 0;
+            else if (! in.readBit())
+                dod = in.readSigned(20);
+            else if (! in.readBit())
+                dod = in.readSigned(32);
+            else if (! in.readBit())
+                dod = in.readSigned(48);
+            else
+                dod = in.read(64);
+            delta += dod;
+            time += delta;
+            times[i] = time;
+        }
+        return times;
+    }
+
+    private Alarm[] readAlarms(final DataInputStream in) throws IOException
+    {
+        final Alarm[] alarms = new Alarm[count];
+        final AlarmSeverity[] severities = AlarmSeverity.values();
+        final AlarmStatus[] states = AlarmStatus.values();
+        int i = 0;
+        while (i < count)
+        {
+            final int run = in.readInt();
+            final int severity = in.readByte(), status = in.readByte();
+            final String name = readString(in);
+            if (run <= 0  ||  i + run > count  ||
+                severity < 0  ||  severity >= severities.length  ||
+                status < 0  ||  status >= states.length)
+                throw new IOException("Invalid alarm column in " + file + " at " + offset);
+            final Alarm alarm = Alarm.of(severities[severity], states[status], name);
+            for (int r=0; r<run; ++r)
+                alarms[i++] = alarm;
+        }
+        return alarms;
+    }
+
+    /** Decoder for XOR-compressed doubles or longs */
+    private static class DoubleDecoder
+    {
+        final BitInput input;
+        private boolean first = true;
+        private long bits;
+        private int leading, trailing;
+
+        DoubleDecoder(final BitInput input)
+        {
+            this.input = input;
+        }
+
+        double next() throws IOException
+        {
+            return Double.longBitsToDouble(nextBits());
+        }
+
+        long nextBits() throws IOException
+        {
+            if (first)
+            {
+                first = false;
+                bits = input.read(64);
+            }
+            else if (input.readBit())
+            {
+                if (input.readBit())
+                {
+                    leading = (int) input.read(5);
+                    int meaningful = (int) input.read(6);
+                    if (meaningful == 0)
+                        meaningful = 64;
+                    trailing = 64 - leading - meaningful;
+                }
+                bits ^= input.read(64 - leading - trailing) << trailing;
+            }
+            return bits;
+        }
+    }
+
+    private static byte[] readColumn(final DataInputStream in) throws IOException
+    {
+        final byte[] column = new byte[in.readInt()];
+        in.readFully(column);
+        return column;
+    }
+
+    private static Display readDisplay(final DataInputStream in) throws IOException
+    {
+        final Range display = readRange(in);
+        final Range alarm = readRange(in);
+        final Range warning = readRange(in);
+        final Range control = readRange(in);
+        final String units = readString(in);
+        final int precision = in.readInt();
+        return Display.of(display, alarm, warning, control, units,
+                          precision < 0 ? NumberFormats.toStringFormat() : NumberFormats.precisionFormat(precision));
+    }
+
+    private static Range readRange(final DataInputStream in) throws IOException
+    {
+        final double min = in.readDouble(), max = in.readDouble();
+        if (Double.isNaN(min)  &&  Double.isNaN(max))
+            return Range.undefined();
+        return Range.of(min, max);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException
+    {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString()
+    {
+        return file + " @ " + offset + ": " + count + " samples " + toInstant(earliest) + " - " + toInstant(latest);
+    }
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import static org.phoebus.archive.reader.ArchiveReaders.logger;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+
+import org.epics.vtype.VType;
+import org.phoebus.archive.reader.ValueIterator;
+import org.phoebus.core.vtypes.VTypeHelper;
+
+/** Iterator over samples in column archive blocks
+ *
+ *  <p>Returns the last sample before the start time,
+ *  followed by the samples within the time range.
+ *  Blocks are only decoded as the iteration reaches them.
+ *  Blocks with overlapping time ranges, for example from
+ *  late samples, are decoded together and merged by time stamp.
+ *  Samples of overlapping blocks with the same time stamp,
+ *  for example written again when replaying spilled samples after an error,
+ *  are only returned once.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class ColumnValueIterator implements ValueIterator
+{
+    private final List<ColumnBlock> blocks;
+    private final long start, end;
+    private int block_index = 0;
+
+    private List<VType> samples = List.of();
+    private int sample_index = 0;
+
+    /** Latest sample before start time */
+    private VType before = null;
+    private long before_time;
+
+    /** Has iteration reached the start time? */
+    private boolean started = false;
+
+    private VType next;
+
+    /** @param blocks Blocks, sorted by time, starting with a block before the start time
+     *  @param start Start time
+     *  @param end End time
+     */
+    ColumnValueIterator(final List<ColumnBlock> blocks, final Instant start, final Instant end)
+    {
+        this.blocks = blocks;
+        this.start = ColumnBlock.toNanos(start);
+        this.end = ColumnBlock.toNanos(end);
+        next = fetch();
+    }
+
+    private VType fetch()
+    {
+        while (true)
+        {
+            while (sample_index < samples.size())
+            {
+                final VType sample = samples.get(sample_index++);
+                final long time = ColumnBlock.toNanos(VTypeHelper.getTimestamp(sample));
+                if (time < start)
+                {
+                    if (! started  &&  (before == null  ||  time >= before_time))
+                    {
+                        before = sample;
+                        before_time = time;
+                    }
+                    continue;
+                }
+                if (time > end)
+                    continue;
+                started = true;
+                if (before != null)
+                {   // Return sample before start, then this one
+                    --sample_index;
+                    final VType result = before;
+                    before = null;
+                    return result;
+                }
+                return sample;
+            }
+            if (block_index >= blocks.size())
+            {
+                final VType result = before;
+                before = null;
+                return result;
+            }
+            samples = decode();
+            sample_index = 0;
+        }
+    }
+
+    /** Decode next block, merged with following blocks that overlap in time
+     *  @return Samples sorted by time
+     */
+    private List<VType> decode()
+    {
+        final List<VType> result = new ArrayList<>();
+        long latest = Long.MIN_VALUE;
+        int merged = 0;
+        do
+        {
+            final ColumnBlock block = blocks.get(block_index++);
+            ++merged;
+            latest = Math.max(latest, block.latest);
+            try
+            {
+                result.addAll(block.decode());
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Cannot read " + block, ex);
+            }
+        }
+        while (block_index < blocks.size()  &&  blocks.get(block_index).earliest <= latest);
+        // Stable sort, nearly linear for samples that are already in order
+        result.sort(Comparator.comparingLong(sample -> ColumnBlock.toNanos(VTypeHelper.getTimestamp(sample))));
+        if (merged < 2)
+            return result;
+        // Drop duplicates, which follow the original sample after sorting
+        final List<VType> unique = new ArrayList<>(result.size());
+        long last = Long.MIN_VALUE;
+        for (VType sample : result)
+        {
+            final long time = ColumnBlock.toNanos(VTypeHelper.getTimestamp(sample));
+            if (time != last)
+                unique.add(sample);
+            last = time;
+        }
+        return unique;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return next != null;
+    }
+
+    @Override
+    public VType next()
+    {
+        if (next == null)
+            throw new NoSuchElementException();
+        final VType result = next;
+        next = fetch();
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.phoebus.archive.reader.ArchiveReader;
+import org.phoebus.archive.reader.ValueIterator;
+
+/** Range-scan throughput of the column archive reader
+ *
+ *  <p>Reads the "column_archive" in the temp directory
+ *  created by the archive engine's ColumnArchiveWriterDemo.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnArchiveReaderDemo
+{
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    private void scan(final ArchiveReader reader, final String name, final Instant start, final Duration range) throws Exception
+    {
+        final long t0 = System.nanoTime();
+        int count = 0;
+        try (ValueIterator values = reader.getRawValues(name, start, start.plus(range)))
+        {
+            while (values.hasNext())
+            {
+                values.next();
+                ++count;
+            }
+        }
+        final double secs = (System.nanoTime() - t0) / 1e9;
+        System.out.format("%-20s %-10s: %7d samples in %6.3f sec = %10.0f samples/sec\n",
+                          name, range, count, secs, count / secs);
+    }
+
+    @Test
+    public void demoRangeScan() throws Exception
+    {
+        final File root = new File(System.getProperty("java.io.tmpdir"), "column_archive");
+        if (! root.isDirectory())
+            return;
+        try (ArchiveReader reader = new ColumnArchiveReaderFactory().createReader(ColumnArchiveReaderFactory.PREFIX + root))
+        {
+            System.out.println(reader.getDescription());
+            System.out.println(reader.getNamesByPattern("*"));
+            // Repeat to see effect of warm-up
+            for (int run=0; run<3; ++run)
+                for (String name : new String[] { "ca://demo:sensor1", "demo:waveform" })
+                {
+                    scan(reader, name, START, Duration.ofDays(1));
+                    scan(reader, name, START.plus(Duration.ofHours(12)), Duration.ofMinutes(10));
+                }
+        }
+    }
+}
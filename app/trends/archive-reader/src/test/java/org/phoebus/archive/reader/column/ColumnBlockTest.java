@@ -0,0 +1,270 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.archive.reader.column;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.EOFException;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.epics.util.array.ListNumber;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VString;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.phoebus.core.vtypes.VTypeHelper;
+
+/** JUnit test of the {@link ColumnBlock} and {@link BitInput}
+ *
+ *  <p>Decodes 'golden' bytes that were computed from the format description.
+ *  The archive engine's ColumnBlockEncoderTest creates the same bytes.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnBlockTest
+{
+    /** Time stamps with each kind of delta of delta, values all 1.0 */
+    private static final String TIMES_BLOCK =
+        "434F4C31000000C70000000D010203040506070801028405051E0776007FF80000000000007FF80000000000007FF800" +
+        "00000000007FF80000000000007FF80000000000007FF80000000000007FF80000000000007FF8000000000000000000" +
+        "00FFFFFFFF0000004201020304050607088000297FFFFE00080000A000038000200000003C0002000000000003FFFFDF" +
+        "FFE00000003000800006FFF00000E010000000000EFF0000000000000000120000000D0000000000084E4F5F414C4152" +
+        "4D0000000A3FF00000000000000000";
+
+    /** Doubles with new and re-used windows of meaningful bits */
+    private static final String DOUBLE_BLOCK =
+        "434F4C31000000AD00000008000000003B9ACA0000000001DCD65000007FF80000000000007FF80000000000007FF800" +
+        "00000000007FF80000000000007FF80000000000007FF80000000000007FF80000000000007FF8000000000000000000" +
+        "00FFFFFFFF0000000E000000003B9ACA00C7735940000000000012000000080000000000084E4F5F414C41524D000000" +
+        "243FF00000000000006C07B02E7FC200000001C007FF8000000000000D0000000000000002";
+
+    private static final String LONG_BLOCK =
+        "434F4C31000000B100000005000000003B9ACA00000000012A05F200047FF80000000000007FF80000000000007FF800" +
+        "00000000007FF80000000000007FF80000000000007FF80000000000007FF80000000000007FF8000000000000000000" +
+        "00FFFFFFFF0000000D000000003B9ACA00C77359400000000012000000050000000000084E4F5F414C41524D00000029" +
+        "0000000000000005FF000000000E1F3FFFFFFFFFFFFFFF001FFFFFFFFFFFFFFFF3FFFFFFFFFFFFFFF8";
+
+    private static final String ARRAY_BLOCK =
+        "434F4C310000009E0000000300000000000000010000000000000003017FF80000000000007FF80000000000007FF800" +
+        "00000000007FF80000000000007FF80000000000007FF80000000000007FF80000000000007FF8000000000000000000" +
+        "00FFFFFFFF0000000B000000000000000180000400000012000000030000000000084E4F5F414C41524D000000180000" +
+        "00023FF0000000000000C25FFF000000000000000100";
+
+    private static final String ENUM_BLOCK =
+        "434F4C310000006700000002000000003B9ACA00000000009502F9000200000002000000034F6666000000024F6E0000" +
+        "000D000000003B9ACA00CB2D05E00000000020000000010000000000084E4F5F414C41524D0000000102030000000448" +
+        "494748000000080000000100000000";
+
+    private static final String STRING_BLOCK =
+        "434F4C310000004D0000000300000002540BE40000000002CB417800030000000D00000002540BE400C7735940000000" +
+        "000D000000030103000000034C4F570000001200000002486900000002486900000002C3BC";
+
+    /** String blocks for seconds 1, 3, 5, then 2, 4 (late samples), then 7, 6 (out of order) */
+    private static final String OVERLAPPING_BLOCKS =
+        "434F4C310000004F00000003000000003B9ACA00000000012A05F200030000000D000000003B9ACA00CEE6B280000000" +
+        "0012000000030000000000084E4F5F414C41524D0000000F000000013100000001330000000135434F4C310000004A00" +
+        "000002000000007735940000000000EE6B2800030000000D0000000077359400CEE6B280000000001200000002000000" +
+        "0000084E4F5F414C41524D0000000A00000001320000000134434F4C310000004A000000020000000165A0BC00000000" +
+        "01A13B8600030000000D00000001A13B8600D88CA6C00000000012000000020000000000084E4F5F414C41524D000000" +
+        "0A00000001370000000136";
+
+    private File file;
+
+    @BeforeEach
+    public void createFile() throws Exception
+    {
+        file = File.createTempFile("column", ".col");
+    }
+
+    @AfterEach
+    public void deleteFile()
+    {
+        file.delete();
+    }
+
+    /** @return Samples decoded from single block */
+    private List<VType> decode(final String hex) throws Exception
+    {
+        Files.write(file.toPath(), HexFormat.of().parseHex(hex));
+        final List<ColumnBlock> blocks = ColumnBlock.scan(file);
+        assertThat(blocks.size(), equalTo(1));
+        final List<VType> samples = blocks.get(0).decode();
+        assertThat(samples.size(), equalTo(blocks.get(0).count));
+        return samples;
+    }
+
+    private static long nanos(final VType sample)
+    {
+        return ColumnBlock.toNanos(VTypeHelper.getTimestamp(sample));
+    }
+
+    private static void checkAlarm(final VType sample, final AlarmSeverity severity, final AlarmStatus status, final String name)
+    {
+        final Alarm alarm = Alarm.alarmOf(sample);
+        assertThat(alarm.getSeverity(), equalTo(severity));
+        assertThat(alarm.getStatus(), equalTo(status));
+        assertThat(alarm.getName(), equalTo(name));
+    }
+
+    @Test
+    public void testBitInput() throws Exception
+    {
+        final BitInput in = new BitInput(HexFormat.of().parseHex("A5FFFFF00123456789ABCDEF01"));
+        assertThat(in.readBit(), equalTo(true));
+        assertThat(in.readBit(), equalTo(false));
+        assertThat(in.read(2), equalTo(0b10L));
+        assertThat(in.read(4), equalTo(0x5L));
+        // 20 bit 0xFFFFF is -1
+        assertThat(in.readSigned(20), equalTo(-1L));
+        // 4 bits 0 and 64 bits across byte boundaries
+        assertThat(in.read(4), equalTo(0L));
+        assertThat(in.read(64), equalTo(0x0123456789ABCDEFL));
+        // 8 bits remain
+        assertThrows(EOFException.class, () -> in.read(9));
+        assertThat(in.readSigned(8), equalTo(1L));
+    }
+
+    @Test
+    public void testTimes() throws Exception
+    {
+        final long[] deltas = { 10, 10, 9, 9 + (1L<<19), 9, 9 + (1L<<31), 9 + (1L<<31) + (1L<<47), 9, 9 + (1L<<20), 9, 9 + (1L<<40), 9 };
+        final List<VType> samples = decode(TIMES_BLOCK);
+        long expected = 0x0102030405060708L;
+        assertThat(nanos(samples.get(0)), equalTo(expected));
+        for (int i=0; i<deltas.length; ++i)
+        {
+            expected += deltas[i];
+            assertThat(nanos(samples.get(i+1)), equalTo(expected));
+            assertThat(((VDouble) samples.get(i+1)).getValue(), equalTo(1.0));
+        }
+    }
+
+    @Test
+    public void testDoubles() throws Exception
+    {
+        final double[] values = { 1.0, 1.0, 1.5, 1.25, 1.0, Math.nextUp(1.0), -2.0, Double.longBitsToDouble(0x4000000000000001L) };
+        final List<VType> samples = decode(DOUBLE_BLOCK);
+        for (int i=0; i<values.length; ++i)
+        {
+            assertThat(samples.get(i), instanceOf(VDouble.class));
+            assertThat(((VDouble) samples.get(i)).getValue(), equalTo(values[i]));
+            assertThat(nanos(samples.get(i)), equalTo(1000000000L * (i+1)));
+            checkAlarm(samples.get(i), AlarmSeverity.NONE, AlarmStatus.NONE, "NO_ALARM");
+        }
+        assertThat(((VDouble) samples.get(0)).getDisplay().getUnit(), equalTo(""));
+    }
+
+    @Test
+    public void testLongs() throws Exception
+    {
+        final long[] values = { 5, 7, Long.MAX_VALUE, Long.MIN_VALUE, -1 };
+        final List<VType> samples = decode(LONG_BLOCK);
+        for (int i=0; i<values.length; ++i)
+        {
+            assertThat(samples.get(i), instanceOf(VLong.class));
+            assertThat(((VLong) samples.get(i)).getValue(), equalTo(values[i]));
+        }
+    }
+
+    @Test
+    public void testArrays() throws Exception
+    {
+        final double[][] values = { { 1.0, 2.0 }, { }, { 2.0 } };
+        final List<VType> samples = decode(ARRAY_BLOCK);
+        for (int i=0; i<values.length; ++i)
+        {
+            assertThat(samples.get(i), instanceOf(VDoubleArray.class));
+            final ListNumber data = ((VDoubleArray) samples.get(i)).getData();
+            assertThat(data.size(), equalTo(values[i].length));
+            for (int e=0; e<values[i].length; ++e)
+                assertThat(data.getDouble(e), equalTo(values[i][e]));
+            assertThat(nanos(samples.get(i)), equalTo(i + 1L));
+        }
+    }
+
+    @Test
+    public void testEnum() throws Exception
+    {
+        final List<VType> samples = decode(ENUM_BLOCK);
+        assertThat(((VEnum) samples.get(0)).getIndex(), equalTo(1));
+        assertThat(((VEnum) samples.get(0)).getDisplay().getChoices(), equalTo(List.of("Off", "On")));
+        checkAlarm(samples.get(0), AlarmSeverity.NONE, AlarmStatus.NONE, "NO_ALARM");
+        assertThat(((VEnum) samples.get(1)).getIndex(), equalTo(0));
+        checkAlarm(samples.get(1), AlarmSeverity.MAJOR, AlarmStatus.RECORD, "HIGH");
+        assertThat(nanos(samples.get(1)), equalTo(2500000000L));
+    }
+
+    @Test
+    public void testStrings() throws Exception
+    {
+        final List<VType> samples = decode(STRING_BLOCK);
+        assertThat(((VString) samples.get(0)).getValue(), equalTo("Hi"));
+        assertThat(((VString) samples.get(1)).getValue(), equalTo("Hi"));
+        assertThat(((VString) samples.get(2)).getValue(), equalTo("ü"));
+        for (VType sample : samples)
+            checkAlarm(sample, AlarmSeverity.MINOR, AlarmStatus.RECORD, "LOW");
+    }
+
+    @Test
+    public void testMergeOverlappingBlocks() throws Exception
+    {
+        Files.write(file.toPath(), HexFormat.of().parseHex(OVERLAPPING_BLOCKS));
+        final List<ColumnBlock> blocks = ColumnBlock.scan(file);
+        assertThat(blocks.size(), equalTo(3));
+
+        // Samples are returned in time order
+        final List<String> values = new ArrayList<>();
+        try (ColumnValueIterator iter = new ColumnValueIterator(blocks, Instant.ofEpochSecond(0), Instant.ofEpochSecond(10)))
+        {
+            while (iter.hasNext())
+                values.add(((VString) iter.next()).getValue());
+        }
+        assertThat(values, equalTo(List.of("1", "2", "3", "4", "5", "6", "7")));
+
+        // Sample before start, then samples in range
+        values.clear();
+        try (ColumnValueIterator iter = new ColumnValueIterator(blocks, Instant.ofEpochSecond(3, 500000000), Instant.ofEpochSecond(6)))
+        {
+            while (iter.hasNext())
+                values.add(((VString) iter.next()).getValue());
+        }
+        assertThat(values, equalTo(List.of("3", "4", "5", "6")));
+    }
+
+    @Test
+    public void testEstimateCount() throws Exception
+    {
+        Files.write(file.toPath(), HexFormat.of().parseHex(OVERLAPPING_BLOCKS));
+        final List<ColumnBlock> blocks = ColumnBlock.scan(file);
+        final long second = 1000000000L;
+
+        // All blocks are fully in range
+        assertThat(ColumnArchiveReader.estimateCount(blocks, 0, 10*second), equalTo(7L));
+        // Blocks 1..5 and 2..4 partially, 6..7 only touches the range
+        assertThat(ColumnArchiveReader.estimateCount(blocks, 3*second + second/2, 6*second), equalTo(2L));
+        // No block in range
+        assertThat(ColumnArchiveReader.estimateCount(blocks, 8*second, 10*second), equalTo(0L));
+    }
+}
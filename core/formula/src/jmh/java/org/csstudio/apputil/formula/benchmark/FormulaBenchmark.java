@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.csstudio.apputil.formula.Formula;
+import org.csstudio.apputil.formula.VariableNode;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Evaluation of formulas from the unit tests,
+ *  compiled and interpreted
+ *
+ *  <p>Run with <code>-prof gc</code> to compare the allocation rate.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FormulaBenchmark
+{
+    /** Formulas by name */
+    private static final Map<String, String> formulas = Map.of(
+        "product",  "0.5 * volt * curr",
+        "max",      "max(volt, curr, -2)",
+        "compare",  "volt <= -1  ||  volt > 10",
+        "if",       "volt==0&&curr==1?0:1",
+        "math",     "sqrt(volt*volt + curr*curr) * 2*PI - atan2(curr, volt)");
+
+    @Param({ "product", "max", "compare", "if", "math" })
+    public String formula;
+
+    private Formula compiled;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        final VariableNode[] variables = new VariableNode[]
+        {
+            new VariableNode("volt", VDouble.of(2.0, Alarm.none(), Time.now(), Display.none())),
+            new VariableNode("curr", VDouble.of(3.0, Alarm.none(), Time.now(), Display.none()))
+        };
+        compiled = new Formula(formulas.get(formula), variables);
+    }
+
+    /** @return Value of compiled formula */
+    @Benchmark
+    public VType compiled()
+    {
+        return compiled.eval();
+    }
+
+    /** @return Value of interpreted formula */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dorg.csstudio.apputil.formula.compile=false")
+    public VType interpreted()
+    {
+        return compiled.eval();
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@ package org.csstudio.apputil.formula;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Vector;
@@ -37,6 +38,8 @@ import org.csstudio.apputil.formula.node.RndNode;
 import org.csstudio.apputil.formula.node.SPIFuncNode;
 import org.csstudio.apputil.formula.node.SubNode;
 import org.csstudio.apputil.formula.spi.FormulaFunction;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VNumber;
 import org.epics.vtype.VType;
 
 /** A formula interpreter.
@@ -75,6 +78,11 @@ import org.epics.vtype.VType;
  *  <p>The formula string is parsed into a tree, so that subsequent
  *  evaluations, possibly with modified values for input variables,
  *  are reasonably fast.
+ *  When the formula only uses numbers and functions that support it,
+ *  the tree is also compiled into {@link ScalarNode}s which are used
+ *  while all variables hold scalar numbers.
+ *  Setting the system property <code>org.csstudio.apputil.formula.compile=false</code>
+ *  disables the compilation.
  *
  *  <p>Functions can be provided via the {@link FormulaFunction} SPI.
  *
@@ -87,11 +95,20 @@ public class Formula implements Node
     /** Logger for formula messages */
     public static final Logger logger = Logger.getLogger(Formula.class.getPackageName());
 
+    /** Compile formulas? */
+    private static final boolean enable_compiler = Boolean.parseBoolean(System.getProperty("org.csstudio.apputil.formula.compile", "true"));
+
     /** The original formula that we parsed */
     final private String formula;
 
     final private Node tree;
 
+    /** Compiled tree or <code>null</code> */
+    private ScalarNode compiled;
+
+    /** Variables used by the compiled tree */
+    private VariableNode[] compiled_variables;
+
     private static final VariableNode constants[] = new VariableNode[]
     {
         new VariableNode("E", Math.E),
@@ -145,6 +162,7 @@ public class Formula implements Node
         }
         this.determine_variables = false;
         tree = parse();
+        compile();
     }
 
     /** Create formula from string.
@@ -159,6 +177,7 @@ public class Formula implements Node
         this.variables = new ArrayList<>();
         this.determine_variables = determine_variables;
         tree = parse();
+        compile();
     }
 
     /** @return Original formula that got parsed. */
@@ -174,11 +193,37 @@ public class Formula implements Node
         return variables.toArray(result);
     }
 
+    /** @return <code>true</code> if formula was compiled for scalar numbers */
+    public boolean isCompiled()
+    {
+        return compiled != null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public VType eval()
     {
-        return tree.eval();
+        if (compiled == null)
+            return tree.eval();
+
+        // Read each variable once.
+        // Use interpreter unless all are scalar numbers.
+        final VType[] values = new VType[compiled_variables.length];
+        for (int i=0; i<values.length; ++i)
+            if (! ((values[i] = compiled_variables[i].eval()) instanceof VNumber))
+                return tree.eval();
+
+        final VType value = compiled.passthrough(values);
+        if (value != null)
+            return value;
+        return VDouble.of(compiled.eval(values), compiled.alarm(values), compiled.time(values), compiled.display(values));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        return tree.compile(variables);
     }
 
     /** {@inheritDoc} */
@@ -570,6 +615,26 @@ public class Formula implements Node
         return n;
     }
 
+    /** Compile parsed formula */
+    private void compile()
+    {
+        final List<VariableNode> used = new ArrayList<>();
+        if (enable_compiler)
+        {
+            try
+            {
+                compiled = tree.compile(used);
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Cannot compile " + formula, ex);
+                compiled = null;
+            }
+        }
+        compiled_variables = used.toArray(new VariableNode[used.size()]);
+        logger.log(Level.FINE, () -> (compiled != null ? "Compiled " : "Interpreting ") + formula);
+    }
+
     /** Parse formula.
      */
     private Node parse() throws Exception
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,8 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula;
 
+import java.util.List;
+
 import org.epics.vtype.VType;
 
 /** A node used to build a formula.
@@ -31,4 +33,17 @@ public interface Node
      *  @return <code>true</code> if given node name was found under this one.
      */
     public boolean hasSubnode(String name);
+
+    /** Compile the node for evaluation with scalar numbers
+     *
+     *  @param variables Variables used by the compiled node.
+     *                   {@link VariableNode}s add themselves to the list,
+     *                   and their index in the list is used to access
+     *                   their value when evaluating the {@link ScalarNode}.
+     *  @return {@link ScalarNode} or <code>null</code> if node cannot be compiled
+     */
+    public default ScalarNode compile(final List<VariableNode> variables)
+    {
+        return null;
+    }
 }
@@ -0,0 +1,474 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.IntStream;
+
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VType;
+
+/** Compiled {@link Node} for scalar numbers
+ *
+ *  <p>A {@link Node} tree evaluates to a {@link VType} at each step.
+ *  For formulas that only use numeric scalars,
+ *  the tree can be compiled into {@link ScalarNode}s
+ *  which compute plain <code>double</code> values.
+ *
+ *  <p>Alarm, time and display of the result are selected
+ *  the same way as in the {@link Node} tree:
+ *  Operators pass the highest alarm and latest time of their
+ *  arguments on, with the display of the first argument,
+ *  while functions return a new value without alarm, time stamped 'now'.
+ *  Since that only depends on the structure of the tree,
+ *  it is determined when compiling, so for each evaluation
+ *  the result's alarm, time and display are picked from
+ *  the variables without walking the tree again.
+ *  Only conditionals select the metadata of one branch
+ *  based on the current values.
+ *
+ *  <p>Variables are accessed by index into an array
+ *  of {@link VNumber} values that the {@link Formula}
+ *  reads once per evaluation.
+ *
+ *  @author Kay Kasemir
+ */
+public abstract class ScalarNode
+{
+    /** Alarm, time and display of a node that only depend on its structure
+     *
+     *  @param variables Indices of variables that contribute alarm and time
+     *  @param combine Combine alarms? Otherwise pass alarm of single variable on
+     *  @param alarm Alarm of constants, used when there are no variables or when combining
+     *  @param time Latest time of constants or <code>null</code>
+     *  @param now Include current time?
+     *  @param display_variable Index of variable that provides the display, or -1
+     *  @param display Display to use when there is no display_variable
+     */
+    private static record Metadata(int[] variables, boolean combine,
+                                   Alarm alarm, Time time, boolean now,
+                                   int display_variable, Display display)
+    {
+        /** @param a Metadata of first argument
+         *  @param b Metadata of second argument
+         *  @return Metadata for operation on both, or <code>null</code>
+         */
+        static Metadata combine(final Metadata a, final Metadata b)
+        {
+            if (a == null  ||  b == null)
+                return null;
+            final int[] variables = IntStream.concat(Arrays.stream(a.variables), Arrays.stream(b.variables))
+                                             .distinct()
+                                             .toArray();
+            final Time time;
+            if (a.time == null)
+                time = b.time;
+            else if (b.time == null)
+                time = a.time;
+            else
+                time = a.time.getTimestamp().isAfter(b.time.getTimestamp()) ? a.time : b.time;
+            return new Metadata(variables, true, higher(a.alarm, b.alarm), time, a.now || b.now,
+                                a.display_variable, a.display);
+        }
+    }
+
+    /** Metadata or <code>null</code> if it depends on the values */
+    private final Metadata metadata;
+
+    private ScalarNode(final Metadata metadata)
+    {
+        this.metadata = metadata;
+    }
+
+    /** @param a Alarm
+     *  @param b Other alarm
+     *  @return Higher alarm, first one if they have the same severity
+     */
+    private static Alarm higher(final Alarm a, final Alarm b)
+    {
+        return b.getSeverity().compareTo(a.getSeverity()) > 0 ? b : a;
+    }
+
+    /** @param a Time
+     *  @param b Other time
+     *  @return Later time, second one if they are the same
+     */
+    private static Time later(final Time a, final Time b)
+    {
+        return a.getTimestamp().isAfter(b.getTimestamp()) ? a : b;
+    }
+
+    /** @param values Variable values
+     *  @return Value of the node
+     */
+    public abstract double eval(VType[] values);
+
+    /** @param values Variable values
+     *  @return Alarm of the node's value
+     */
+    public Alarm alarm(final VType[] values)
+    {
+        final int[] variables = metadata.variables;
+        if (! metadata.combine)
+            return variables.length > 0 ? Alarm.alarmOf(values[variables[0]]) : metadata.alarm;
+        Alarm alarm = metadata.alarm;
+        for (int i=0; i<variables.length; ++i)
+        {
+            final Alarm other = Alarm.alarmOf(values[variables[i]]);
+            if (other.getSeverity().compareTo(alarm.getSeverity()) > 0)
+                alarm = other;
+        }
+        return alarm;
+    }
+
+    /** @param values Variable values
+     *  @return Time of the node's value
+     */
+    public Time time(final VType[] values)
+    {
+        Time time = metadata.now ? Time.now() : metadata.time;
+        for (int index : metadata.variables)
+        {
+            final Time other = Time.timeOf(values[index]);
+            time = time == null ? other : later(time, other);
+        }
+        return time;
+    }
+
+    /** @param values Variable values
+     *  @return Display of the node's value
+     */
+    public Display display(final VType[] values)
+    {
+        if (metadata.display_variable >= 0)
+            return Display.displayOf(values[metadata.display_variable]);
+        return metadata.display;
+    }
+
+    /** Some nodes return one of their inputs as-is
+     *  instead of computing a new value.
+     *
+     *  @param values Variable values
+     *  @return Input returned by the node or <code>null</code> if node computes a new value
+     */
+    public VType passthrough(final VType[] values)
+    {
+        return null;
+    }
+
+    /** @return <code>true</code> if the node always has the same value */
+    public boolean isConstant()
+    {
+        return false;
+    }
+
+    /** @param value Constant value
+     *  @return {@link ScalarNode} for constant, or <code>null</code> if value is not a number
+     */
+    public static ScalarNode constant(final VType value)
+    {
+        if (! (value instanceof VNumber))
+            return null;
+        final double number = ((VNumber) value).getValue().doubleValue();
+        return new ScalarNode(new Metadata(new int[0], false, Alarm.alarmOf(value), Time.timeOf(value), false,
+                                           -1, Display.displayOf(value)))
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return number;
+            }
+
+            @Override
+            public VType passthrough(final VType[] values)
+            {
+                return value;
+            }
+
+            @Override
+            public boolean isConstant()
+            {
+                return true;
+            }
+        };
+    }
+
+    /** Fold a node that only uses constants
+     *
+     *  <p>Only the value is computed once.
+     *  Alarm, time and display are still determined for each evaluation
+     *  as for the original node, so for example a function
+     *  of constants is still time stamped 'now'.
+     *
+     *  @param node Node that only uses constants
+     *  @return {@link ScalarNode} with pre-computed value
+     */
+    public static ScalarNode fold(final ScalarNode node)
+    {
+        // Metadata of conditional depends on the values, keep evaluating
+        if (node.metadata == null)
+            return node;
+        final double number = node.eval(null);
+        return new ScalarNode(node.metadata)
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return number;
+            }
+
+            @Override
+            public boolean isConstant()
+            {
+                return true;
+            }
+        };
+    }
+
+    /** @param index Index of variable
+     *  @return {@link ScalarNode} that reads the variable
+     */
+    public static ScalarNode variable(final int index)
+    {
+        return new ScalarNode(new Metadata(new int[] { index }, false, Alarm.none(), null, false, index, null))
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return ((VNumber) values[index]).getValue().doubleValue();
+            }
+
+            @Override
+            public VType passthrough(final VType[] values)
+            {
+                return values[index];
+            }
+        };
+    }
+
+    /** Unary operation, passing alarm, time and display of the argument on
+     *
+     *  @param op Operation
+     *  @param arg Argument
+     *  @return {@link ScalarNode} for operation
+     */
+    public static ScalarNode unary(final DoubleUnaryOperator op, final ScalarNode arg)
+    {
+        if (arg.metadata != null)
+            return new ScalarNode(arg.metadata)
+            {
+                @Override
+                public double eval(final VType[] values)
+                {
+                    return op.applyAsDouble(arg.eval(values));
+                }
+            };
+
+        // Metadata depends on value
+        return new ScalarNode(null)
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return op.applyAsDouble(arg.eval(values));
+            }
+
+            @Override
+            public Alarm alarm(final VType[] values)
+            {
+                return arg.alarm(values);
+            }
+
+            @Override
+            public Time time(final VType[] values)
+            {
+                return arg.time(values);
+            }
+
+            @Override
+            public Display display(final VType[] values)
+            {
+                return arg.display(values);
+            }
+        };
+    }
+
+    /** Binary operation with highest alarm and latest time
+     *  of both arguments, display of the first argument
+     *
+     *  @param op Operation
+     *  @param a First argument
+     *  @param b Second argument
+     *  @return {@link ScalarNode} for operation
+     */
+    public static ScalarNode binary(final DoubleBinaryOperator op, final ScalarNode a, final ScalarNode b)
+    {
+        final Metadata metadata = Metadata.combine(a.metadata, b.metadata);
+        if (metadata != null)
+            return new ScalarNode(metadata)
+            {
+                @Override
+                public double eval(final VType[] values)
+                {
+                    return op.applyAsDouble(a.eval(values), b.eval(values));
+                }
+            };
+
+        // Metadata depends on values
+        return new ScalarNode(null)
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return op.applyAsDouble(a.eval(values), b.eval(values));
+            }
+
+            @Override
+            public Alarm alarm(final VType[] values)
+            {
+                return higher(higher(Alarm.none(), a.alarm(values)), b.alarm(values));
+            }
+
+            @Override
+            public Time time(final VType[] values)
+            {
+                return later(a.time(values), b.time(values));
+            }
+
+            @Override
+            public Display display(final VType[] values)
+            {
+                return a.display(values);
+            }
+        };
+    }
+
+    /** Metadata of a function's result */
+    private static final Metadata FUNCTION = new Metadata(new int[0], false, Alarm.none(), null, true, -1, Display.none());
+
+    /** Function that computes a new value without alarm or display, time stamped 'now'
+     *
+     *  @param function Function
+     *  @param args Arguments
+     *  @return {@link ScalarNode} for function
+     */
+    public static ScalarNode function(final Function function, final ScalarNode... args)
+    {
+        return new ScalarNode(FUNCTION)
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return function.calc(args, values);
+            }
+        };
+    }
+
+    /** Function for {@link ScalarNode#function} */
+    @FunctionalInterface
+    public interface Function
+    {
+        /** @param args Arguments
+         *  @param values Variable values
+         *  @return Result of function
+         */
+        double calc(ScalarNode[] args, VType[] values);
+    }
+
+    /** @param op Operation
+     *  @param arg Argument
+     *  @return {@link ScalarNode} for a function with one argument
+     */
+    public static ScalarNode function(final DoubleUnaryOperator op, final ScalarNode arg)
+    {
+        return new ScalarNode(FUNCTION)
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return op.applyAsDouble(arg.eval(values));
+            }
+        };
+    }
+
+    /** @param op Operation
+     *  @param a First argument
+     *  @param b Second argument
+     *  @return {@link ScalarNode} for a function with two arguments
+     */
+    public static ScalarNode function(final DoubleBinaryOperator op, final ScalarNode a, final ScalarNode b)
+    {
+        return new ScalarNode(FUNCTION)
+        {
+            @Override
+            public double eval(final VType[] values)
+            {
+                return op.applyAsDouble(a.eval(values), b.eval(values));
+            }
+        };
+    }
+
+    /** 'cond ? yes : no', returning the 'cond' if it's not a finite number
+     *
+     *  @param cond Condition
+     *  @param yes Result for non-zero condition
+     *  @param no Result for zero condition
+     *  @return {@link ScalarNode} for condition
+     */
+    public static ScalarNode conditional(final ScalarNode cond, final ScalarNode yes, final ScalarNode no)
+    {
+        return new ScalarNode(null)
+        {
+            private ScalarNode select(final VType[] values)
+            {
+                final double c = cond.eval(values);
+                if (Double.isFinite(c))
+                    return c != 0.0 ? yes : no;
+                return cond;
+            }
+
+            @Override
+            public double eval(final VType[] values)
+            {
+                final double c = cond.eval(values);
+                if (Double.isFinite(c))
+                    return c != 0.0 ? yes.eval(values) : no.eval(values);
+                return c;
+            }
+
+            @Override
+            public Alarm alarm(final VType[] values)
+            {
+                return select(values).alarm(values);
+            }
+
+            @Override
+            public Time time(final VType[] values)
+            {
+                return select(values).time(values);
+            }
+
+            @Override
+            public Display display(final VType[] values)
+            {
+                return select(values).display(values);
+            }
+
+            @Override
+            public VType passthrough(final VType[] values)
+            {
+                return select(values).passthrough(values);
+            }
+        };
+    }
+}
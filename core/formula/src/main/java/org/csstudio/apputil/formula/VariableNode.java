@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,8 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula;
 
+import java.util.List;
+
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -83,6 +85,19 @@ public class VariableNode implements Node
         return value;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        int index = variables.indexOf(this);
+        if (index < 0)
+        {
+            index = variables.size();
+            variables.add(this);
+        }
+        return ScalarNode.variable(index);
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasSubnode(final Node node)
@@ -1,7 +1,5 @@
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ArrayDouble;
-import org.epics.util.array.ListNumber;
 import org.epics.vtype.VNumberArray;
 import org.epics.vtype.VType;
 import org.epics.vtype.Alarm;
@@ -41,14 +39,7 @@ public class ArrayCumSumFunction extends BaseArrayFunction {
     public VType compute(VType... args) {
         if (VTypeHelper.isNumericArray(args[0])) {
             VNumberArray array = (VNumberArray) args[0];
-            ListNumber data = array.getData();
-            double[] result = new double[data.size()];
-            double sum = 0;
-            for (int i = 0; i < data.size(); i++) {
-                sum += data.getDouble(i);
-                result[i] = sum;
-            }
-            return VNumberArray.of(ArrayDouble.of(result), Alarm.none(), Time.now(), Display.none());
+            return VNumberArray.of(ArrayKernels.cumulativeSum(array.getData()), Alarm.none(), Time.now(), Display.none());
         } else {
             return DEFAULT_NAN_DOUBLE_ARRAY;
         }
@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -69,7 +68,7 @@ public class ArrayDivisionFunction extends BaseArrayFunction{
                         getName()));
             }
             return VNumberArray.of(
-                    ListMath.divide(array1.getData(), array2.getData()),
+                    ArrayKernels.divide(array1.getData(), array2.getData()),
                     Alarm.none(),
                     Time.now(),
                     Display.none());
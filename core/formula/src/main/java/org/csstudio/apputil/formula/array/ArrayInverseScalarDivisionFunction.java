@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -66,7 +65,7 @@ public class ArrayInverseScalarDivisionFunction extends BaseArrayFunction{
             VNumber factor = (VNumber) args[0];
 
             return VNumberArray.of(
-                    ListMath.inverseRescale(array.getData(), factor.getValue().doubleValue(), 0),
+                    ArrayKernels.inverseRescale(array.getData(), factor.getValue().doubleValue(), 0),
                     Alarm.none(),
                     Time.now(),
                     Display.none());
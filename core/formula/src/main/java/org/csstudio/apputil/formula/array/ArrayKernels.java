@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula.array;
+
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayFloat;
+import org.epics.util.array.ArrayInteger;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VType;
+import org.phoebus.core.vtypes.VTypeHelper;
+
+/**
+ * Element-wise array operations on primitive <code>double[]</code>.
+ *
+ * <p>The {@link org.epics.util.array.ListMath} operations return views
+ * that re-compute each element through virtual calls whenever
+ * it is accessed, and the input is also read element by element.
+ * The kernels copy the input into a new <code>double[]</code> once
+ * and then update that array in place, so each result is computed
+ * exactly once in a plain loop that the JIT can unroll and vectorize.
+ *
+ * <p>Arrays with at least {@link #PARALLEL_THRESHOLD} elements
+ * are processed in chunks on the common fork/join pool.
+ *
+ * @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class ArrayKernels {
+
+    /** Minimum array size for parallel execution */
+    static final int PARALLEL_THRESHOLD = Integer.getInteger("org.csstudio.apputil.formula.array.parallel", 100_000);
+
+    /** Minimum number of elements per chunk of a parallel execution */
+    private static final int MIN_CHUNK = 16 * 1024;
+
+    /** Operation on a range of array elements */
+    @FunctionalInterface
+    private interface Kernel {
+        /**
+         * @param start Index of first element
+         * @param end   Index after last element
+         */
+        void apply(int start, int end);
+    }
+
+    private ArrayKernels() {
+    }
+
+    /**
+     * @param data Numbers
+     * @return New <code>double[]</code> with a copy of the numbers
+     */
+    static double[] toDoubles(final ListNumber data) {
+        final int size = data.size();
+        if (data instanceof ArrayDouble)
+            return data.toArray(new double[size]);
+        final double[] result = new double[size];
+        if (data instanceof ArrayFloat) {
+            final ArrayFloat floats = (ArrayFloat) data;
+            for (int i = 0; i < size; ++i)
+                result[i] = floats.getFloat(i);
+        } else if (data instanceof ArrayInteger) {
+            final ArrayInteger ints = (ArrayInteger) data;
+            for (int i = 0; i < size; ++i)
+                result[i] = ints.getInt(i);
+        } else
+            for (int i = 0; i < size; ++i)
+                result[i] = data.getDouble(i);
+        return result;
+    }
+
+    /**
+     * @param value Numeric array
+     * @return New <code>double[]</code> with a copy of the array elements
+     */
+    static double[] toDoubles(final VType value) {
+        if (value instanceof VNumberArray)
+            return toDoubles(((VNumberArray) value).getData());
+        return VTypeHelper.toDoubles(value);
+    }
+
+    /**
+     * Run kernel on all elements, in parallel for large arrays
+     *
+     * @param size   Number of elements
+     * @param kernel Kernel to run on ranges of elements
+     */
+    private static void run(final int size, final Kernel kernel) {
+        if (size < PARALLEL_THRESHOLD) {
+            kernel.apply(0, size);
+            return;
+        }
+        final int chunks = Math.max(1, Math.min(4 * ForkJoinPool.getCommonPoolParallelism(), size / MIN_CHUNK));
+        IntStream.range(0, chunks)
+                 .parallel()
+                 .forEach(chunk -> kernel.apply((int) ((long) size * chunk / chunks),
+                                                (int) ((long) size * (chunk + 1) / chunks)));
+    }
+
+    /**
+     * @param data   Numbers
+     * @param factor Factor
+     * @param offset Offset
+     * @return <code>data[i] * factor + offset</code>
+     */
+    static ListDouble rescale(final ListNumber data, final double factor, final double offset) {
+        final double[] result = toDoubles(data);
+        run(result.length, (start, end) -> {
+            for (int i = start; i < end; ++i)
+                result[i] = result[i] * factor + offset;
+        });
+        return ArrayDouble.of(result);
+    }
+
+    /**
+     * @param data   Numbers
+     * @param factor Factor
+     * @param offset Offset
+     * @return <code>factor / data[i] + offset</code>
+     */
+    static ListDouble inverseRescale(final ListNumber data, final double factor, final double offset) {
+        final double[] result = toDoubles(data);
+        run(result.length, (start, end) -> {
+            for (int i = start; i < end; ++i)
+                result[i] = factor / result[i] + offset;
+        });
+        return ArrayDouble.of(result);
+    }
+
+    /**
+     * @param data     Numbers
+     * @param exponent Exponent
+     * @return <code>pow(data[i], exponent)</code>
+     */
+    static ListDouble pow(final ListNumber data, final double exponent) {
+        final double[] result = toDoubles(data);
+        run(result.length, (start, end) -> {
+            for (int i = start; i < end; ++i)
+                result[i] = Math.pow(result[i], exponent);
+        });
+        return ArrayDouble.of(result);
+    }
+
+    /**
+     * @param a Numbers
+     * @param b Numbers, same size as <code>a</code>
+     * @return <code>a[i] * b[i]</code>
+     */
+    static ListDouble multiply(final ListNumber a, final ListNumber b) {
+        final double[] result = toDoubles(a);
+        final double[] other = toDoubles(b);
+        run(result.length, (start, end) -> {
+            for (int i = start; i < end; ++i)
+                result[i] *= other[i];
+        });
+        return ArrayDouble.of(result);
+    }
+
+    /**
+     * @param a Numbers
+     * @param b Numbers, same size as <code>a</code>
+     * @return <code>a[i] / b[i]</code>
+     */
+    static ListDouble divide(final ListNumber a, final ListNumber b) {
+        final double[] result = toDoubles(a);
+        final double[] other = toDoubles(b);
+        run(result.length, (start, end) -> {
+            for (int i = start; i < end; ++i)
+                result[i] /= other[i];
+        });
+        return ArrayDouble.of(result);
+    }
+
+    /**
+     * @param value Numeric array
+     * @return Count, sum, minimum, maximum and average
+     */
+    static DoubleSummaryStatistics statistics(final VType value) {
+        final double[] values = toDoubles(value);
+        if (values.length < PARALLEL_THRESHOLD)
+            return Arrays.stream(values).summaryStatistics();
+        return Arrays.stream(values).parallel().summaryStatistics();
+    }
+
+    /**
+     * @param data Numbers
+     * @return Sum of all elements
+     */
+    static double total(final ListNumber data) {
+        final double[] values = toDoubles(data);
+        double sum = 0.0;
+        for (int i = 0; i < values.length; ++i)
+            sum += values[i];
+        return sum;
+    }
+
+    /**
+     * @param data Numbers
+     * @return <code>data[0] + ... + data[i]</code>
+     */
+    static ListDouble cumulativeSum(final ListNumber data) {
+        final double[] result = toDoubles(data);
+        double sum = 0.0;
+        for (int i = 0; i < result.length; ++i) {
+            sum += result[i];
+            result[i] = sum;
+        }
+        return ArrayDouble.of(result);
+    }
+}
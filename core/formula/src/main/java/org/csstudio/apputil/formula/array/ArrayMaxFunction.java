@@ -26,7 +26,6 @@ import org.epics.vtype.VDouble;
 import org.epics.vtype.VType;
 import org.phoebus.core.vtypes.VTypeHelper;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -57,7 +56,7 @@ public class ArrayMaxFunction extends BaseArrayFunction {
     {
         if (VTypeHelper.isNumericArray(args[0]))
         {
-            return VDouble.of(Arrays.stream(VTypeHelper.toDoubles(args[0])).summaryStatistics().getMax(),
+            return VDouble.of(ArrayKernels.statistics(args[0]).getMax(),
                               Alarm.none(),
                               Time.now(),
                               Display.none());
@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -68,7 +67,7 @@ public class ArrayMultiplicationFunction extends BaseArrayFunction{
                         getName()));
             }
             return VNumberArray.of(
-                    ListMath.multiply(array1.getData(), array2.getData()),
+                    ArrayKernels.multiply(array1.getData(), array2.getData()),
                     Alarm.none(),
                     Time.now(),
                     Display.none());
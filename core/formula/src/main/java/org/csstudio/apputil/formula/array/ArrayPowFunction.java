@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -62,7 +61,7 @@ public class ArrayPowFunction extends BaseArrayFunction {
             VNumberArray array = (VNumberArray)args[0];
             VNumber exponent = (VNumber)args[1];
             return VNumberArray.of(
-                    ListMath.pow(array.getData(), exponent.getValue().doubleValue()),
+                    ArrayKernels.pow(array.getData(), exponent.getValue().doubleValue()),
                     Alarm.none(),
                     Time.now(),
                     Display.none());
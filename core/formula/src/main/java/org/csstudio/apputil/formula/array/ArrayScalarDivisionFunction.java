@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -65,7 +64,7 @@ public class ArrayScalarDivisionFunction extends BaseArrayFunction{
             VNumber factor = (VNumber) args[1];
 
             return VNumberArray.of(
-                    ListMath.rescale(array1.getData(), 1d / factor.getValue().doubleValue(), 0),
+                    ArrayKernels.rescale(array1.getData(), 1d / factor.getValue().doubleValue(), 0),
                     Alarm.none(),
                     Time.now(),
                     Display.none());
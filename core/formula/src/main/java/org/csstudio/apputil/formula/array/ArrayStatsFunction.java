@@ -26,7 +26,6 @@ import org.epics.vtype.VStatistics;
 import org.epics.vtype.VType;
 import org.phoebus.core.vtypes.VTypeHelper;
 
-import java.util.Arrays;
 import java.util.DoubleSummaryStatistics;
 import java.util.List;
 
@@ -59,7 +58,7 @@ public class ArrayStatsFunction extends BaseArrayFunction {
     {
         if (VTypeHelper.isNumericArray(args[0]))
         {
-            DoubleSummaryStatistics stats = Arrays.stream(VTypeHelper.toDoubles(args[0])).summaryStatistics();
+            DoubleSummaryStatistics stats = ArrayKernels.statistics(args[0]);
             return VStatistics.of(stats.getAverage(),
                     Double.NaN,
                     stats.getMin(),
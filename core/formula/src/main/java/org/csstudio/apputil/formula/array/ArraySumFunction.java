@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -57,7 +56,7 @@ public class ArraySumFunction extends BaseArrayFunction {
             VNumberArray array = (VNumberArray)args[0];
             VNumber offset = (VNumber)args[1];
             return VNumberArray.of(
-                    ListMath.rescale(array.getData(), 1, offset.getValue().doubleValue()),
+                    ArrayKernels.rescale(array.getData(), 1, offset.getValue().doubleValue()),
                     Alarm.none(),
                     Time.now(),
                     Display.none());
@@ -1,6 +1,5 @@
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListNumber;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -35,11 +34,7 @@ public class ArrayTotalFunction extends BaseArrayFunction {
     public VType compute(VType... args) {
         if (VTypeHelper.isNumericArray(args[0])) {
             VNumberArray array = (VNumberArray) args[0];
-            ListNumber data = array.getData();
-            double sum = 0.0;
-            for (int i = 0; i < data.size(); i++) {
-                sum += data.getDouble(i);
-            }
+            double sum = ArrayKernels.total(array.getData());
             return VNumber.of(sum, Alarm.none(), Time.now(), Display.none());
         }
         else {
@@ -21,7 +21,6 @@ package org.csstudio.apputil.formula.array;
 
 
 import org.epics.util.array.ArrayInteger;
-import org.epics.util.array.IteratorNumber;
 import org.epics.util.stats.Range;
 import org.epics.util.stats.Ranges;
 import org.epics.util.stats.Statistics;
@@ -98,13 +97,12 @@ public class HistogramOfFunction extends BaseArrayFunction {
                 xRange = stats.getRange();
             }
 
-            IteratorNumber newValues = numberArray.getData().iterator();
+            double[] newValues = ArrayKernels.toDoubles(numberArray.getData());
             double previousMaxCount = Double.MIN_VALUE;
 
             int[] binData = new int[nBins];
             double maxCount = 0;
-            while (newValues.hasNext()) {
-                double value = newValues.nextDouble();
+            for (double value : newValues) {
                 // Check value in range
                 if (xRange.contains(value)) {
 
@@ -19,7 +19,6 @@
 
 package org.csstudio.apputil.formula.array;
 
-import org.epics.util.array.ListMath;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -75,7 +74,7 @@ public class ScaleArrayFormulaFunction extends BaseArrayFunction {
             double offset = args.length == 3 ? ((VNumber)args[2]).getValue().doubleValue() : 0.0;
 
             return VNumberArray.of(
-                    ListMath.rescale(array.getData(),
+                    ArrayKernels.rescale(array.getData(),
                             factor.getValue().doubleValue(),
                             offset),
                     Alarm.none(),
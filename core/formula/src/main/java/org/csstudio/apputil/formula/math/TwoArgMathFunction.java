@@ -9,6 +9,7 @@ package org.csstudio.apputil.formula.math;
 
 import java.util.List;
 
+import org.csstudio.apputil.formula.ScalarNode;
 import org.csstudio.apputil.formula.spi.FormulaFunction;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
@@ -71,4 +72,10 @@ class TwoArgMathFunction implements FormulaFunction
         final double value = function.calc(a, b);
         return VDouble.of(value, Alarm.none(), Time.now(), Display.none());
     }
+
+    @Override
+    public ScalarNode compile(final ScalarNode... args)
+    {
+        return ScalarNode.function(function::calc, args[0], args[1]);
+    }
 }
@@ -7,7 +7,11 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula.node;
 
+import java.util.List;
+
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 import org.epics.util.array.ArrayDouble;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
@@ -80,6 +84,21 @@ abstract class AbstractBinaryNode implements Node
      */
     abstract protected double calc(double a, double b);
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        final ScalarNode a = left.compile(variables);
+        final ScalarNode b = right.compile(variables);
+        if (a == null  ||  b == null)
+            return null;
+        final ScalarNode result = ScalarNode.binary(this::calc, a, b);
+        // Fold constants
+        if (a.isConstant()  &&  b.isConstant())
+            return ScalarNode.fold(result);
+        return result;
+    }
+
     /** {@inheritDoc} */
     @Override
     final public boolean hasSubnode(final Node node)
@@ -7,7 +7,11 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula.node;
 
+import java.util.List;
+
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 import org.epics.util.array.ArrayDouble;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
@@ -46,6 +50,20 @@ abstract class AbstractUnaryNode implements Node
 
     abstract protected double calc(double a);
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        final ScalarNode a = n.compile(variables);
+        if (a == null)
+            return null;
+        final ScalarNode result = ScalarNode.unary(this::calc, a);
+        // Fold constants
+        if (a.isConstant())
+            return ScalarNode.fold(result);
+        return result;
+    }
+
     /** {@inheritDoc} */
     @Override
     final public boolean hasSubnode(final Node node)
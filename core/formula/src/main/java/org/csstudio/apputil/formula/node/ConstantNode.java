@@ -7,7 +7,11 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula.node;
 
+import java.util.List;
+
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -47,6 +51,14 @@ public class ConstantNode implements Node
         return value;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        // null for text constants
+        return ScalarNode.constant(value);
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasSubnode(final Node node)
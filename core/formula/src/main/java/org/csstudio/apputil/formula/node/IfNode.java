@@ -7,7 +7,11 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula.node;
 
+import java.util.List;
+
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 import org.epics.vtype.VType;
 import org.phoebus.core.vtypes.VTypeHelper;
 
@@ -54,6 +58,26 @@ public class IfNode implements Node
             return cond_val;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        final ScalarNode c = cond.compile(variables);
+        final ScalarNode y = yes.compile(variables);
+        final ScalarNode n = no.compile(variables);
+        if (c == null  ||  y == null  ||  n == null)
+            return null;
+        // Select branch for constant condition
+        if (c.isConstant())
+        {
+            final double value = c.eval(null);
+            if (Double.isFinite(value))
+                return value != 0.0 ? y : n;
+            return c;
+        }
+        return ScalarNode.conditional(c, y, n);
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasSubnode(final Node node)
@@ -7,7 +7,11 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula.node;
 
+import java.util.List;
+
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
 import org.epics.vtype.Time;
@@ -46,6 +50,35 @@ public class MinNode implements Node
         return VDouble.of(result, Alarm.none(), Time.now(), Display.none());
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        final ScalarNode compiled[] = new ScalarNode[args.length];
+        boolean constant = true;
+        for (int i = 0; i < args.length; i++)
+        {
+            if ((compiled[i] = args[i].compile(variables)) == null)
+                return null;
+            constant &= compiled[i].isConstant();
+        }
+        final ScalarNode node = ScalarNode.function((nodes, values) ->
+        {
+            double result = Double.NaN;
+            for (int i = 0; i < nodes.length; i++)
+            {
+                final double value = nodes[i].eval(values);
+                if (i==0  ||  value < result)
+                    result = value;
+            }
+            return result;
+        }, compiled);
+        // Fold constants
+        if (constant)
+            return ScalarNode.fold(node);
+        return node;
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasSubnode(final Node node)
@@ -7,7 +7,11 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula.node;
 
+import java.util.List;
+
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 
 /** One computational node.
  *  @author Kay Kasemir
@@ -23,6 +27,16 @@ public class RndNode extends AbstractUnaryNode
         super(n);
     }
 
+    /** Random numbers are not compiled,
+     *  because compiled nodes may evaluate a sub-node
+     *  more than once, which would yield different numbers
+     */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        return null;
+    }
+
     @Override
     protected double calc(final double a)
     {
@@ -9,9 +9,12 @@ package org.csstudio.apputil.formula.node;
 
 import static org.csstudio.apputil.formula.Formula.logger;
 
+import java.util.List;
 import java.util.logging.Level;
 
 import org.csstudio.apputil.formula.Node;
+import org.csstudio.apputil.formula.ScalarNode;
+import org.csstudio.apputil.formula.VariableNode;
 import org.csstudio.apputil.formula.spi.FormulaFunction;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.Display;
@@ -60,6 +63,26 @@ public class SPIFuncNode implements Node
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public ScalarNode compile(final List<VariableNode> variables)
+    {
+        final ScalarNode compiled[] = new ScalarNode[args.length];
+        boolean constant = true;
+        for (int i = 0; i < args.length; i++)
+        {
+            if ((compiled[i] = args[i].compile(variables)) == null)
+                return null;
+            constant &= compiled[i].isConstant();
+        }
+        // Only functions that support it can be compiled
+        final ScalarNode result = function.compile(compiled);
+        // Fold constants
+        if (result != null  &&  constant)
+            return ScalarNode.fold(result);
+        return result;
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasSubnode(final Node node)
@@ -10,6 +10,7 @@ package org.csstudio.apputil.formula.spi;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import org.csstudio.apputil.formula.ScalarNode;
 import org.epics.vtype.VType;
 
 /** SPI for contributing a function to the formula
@@ -55,6 +56,19 @@ public interface FormulaFunction
      */
     public VType compute(VType... args) throws Exception;
 
+    /** Compile the function for evaluation with scalar numbers
+     *
+     *  <p>Functions that compute a number from numeric arguments
+     *  can implement this to allow formulas that use them to be compiled.
+     *
+     *  @param args Compiled arguments
+     *  @return {@link ScalarNode} for the function or <code>null</code> if not supported
+     */
+    public default ScalarNode compile(final ScalarNode... args)
+    {
+        return null;
+    }
+
     /** @return "function(arg1, arg2)"
      */
     public default String getSignature()
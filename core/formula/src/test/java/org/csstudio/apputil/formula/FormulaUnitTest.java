@@ -7,15 +7,25 @@
  ******************************************************************************/
 package org.csstudio.apputil.formula;
 
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.stats.Range;
 import org.epics.vtype.Alarm;
 import org.epics.vtype.AlarmSeverity;
 import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
 import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VNumberArray;
 import org.epics.vtype.VString;
+import org.epics.vtype.VType;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.phoebus.core.vtypes.VTypeHelper;
 
+import java.text.DecimalFormat;
+import java.time.Instant;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -399,4 +409,66 @@ public class FormulaUnitTest {
         Formula f = new Formula("highestSeverity(dataA, dataB, dataC)", v);
         assertEquals("MAJOR", VTypeHelper.toString(f.eval()));
     }
+
+    @Test
+    public void testCompiled() throws Exception {
+        VariableNode v[] = new VariableNode[2];
+        v[0] = new VariableNode("volt");
+        v[1] = new VariableNode("curr");
+        final Time older = Time.of(Instant.ofEpochSecond(1000));
+        final Time newer = Time.of(Instant.ofEpochSecond(2000));
+        final Display volts = Display.of(Range.of(0, 10), Range.of(0, 10), Range.of(0, 10), Range.of(0, 10), "V", new DecimalFormat("0.00"));
+        v[0].setValue(VDouble.of(2.0, Alarm.of(AlarmSeverity.MINOR, AlarmStatus.RECORD, "LOW"), older, volts));
+        v[1].setValue(VInt.of(3, Alarm.none(), newer, Display.none()));
+
+        // Operators and math functions are compiled,
+        // with same alarm, time and display as the interpreter
+        Formula f = new Formula("volt * curr * 0.5 + sqrt(16) - abs(-4)", v);
+        assertTrue(f.isCompiled());
+        VType result = f.eval();
+        assertEquals(3.0, VTypeHelper.toDouble(result), epsilon);
+        assertEquals(AlarmSeverity.MINOR, Alarm.alarmOf(result).getSeverity());
+        assertEquals("V", Display.displayOf(result).getUnit());
+
+        f = new Formula("volt * curr", v);
+        assertEquals(newer, Time.timeOf(f.eval()));
+
+        // Conditional returns the selected input as is
+        f = new Formula("volt < curr ? (curr) : (volt)", v);
+        assertTrue(f.isCompiled());
+        assertTrue(f.eval() instanceof VInt);
+        v[0].setValue(10.0);
+        assertEquals(10.0, VTypeHelper.toDouble(f.eval()), epsilon);
+
+        // Constants are folded
+        f = new Formula("2 * (3 + 4) + max(1, 2)", v);
+        assertTrue(f.isCompiled());
+        assertEquals(16.0, VTypeHelper.toDouble(f.eval()), epsilon);
+
+        // Folded functions are still time stamped 'now', like the interpreter
+        for (String formula : new String[] { "max(1, 2)", "2 * sqrt(16)", "min(1, 2) + 1" })
+        {
+            f = new Formula(formula, v);
+            assertTrue(f.isCompiled());
+            final Instant start = Instant.now();
+            assertFalse(Time.timeOf(f.eval()).getTimestamp().isBefore(start), formula);
+        }
+
+        // Strings, random numbers, other functions use the interpreter
+        assertFalse(new Formula("\"Volt: \" + volt", v).isCompiled());
+        assertFalse(new Formula("rnd(volt)", v).isCompiled());
+        assertFalse(new Formula("fac(curr)", v).isCompiled());
+
+        // Compiled formula falls back to interpreter for non-numeric values
+        f = new Formula("volt + curr", v);
+        assertTrue(f.isCompiled());
+        v[0].setValue(VString.of("Text", Alarm.none(), Time.now()));
+        assertTrue(Double.isNaN(VTypeHelper.toDouble(f.eval())));
+        v[0].setValue(VDoubleArray.of(ArrayDouble.of(1, 2), Alarm.none(), Time.now(), Display.none()));
+        v[1].setValue(VDoubleArray.of(ArrayDouble.of(3, 4), Alarm.none(), Time.now(), Display.none()));
+        result = f.eval();
+        assertTrue(result instanceof VNumberArray);
+        assertEquals(4.0, VTypeHelper.toDouble(result, 0), epsilon);
+        assertEquals(6.0, VTypeHelper.toDouble(result, 1), epsilon);
+    }
 }
@@ -0,0 +1,44 @@
+package org.csstudio.apputil.formula.array;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayFloat;
+import org.epics.util.array.ArrayInteger;
+import org.epics.util.array.ListDouble;
+import org.epics.util.array.ListMath;
+import org.epics.util.array.ListNumber;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ArrayKernelsTest {
+
+    @Test
+    public void testPrimitiveTypes() {
+        assertEquals(ArrayDouble.of(3.0, 5.0, 7.0), ArrayKernels.rescale(ArrayInteger.of(1, 2, 3), 2.0, 1.0));
+        assertEquals(ArrayDouble.of(0.5, 1.0, 1.5), ArrayKernels.rescale(ArrayFloat.of(1f, 2f, 3f), 0.5, 0.0));
+        assertEquals(ArrayDouble.of(2.0, 6.0, 12.0), ArrayKernels.multiply(ArrayDouble.of(1.0, 2.0, 3.0), ArrayInteger.of(2, 3, 4)));
+        assertEquals(ArrayDouble.of(1.0, 3.0, 6.0), ArrayKernels.cumulativeSum(ArrayInteger.of(1, 2, 3)));
+        assertEquals(6.5, ArrayKernels.total(ArrayFloat.of(1f, 2f, 3.5f)), 0.0);
+    }
+
+    @Test
+    public void testParallel() {
+        // Large enough for parallel execution, not a multiple of the chunk size
+        final int size = ArrayKernels.PARALLEL_THRESHOLD + 12345;
+        final double[] a = new double[size], b = new double[size];
+        for (int i = 0; i < size; ++i) {
+            a[i] = i * 0.5;
+            b[i] = 1.0 + i % 7;
+        }
+        final ListNumber data = ArrayDouble.of(a), other = ArrayDouble.of(b);
+
+        assertEquals(ListMath.rescale(data, 2.0, -1.0), ArrayKernels.rescale(data, 2.0, -1.0));
+        assertEquals(ListMath.inverseRescale(other, 3.0, 1.0), ArrayKernels.inverseRescale(other, 3.0, 1.0));
+        assertEquals(ListMath.pow(data, 1.5), ArrayKernels.pow(data, 1.5));
+        assertEquals(ListMath.multiply(data, other), ArrayKernels.multiply(data, other));
+        final ListDouble quotient = ArrayKernels.divide(data, other);
+        assertEquals(ListMath.divide(data, other), quotient);
+        assertEquals(size, quotient.size());
+        assertEquals(a[size - 1] / b[size - 1], quotient.getDouble(size - 1), 0.0);
+    }
+}
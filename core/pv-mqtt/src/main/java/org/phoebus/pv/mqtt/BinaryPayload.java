@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.phoebus.pv.mqtt;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayLong;
+import org.epics.util.array.ListByte;
+import org.epics.util.array.ListInteger;
+import org.epics.util.array.ListLong;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListShort;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VByte;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VLongArray;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VShort;
+import org.epics.vtype.VType;
+
+/** Binary MQTT payload for numeric values
+ *
+ *  <p>Compact alternative to the text representation
+ *  of {@link VTypeToFromString}.
+ *  A payload starts with a zero byte, which text never does,
+ *  followed by a type code and the big endian value:
+ *
+ *  <pre>
+ *  0, 1, double
+ *  0, 2, long
+ *  0, 3, int count, double...
+ *  0, 4, int count, long...
+ *  </pre>
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class BinaryPayload
+{
+    private static final byte MARKER = 0, DOUBLE = 1, LONG = 2, DOUBLE_ARRAY = 3, LONG_ARRAY = 4;
+
+    /** @param value Value
+     *  @return Binary payload or <code>null</code> if value is not numeric
+     */
+    public static byte[] encode(final VType value)
+    {
+        if (value instanceof VNumber)
+        {
+            final Number number = ((VNumber) value).getValue();
+            final ByteBuffer buf = ByteBuffer.allocate(10);
+            buf.put(MARKER);
+            if (value instanceof VLong  ||  value instanceof VInt  ||
+                value instanceof VShort  ||  value instanceof VByte)
+                buf.put(LONG).putLong(number.longValue());
+            else
+                buf.put(DOUBLE).putDouble(number.doubleValue());
+            return buf.array();
+        }
+        if (value instanceof VNumberArray)
+        {
+            final ListNumber data = ((VNumberArray) value).getData();
+            final int size = data.size();
+            final ByteBuffer buf = ByteBuffer.allocate(6 + 8*size);
+            buf.put(MARKER);
+            if (data instanceof ListLong  ||  data instanceof ListInteger  ||
+                data instanceof ListShort  ||  data instanceof ListByte)
+            {
+                buf.put(LONG_ARRAY).putInt(size);
+                for (int i=0; i<size; ++i)
+                    buf.putLong(data.getLong(i));
+            }
+            else
+            {
+                buf.put(DOUBLE_ARRAY).putInt(size);
+                for (int i=0; i<size; ++i)
+                    buf.putDouble(data.getDouble(i));
+            }
+            return buf.array();
+        }
+        return null;
+    }
+
+    /** @param payload MQTT payload
+     *  @return <code>true</code> if payload is binary
+     */
+    public static boolean isBinary(final byte[] payload)
+    {
+        return payload.length >= 2  &&  payload[0] == MARKER;
+    }
+
+    /** @param payload Binary MQTT payload
+     *  @return VDouble, VLong, VDoubleArray or VLongArray
+     *  @throws Exception on error
+     */
+    public static VType decode(final byte[] payload) throws Exception
+    {
+        final ByteBuffer buf = ByteBuffer.wrap(payload, 2, payload.length-2);
+        try
+        {
+            switch (payload[1])
+            {
+            case DOUBLE:
+                return VDouble.of(buf.getDouble(), Alarm.none(), Time.now(), Display.none());
+            case LONG:
+                return VLong.of(buf.getLong(), Alarm.none(), Time.now(), Display.none());
+            case DOUBLE_ARRAY:
+            {
+                final double[] values = new double[getCount(buf)];
+                buf.asDoubleBuffer().get(values);
+                return VDoubleArray.of(ArrayDouble.of(values), Alarm.none(), Time.now(), Display.none());
+            }
+            case LONG_ARRAY:
+            {
+                final long[] values = new long[getCount(buf)];
+                buf.asLongBuffer().get(values);
+                return VLongArray.of(ArrayLong.of(values), Alarm.none(), Time.now(), Display.none());
+            }
+            default:
+                throw new Exception("Unknown binary payload type " + payload[1]);
+            }
+        }
+        catch (BufferUnderflowException ex)
+        {
+            throw new Exception("Binary payload of " + payload.length + " bytes is too short", ex);
+        }
+    }
+
+    /** @param payload Binary MQTT payload
+     *  @param type Type of the PV
+     *  @param old_value Current value of the PV
+     *  @return Decoded value, converted to the type of the PV
+     *  @throws Exception on error
+     */
+    public static VType decode(final byte[] payload, final Class<? extends VType> type, final VType old_value) throws Exception
+    {
+        final VType value = decode(payload);
+        if (type.isInstance(value))
+            return value;
+
+        // Pass number or array elements, not the VType, for conversion to the PV's type
+        final Object data;
+        if (value instanceof VNumber)
+            data = ((VNumber) value).getValue();
+        else
+        {
+            final ListNumber array = ((VNumberArray) value).getData();
+            final int size = array.size();
+            if (type == VDoubleArray.class)
+            {
+                final double[] values = new double[size];
+                for (int i=0; i<size; ++i)
+                    values[i] = array.getDouble(i);
+                data = values;
+            }
+            else
+            {
+                final List<Number> values = new ArrayList<>(size);
+                for (int i=0; i<size; ++i)
+                    values.add(value instanceof VLongArray ? (Number) array.getLong(i) : (Number) array.getDouble(i));
+                data = values;
+            }
+        }
+        return VTypeToFromString.convert(data, type, old_value);
+    }
+
+    /** @param buf Buffer positioned on array element count
+     *  @return Element count
+     *  @throws Exception if buffer does not hold that many 8-byte elements
+     */
+    private static int getCount(final ByteBuffer buf) throws Exception
+    {
+        final int count = buf.getInt();
+        if (count < 0  ||  count > buf.remaining() / 8)
+            throw new Exception("Binary payload has " + buf.remaining() + " bytes for " + count + " elements");
+        return count;
+    }
+}
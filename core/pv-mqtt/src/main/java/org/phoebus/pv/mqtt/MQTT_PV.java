@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -148,20 +148,22 @@ public class MQTT_PV extends PV
         if (new_value == null)
             throw new Exception(getName() + " got null");
 
-        final String pubMsg;
+        final VType value;
         try
         {
-            final VType value = VTypeToFromString.convert(new_value, type, read());
-            pubMsg = VTypeToFromString.ToString(value);
+            value = VTypeToFromString.convert(new_value, type, read());
         }
         catch (Exception ex)
         {
             throw new Exception("Failed to adapt object '" + new_value + "' to " + getName(), ex);
         }
 
-
         try {
-            conx.publishTopic(topicStr, pubMsg, 0, true);
+            final byte[] binary = MQTT_Preferences.binary_payload ? BinaryPayload.encode(value) : null;
+            if (binary != null)
+                conx.publishTopic(topicStr, binary, 0, true);
+            else
+                conx.publishTopic(topicStr, VTypeToFromString.ToString(value), 0, true);
         } catch (Exception ex) {
             throw new Exception("Failed to write '" + new_value + "' to " + getName(), ex);
         }
@@ -189,23 +191,25 @@ public class MQTT_PV extends PV
      */
     public void messageArrived(String topic, MqttMessage msg) throws Exception
     {
-        final String new_value = msg.toString();
-
-        if (!topic.equals(topicStr))
+        if (!TopicTrie.matches(topicStr, topic))
         {
             logger.log(Level.SEVERE, "Got message with topic " + topic + " != " + topicStr);
             throw new Exception(getName() + " topic mismatch");
         }
 
+        final byte[] payload = msg.getPayload();
         try
         {
-            final VType value = VTypeToFromString.convert(new_value, type, read());
+            // Binary numbers are decoded, text is parsed
+            final VType value = BinaryPayload.isBinary(payload)
+                              ? BinaryPayload.decode(payload, type, read())
+                              : VTypeToFromString.convert(msg.toString(), type, read());
             notifyListenersOfValue(value);
         }
         catch (Exception ex)
         {
             notifyListenersOfDisconnect();
-            logger.log(Level.WARNING, "Could not parse message: '" + new_value + "' to " + getName(), ex);
+            logger.log(Level.WARNING, "Could not parse message: '" + msg + "' to " + getName(), ex);
         }
     }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,10 +9,18 @@ package org.phoebus.pv.mqtt;
 
 import java.net.InetAddress;
 import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
@@ -28,6 +36,22 @@ import org.phoebus.pv.PV;
 /** MQTT Topic subscription handler
  *
  *  <p>Dispatches MQTT data to {@link MQTT_PV}s
+ *
+ *  <p>Subscriptions are collected for a short time
+ *  and then sent to the broker in batches,
+ *  so opening a display with many MQTT PVs doesn't
+ *  need one round trip per topic.
+ *
+ *  <p>Topics that match one of the 'shared_subscriptions' filters
+ *  from the preferences are not subscribed one by one.
+ *  Instead, the filter is subscribed once
+ *  and received messages are dispatched to PVs via a {@link TopicTrie}.
+ *  This includes PVs for topic filters with wildcards that are covered
+ *  by a shared filter, because the broker might otherwise send
+ *  messages twice, once for each overlapping subscription.
+ *  The last message for each topic of a shared subscription is kept
+ *  to provide PVs that are added later with an initial value.
+ *
  *  @author Megan Grodowitz
  */
 @SuppressWarnings("nls")
@@ -36,8 +60,40 @@ public class MQTT_PVConn implements MqttCallback
     MqttClient myClient;
     MqttConnectOptions connOpt;
 
+    /** Delay for collecting subscriptions into a batch */
+    private static final long BATCH_DELAY_MS = 50;
+
+    /** Maximum number of topics per subscribe request */
+    private static final int BATCH_SIZE = 1000;
+
+    /** Thread that sends batched subscriptions */
+    private static final ScheduledExecutorService batcher = Executors.newSingleThreadScheduledExecutor(target ->
+    {
+        final Thread thread = new Thread(target, "MQTT Subscriptions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /** Mapping from topic to PVs */
-    final ConcurrentHashMap<String, CopyOnWriteArrayList<MQTT_PV>> subscribers = new ConcurrentHashMap<>();
+    final TopicTrie<MQTT_PV> subscribers = new TopicTrie<>();
+
+    /** Filters for shared subscriptions */
+    private final List<String> shared_filters = parseSharedFilters(MQTT_Preferences.shared_subscriptions);
+
+    /** Shared filters by topic */
+    private final TopicTrie<String> shared_topics = new TopicTrie<>();
+
+    /** Last message for topics of shared subscriptions */
+    private final Map<String, MqttMessage> last_messages = new ConcurrentHashMap<>();
+
+    /** Number of PVs per subscribed topic or shared filter. SYNC on this */
+    private final Map<String, Integer> subscriptions = new HashMap<>();
+
+    /** Topics or filters to subscribe resp. unsubscribe in next batch. SYNC on this */
+    private final Set<String> pending_subscribe = new LinkedHashSet<>(), pending_unsubscribe = new LinkedHashSet<>();
+
+    /** Is a batch scheduled? SYNC on this */
+    private boolean batch_scheduled = false;
 
     volatile private String brokerURL = MQTT_Preferences.mqtt_broker;
     volatile private String clientID;
@@ -49,6 +105,8 @@ public class MQTT_PVConn implements MqttCallback
 
     MQTT_PVConn()
     {
+        for (String filter : shared_filters)
+            shared_topics.add(filter, filter);
         connect();
     }
 
@@ -59,8 +117,81 @@ public class MQTT_PVConn implements MqttCallback
     @Override
     public void messageArrived(String topic, MqttMessage msg) throws Exception
     {
-        for (MQTT_PV pv : subscribers.get(topic))
-            pv.messageArrived(topic, msg);
+        if (getSharedFilter(topic) != null)
+            last_messages.put(topic, msg);
+        subscribers.match(topic, pv ->
+        {
+            try
+            {
+                pv.messageArrived(topic, msg);
+            }
+            catch (Exception ex)
+            {
+                PV.logger.log(Level.WARNING, "MQTT topic '" + topic + "' update error for " + pv.getName(), ex);
+            }
+        });
+    }
+
+    /** @param topic Topic or topic filter
+     *  @return Shared filter that includes the topic, or <code>null</code>
+     */
+    private String getSharedFilter(final String topic)
+    {
+        if (topic.contains("+")  ||  topic.contains("#"))
+            return getSharedFilter(shared_filters, topic);
+        final String[] filter = new String[1];
+        shared_topics.match(topic, f -> filter[0] = f);
+        return filter[0];
+    }
+
+    /** @param filters Shared filters
+     *  @param topic Topic or topic filter
+     *  @return First shared filter that includes all topics of the topic filter, or <code>null</code>
+     */
+    static String getSharedFilter(final List<String> filters, final String topic)
+    {
+        for (String filter : filters)
+            if (TopicTrie.covers(filter, topic))
+                return filter;
+        return null;
+    }
+
+    /** @param setting Comma-separated shared filters
+     *  @return Shared filters, without those covered by another filter
+     */
+    static List<String> parseSharedFilters(final String setting)
+    {
+        final List<String> filters = new ArrayList<>();
+        for (String filter : setting.split(","))
+            if (! filter.isBlank())
+                filters.add(filter.trim());
+
+        // Subscribing both "a/#" and "a/b/#" would result in duplicate messages
+        final List<String> result = new ArrayList<>();
+        for (int i=0; i<filters.size(); ++i)
+        {
+            final String filter = filters.get(i);
+            String covering = null;
+            for (int o=0; o<filters.size()  &&  covering == null; ++o)
+            {
+                final String other = filters.get(o);
+                // Of two filters that cover each other, keep the first one
+                if (o != i  &&  TopicTrie.covers(other, filter)  &&
+                    (o < i  ||  !TopicTrie.covers(filter, other)))
+                    covering = other;
+            }
+            if (covering == null)
+                result.add(filter);
+            else
+                PV.logger.log(Level.WARNING, "Ignoring MQTT shared subscription '" + filter + "', covered by '" + covering + "'");
+        }
+
+        for (int i=0; i<result.size(); ++i)
+            for (int o=i+1; o<result.size(); ++o)
+                if (TopicTrie.overlaps(result.get(i), result.get(o)))
+                    PV.logger.log(Level.WARNING, "MQTT shared subscriptions '" + result.get(i) + "' and '" + result.get(o) +
+                                                 "' overlap, broker may send duplicate messages");
+        return result;
     }
 
     /** @param topicStr Topic
@@ -76,20 +207,39 @@ public class MQTT_PVConn implements MqttCallback
             throw new Exception("MQTT subscribe failed: no broker connection");
         }
 
-        final List<MQTT_PV> pvs = subscribers.computeIfAbsent(topicStr, topic ->
+        subscribers.add(topicStr, pv);
+        final String shared = getSharedFilter(topicStr);
+        final String subscription = shared != null ? shared : topicStr;
+        if (shared == null)
+            for (String filter : shared_filters)
+                if (TopicTrie.overlaps(filter, topicStr))
+                    PV.logger.log(Level.WARNING, "MQTT topic '" + topicStr + "' overlaps shared subscription '" + filter +
+                                                 "', broker may send duplicate messages");
+        synchronized (this)
         {
-            int subQoS = 0;
-            try
-            {
-                myClient.subscribe(topicStr, subQoS);
+            if (subscriptions.merge(subscription, 1, Integer::sum) == 1)
+            {   // Still subscribed when unsubscribe was pending
+                if (! pending_unsubscribe.remove(subscription))
+                    pending_subscribe.add(subscription);
+                scheduleBatch();
             }
-            catch (Exception ex)
-            {
-                PV.logger.log(Level.WARNING, "Cannot subscribe to MQTT topic '" + topicStr + "'", ex);
-            }
-            return new CopyOnWriteArrayList<>();
-        });
-        pvs.add(pv);
+        }
+
+        // Shared subscription may already have a value for this topic
+        if (shared == null)
+            return;
+        if (topicStr.contains("+")  ||  topicStr.contains("#"))
+        {
+            for (Map.Entry<String, MqttMessage> last : last_messages.entrySet())
+                if (TopicTrie.matches(topicStr, last.getKey()))
+                    pv.messageArrived(last.getKey(), last.getValue());
+        }
+        else
+        {
+            final MqttMessage last = last_messages.get(topicStr);
+            if (last != null)
+                pv.messageArrived(topicStr, last);
+        }
     }
 
     /** @param topicStr Topic
@@ -98,29 +248,93 @@ public class MQTT_PVConn implements MqttCallback
      */
     public void unsubscribeTopic (String topicStr, MQTT_PV pv) throws Exception
     {
-        if (!connect())
+        if (! subscribers.remove(topicStr, pv))
         {
             PV.logger.log(Level.WARNING, "Could not unsubscribe to mqtt topic \"" + topicStr
-                    + "\" due to no broker connection");
-            throw new Exception("MQTT unsubscribe failed: no broker connection");
+                    + "\" due to no internal record of topic");
+            throw new Exception("MQTT unsubscribe failed: no topic record");
         }
 
-        final CopyOnWriteArrayList<MQTT_PV> pvs = subscribers.get(topicStr);
-        if (pvs == null)
+        final String shared = getSharedFilter(topicStr);
+        final String subscription = shared != null ? shared : topicStr;
+        synchronized (this)
         {
-            PV.logger.log(Level.WARNING, "Could not unsubscribe to mqtt topic \"" + topicStr
-                    + "\" due to no internal record of topic");
-            throw new Exception("MQTT unsubscribe failed: no topic record");
+            final Integer count = subscriptions.merge(subscription, -1, Integer::sum);
+            if (count != null  &&  count <= 0)
+            {
+                subscriptions.remove(subscription);
+                // Never subscribed when subscribe was pending
+                if (! pending_subscribe.remove(subscription))
+                    pending_unsubscribe.add(subscription);
+                scheduleBatch();
+            }
+        }
+    }
+
+    /** Schedule sending pending (un-)subscriptions. SYNC on this */
+    private void scheduleBatch()
+    {
+        if (batch_scheduled)
+            return;
+        batch_scheduled = true;
+        batcher.schedule(this::sendBatch, BATCH_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /** Send pending (un-)subscriptions to broker */
+    private void sendBatch()
+    {
+        final List<String> subscribe, unsubscribe;
+        synchronized (this)
+        {
+            batch_scheduled = false;
+            subscribe = new ArrayList<>(pending_subscribe);
+            unsubscribe = new ArrayList<>(pending_unsubscribe);
+            pending_subscribe.clear();
+            pending_unsubscribe.clear();
         }
 
-        pvs.remove(pv);
-        if (pvs.isEmpty())
+        for (int start=0; start<unsubscribe.size(); start+=BATCH_SIZE)
         {
-            subscribers.remove(topicStr);
-            myClient.unsubscribe(topicStr);
-            if (subscribers.isEmpty())
-                disconnect();
+            final String[] topics = unsubscribe.subList(start, Math.min(start+BATCH_SIZE, unsubscribe.size())).toArray(new String[0]);
+            try
+            {
+                myClient.unsubscribe(topics);
+            }
+            catch (Exception ex)
+            {
+                PV.logger.log(Level.WARNING, "Cannot unsubscribe from " + topics.length + " MQTT topics", ex);
+            }
+            for (String topic : topics)
+                if (shared_filters.contains(topic))
+                    last_messages.keySet().removeIf(t -> TopicTrie.matches(topic, t));
         }
+
+        // Reconnect in case connection was closed while batch was pending
+        if (! subscribe.isEmpty()  &&  ! connect())
+            PV.logger.log(Level.WARNING, "Cannot subscribe to " + subscribe.size() + " MQTT topics: no broker connection");
+        else
+            for (int start=0; start<subscribe.size(); start+=BATCH_SIZE)
+            {
+                final String[] topics = subscribe.subList(start, Math.min(start+BATCH_SIZE, subscribe.size())).toArray(new String[0]);
+                final int[] qos = new int[topics.length];
+                try
+                {
+                    myClient.subscribe(topics, qos);
+                    PV.logger.log(Level.FINE, () -> "Subscribed to " + topics.length + " MQTT topics");
+                }
+                catch (Exception ex)
+                {
+                    PV.logger.log(Level.WARNING, "Cannot subscribe to MQTT topics " + Arrays.toString(topics), ex);
+                }
+            }
+
+        final boolean idle;
+        synchronized (this)
+        {
+            idle = subscriptions.isEmpty()  &&  !batch_scheduled;
+        }
+        if (idle)
+            disconnect();
     }
 
     /** @param topicStr Topic
@@ -130,6 +344,17 @@ public class MQTT_PVConn implements MqttCallback
      *  @throws Exception on error
      */
     public void publishTopic(String topicStr, String pubMsg, int pubQoS, boolean retained) throws Exception
+    {
+        publishTopic(topicStr, pubMsg.getBytes(), pubQoS, retained);
+    }
+
+    /** @param topicStr Topic
+     *  @param payload Message payload
+     *  @param pubQoS QOS
+     *  @param retained Retain message?
+     *  @throws Exception on error
+     */
+    public void publishTopic(String topicStr, byte[] payload, int pubQoS, boolean retained) throws Exception
     {
         if (!connect())
         {
@@ -139,7 +364,7 @@ public class MQTT_PVConn implements MqttCallback
         }
 
         MqttTopic topic = myClient.getTopic(topicStr);
-        MqttMessage message = new MqttMessage(pubMsg.getBytes());
+        MqttMessage message = new MqttMessage(payload);
         message.setQos(pubQoS);
         message.setRetained(retained);
 
@@ -248,6 +473,13 @@ public class MQTT_PVConn implements MqttCallback
         // TODO: attempt reconnect repeatedly in background thread with timer backoff and eventual timeout
         try {
             myClient.connect(connOpt);
+            // Clean session lost all subscriptions
+            synchronized (this)
+            {
+                pending_unsubscribe.clear();
+                pending_subscribe.addAll(subscriptions.keySet());
+                scheduleBatch();
+            }
         } catch (MqttException ex) {
             PV.logger.log(Level.SEVERE, "Could not reconnect to MQTT broker " + brokerURL);
             ex.printStackTrace();
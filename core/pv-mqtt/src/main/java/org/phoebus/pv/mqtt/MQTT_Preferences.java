@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,6 +20,12 @@ public class MQTT_Preferences
     /** Broker URL */
     @Preference public static String mqtt_broker;
 
+    /** Topic filters that are subscribed once for all PVs with matching topics */
+    @Preference public static String shared_subscriptions;
+
+    /** Publish numeric values in binary format? */
+    @Preference public static boolean binary_payload;
+
     static
     {
     	AnnotatedPreferences.initialize(MQTT_Preferences.class, "/pv_mqtt_preferences.properties");
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *******************************************************************************/
+package org.phoebus.pv.mqtt;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/** Trie of MQTT topic filters
+ *
+ *  <p>Each node represents one level of a topic "a/b/c".
+ *  Filters may use the MQTT wildcards '+' for exactly one level
+ *  and '#' for all remaining levels.
+ *  As in the MQTT specification, filters that start with a wildcard
+ *  do not match topics that start with '$', like "$SYS/...".
+ *  Shared subscription filters "$share/group/filter"
+ *  match the same topics as their "filter".
+ *
+ *  <p>Looking up the items for a topic walks the trie level by level,
+ *  independent of the total number of filters.
+ *  Lookups are lock-free, modifications are synchronized.
+ *
+ *  @param <T> Item type
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class TopicTrie<T>
+{
+    private static class Node<T>
+    {
+        final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+        final List<T> items = new CopyOnWriteArrayList<>();
+
+        boolean isEmpty()
+        {
+            return children.isEmpty()  &&  items.isEmpty();
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+
+    /** @param filter Topic filter, may be a shared subscription "$share/group/filter"
+     *  @return Levels of the topic filter, without "$share/group"
+     */
+    private static String[] getLevels(final String filter)
+    {
+        final String[] levels = filter.split("/", -1);
+        if (levels.length > 2  &&  levels[0].equals("$share"))
+            return Arrays.copyOfRange(levels, 2, levels.length);
+        return levels;
+    }
+
+    /** @param filter Topic filter, may contain wildcards
+     *  @param item Item to add for that filter
+     */
+    public synchronized void add(final String filter, final T item)
+    {
+        Node<T> node = root;
+        for (String level : getLevels(filter))
+            node = node.children.computeIfAbsent(level, l -> new Node<>());
+        node.items.add(item);
+    }
+
+    /** @param filter Topic filter
+     *  @param item Item to remove from that filter
+     *  @return <code>true</code> if item was found and removed
+     */
+    public synchronized boolean remove(final String filter, final T item)
+    {
+        return remove(root, getLevels(filter), 0, item);
+    }
+
+    private boolean remove(final Node<T> node, final String[] levels, final int index, final T item)
+    {
+        if (index >= levels.length)
+            return node.items.remove(item);
+        final Node<T> child = node.children.get(levels[index]);
+        if (child == null  ||  !remove(child, levels, index+1, item))
+            return false;
+        // Prune empty nodes
+        if (child.isEmpty())
+            node.children.remove(levels[index]);
+        return true;
+    }
+
+    /** @param filter Topic filter
+     *  @return Items added for exactly that filter
+     */
+    public List<T> get(final String filter)
+    {
+        Node<T> node = root;
+        for (String level : getLevels(filter))
+        {
+            node = node.children.get(level);
+            if (node == null)
+                return List.of();
+        }
+        return node.items;
+    }
+
+    /** @param topic Topic without wildcards
+     *  @param consumer Will be called with each item whose filter matches the topic.
+     *                  An item that was added for several matching filters
+     *                  is passed once for each of them.
+     */
+    public void match(final String topic, final Consumer<T> consumer)
+    {
+        match(root, topic.split("/", -1), 0, consumer);
+    }
+
+    private void match(final Node<T> node, final String[] levels, final int index, final Consumer<T> consumer)
+    {
+        // Wildcards on the first level don't match "$SYS/.."
+        final boolean wildcards = index > 0  ||  !levels[0].startsWith("$");
+        // '#' matches all remaining levels, including none, i.e. "a/#" matches "a"
+        final Node<T> all = wildcards ? node.children.get("#") : null;
+        if (all != null)
+            all.items.forEach(consumer);
+        if (index >= levels.length)
+        {
+            node.items.forEach(consumer);
+            return;
+        }
+        Node<T> child = node.children.get(levels[index]);
+        if (child != null)
+            match(child, levels, index+1, consumer);
+        child = wildcards ? node.children.get("+") : null;
+        if (child != null)
+            match(child, levels, index+1, consumer);
+    }
+
+    /** @param filter Topic filter, may contain wildcards
+     *  @param topic Topic without wildcards
+     *  @return <code>true</code> if filter matches the topic
+     */
+    public static boolean matches(final String filter, final String topic)
+    {
+        final String[] f = getLevels(filter), t = topic.split("/", -1);
+        if (t[0].startsWith("$")  &&  isWildcard(f[0]))
+            return false;
+        for (int i=0; i<f.length; ++i)
+        {
+            if (f[i].equals("#"))
+                return true;
+            if (i >= t.length)
+                return false;
+            if (!f[i].equals("+")  &&  !f[i].equals(t[i]))
+                return false;
+        }
+        return f.length == t.length;
+    }
+
+    /** @param filter Topic filter, may contain wildcards
+     *  @param other Other topic filter, may contain wildcards
+     *  @return <code>true</code> if filter matches every topic that the other filter matches
+     */
+    public static boolean covers(final String filter, final String other)
+    {
+        final String[] f = getLevels(filter), o = getLevels(other);
+        if (o[0].startsWith("$")  &&  isWildcard(f[0]))
+            return false;
+        for (int i=0; i<f.length; ++i)
+        {
+            if (f[i].equals("#"))
+                return true;
+            if (i >= o.length  ||  o[i].equals("#"))
+                return false;
+            if (!f[i].equals("+")  &&  !f[i].equals(o[i]))
+                return false;
+        }
+        return f.length == o.length;
+    }
+
+    /** @param filter Topic filter, may contain wildcards
+     *  @param other Other topic filter, may contain wildcards
+     *  @return <code>true</code> if there are topics that both filters match
+     */
+    public static boolean overlaps(final String filter, final String other)
+    {
+        final String[] f = getLevels(filter), o = getLevels(other);
+        if ((f[0].startsWith("$")  &&  isWildcard(o[0]))  ||
+            (o[0].startsWith("$")  &&  isWildcard(f[0])))
+            return false;
+        for (int i=0; i<f.length  &&  i<o.length; ++i)
+        {
+            if (f[i].equals("#")  ||  o[i].equals("#"))
+                return true;
+            if (!f[i].equals("+")  &&  !o[i].equals("+")  &&  !f[i].equals(o[i]))
+                return false;
+        }
+        // "a/#" also matches "a"
+        if (f.length == o.length + 1)
+            return f[o.length].equals("#");
+        if (o.length == f.length + 1)
+            return o[f.length].equals("#");
+        return f.length == o.length;
+    }
+
+    private static boolean isWildcard(final String level)
+    {
+        return level.equals("+")  ||  level.equals("#");
+    }
+}
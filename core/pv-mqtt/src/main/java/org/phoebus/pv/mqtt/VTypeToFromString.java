@@ -417,7 +417,7 @@ public class VTypeToFromString
         if (type == VLong.class)
         {
             if (new_value instanceof Number)
-                return VDouble.of(((Number)new_value).longValue(), Alarm.none(), Time.now(), Display.none());
+                return VLong.of(((Number)new_value).longValue(), Alarm.none(), Time.now(), Display.none());
             return FromStringVLong(Objects.toString(new_value));
         }
 
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.mqtt;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayLong;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VLongArray;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VString;
+import org.epics.vtype.VStringArray;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link BinaryPayload}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class BinaryPayloadTest
+{
+    private static VType roundTrip(final VType value) throws Exception
+    {
+        final byte[] payload = BinaryPayload.encode(value);
+        assertThat(BinaryPayload.isBinary(payload), equalTo(true));
+        return BinaryPayload.decode(payload);
+    }
+
+    @Test
+    public void testScalars() throws Exception
+    {
+        for (double number : new double[] { 0.0, 3.14, -1e300, Double.NaN, Double.NEGATIVE_INFINITY })
+        {
+            final VType value = roundTrip(VDouble.of(number, Alarm.none(), Time.now(), Display.none()));
+            assertThat(value, instanceOf(VDouble.class));
+            assertThat(((VNumber) value).getValue(), equalTo(number));
+        }
+        for (long number : new long[] { 0, 42, Long.MIN_VALUE, Long.MAX_VALUE })
+        {
+            final VType value = roundTrip(VLong.of(number, Alarm.none(), Time.now(), Display.none()));
+            assertThat(value, instanceOf(VLong.class));
+            assertThat(((VNumber) value).getValue(), equalTo(number));
+        }
+        // Integer types are sent as long
+        final VType value = roundTrip(VInt.of(-7, Alarm.none(), Time.now(), Display.none()));
+        assertThat(value, instanceOf(VLong.class));
+        assertThat(((VNumber) value).getValue(), equalTo(-7L));
+    }
+
+    @Test
+    public void testArrays() throws Exception
+    {
+        VType value = roundTrip(VDoubleArray.of(ArrayDouble.of(1.0, -2.5, Double.NaN), Alarm.none(), Time.now(), Display.none()));
+        assertThat(value, instanceOf(VDoubleArray.class));
+        assertThat(((VNumberArray) value).getData(), equalTo(ArrayDouble.of(1.0, -2.5, Double.NaN)));
+
+        value = roundTrip(VLongArray.of(ArrayLong.of(1, Long.MIN_VALUE, Long.MAX_VALUE), Alarm.none(), Time.now(), Display.none()));
+        assertThat(value, instanceOf(VLongArray.class));
+        assertThat(((VNumberArray) value).getData(), equalTo(ArrayLong.of(1, Long.MIN_VALUE, Long.MAX_VALUE)));
+
+        value = roundTrip(VDoubleArray.of(ArrayDouble.of(), Alarm.none(), Time.now(), Display.none()));
+        assertThat(((VNumberArray) value).getData().size(), equalTo(0));
+    }
+
+    @Test
+    public void testFormat() throws Exception
+    {
+        final byte[] payload = BinaryPayload.encode(VLongArray.of(ArrayLong.of(1, -1), Alarm.none(), Time.now(), Display.none()));
+        assertThat(payload, equalTo(new byte[] { 0, 4, 0, 0, 0, 2,
+                                                 0, 0, 0, 0, 0, 0, 0, 1,
+                                                 -1, -1, -1, -1, -1, -1, -1, -1 }));
+
+        // Not numeric
+        assertThat(BinaryPayload.encode(VString.of("Text", Alarm.none(), Time.now())), nullValue());
+
+        // Text never starts with a zero byte
+        assertThat(BinaryPayload.isBinary("42".getBytes()), equalTo(false));
+        assertThat(BinaryPayload.isBinary(new byte[0]), equalTo(false));
+
+        // Unknown type, too short, count beyond payload
+        assertThrows(Exception.class, () -> BinaryPayload.decode(new byte[] { 0, 9, 1 }));
+        assertThrows(Exception.class, () -> BinaryPayload.decode(new byte[] { 0, 1, 0, 0 }));
+        assertThrows(Exception.class, () -> BinaryPayload.decode(new byte[] { 0, 3, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0 }));
+        assertThrows(Exception.class, () -> BinaryPayload.decode(new byte[] { 0, 3, -1, -1, -1, -1 }));
+    }
+
+    @Test
+    public void testConversion() throws Exception
+    {
+        final byte[] number = BinaryPayload.encode(VDouble.of(3.5, Alarm.none(), Time.now(), Display.none()));
+        final byte[] integer = BinaryPayload.encode(VLong.of(42, Alarm.none(), Time.now(), Display.none()));
+        final byte[] doubles = BinaryPayload.encode(VDoubleArray.of(ArrayDouble.of(1.5, 2.0), Alarm.none(), Time.now(), Display.none()));
+        final byte[] longs = BinaryPayload.encode(VLongArray.of(ArrayLong.of(1, 2), Alarm.none(), Time.now(), Display.none()));
+
+        // Decoded value is converted to the type of the PV
+        VType value = BinaryPayload.decode(integer, VDouble.class, null);
+        assertThat(value, instanceOf(VDouble.class));
+        assertThat(((VNumber) value).getValue(), equalTo(42.0));
+
+        value = BinaryPayload.decode(number, VLong.class, null);
+        assertThat(value, instanceOf(VLong.class));
+        assertThat(((VNumber) value).getValue(), equalTo(3L));
+
+        value = BinaryPayload.decode(number, VString.class, null);
+        assertThat(((VString) value).getValue(), equalTo("3.5"));
+
+        value = BinaryPayload.decode(integer, VString.class, null);
+        assertThat(((VString) value).getValue(), equalTo("42"));
+
+        value = BinaryPayload.decode(longs, VDoubleArray.class, null);
+        assertThat(value, instanceOf(VDoubleArray.class));
+        assertThat(((VNumberArray) value).getData(), equalTo(ArrayDouble.of(1.0, 2.0)));
+
+        value = BinaryPayload.decode(doubles, VStringArray.class, null);
+        assertThat(((VStringArray) value).getData(), equalTo(List.of("1.5", "2.0")));
+
+        value = BinaryPayload.decode(longs, VStringArray.class, null);
+        assertThat(((VStringArray) value).getData(), equalTo(Arrays.asList("1", "2")));
+
+        // Matching type is used as is
+        value = BinaryPayload.decode(doubles, VDoubleArray.class, null);
+        assertThat(((VNumberArray) value).getData(), equalTo(ArrayDouble.of(1.5, 2.0)));
+
+        // Array can't be converted into scalar
+        assertThrows(Exception.class, () -> BinaryPayload.decode(doubles, VDouble.class, null));
+    }
+}
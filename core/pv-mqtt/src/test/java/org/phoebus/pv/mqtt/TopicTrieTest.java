@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.mqtt;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link TopicTrie} and shared subscriptions
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class TopicTrieTest
+{
+    private static final List<String> FILTERS = List.of("a/b", "a/+", "a/#", "+/b", "#", "a/b/c", "a/+/c", "+/+", "a", "$SYS/#", "$share/group/x/#");
+
+    /** @return Filters matched by topic, in order of FILTERS */
+    private static List<String> match(final TopicTrie<String> trie, final String topic)
+    {
+        final List<String> matched = new ArrayList<>();
+        trie.match(topic, matched::add);
+        matched.sort((a, b) -> FILTERS.indexOf(a) - FILTERS.indexOf(b));
+        return matched;
+    }
+
+    /** @return Filters that match topic according to {@link TopicTrie#matches} */
+    private static List<String> matches(final String topic)
+    {
+        return FILTERS.stream().filter(filter -> TopicTrie.matches(filter, topic)).toList();
+    }
+
+    @Test
+    public void testMatch()
+    {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        for (String filter : FILTERS)
+            trie.add(filter, filter);
+
+        final Map<String, List<String>> expected = new HashMap<>();
+        expected.put("a/b", List.of("a/b", "a/+", "a/#", "+/b", "#", "+/+"));
+        expected.put("a/x", List.of("a/+", "a/#", "#", "+/+"));
+        // "a/#" also matches "a"
+        expected.put("a", List.of("a/#", "#", "a"));
+        expected.put("a/b/c", List.of("a/#", "#", "a/b/c", "a/+/c"));
+        expected.put("a/x/c", List.of("a/#", "#", "a/+/c"));
+        expected.put("a/x/d", List.of("a/#", "#"));
+        expected.put("x/b", List.of("+/b", "#", "+/+", "$share/group/x/#"));
+        // Empty levels are valid
+        expected.put("a/", List.of("a/+", "a/#", "#", "+/+"));
+        expected.put("/b", List.of("+/b", "#", "+/+"));
+        // Leading wildcards don't match "$..." topics
+        expected.put("$SYS/b", List.of("$SYS/#"));
+        expected.put("$SYS", List.of("$SYS/#"));
+        // Shared subscription matches the topics of its filter
+        expected.put("x/y/z", List.of("#", "$share/group/x/#"));
+        expected.put("$share/group/x", List.of());
+
+        for (Map.Entry<String, List<String>> entry : expected.entrySet())
+        {
+            final String topic = entry.getKey();
+            assertThat(topic, match(trie, topic), equalTo(entry.getValue()));
+            assertThat(topic, matches(topic), equalTo(entry.getValue()));
+        }
+
+        assertThat(trie.get("a/+"), equalTo(List.of("a/+")));
+        assertThat(trie.get("$share/group/x/#"), equalTo(List.of("$share/group/x/#")));
+        assertThat(trie.get("a/b/c/d"), equalTo(List.of()));
+    }
+
+    @Test
+    public void testRemove()
+    {
+        final TopicTrie<String> trie = new TopicTrie<>();
+        trie.add("a/#", "one");
+        trie.add("a/#", "two");
+        trie.add("a/b", "three");
+        trie.add("$share/group/a/b", "four");
+
+        assertThat(match(trie, "a/b").size(), equalTo(4));
+        assertThat(trie.remove("a/#", "one"), equalTo(true));
+        assertThat(trie.remove("a/#", "one"), equalTo(false));
+        assertThat(trie.remove("a/x", "two"), equalTo(false));
+        assertThat(trie.remove("$share/group/a/b", "four"), equalTo(true));
+
+        final List<String> matched = new ArrayList<>();
+        trie.match("a/b", matched::add);
+        assertThat(matched, equalTo(List.of("two", "three")));
+
+        assertThat(trie.remove("a/#", "two"), equalTo(true));
+        assertThat(trie.remove("a/b", "three"), equalTo(true));
+        matched.clear();
+        trie.match("a/b", matched::add);
+        assertThat(matched, equalTo(List.of()));
+        assertThat(trie.get("a/b"), equalTo(List.of()));
+    }
+
+    @Test
+    public void testCoversOverlaps()
+    {
+        assertThat(TopicTrie.covers("a/#", "a/b/c"), equalTo(true));
+        assertThat(TopicTrie.covers("a/#", "a/+"), equalTo(true));
+        assertThat(TopicTrie.covers("a/#", "a/#"), equalTo(true));
+        assertThat(TopicTrie.covers("a/#", "a"), equalTo(true));
+        assertThat(TopicTrie.covers("a/+", "a/b"), equalTo(true));
+        assertThat(TopicTrie.covers("a/+", "a/#"), equalTo(false));
+        assertThat(TopicTrie.covers("a/+", "a/b/c"), equalTo(false));
+        assertThat(TopicTrie.covers("a/b", "a/+"), equalTo(false));
+        assertThat(TopicTrie.covers("+/b", "a/+"), equalTo(false));
+        assertThat(TopicTrie.covers("#", "$SYS/x"), equalTo(false));
+        assertThat(TopicTrie.covers("$share/group/a/#", "a/+/c"), equalTo(true));
+
+        assertThat(TopicTrie.overlaps("+/b", "a/+"), equalTo(true));
+        assertThat(TopicTrie.overlaps("a/#", "+/b/c"), equalTo(true));
+        assertThat(TopicTrie.overlaps("a/#", "a"), equalTo(true));
+        assertThat(TopicTrie.overlaps("a", "a/#"), equalTo(true));
+        assertThat(TopicTrie.overlaps("a/+/#", "a"), equalTo(false));
+        assertThat(TopicTrie.overlaps("a/+", "b/+"), equalTo(false));
+        assertThat(TopicTrie.overlaps("a/+", "a/b/c"), equalTo(false));
+        assertThat(TopicTrie.overlaps("+/#", "$SYS/x"), equalTo(false));
+        assertThat(TopicTrie.overlaps("$share/group/sensors/#", "+/temp"), equalTo(true));
+    }
+
+    @Test
+    public void testSharedFilters()
+    {
+        // Filters covered by another one are dropped, "a/b/#" by "a/#", duplicate "a/#"
+        final List<String> shared = MQTT_PVConn.parseSharedFilters(" a/b/#, a/#, , x/+/status,a/#, $share/group/s/# ");
+        assertThat(shared, equalTo(List.of("a/#", "x/+/status", "$share/group/s/#")));
+
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "a/b/c"), equalTo("a/#"));
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "x/y/status"), equalTo("x/+/status"));
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "s/temp"), equalTo("$share/group/s/#"));
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "b/c"), equalTo(null));
+        // Wildcard filters that are covered by a shared filter use it
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "a/+"), equalTo("a/#"));
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "a/b/#"), equalTo("a/#"));
+        assertThat(MQTT_PVConn.getSharedFilter(shared, "x/+/+"), equalTo(null));
+    }
+
+    @Test
+    public void testDispatchOnce()
+    {
+        // PVs for topics and wildcards, some covered by the shared filter
+        final List<String> shared = MQTT_PVConn.parseSharedFilters("sensors/#");
+        final List<String> pvs = List.of("sensors/temp", "sensors/+", "sensors/#", "sensors/+/x", "other/+", "other/temp/x");
+        final TopicTrie<String> subscribers = new TopicTrie<>();
+        final Set<String> subscriptions = new LinkedHashSet<>();
+        for (String pv : pvs)
+        {
+            subscribers.add(pv, pv);
+            final String filter = MQTT_PVConn.getSharedFilter(shared, pv);
+            subscriptions.add(filter != null ? filter : pv);
+        }
+        assertThat(List.copyOf(subscriptions), equalTo(List.of("sensors/#", "other/+", "other/temp/x")));
+
+        // Broker sends a message once for each subscription that matches the topic
+        for (String topic : List.of("sensors/temp", "sensors/a/x", "sensors", "other/temp", "other/temp/x"))
+        {
+            final Map<String, Integer> received = new HashMap<>();
+            for (String subscription : subscriptions)
+                if (TopicTrie.matches(subscription, topic))
+                    subscribers.match(topic, pv -> received.merge(pv, 1, Integer::sum));
+            for (String pv : pvs)
+                assertThat(topic + " for " + pv, received.getOrDefault(pv, 0), equalTo(TopicTrie.matches(pv, topic) ? 1 : 0));
+        }
+    }
+}
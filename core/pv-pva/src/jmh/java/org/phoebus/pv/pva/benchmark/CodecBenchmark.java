@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pva.data.PVAByteArray;
+import org.epics.pva.data.PVAData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.phoebus.pv.pva.BitshuffleLZ4Codec;
+import org.phoebus.pv.pva.BloscCodec;
+import org.phoebus.pv.pva.Codec;
+import org.phoebus.pv.pva.CodecEncoders;
+import org.phoebus.pv.pva.LZ4Codec;
+
+/** Decompression of synthetic 4k x 4k 16-bit NDArray frames
+ *  @author Kay Kasemir
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class CodecBenchmark
+{
+    /** Image size */
+    private static final int WIDTH = 4096, HEIGHT = 4096;
+
+    /** Original data type code for uint16 */
+    private static final int UINT16 = 6;
+
+    @Param({ "lz4", "bslz4", "blosc_lz4_bitshuffle", "blosc_lz4_shuffle", "blosc_zlib_shuffle" })
+    public String codec_name;
+
+    private Codec codec;
+
+    private PVAByteArray compressed;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        final byte[] image = CodecEncoders.createImage16(WIDTH, HEIGHT);
+        final byte[] data;
+        switch (codec_name)
+        {
+        case "lz4":
+            codec = new LZ4Codec();
+            data = CodecEncoders.lz4(image, 0, image.length);
+            break;
+        case "bslz4":
+            codec = new BitshuffleLZ4Codec();
+            data = CodecEncoders.bslz4(image, 2, false);
+            break;
+        case "blosc_lz4_bitshuffle":
+            codec = new BloscCodec();
+            data = CodecEncoders.blosc(image, 2, 256*1024, CodecEncoders.BITSHUFFLE, CodecEncoders.BLOSC_LZ4, false);
+            break;
+        case "blosc_lz4_shuffle":
+            codec = new BloscCodec();
+            data = CodecEncoders.blosc(image, 2, 256*1024, CodecEncoders.SHUFFLE, CodecEncoders.BLOSC_LZ4, true);
+            break;
+        case "blosc_zlib_shuffle":
+            codec = new BloscCodec();
+            data = CodecEncoders.blosc(image, 2, 256*1024, CodecEncoders.SHUFFLE, CodecEncoders.BLOSC_ZLIB, true);
+            break;
+        default:
+            throw new IllegalArgumentException(codec_name);
+        }
+        compressed = new PVAByteArray("value", true, data);
+    }
+
+    /** @return Decompressed frame */
+    @Benchmark
+    public PVAData decompress() throws Exception
+    {
+        return codec.decompress(compressed, UINT16, WIDTH * HEIGHT);
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva;
+
+/** PVA NDArray codec for 'bslz4', bitshuffle with LZ4 compression
+ *
+ *  <p>Format of the 'bitshuffle' library as used by area detector:
+ *  Elements are handled in blocks of a fixed number of elements.
+ *  Each block is bit-shuffled, then compressed with LZ4,
+ *  and written as a 4-byte big endian compressed size followed
+ *  by the compressed data.
+ *  After the full blocks, the remaining elements up to a multiple
+ *  of 8 form one more, shorter block,
+ *  and any elements beyond that are appended without compression.
+ *
+ *  <p>The data may start with the 12-byte header used by HDF5,
+ *  an 8-byte big endian total size followed by
+ *  the 4-byte big endian block size in bytes.
+ *  The header is recognized when it holds the expected size
+ *  and a valid block size, and the blocks that it describes
+ *  exactly fill the data.
+ *  Otherwise the data must use the default block size.
+ *
+ *  <p>Blocks are decompressed in parallel.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class BitshuffleLZ4Codec extends Codec
+{
+    /** Target size of a block in bytes */
+    private static final int TARGET_BLOCK_SIZE = 8192;
+
+    /** Block sizes must be a multiple of this number of elements */
+    private static final int BLOCKED_MULT = 8;
+
+    /** Size of optional HDF5 header */
+    private static final int HEADER_SIZE = 12;
+
+    /** Minimum block size in elements */
+    private static final int MIN_BLOCK = 128;
+
+    /** Buffer for de-compressed, still shuffled blocks, per thread */
+    private static final ThreadLocal<byte[]> block_buffer = ThreadLocal.withInitial(() -> new byte[0]);
+
+    @Override
+    public byte[] decompress(final byte[] data, final int decompressed_size) throws Exception
+    {
+        final byte[] result = new byte[decompressed_size];
+        decompress(data, result, decompressed_size);
+        return result;
+    }
+
+    @Override
+    protected void decompress(final byte[] data, final byte[] result, final int decompressed_size) throws Exception
+    {
+        final int type_size = bytes_per_sample;
+        final int count = decompressed_size / type_size;
+
+        // Check for HDF5 header with expected size and valid block size
+        int[] header_starts = null;
+        if (data.length >= HEADER_SIZE  &&  getLong(data, 0) == decompressed_size)
+        {
+            final int block_bytes = getInt(data, 8);
+            if (block_bytes > 0  &&  block_bytes % (type_size * BLOCKED_MULT) == 0)
+                header_starts = locateBlocks(data, HEADER_SIZE, count, block_bytes / type_size, type_size, true);
+        }
+        // Without header, use default block size
+        final int block_elements = header_starts != null
+                                 ? getInt(data, 8) / type_size
+                                 : Math.max(MIN_BLOCK, TARGET_BLOCK_SIZE / type_size / BLOCKED_MULT * BLOCKED_MULT);
+        final int[] starts = header_starts != null
+                           ? header_starts
+                           : locateBlocks(data, 0, count, block_elements, type_size, false);
+
+        // Elements beyond the last block are not compressed
+        final int full_blocks = count / block_elements;
+        final int last_block = count % block_elements - (count % block_elements) % BLOCKED_MULT;
+        final int blocks = starts.length - 1;
+        final int shuffled = (full_blocks * block_elements + last_block) * type_size;
+        System.arraycopy(data, starts[blocks], result, shuffled, decompressed_size - shuffled);
+
+        decompressChunks(decompressed_size, blocks, b ->
+        {
+            final int elements = b < full_blocks ? block_elements : last_block;
+            final int bytes = elements * type_size;
+            byte[] shuffle = block_buffer.get();
+            if (shuffle.length < bytes)
+            {
+                shuffle = new byte[bytes];
+                block_buffer.set(shuffle);
+            }
+            final int expanded = LZ4Block.decompress(data, starts[b] + 4, getInt(data, starts[b]), shuffle, 0, bytes);
+            if (expanded != bytes)
+                throw new Exception("Block " + b + " expanded into " + expanded + " instead of " + bytes + " bytes");
+            Shuffle.unshuffleBits(shuffle, 0, result, b * block_elements * type_size, elements, type_size);
+        });
+    }
+
+    /** @param data Compressed data
+     *  @param start Position of first block
+     *  @param count Number of elements
+     *  @param block_elements Elements per block
+     *  @param type_size Bytes per element
+     *  @param check Check if blocks are valid, returning <code>null</code> instead of throwing exception?
+     *  @return Start of each block, followed by start of uncompressed elements,
+     *          or <code>null</code> when checking and blocks don't exactly fill the data
+     *  @throws Exception on error
+     */
+    private static int[] locateBlocks(final byte[] data, final int start, final int count,
+                                      final int block_elements, final int type_size, final boolean check) throws Exception
+    {
+        final int full_blocks = count / block_elements;
+        final int last_block = count % block_elements - (count % block_elements) % BLOCKED_MULT;
+        final int blocks = full_blocks + (last_block > 0 ? 1 : 0);
+        final int[] starts = new int[blocks + 1];
+        int pos = start;
+        for (int b=0; b<blocks; ++b)
+        {
+            if (pos + 4 > data.length)
+            {
+                if (check)
+                    return null;
+                throw new Exception("Missing block " + b + " of " + blocks);
+            }
+            starts[b] = pos;
+            final int compressed = getInt(data, pos);
+            if (compressed <= 0  ||  compressed > data.length - pos - 4)
+            {
+                if (check)
+                    return null;
+                throw new Exception("Invalid compressed size " + compressed + " for block " + b);
+            }
+            pos += 4 + compressed;
+        }
+        starts[blocks] = pos;
+
+        final int leftover = (count - full_blocks * block_elements - last_block) * type_size;
+        if (check  &&  pos + leftover != data.length)
+            return null;
+        if (pos + leftover > data.length)
+            throw new Exception("Missing " + leftover + " uncompressed bytes");
+        return starts;
+    }
+
+    /** @param data Data
+     *  @param pos Position in data
+     *  @return Big endian long at that position
+     */
+    private static long getLong(final byte[] data, final int pos)
+    {
+        return (getInt(data, pos) & 0xFFFFFFFFL) << 32 | (getInt(data, pos+4) & 0xFFFFFFFFL);
+    }
+
+    /** @param data Data
+     *  @param pos Position in data
+     *  @return Big endian int at that position
+     */
+    private static int getInt(final byte[] data, final int pos)
+    {
+        return (data[pos] & 0xFF) << 24 | (data[pos+1] & 0xFF) << 16 | (data[pos+2] & 0xFF) << 8 | (data[pos+3] & 0xFF);
+    }
+}
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva;
+
+import java.util.zip.Inflater;
+
+/** PVA NDArray codec for Blosc-compressed data
+ *
+ *  <p>Decodes the Blosc (version 1) frame format in plain Java.
+ *  A frame has a 16-byte header, a table of block start offsets,
+ *  and independent blocks.
+ *  Each block may be split into one stream per byte of an element,
+ *  which are compressed with one of several compressors,
+ *  and may be byte- or bit-shuffled.
+ *
+ *  <p>Supported compressors are BloscLZ, LZ4 (which includes LZ4HC)
+ *  and zlib. Snappy and Zstd would need additional libraries.
+ *
+ *  <p>Blocks are decompressed in parallel.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class BloscCodec extends Codec
+{
+    /** Size of frame header */
+    private static final int HEADER = 16;
+
+    /** Format version written by Blosc 1 */
+    private static final int BLOSC1_VERSION = 2;
+
+    /** Header flags */
+    private static final int DOSHUFFLE = 0x01, MEMCPYED = 0x02, DOBITSHUFFLE = 0x04, DONT_SPLIT = 0x10;
+
+    /** Compressor codes in upper 3 bits of flags */
+    private static final int BLOSCLZ = 0, LZ4 = 1, ZLIB = 3;
+
+    /** Names of compressors by code */
+    private static final String[] COMPRESSORS = { "blosclz", "lz4", "snappy", "zlib", "zstd" };
+
+    /** Blocks are only split for up to this many bytes per element.. */
+    private static final int MAX_SPLITS = 16;
+
+    /** .. and at least this many elements per block */
+    private static final int MIN_BUFFERSIZE = 128;
+
+    /** Maximum BloscLZ distance for 8+5 bit offset */
+    private static final int MAX_DISTANCE = 8191;
+
+    /** Buffer for de-compressed, still shuffled blocks, per thread */
+    private static final ThreadLocal<byte[]> block_buffer = ThreadLocal.withInitial(() -> new byte[0]);
+
+    /** Zlib decompressor, per thread */
+    private static final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public byte[] decompress(final byte[] data, final int decompressed_size) throws Exception
+    {
+        final byte[] result = new byte[decompressed_size];
+        decompress(data, result, decompressed_size);
+        return result;
+    }
+
+    @Override
+    protected void decompress(final byte[] data, final byte[] result, final int decompressed_size) throws Exception
+    {
+        if (data.length < HEADER)
+            throw new Exception("Blosc frame is too short");
+        final int version = data[0] & 0xFF;
+        final int flags = data[2] & 0xFF;
+        final int type_size = data[3] & 0xFF;
+        final int nbytes = getInt(data, 4);
+        final int block_size = getInt(data, 8);
+        if (nbytes != decompressed_size)
+            throw new Exception("Expected " + decompressed_size + " bytes, Blosc header indicates " + nbytes);
+
+        if ((flags & MEMCPYED) != 0)
+        {
+            if (HEADER + nbytes > data.length)
+                throw new Exception("Blosc frame is too short for " + nbytes + " uncompressed bytes");
+            System.arraycopy(data, HEADER, result, 0, nbytes);
+            return;
+        }
+
+        final int compressor = flags >>> 5;
+        if (compressor != BLOSCLZ  &&  compressor != LZ4  &&  compressor != ZLIB)
+            throw new Exception("Blosc compressor '" +
+                                (compressor < COMPRESSORS.length ? COMPRESSORS[compressor] : Integer.toString(compressor)) +
+                                "' is not supported");
+        if (type_size <= 0  ||  block_size <= 0)
+            throw new Exception("Invalid Blosc type size " + type_size + " or block size " + block_size);
+
+        final int blocks = nbytes / block_size + (nbytes % block_size > 0 ? 1 : 0);
+        if (HEADER + 4L * blocks > data.length)
+            throw new Exception("Blosc frame is too short for " + blocks + " blocks");
+        final boolean shuffle = (flags & DOSHUFFLE) != 0  &&  type_size > 1;
+        final boolean bitshuffle = (flags & DOBITSHUFFLE) != 0;
+        final boolean split = (flags & DONT_SPLIT) == 0  &&  type_size <= MAX_SPLITS  &&  block_size / type_size >= MIN_BUFFERSIZE;
+
+        decompressChunks(decompressed_size, blocks, b ->
+        {
+            final int offset = b * block_size;
+            final boolean leftover = b == blocks-1  &&  nbytes % block_size != 0;
+            final int size = leftover ? nbytes % block_size : block_size;
+
+            // Blosc 1 only bit-shuffles blocks with a multiple of 8 elements,
+            // later versions shuffle the elements up to a multiple of 8
+            final int bit_count = bitshuffle  &&  size >= type_size
+                                ? (version <= BLOSC1_VERSION  &&  (size / type_size) % 8 != 0 ? 0 : size / type_size / 8 * 8)
+                                : 0;
+
+            // Decompress shuffled blocks into buffer, others directly into result
+            final byte[] target;
+            final int target_offset;
+            if (shuffle  ||  bit_count > 0)
+            {
+                byte[] buf = block_buffer.get();
+                if (buf.length < size)
+                {
+                    buf = new byte[size];
+                    block_buffer.set(buf);
+                }
+                target = buf;
+                target_offset = 0;
+            }
+            else
+            {
+                target = result;
+                target_offset = offset;
+            }
+
+            final int streams = split && !leftover ? type_size : 1;
+            final int stream_size = size / streams;
+            int pos = getInt(data, HEADER + 4*b);
+            for (int s=0; s<streams; ++s)
+            {
+                if (pos < 0  ||  pos + 4 > data.length)
+                    throw new Exception("Invalid start of Blosc block " + b);
+                final int compressed = getInt(data, pos);
+                pos += 4;
+                if (compressed < 0  ||  compressed > data.length - pos)
+                    throw new Exception("Invalid compressed size " + compressed + " in Blosc block " + b);
+                final int start = target_offset + s*stream_size;
+                final int expanded;
+                if (compressed == stream_size)
+                {   // Incompressible stream is copied as is
+                    System.arraycopy(data, pos, target, start, stream_size);
+                    expanded = stream_size;
+                }
+                else if (compressor == LZ4)
+                    expanded = LZ4Block.decompress(data, pos, compressed, target, start, stream_size);
+                else if (compressor == ZLIB)
+                    expanded = inflate(data, pos, compressed, target, start, stream_size);
+                else
+                    expanded = decompressBloscLZ(data, pos, compressed, target, start, stream_size);
+                if (expanded != stream_size)
+                    throw new Exception("Blosc block " + b + " expanded into " + expanded + " instead of " + stream_size + " bytes");
+                pos += compressed;
+            }
+
+            if (shuffle)
+                Shuffle.unshuffleBytes(target, 0, result, offset, size, type_size);
+            else if (bit_count > 0)
+            {   // Elements beyond a multiple of 8 are not shuffled
+                Shuffle.unshuffleBits(target, 0, result, offset, bit_count, type_size);
+                final int shuffled = bit_count * type_size;
+                System.arraycopy(target, shuffled, result, offset + shuffled, size - shuffled);
+            }
+        });
+    }
+
+    /** @param src Compressed data
+     *  @param src_offset Start of compressed data
+     *  @param src_length Length of compressed data
+     *  @param dst Buffer for de-compressed data
+     *  @param dst_offset Start of de-compressed data
+     *  @param dst_length Maximum length of de-compressed data
+     *  @return Number of de-compressed bytes
+     *  @throws Exception on error
+     */
+    private static int inflate(final byte[] src, final int src_offset, final int src_length,
+                               final byte[] dst, final int dst_offset, final int dst_length) throws Exception
+    {
+        final Inflater zlib = inflater.get();
+        zlib.reset();
+        zlib.setInput(src, src_offset, src_length);
+        int expanded = 0;
+        while (expanded < dst_length  &&  !zlib.finished())
+        {
+            final int batch = zlib.inflate(dst, dst_offset + expanded, dst_length - expanded);
+            if (batch == 0  &&  (zlib.needsInput()  ||  zlib.needsDictionary()))
+                break;
+            expanded += batch;
+        }
+        return expanded;
+    }
+
+    /** Decode BloscLZ, a variant of FastLZ
+     *
+     *  <p>Control byte <code>c</code> below 32 is followed by <code>c+1</code> literal bytes.
+     *  Otherwise the upper 3 bits hold a match length, extended by additional bytes,
+     *  and the lower 5 bits hold the upper bits of the match distance.
+     *
+     *  @param src Compressed data
+     *  @param src_offset Start of compressed data
+     *  @param src_length Length of compressed data
+     *  @param dst Buffer for de-compressed data
+     *  @param dst_offset Start of de-compressed data
+     *  @param dst_length Maximum length of de-compressed data
+     *  @return Number of de-compressed bytes
+     *  @throws Exception on error
+     */
+    static int decompressBloscLZ(final byte[] src, final int src_offset, final int src_length,
+                                 final byte[] dst, final int dst_offset, final int dst_length) throws Exception
+    {
+        final int src_end = src_offset + src_length;
+        final int dst_end = dst_offset + dst_length;
+        if (src_length <= 0)
+            return 0;
+        int sp = src_offset, dp = dst_offset;
+        // Upper bits of first control byte indicate the compression level
+        int ctrl = src[sp++] & 31;
+        while (true)
+        {
+            if (ctrl >= 32)
+            {   // Match
+                int length = (ctrl >>> 5) - 1;
+                int distance = (ctrl & 31) << 8;
+                if (length == 6)
+                {
+                    int add;
+                    do
+                    {
+                        if (sp >= src_end)
+                            throw new Exception("BloscLZ match length exceeds block");
+                        add = src[sp++] & 0xFF;
+                        length += add;
+                    }
+                    while (add == 255);
+                }
+                if (sp >= src_end)
+                    throw new Exception("BloscLZ match distance exceeds block");
+                final int code = src[sp++] & 0xFF;
+                length += 3;
+                int ref = dp - distance - code - 1;
+                if (code == 255  &&  distance == (31 << 8))
+                {   // 16 bit distance
+                    if (sp + 2 > src_end)
+                        throw new Exception("BloscLZ match distance exceeds block");
+                    distance = (src[sp] & 0xFF) << 8 | (src[sp+1] & 0xFF);
+                    sp += 2;
+                    ref = dp - distance - MAX_DISTANCE - 1;
+                }
+                if (ref < dst_offset  ||  length > dst_end - dp)
+                    throw new Exception("BloscLZ match exceeds block");
+                if (dp - ref >= length)
+                    System.arraycopy(dst, ref, dst, dp, length);
+                else
+                    // Overlapping match repeats the last bytes
+                    for (int i=0; i<length; ++i)
+                        dst[dp + i] = dst[ref + i];
+                dp += length;
+            }
+            else
+            {   // Literal run
+                final int length = ctrl + 1;
+                if (length > src_end - sp  ||  length > dst_end - dp)
+                    throw new Exception("BloscLZ literals exceed block");
+                System.arraycopy(src, sp, dst, dp, length);
+                sp += length;
+                dp += length;
+            }
+            if (sp >= src_end)
+                break;
+            ctrl = src[sp++] & 0xFF;
+        }
+        return dp - dst_offset;
+    }
+
+    /** @param data Data
+     *  @param pos Position in data
+     *  @return Little endian int at that position
+     */
+    private static int getInt(final byte[] data, final int pos)
+    {
+        return (data[pos] & 0xFF) | (data[pos+1] & 0xFF) << 8 | (data[pos+2] & 0xFF) << 16 | (data[pos+3] & 0xFF) << 24;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2022-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,14 @@ import static org.phoebus.pv.PV.logger;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.epics.pva.data.PVAByteArray;
@@ -24,6 +32,9 @@ import org.epics.pva.data.PVAShortArray;
 /** PVA NDArray compression codec
  *
  *  <p>Base for all compression codecs.
+ *  Codecs that decompress independent chunks of a frame
+ *  can use {@link #decompressChunks(int, int, Chunk)}
+ *  to handle them in parallel.
  *
  *  @author Kay Kasemir
  */
@@ -45,7 +56,35 @@ abstract public class Codec
         Double.BYTES    // 10 double
     };
 
+    /** Frames of at least this size are decompressed in parallel */
+    private static final int PARALLEL_SIZE = 1024 * 1024;
+
+    /** Threads for decompressing chunks of a frame in parallel */
+    private static final ExecutorService pool;
+
+    static
+    {
+        final AtomicInteger instance = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), target ->
+        {
+            final Thread thread = new Thread(target, "NDArrayCodec" + instance.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Buffer for de-compressed data that's then converted into another data type,
+     *  re-used for the next frame
+     */
+    private byte[] buffer = null;
+
+    /** Bytes per element of the data that's being de-compressed */
+    protected int bytes_per_sample = 1;
+
     /** De-compress value
+     *
+     *  <p>A codec re-uses internal buffers from one call to the next,
+     *  so it must not be called concurrently.
      *
      *  @param value Value with compressed value
      *  @param orig_data_type Original data type ID
@@ -58,29 +97,35 @@ abstract public class Codec
     {
         final boolean unsigned = orig_data_type >= 5  &&  orig_data_type <= 8;
         final byte[] compressed = ((PVAByteArray)value).get();
-        final byte[] expanded = decompress(compressed, BYTES_PER_SAMPLE[orig_data_type] * value_count);
-        logger.log(Level.FINE, () -> "Decompressed " + compressed.length + " into " + expanded.length + " bytes");
+        bytes_per_sample = BYTES_PER_SAMPLE[orig_data_type];
+        final int size = bytes_per_sample * value_count;
 
         // byte, ubyte: Done!
         if (orig_data_type == 1  ||  orig_data_type == 5)
+        {
+            final byte[] expanded = decompress(compressed, size);
+            logger.log(Level.FINE, () -> "Decompressed " + compressed.length + " into " + expanded.length + " bytes");
             return new PVAByteArray(unsigned ? "ubyteValue" : "byteValue", unsigned, expanded);
+        }
+
+        // Other types are copied out of the de-compressed bytes,
+        // so those can be placed in a buffer that's re-used for the next frame.
+        // The converted arrays are passed on in the VImage and cannot be re-used.
+        if (buffer == null  ||  buffer.length < size)
+            buffer = new byte[size];
+        decompress(compressed, buffer, size);
+        logger.log(Level.FINE, () -> "Decompressed " + compressed.length + " into " + size + " bytes");
 
         // Need to 'cast' the expanded data from byte[] to orig_data_type[].
         // In C/C++, that's easy without copying the data:
         //   return new PVAIntArray("intValue", unsigned, (int *) expanded);
         // For Java, these similar looking constructs compile, but result in runtime errors:
-        final ByteBuffer cvt = ByteBuffer.wrap(expanded);
+        final ByteBuffer cvt = ByteBuffer.wrap(buffer, 0, size);
         //   int[] ints = (short []) (Object) expanded;
         //   int[] ints = cvt.asIntBuffer().array();
         //
-        // cvt.getInt() as used below eventually calls Unsafe.getInt(..).
-        // There are per-element access routines for each data type in Unsafe,
-        // but couldn't find a general array cast operation.
-        // There are Unsafe.copyMemoryXX routines that might save a little time over
-        // a per-element copy, but they still result in a full copy of the data,
-        // not saving any memory.
-        // Besides, the array elements might need to be swapped to the correct endian,
-        // so going with the ByteBuffer.getXXX() calls which handle byte order.
+        // The bulk get() of a typed view buffer copies all elements
+        // while swapping them to the requested byte order.
 
         // Unclear what byte order the data will be.
         // This worked in tests with X86_64 on Linux,
@@ -93,34 +138,29 @@ abstract public class Codec
         case 2: // short
         case 6: // ushort
             final short[] shorts = new short[value_count];
-            for (int i=0; i<shorts.length; ++i)
-                shorts[i] = cvt.getShort();
+            cvt.asShortBuffer().get(shorts);
             return new PVAShortArray(unsigned ? "ushortValue" : "shortValue", unsigned, shorts);
 
         case 3: // int
         case 7: // uint
             final int[] ints = new int[value_count];
-            for (int i=0; i<ints.length; ++i)
-                ints[i] = cvt.getInt();
+            cvt.asIntBuffer().get(ints);
             return new PVAIntArray(unsigned ? "uintValue" : "intValue", unsigned, ints);
 
         case 4: // long
         case 8: // ulong
             final long[] longs = new long[value_count];
-            for (int i=0; i<longs.length; ++i)
-                longs[i] = cvt.getLong();
+            cvt.asLongBuffer().get(longs);
             return new PVALongArray(unsigned ? "ulongValue" : "longValue", unsigned, longs);
 
         case 9: // float
             final float[] floats = new float[value_count];
-            for (int i=0; i<floats.length; ++i)
-                floats[i] = cvt.getFloat();
+            cvt.asFloatBuffer().get(floats);
             return new PVAFloatArray("floatValue", floats);
 
         case 10: // double
             final double[] doubles = new double[value_count];
-            for (int i=0; i<doubles.length; ++i)
-                doubles[i] = cvt.getDouble();
+            cvt.asDoubleBuffer().get(doubles);
             return new PVADoubleArray("doubleValue", doubles);
 
         default:
@@ -136,4 +176,75 @@ abstract public class Codec
      *  @throws Exception on error
      */
     abstract public byte[] decompress(byte[] data, final int decompressed_size) throws Exception;
+
+    /** De-compress byte array into buffer
+     *
+     *  <p>Default implementation copies the result of {@link #decompress(byte[], int)}.
+     *
+     *  @param data Compressed data
+     *  @param result Buffer for de-compressed data, may be larger than needed
+     *  @param decompressed_size Expected de-compressed size in bytes
+     *  @throws Exception on error
+     */
+    protected void decompress(final byte[] data, final byte[] result, final int decompressed_size) throws Exception
+    {
+        final byte[] expanded = decompress(data, decompressed_size);
+        System.arraycopy(expanded, 0, result, 0, Math.min(expanded.length, decompressed_size));
+    }
+
+    /** De-compression of one chunk of a frame */
+    @FunctionalInterface
+    protected interface Chunk
+    {
+        /** @param index Index of the chunk
+         *  @throws Exception on error
+         */
+        void decompress(int index) throws Exception;
+    }
+
+    /** De-compress chunks of a frame, in parallel for large frames
+     *
+     *  @param decompressed_size Size of the de-compressed frame in bytes
+     *  @param chunks Number of independent chunks in the frame
+     *  @param chunk De-compresses one chunk
+     *  @throws Exception on error
+     */
+    protected static void decompressChunks(final int decompressed_size, final int chunks, final Chunk chunk) throws Exception
+    {
+        final int tasks = decompressed_size < PARALLEL_SIZE
+                        ? 1
+                        : Math.min(chunks, 2 * Runtime.getRuntime().availableProcessors());
+        if (tasks <= 1)
+        {
+            for (int i=0; i<chunks; ++i)
+                chunk.decompress(i);
+            return;
+        }
+
+        final List<Callable<Object>> jobs = new ArrayList<>(tasks);
+        for (int t=0; t<tasks; ++t)
+        {
+            final int start = (int) ((long) chunks * t / tasks);
+            final int end = (int) ((long) chunks * (t+1) / tasks);
+            jobs.add(() ->
+            {
+                for (int i=start; i<end; ++i)
+                    chunk.decompress(i);
+                return null;
+            });
+        }
+        for (Future<Object> job : pool.invokeAll(jobs))
+        {
+            try
+            {
+                job.get();
+            }
+            catch (ExecutionException ex)
+            {
+                if (ex.getCause() instanceof Exception)
+                    throw (Exception) ex.getCause();
+                throw ex;
+            }
+        }
+    }
 }
@@ -9,6 +9,9 @@ package org.phoebus.pv.pva;
 
 import static org.phoebus.pv.PV.logger;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 import org.epics.pva.data.PVABool;
@@ -62,11 +65,56 @@ public class ImageDecoder
         VImageType.TYPE_YUV411
     };
 
+    /** Codecs by name, re-used for the images of one channel
+     *  SYNC on this
+     */
+    private final Map<String, Codec> codecs = new HashMap<>();
+
+    /** Decode images of one channel
+     *
+     *  <p>The codecs used to de-compress images,
+     *  together with their buffers, are re-used for the next image.
+     *
+     *  @param struct Structure with image
+     *  @return VType for image
+     *  @throws Exception on error
+     */
+    public synchronized VType decodeImage(final PVAStructure struct) throws Exception
+    {
+        return decode(struct, name -> codecs.computeIfAbsent(name.toLowerCase(), ImageDecoder::createCodec));
+    }
+
+    /** @param name Codec name
+     *  @return {@link Codec} or <code>null</code> if not supported
+     */
+    static Codec createCodec(final String name)
+    {
+        if (name.equalsIgnoreCase("lz4"))
+            return new LZ4Codec();
+        if (name.equalsIgnoreCase("jpeg"))
+            return new JPEGCodec();
+        if (name.equalsIgnoreCase("blosc"))
+            return new BloscCodec();
+        if (name.equalsIgnoreCase("bslz4"))
+            return new BitshuffleLZ4Codec();
+        return null;
+    }
+
     /** @param struct Structure with image
      *  @return VType for image
      *  @throws Exception on error
      */
     public static VType decode(final PVAStructure struct) throws Exception
+    {
+        return decode(struct, ImageDecoder::createCodec);
+    }
+
+    /** @param struct Structure with image
+     *  @param codecs Provides codec for name, or <code>null</code>
+     *  @return VType for image
+     *  @throws Exception on error
+     */
+    private static VType decode(final PVAStructure struct, final Function<String, Codec> codecs) throws Exception
     {
         // Get dimensions
         final PVAStructureArray dim = struct.get("dimension");
@@ -217,12 +265,8 @@ public class ImageDecoder
                 final PVAny parms = codec_info.get("parameters");
                 final PVAInt orig_type = parms.get();
 
-                Codec codec = null;
-                if (name.get().equalsIgnoreCase("lz4"))
-                    codec = new LZ4Codec();
-                else if (name.get().equalsIgnoreCase("jpeg"))
-                    codec = new JPEGCodec();
-                else
+                final Codec codec = codecs.apply(name.get());
+                if (codec == null)
                     logger.log(Level.WARNING, "NDArray codec '" + name.get() + "' is not implemented");
 
                 if (codec != null)
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva;
+
+/** Decoder for the LZ4 block format
+ *
+ *  <p>Decodes directly from one byte array into another,
+ *  without the stream and buffer handling of a general
+ *  purpose decompressor, so blocks of a frame can be
+ *  decompressed in parallel into a shared output array.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class LZ4Block
+{
+    /** Minimum length of a match */
+    private static final int MIN_MATCH = 4;
+
+    /** @param src Compressed data
+     *  @param src_offset Start of compressed block in <code>src</code>
+     *  @param src_length Length of compressed block
+     *  @param dst Buffer for de-compressed data
+     *  @param dst_offset Start of de-compressed block in <code>dst</code>
+     *  @param dst_length Maximum length of de-compressed block
+     *  @return Number of de-compressed bytes
+     *  @throws Exception on error in compressed data
+     */
+    static int decompress(final byte[] src, final int src_offset, final int src_length,
+                          final byte[] dst, final int dst_offset, final int dst_length) throws Exception
+    {
+        final int src_end = src_offset + src_length;
+        final int dst_end = dst_offset + dst_length;
+        if (src_offset < 0  ||  src_end > src.length  ||  dst_offset < 0  ||  dst_end > dst.length)
+            throw new Exception("LZ4 block exceeds buffer");
+
+        int sp = src_offset, dp = dst_offset;
+        while (sp < src_end)
+        {
+            final int token = src[sp++] & 0xFF;
+
+            // Literals
+            int length = token >>> 4;
+            if (length == 15)
+            {
+                int add;
+                do
+                {
+                    if (sp >= src_end)
+                        throw new Exception("LZ4 literal length exceeds block");
+                    add = src[sp++] & 0xFF;
+                    length += add;
+                }
+                while (add == 255);
+            }
+            if (length > src_end - sp  ||  length > dst_end - dp)
+                throw new Exception("LZ4 literals exceed block");
+            System.arraycopy(src, sp, dst, dp, length);
+            sp += length;
+            dp += length;
+
+            // Last sequence only has literals
+            if (sp >= src_end)
+                break;
+
+            // Match
+            if (sp + 2 > src_end)
+                throw new Exception("LZ4 match offset exceeds block");
+            final int offset = (src[sp] & 0xFF) | (src[sp+1] & 0xFF) << 8;
+            sp += 2;
+            if (offset == 0  ||  offset > dp - dst_offset)
+                throw new Exception("LZ4 match offset " + offset + " is invalid");
+            length = token & 0x0F;
+            if (length == 15)
+            {
+                int add;
+                do
+                {
+                    if (sp >= src_end)
+                        throw new Exception("LZ4 match length exceeds block");
+                    add = src[sp++] & 0xFF;
+                    length += add;
+                }
+                while (add == 255);
+            }
+            length += MIN_MATCH;
+            if (length > dst_end - dp)
+                throw new Exception("LZ4 match exceeds block");
+
+            final int from = dp - offset;
+            if (offset >= length)
+                System.arraycopy(dst, from, dst, dp, length);
+            else
+                // Overlapping match repeats the last 'offset' bytes
+                for (int i=0; i<length; ++i)
+                    dst[dp + i] = dst[from + i];
+            dp += length;
+        }
+        return dp - dst_offset;
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2022-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,9 +7,9 @@
  ******************************************************************************/
 package org.phoebus.pv.pva;
 
-import java.io.ByteArrayInputStream;
+import static org.phoebus.pv.PV.logger;
 
-import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import java.util.logging.Level;
 
 /** PVA NDArray codec for LZ4-compressed data
  *
@@ -17,33 +17,27 @@ import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream
  *  Area detector provides binaries/JNI interface
  *  for LZ4 and BLOSC, but that would add a hard to maintain
  *  dependency on binaries.
- *  LZ4 is available via apache-commons-compress, making
- *  it easy to support.
+ *  The LZ4 block format is simple enough to decode
+ *  in plain Java, see {@link LZ4Block}.
  *
  *  @author Kay Kasemir
  */
+@SuppressWarnings("nls")
 public class LZ4Codec extends Codec
 {
     @Override
     public byte[] decompress(final byte[] data, final int decompressed_size) throws Exception
     {
         final byte[] result = new byte[decompressed_size];
-        int expanded = 0;
-
-        try
-        ( final BlockLZ4CompressorInputStream in =
-            new BlockLZ4CompressorInputStream(new ByteArrayInputStream(data))
-        )
-        {
-            while (expanded < decompressed_size)
-            {
-                final int batch = in.read(result, expanded, decompressed_size - expanded);
-                if (batch == -1)
-                    break;
-                expanded += batch;
-            }
-        }
-
+        decompress(data, result, decompressed_size);
         return result;
     }
+
+    @Override
+    protected void decompress(final byte[] data, final byte[] result, final int decompressed_size) throws Exception
+    {
+        final int expanded = LZ4Block.decompress(data, 0, data.length, result, 0, decompressed_size);
+        if (expanded != decompressed_size)
+            logger.log(Level.WARNING, "Expected " + decompressed_size + " expanded LZ4 bytes but got " + expanded);
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019-2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2019-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -66,6 +66,18 @@ public class PVAStructureHelper
      *  @throws Exception on error
      */
     public static VType getVType(final PVAStructure struct, final PVNameHelper name_helper) throws Exception
+    {
+        return getVType(struct, name_helper, null);
+    }
+
+    /** @param struct Structure
+     *  @param name_helper {@link PVNameHelper}
+     *  @param image_decoder {@link ImageDecoder} of the channel, or <code>null</code>
+     *  @return Decoded VType
+     *  @throws Exception on error
+     */
+    public static VType getVType(final PVAStructure struct, final PVNameHelper name_helper,
+                                 final ImageDecoder image_decoder) throws Exception
     {
         PVAStructure actual = struct;
 
@@ -113,7 +125,7 @@ public class PVAStructureHelper
         if (type.equals("NTScalarArray:1.0"))
             return decodeNTArray(actual);
         if (type.equals("NTNDArray:1.0"))
-            return ImageDecoder.decode(actual);
+            return image_decoder == null ? ImageDecoder.decode(actual) : image_decoder.decodeImage(actual);
         if (type.equals("NTTable:1.0"))
             return decodeNTTable(actual);
 
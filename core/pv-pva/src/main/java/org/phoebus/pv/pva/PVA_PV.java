@@ -33,6 +33,9 @@ public class PVA_PV extends PV
     private final PVAChannel channel;
     final PVNameHelper name_helper;
 
+    /** Decoder for images received by the subscription */
+    private final ImageDecoder image_decoder = new ImageDecoder();
+
     /** @param name Full PV name with prefix and initializer
      *  @param base_name Base name
      *  @throws Exception on error
@@ -93,7 +96,7 @@ public class PVA_PV extends PV
         else
             try
             {
-                final VType value = PVAStructureHelper.getVType(data, name_helper);
+                final VType value = PVAStructureHelper.getVType(data, name_helper, image_decoder);
                 notifyListenersOfValue(value);
             }
             catch (Exception ex)
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva;
+
+/** Undo the byte and bit shuffle filters
+ *
+ *  <p>Shuffle filters re-arrange the data of multi-byte elements
+ *  before compression so that for example all the typically zero
+ *  high bytes of 16-bit pixels end up next to each other.
+ *
+ *  <p>The byte shuffle places byte 0 of all elements first,
+ *  then byte 1 of all elements, and so on.
+ *
+ *  <p>The bit shuffle as used by the 'bitshuffle' library and Blosc
+ *  creates one row of bits for each bit of each byte within an element:
+ *  Row <code>8*byte + bit</code> holds that bit of all elements,
+ *  packed eight elements per byte, lowest bit first.
+ *
+ *  @author Kay Kasemir
+ */
+class Shuffle
+{
+    /** Undo byte shuffle
+     *
+     *  @param src Shuffled data
+     *  @param src_offset Start of shuffled data
+     *  @param dst Buffer for un-shuffled data
+     *  @param dst_offset Start of un-shuffled data
+     *  @param length Number of bytes. Bytes beyond the last complete element are copied as is
+     *  @param type_size Bytes per element
+     */
+    static void unshuffleBytes(final byte[] src, final int src_offset,
+                               final byte[] dst, final int dst_offset,
+                               final int length, final int type_size)
+    {
+        final int count = length / type_size;
+        for (int b=0; b<type_size; ++b)
+        {
+            final int s = src_offset + b*count;
+            int d = dst_offset + b;
+            for (int i=0; i<count; ++i, d += type_size)
+                dst[d] = src[s + i];
+        }
+        final int shuffled = count * type_size;
+        System.arraycopy(src, src_offset + shuffled, dst, dst_offset + shuffled, length - shuffled);
+    }
+
+    /** Undo bit shuffle
+     *
+     *  @param src Shuffled data
+     *  @param src_offset Start of shuffled data
+     *  @param dst Buffer for un-shuffled data
+     *  @param dst_offset Start of un-shuffled data
+     *  @param count Number of elements, must be a multiple of 8
+     *  @param type_size Bytes per element
+     */
+    static void unshuffleBits(final byte[] src, final int src_offset,
+                              final byte[] dst, final int dst_offset,
+                              final int count, final int type_size)
+    {
+        // Bytes per row of bits
+        final int row = count / 8;
+        for (int b=0; b<type_size; ++b)
+        {
+            final int rows = src_offset + 8*b*row;
+            for (int g=0; g<row; ++g)
+            {
+                // Byte 'g' of the 8 bit rows for byte 'b' of the elements..
+                long x = 0;
+                for (int bit=0; bit<8; ++bit)
+                    x |= (src[rows + bit*row + g] & 0xFFL) << (8*bit);
+                // .. transposed into byte 'b' of the 8 elements starting at 8*g
+                x = transpose(x);
+                int d = dst_offset + 8*g*type_size + b;
+                for (int e=0; e<8; ++e, d += type_size)
+                {
+                    dst[d] = (byte) x;
+                    x >>>= 8;
+                }
+            }
+        }
+    }
+
+    /** @param x 8x8 bit matrix, one row per byte, lowest byte and bit first
+     *  @return Transposed matrix: Bit m of byte k moved to bit k of byte m
+     */
+    static long transpose(long x)
+    {
+        long t = (x ^ (x >>> 7)) & 0x00AA00AA00AA00AAL;
+        x = x ^ t ^ (t << 7);
+        t = (x ^ (x >>> 14)) & 0x0000CCCC0000CCCCL;
+        x = x ^ t ^ (t << 14);
+        t = (x ^ (x >>> 28)) & 0x00000000F0F0F0F0L;
+        x = x ^ t ^ (t << 28);
+        return x;
+    }
+}
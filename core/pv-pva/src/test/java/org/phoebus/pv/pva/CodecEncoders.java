@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+/** Encoders for compressed NDArray test data
+ *
+ *  <p>Straight forward implementations of the compression side,
+ *  written independent from the decoders.
+ *
+ *  @author Kay Kasemir
+ */
+public class CodecEncoders
+{
+    /** Blosc compressor codes */
+    public static final int BLOSC_LZ4 = 1, BLOSC_ZLIB = 3;
+
+    /** Blosc shuffle modes */
+    public static final int NOSHUFFLE = 0, SHUFFLE = 1, BITSHUFFLE = 2;
+
+    /** @param width Width
+     *  @param height Height
+     *  @return Image of 16-bit pixels, little endian: Gradient with some noise
+     */
+    public static byte[] createImage16(final int width, final int height)
+    {
+        final Random random = new Random(42);
+        final ByteBuffer buf = ByteBuffer.allocate(2 * width * height).order(ByteOrder.LITTLE_ENDIAN);
+        for (int y=0; y<height; ++y)
+            for (int x=0; x<width; ++x)
+                buf.putShort((short) (((x + y) & 0x0FFF) + random.nextInt(16)));
+        return buf.array();
+    }
+
+    /** Greedy LZ4 compression
+     *
+     *  @param data Data
+     *  @param offset Start of data to compress
+     *  @param length Length of data to compress
+     *  @return LZ4 block
+     */
+    public static byte[] lz4(final byte[] data, final int offset, final int length)
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 16);
+        final int bits = Math.max(8, Math.min(16, 32 - Integer.numberOfLeadingZeros(length)));
+        // Hash of 4 bytes -> position + 1 where they were last seen
+        final int[] table = new int[1 << bits];
+        final int end = offset + length;
+        // Last match must start 12 bytes before the end, last 5 bytes are literals
+        final int match_limit = end - 12;
+        int anchor = offset, pos = offset;
+        while (pos < match_limit)
+        {
+            final int seq = getIntLE(data, pos);
+            final int hash = (seq * -1640531535) >>> (32 - bits);
+            final int candidate = table[hash] - 1;
+            table[hash] = pos + 1;
+            if (candidate >= offset  &&  pos - candidate <= 65535  &&  getIntLE(data, candidate) == seq)
+            {
+                int match = 4;
+                while (pos + match < end - 5  &&  data[candidate + match] == data[pos + match])
+                    ++match;
+                final int literals = pos - anchor;
+                out.write(Math.min(literals, 15) << 4 | Math.min(match - 4, 15));
+                writeLength(out, literals);
+                out.write(data, anchor, literals);
+                out.write((pos - candidate) & 0xFF);
+                out.write((pos - candidate) >>> 8);
+                writeLength(out, match - 4);
+                pos += match;
+                anchor = pos;
+            }
+            else
+                ++pos;
+        }
+        final int literals = end - anchor;
+        out.write(Math.min(literals, 15) << 4);
+        writeLength(out, literals);
+        out.write(data, anchor, literals);
+        return out.toByteArray();
+    }
+
+    private static int getIntLE(final byte[] data, final int pos)
+    {
+        return (data[pos] & 0xFF) | (data[pos+1] & 0xFF) << 8 | (data[pos+2] & 0xFF) << 16 | (data[pos+3] & 0xFF) << 24;
+    }
+
+    /** Write additional length bytes for a length that doesn't fit into the token */
+    private static void writeLength(final ByteArrayOutputStream out, final int length)
+    {
+        if (length < 15)
+            return;
+        int remaining = length - 15;
+        while (remaining >= 255)
+        {
+            out.write(255);
+            remaining -= 255;
+        }
+        out.write(remaining);
+    }
+
+    /** @param data Data
+     *  @param offset Start of data to compress
+     *  @param length Length of data to compress
+     *  @return zlib stream
+     */
+    public static byte[] zlib(final byte[] data, final int offset, final int length)
+    {
+        final Deflater deflater = new Deflater();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final byte[] batch = new byte[4096];
+        while (! deflater.finished())
+            buf.write(batch, 0, deflater.deflate(batch));
+        deflater.end();
+        return buf.toByteArray();
+    }
+
+    /** @param data Data
+     *  @param offset Start of elements
+     *  @param count Number of elements
+     *  @param type_size Bytes per element
+     *  @return Byte-shuffled elements
+     */
+    public static byte[] byteShuffle(final byte[] data, final int offset, final int count, final int type_size)
+    {
+        final byte[] result = new byte[count * type_size];
+        for (int i=0; i<count; ++i)
+            for (int b=0; b<type_size; ++b)
+                result[b*count + i] = data[offset + i*type_size + b];
+        return result;
+    }
+
+    /** @param data Data
+     *  @param offset Start of elements
+     *  @param count Number of elements, multiple of 8
+     *  @param type_size Bytes per element
+     *  @return Bit-shuffled elements
+     */
+    public static byte[] bitShuffle(final byte[] data, final int offset, final int count, final int type_size)
+    {
+        final byte[] result = new byte[count * type_size];
+        final int row = count / 8;
+        for (int i=0; i<count; ++i)
+            for (int b=0; b<type_size; ++b)
+                for (int bit=0; bit<8; ++bit)
+                    if ((data[offset + i*type_size + b] & (1 << bit)) != 0)
+                        result[(8*b + bit)*row + i/8] |= 1 << (i % 8);
+        return result;
+    }
+
+    /** @param data Data
+     *  @param type_size Bytes per element
+     *  @param with_header Add the HDF5 header?
+     *  @return 'bslz4' compressed data, using the default block size
+     *  @throws Exception on error
+     */
+    public static byte[] bslz4(final byte[] data, final int type_size, final boolean with_header) throws Exception
+    {
+        final int count = data.length / type_size;
+        final int block = Math.max(128, 8192 / type_size / 8 * 8);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final ByteBuffer header = ByteBuffer.allocate(12);
+        header.putLong(data.length);
+        header.putInt(block * type_size);
+        if (with_header)
+            buf.write(header.array());
+
+        int i = 0;
+        while (i < count)
+        {
+            int n = Math.min(block, count - i);
+            n -= n % 8;
+            if (n <= 0)
+                break;
+            final byte[] compressed = lz4(bitShuffle(data, i * type_size, n, type_size), 0, n * type_size);
+            buf.write(ByteBuffer.allocate(4).putInt(compressed.length).array());
+            buf.write(compressed);
+            i += n;
+        }
+        buf.write(data, i * type_size, data.length - i * type_size);
+        return buf.toByteArray();
+    }
+
+    /** @param data Data
+     *  @param type_size Bytes per element
+     *  @param block_size Block size in bytes, multiple of type_size
+     *  @param shuffle {@link #NOSHUFFLE}, {@link #SHUFFLE} or {@link #BITSHUFFLE}
+     *  @param compressor {@link #BLOSC_LZ4} or {@link #BLOSC_ZLIB}
+     *  @param split Split blocks into one stream per byte of an element?
+     *  @return Blosc frame
+     *  @throws Exception on error
+     */
+    public static byte[] blosc(final byte[] data, final int type_size, final int block_size,
+                               final int shuffle, final int compressor, final boolean split) throws Exception
+    {
+        final int blocks = (data.length + block_size - 1) / block_size;
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final ByteBuffer starts = ByteBuffer.allocate(4 * blocks).order(ByteOrder.LITTLE_ENDIAN);
+        for (int b=0; b<blocks; ++b)
+        {
+            starts.putInt(16 + 4*blocks + body.size());
+            final int offset = b * block_size;
+            final int size = Math.min(block_size, data.length - offset);
+            final boolean leftover = size < block_size;
+
+            final byte[] shuffled;
+            if (shuffle == SHUFFLE)
+            {
+                final byte[] part = byteShuffle(data, offset, size / type_size, type_size);
+                shuffled = new byte[size];
+                System.arraycopy(part, 0, shuffled, 0, part.length);
+                System.arraycopy(data, offset + part.length, shuffled, part.length, size - part.length);
+            }
+            else if (shuffle == BITSHUFFLE  &&  (size / type_size) % 8 == 0)
+            {   // Blosc 1 only bit-shuffles blocks with a multiple of 8 elements
+                final byte[] part = bitShuffle(data, offset, size / type_size, type_size);
+                shuffled = new byte[size];
+                System.arraycopy(part, 0, shuffled, 0, part.length);
+                System.arraycopy(data, offset + part.length, shuffled, part.length, size - part.length);
+            }
+            else
+            {
+                shuffled = new byte[size];
+                System.arraycopy(data, offset, shuffled, 0, size);
+            }
+
+            final int streams = split && !leftover ? type_size : 1;
+            final int stream_size = size / streams;
+            for (int s=0; s<streams; ++s)
+            {
+                byte[] compressed = compressor == BLOSC_LZ4
+                                  ? lz4(shuffled, s*stream_size, stream_size)
+                                  : zlib(shuffled, s*stream_size, stream_size);
+                if (compressed.length >= stream_size)
+                {   // Store incompressible stream as is
+                    compressed = new byte[stream_size];
+                    System.arraycopy(shuffled, s*stream_size, compressed, 0, stream_size);
+                }
+                body.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(compressed.length).array());
+                body.write(compressed);
+            }
+        }
+
+        final int flags = (shuffle == SHUFFLE ? 0x01 : 0) |
+                          (shuffle == BITSHUFFLE ? 0x04 : 0) |
+                          (split ? 0 : 0x10) |
+                          compressor << 5;
+        final ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        header.put((byte) 2);
+        header.put((byte) 1);
+        header.put((byte) flags);
+        header.put((byte) type_size);
+        header.putInt(data.length);
+        header.putInt(block_size);
+        header.putInt(16 + 4*blocks + body.size());
+
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(header.array());
+        frame.write(starts.array());
+        body.writeTo(frame);
+        return frame.toByteArray();
+    }
+}
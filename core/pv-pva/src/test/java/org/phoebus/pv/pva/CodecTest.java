@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.pva;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import org.epics.pva.data.PVAByteArray;
+import org.epics.pva.data.PVAData;
+import org.epics.pva.data.PVAShortArray;
+import org.junit.jupiter.api.Test;
+
+/** Test of the NDArray codecs
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class CodecTest
+{
+    /** 16 bit image where the pixel count is not a multiple of 8 */
+    private static final byte[] image = CodecEncoders.createImage16(101, 77);
+
+    // Golden frames for 203 16-bit samples, laid out as written by c-blosc 1.x
+    // resp. the bitshuffle library with LZ4 blocks from liblz4 1.9.4,
+    // zlib streams from zlib 1.2.13 and BloscLZ streams from a transcription
+    // of blosclz_compress().
+    // Blosc frames use block sizes of 256 resp. 128 bytes, so the last block
+    // has 75 resp. 11 elements, which Blosc 1 does not bit-shuffle.
+    // The bitshuffle frames use the default block size without header
+    // and 64 elements per block with the HDF5 header.
+    // The '_PARTIAL' frames hold only the first 200 samples,
+    // so the last, partial block has 72 resp. 8 elements which are bit-shuffled.
+
+    private static final String DATA =
+        "020026004D006F009400B900E000030129014D0172019A01BF01E10107022B02530275029A02C002E4020C032E035403" +
+        "78039E03C403EA030D04310458047C04A004C604EC040F05340559057F05A605CB05EF0515063A065E068306A706CC06" +
+        "F10615073C0762078607AC07D007F3071808400863088908AD08D408F9081B09400967098C09B109D709FC091E0A430A" +
+        "6A0A900AB20AD70AFE0A240B480B6E0B920BB50BDD0B010C250C490C710C930CB90CDF0C030D280D4F0D740D990DBB0D" +
+        "E10D080E2D0E510E750E9C0EC00EE60E0A0F300F530F780F9C0FC20FE70F0C10311055107D10A010C610EB100E113411" +
+        "5B117F11A411C811EC11141239125E128312A812CA12F212171339135F138313A913D013F31317143E1461148614AB14" +
+        "D114F5141C153F1564158A15B115D415FA151F1644166A168C16B116D916FE16231748176C178F17B517D91700182518" +
+        "4B186E189218B818DE18021926194D1970199719BC19E019061A2A1A501A741A991ABE1AE51A081B2D1B541B781B9B1B" +
+        "C01BE71B0D1C311C551C7B1CA11CC51CEA1C0D1D331D";
+    private static final String BLOSC_LZ4_SHUFFLE =
+        "0201210296010000000100007201000018000000EF0000008000000002264D6F94B9E003294D729ABFE1072B53759AC0" +
+        "E40C2E54789EC4EA0D31587CA0C6EC0F34597FA6CBEF153A5E83A7CCF1153C6286ACD0F318406389ADD4F91B40678CB1" +
+        "D7FC1E436A90B2D7FE24486E92B5DD0125497193B9DF03284F7499BBE1082D51759CC0E60A3053789CC2E70C31557DA0" +
+        "C6EB0E345B7FA4C8EC14395E4F0000001200010012010100120201001203010012040100120501001206010012070100" +
+        "1208010012090100120A0100110B0100120C0100120D0100120E0100120F010012100100A0111111111111111212127F" +
+        "000000F14283A8CAF217395F83A9D0F3173E6186ABD1F51C3F648AB1D4FA1F446A8CB1D9FE23486C8FB5D900254B6E92" +
+        "B8DE02264D7097BCE0062A507499BEE5082D54789BC0E70D31557BA1C5EA0D3312121212131302001214010012150100" +
+        "12160100111701001218010012190100121A0100121B0100901C1C1C1C1C1C1C1D1D";
+    private static final String BLOSC_BLOSCLZ_SHUFFLE =
+        "0201010296010000000100007301000018000000F00000008000000002264D6F94B9E003294D729ABFE1072B53759AC0" +
+        "E40C2E54789EC4EA0D31587CA0C6EC0F34597FA6CBEF153A5E83A7CCF1153C6286ACD0F318406389ADD4F91B40678CB1" +
+        "D7FC1E436A90B2D7FE24486E92B5DD0125497193B9DF03284F7499BBE1082D51759CC0E60A3053789CC2E70C31557DA0" +
+        "C6EB0E345B7FA4C8EC14395E500000000100006000000180000002800000038000000480000005800000068000000780" +
+        "000008800000098000000A8000000B6000000C8000000D8000000E8000000F8000001080000911111111111111121212" +
+        "7F0000001F83A8CAF217395F83A9D0F3173E6186ABD1F51C3F648AB1D4FA1F446A8CB1D9FE1F23486C8FB5D900254B6E" +
+        "92B8DE02264D7097BCE0062A507499BEE5082D54789B0BC0E70D31557BA1C5EA0D331220000013800000148000001580" +
+        "0000168000001760000018800000198000001A8000001B8000081C1C1C1C1C1C1C1D1D";
+    private static final String BLOSC_BLOSCLZ_BITSHUFFLE =
+        "0201140296010000000100008001000018000000E6000000CA0000001FACF30330686783DC9A08FED71D4427438BDC45" +
+        "0ACA7B9884D29D8196806570831F1E52F296DED6363076B81632B4D0D6B62C9B64DB6C9B24D964D124DB269964DB1830" +
+        "1C87E3701CC7E1781EC7E3381E87E36AB552A9D54AAD542A20071F954AAD564C269BCD6693C966B3D96432D96C369B70" +
+        "381C0E87E3F1783C1E87C300E1200C06803FE00FF803FE20060C07FC017FC01F00C0FF0F00FCFF2006130700FE7F00E0" +
+        "000000F0FFFFFF000000F8FFFF7F2006800000FF6000E0010F800000806028E0210002000000960000008312A812CA12" +
+        "F212171339135F138313A913D013F31317143E1461148614AB14D114F5141C153F1564158A15B115D415FA151F164416" +
+        "6A168C16B116D916FE16231748176C178F17B517D917001825184B186E189218B818DE18021926194D1970199719BC19" +
+        "E019061A2A1A501A741A991ABE1AE51A081B2D1B541B781B9B1BC01BE71B0D1C311C551C7B1CA11CC51CEA1C0D1D331D";
+    private static final String BLOSC_LZ4_BITSHUFFLE =
+        "0201340296010000000100008301000018000000E9000000CD000000F3A1ACF30330686783DC9A08FED71D4427438BDC" +
+        "450ACA7B9884D29D8196806570831E52F296DED6363076B81632B4D0D6B62C9B64DB6C9B24D964D124DB269964DB301C" +
+        "87E3701CC7E1781EC7E3381E87E36AB552A9D54AAD542AB552A9954AAD564C269BCD6693C966B3D96432D96C369B7038" +
+        "1C0E87E3F1783C1E87C3E170381C803FE00FF803FE803FE007FC017FC01F00C0FF0F00FCFF00C0FF0700FE7F00E00000" +
+        "00F0FFFFFF000000F8FFFF7F0000020011FF0100137F0E00040200118029000F020015500000000000960000008312A8" +
+        "12CA12F212171339135F138313A913D013F31317143E1461148614AB14D114F5141C153F1564158A15B115D415FA151F" +
+        "1644166A168C16B116D916FE16231748176C178F17B517D917001825184B186E189218B818DE18021926194D19701997" +
+        "19BC19E019061A2A1A501A741A991ABE1AE51A081B2D1B541B781B9B1BC01BE71B0D1C311C551C7B1CA11CC51CEA1C0D" +
+        "1D331D";
+    private static final String BLOSC_LZ4_BITSHUFFLE_PARTIAL =
+        "0201340290010000000100006601000018000000E9000000CD000000F3A1ACF30330686783DC9A08FED71D4427438BDC" +
+        "450ACA7B9884D29D8196806570831E52F296DED6363076B81632B4D0D6B62C9B64DB6C9B24D964D124DB269964DB301C" +
+        "87E3701CC7E1781EC7E3381E87E36AB552A9D54AAD542AB552A9954AAD564C269BCD6693C966B3D96432D96C369B7038" +
+        "1C0E87E3F1783C1E87C3E170381C803FE00FF803FE803FE007FC017FC01F00C0FF0F00FCFF00C0FF0700FE7F00E00000" +
+        "00F0FFFFFF000000F8FFFF7F0000020011FF0100137F0E00040200118029000F02001550000000000079000000F75BF1" +
+        "AD4B62B9810295FEDDDC288B097732822250589E969CD296369666912CDB2E9B24DB24781ECFE3301CC7E3382AB55AA9" +
+        "954AAD566A4C2693CD2693C964B38FC7E3F1381C0E87C3F007FC013FE00FF803FF0700FE3F00F0FF0300F8FFFF3F0000" +
+        "00FC00000000C0FFFF02001F00010002500000000000";
+    private static final String BLOSC_ZLIB_BITSHUFFLE =
+        "02017402960100008000000088010000200000008B000000FF0000006E01000067000000785E5BF399D92023BDF94EF7" +
+        "1D57AE53D5335AE4823E4DBB77CDCC406776CAED9CD92A370D64DA1F17C81C7F98B53568E555AFB5213E6AB3CFA64D3E" +
+        "99566021C3D7FEF8634583FD03FE1FCCFF1A180EFCE767F8F39F01083EFCFF0FA64100CEC005009D522CDB7000000078" +
+        "5E9BC5F1EFBAAC8BBAF3A5B98DD31A520B9ACB7688196DB9706D5BCA4595DB6A33536E57C81D7F6C21D7FE586B6BD0CA" +
+        "A95E6BC336DF4C31BA996336DB46AEFDF0C3020B19FB07EC7F18EB0FC81FF8CFCEF0AF9EE10103C38FFFFFEB1918FE83" +
+        "0090068386FFFF197000004E6332A76B000000785EFBB8D63B696723D3D4BB7734BA39CB8D9A0222E64D9B73699A59DA" +
+        "449DDB7AB3556E57C89D7F6C2073FCB1D6D6A89553BDD686F9A84D3EAB36F9644AFFF1C71F2D64F8DA3FB0FF61B47FC0" +
+        "FFE33F3BC33F7B860FFF197EFCFF6FCF000107FE2300030E0000A490369C16000000C01BE71B0D1C311C551C7B1CA11C" +
+        "C51CEA1C0D1D331D";
+    private static final String BLOSC_ZLIB_NOSHUFFLE =
+        "020162029601000000010000A6010000020026004D006F009400B900E000030129014D0172019A01BF01E10107022B02" +
+        "530275029A02C002E4020C032E03540378039E03C403EA030D04310458047C04A004C604EC040F05340559057F05A605" +
+        "CB05EF0515063A065E068306A706CC06F10615073C0762078607AC07D007F3071808400863088908AD08D408F9081B09" +
+        "400967098C09B109D709FC091E0A430A6A0A900AB20AD70AFE0A240B480B6E0B920BB50BDD0B010C250C490C710C930C" +
+        "B90CDF0C030D280D4F0D740D990DBB0DE10D080E2D0E510E750E9C0EC00EE60E0A0F300F530F780F9C0FC20FE70F0C10" +
+        "311055107D10A010C610EB100E1134115B117F11A411C811EC11141239125E128312A812CA12F212171339135F138313" +
+        "A913D013F31317143E1461148614AB14D114F5141C153F1564158A15B115D415FA151F1644166A168C16B116D916FE16" +
+        "231748176C178F17B517D917001825184B186E189218B818DE18021926194D1970199719BC19E019061A2A1A501A741A" +
+        "991ABE1AE51A081B2D1B541B781B9B1BC01BE71B0D1C311C551C7B1CA11CC51CEA1C0D1D331D";
+    private static final String NOISE =
+        "3474F064AC68F700F5B02B3DC666F45BDEAA2CCAEDCD2B5157410E4DEE4AF2B34F430A073447DE63";
+    private static final String BLOSC_MEMCPYED =
+        "020123012800000028000000380000003474F064AC68F700F5B02B3DC666F45BDEAA2CCAEDCD2B5157410E4DEE4AF2B3" +
+        "4F430A073447DE63";
+    private static final String BSLZ4 =
+        "0000013BF181ACF30330686783DC9A08FED71D442743F1AD4B62B9810295FE8BDC450ACA7B9884D29D819680657083DD" +
+        "DC288B09773282221E52F296DED6363076B81632B4D0D6B650589E969CD29636962C9B64DB6C9B24D964D124DB269964" +
+        "DB66912CDB2E9B24DB24301C87E3701CC7E1781EC7E3381E87E3781ECFE3301CC7E3386AB552A9D54AAD542AB552A995" +
+        "4AAD562AB55A0800F01F6A4C269BCD6693C966B3D96432D96C369B4C2693CD2693C964B370381C0E87E3F1783C1E87C3" +
+        "E170381C8FC7E3F11300F106C3803FE00FF803FE803FE007FC017FC01FF007FC011300F00100C0FF0F00FCFF00C0FF07" +
+        "00FE7F00E00700F2043F00F0FF03000000F0FFFFFF000000F8FFFF7F0700623F000000FC00010011FF01000019004000" +
+        "0000C00D00010A00040200108012000302000414000F02002B500000000000EA1C0D1D331D";
+    private static final String BSLZ4_HDF5 =
+        "0000000000000196000000800000006AF147ACF30330686783DC8BDC450ACA7B98841E52F296DED636302C9B64DB6C9B" +
+        "24D9301C87E3701CC7E16AB552A9D54AAD544C269BCD6693C96670381C0E87E3F178803FE00FF803FE8000C0FF0F00FC" +
+        "FF00000000F0FFFF08000002000509000F02000050000000000000000071F14C9A08FED71D442743D29D819680657083" +
+        "76B81632B4D0D6B664D124DB269964DB781EC7E3381E87E32AB552A9954AAD56B3D96432D96C369B3C1E87C3E170381C" +
+        "3FE007FC017FC01FC0FF0700FE7F00E00000F8FFFF7F0000FFFFFF08000102003180FFFF08000A020050000000000000" +
+        "00006CF148F1AD4B62B9810295DDDC288B0977328250589E969CD2963666912CDB2E9B24DB781ECFE3301CC7E32AB55A" +
+        "A9954AAD564C2693CD2693C9648FC7E3F1381C0E87F007FC013FE00FF8FF0700FE3F00F0FF00F8FFFF3F0000020026C0" +
+        "FF01000010000B020050000000000000000012F001FE229624386AB3C30303FCFFFF000000EA1C0D1D331D";
+
+    private static final String BSLZ4_HDF5_PARTIAL =
+        "0000000000000190000000800000006AF147ACF30330686783DC8BDC450ACA7B98841E52F296DED636302C9B64DB6C9B" +
+        "24D9301C87E3701CC7E16AB552A9D54AAD544C269BCD6693C96670381C0E87E3F178803FE00FF803FE8000C0FF0F00FC" +
+        "FF00000000F0FFFF08000002000509000F02000050000000000000000071F14C9A08FED71D442743D29D819680657083" +
+        "76B81632B4D0D6B664D124DB269964DB781EC7E3381E87E32AB552A9954AAD56B3D96432D96C369B3C1E87C3E170381C" +
+        "3FE007FC017FC01FC0FF0700FE7F00E00000F8FFFF7F0000FFFFFF08000102003180FFFF08000A020050000000000000" +
+        "00006CF148F1AD4B62B9810295DDDC288B0977328250589E969CD2963666912CDB2E9B24DB781ECFE3301CC7E32AB55A" +
+        "A9954AAD564C2693CD2693C9648FC7E3F1381C0E87F007FC013FE00FF8FF0700FE3F00F0FF00F8FFFF3F0000020026C0" +
+        "FF01000010000B020050000000000000000012F001FE229624386AB3C30303FCFFFF000000";
+    @Test
+    public void testLZ4Block() throws Exception
+    {
+        final byte[] compressed = CodecEncoders.lz4(image, 0, image.length);
+        assertThat(compressed.length < image.length, equalTo(true));
+
+        final byte[] expanded = new byte[image.length];
+        assertThat(LZ4Block.decompress(compressed, 0, compressed.length, expanded, 0, expanded.length),
+                   equalTo(image.length));
+        assertThat(Arrays.equals(expanded, image), equalTo(true));
+
+        // Compressed data larger than expected result
+        final byte[] too_small = new byte[image.length / 2];
+        try
+        {
+            LZ4Block.decompress(compressed, 0, compressed.length, too_small, 0, too_small.length);
+            throw new AssertionError("Did not detect overrun");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage().startsWith("LZ4"), equalTo(true));
+        }
+    }
+
+    @Test
+    public void testShuffle() throws Exception
+    {
+        for (int type_size : new int[] { 1, 2, 4, 8 })
+        {
+            final int count = 8 * 37;
+            final byte[] shuffled = CodecEncoders.bitShuffle(image, 0, count, type_size);
+            final byte[] restored = new byte[count * type_size];
+            Shuffle.unshuffleBits(shuffled, 0, restored, 0, count, type_size);
+            assertThat(Arrays.equals(restored, Arrays.copyOf(image, restored.length)), equalTo(true));
+
+            final byte[] bytes = CodecEncoders.byteShuffle(image, 0, count, type_size);
+            Shuffle.unshuffleBytes(bytes, 0, restored, 0, restored.length, type_size);
+            assertThat(Arrays.equals(restored, Arrays.copyOf(image, restored.length)), equalTo(true));
+        }
+    }
+
+    @Test
+    public void testBitshuffleLZ4() throws Exception
+    {
+        for (boolean header : new boolean[] { false, true })
+        {
+            final byte[] compressed = CodecEncoders.bslz4(image, 2, header);
+            final PVAData value = new BitshuffleLZ4Codec().decompress(new PVAByteArray("value", true, compressed), 6, image.length / 2);
+            checkImage(value);
+        }
+    }
+
+    @Test
+    public void testBlosc() throws Exception
+    {
+        for (int shuffle : new int[] { CodecEncoders.NOSHUFFLE, CodecEncoders.SHUFFLE, CodecEncoders.BITSHUFFLE })
+            for (int compressor : new int[] { CodecEncoders.BLOSC_LZ4, CodecEncoders.BLOSC_ZLIB })
+                for (boolean split : new boolean[] { false, true })
+                {
+                    // Last block is shorter
+                    final byte[] compressed = CodecEncoders.blosc(image, 2, 4096, shuffle, compressor, split);
+                    final PVAData value = new BloscCodec().decompress(new PVAByteArray("value", true, compressed), 6, image.length / 2);
+                    checkImage(value);
+                }
+    }
+
+    @Test
+    public void testBloscGolden() throws Exception
+    {
+        final short[] expected = toShorts(DATA);
+        for (String frame : new String[] { BLOSC_BLOSCLZ_SHUFFLE, BLOSC_BLOSCLZ_BITSHUFFLE,
+                                           BLOSC_LZ4_SHUFFLE, BLOSC_LZ4_BITSHUFFLE, BLOSC_ZLIB_BITSHUFFLE, BLOSC_ZLIB_NOSHUFFLE })
+        {
+            final PVAData value = new BloscCodec().decompress(new PVAByteArray("value", true, HexFormat.of().parseHex(frame)), 6, expected.length);
+            assertThat(Arrays.equals(((PVAShortArray) value).get(), expected), equalTo(true));
+        }
+
+        final short[] partial = Arrays.copyOf(expected, 200);
+        PVAData value = new BloscCodec().decompress(new PVAByteArray("value", true, HexFormat.of().parseHex(BLOSC_LZ4_BITSHUFFLE_PARTIAL)), 6, partial.length);
+        assertThat(Arrays.equals(((PVAShortArray) value).get(), partial), equalTo(true));
+
+        final byte[] noise = HexFormat.of().parseHex(NOISE);
+        value = new BloscCodec().decompress(new PVAByteArray("value", true, HexFormat.of().parseHex(BLOSC_MEMCPYED)), 5, noise.length);
+        assertThat(Arrays.equals(((PVAByteArray) value).get(), noise), equalTo(true));
+    }
+
+    @Test
+    public void testBitshuffleLZ4Golden() throws Exception
+    {
+        final short[] expected = toShorts(DATA);
+        for (String frame : new String[] { BSLZ4, BSLZ4_HDF5 })
+        {
+            final PVAData value = new BitshuffleLZ4Codec().decompress(new PVAByteArray("value", true, HexFormat.of().parseHex(frame)), 6, expected.length);
+            assertThat(Arrays.equals(((PVAShortArray) value).get(), expected), equalTo(true));
+        }
+
+        final short[] partial = Arrays.copyOf(expected, 200);
+        final PVAData value = new BitshuffleLZ4Codec().decompress(new PVAByteArray("value", true, HexFormat.of().parseHex(BSLZ4_HDF5_PARTIAL)), 6, partial.length);
+        assertThat(Arrays.equals(((PVAShortArray) value).get(), partial), equalTo(true));
+    }
+
+    @Test
+    public void testBitshuffleLZ4Header() throws Exception
+    {
+        // Fewer than 8 elements are not compressed.
+        // Leading zeros are data, not the HDF5 header.
+        final short[] expected = new short[] { 0, 0, 12, 0, 0, 42 };
+        final byte[] data = HexFormat.of().parseHex("000000000C000000" + "00002A00");
+        PVAData value = new BitshuffleLZ4Codec().decompress(new PVAByteArray("value", true, data), 6, expected.length);
+        assertThat(Arrays.equals(((PVAShortArray) value).get(), expected), equalTo(true));
+
+        // Same with header
+        final byte[] with_header = HexFormat.of().parseHex("000000000000000C" + "00000010" + "000000000C00000000002A00");
+        value = new BitshuffleLZ4Codec().decompress(new PVAByteArray("value", true, with_header), 6, expected.length);
+        assertThat(Arrays.equals(((PVAShortArray) value).get(), expected), equalTo(true));
+
+        // Data that's too short is detected
+        try
+        {
+            new BitshuffleLZ4Codec().decompress(new PVAByteArray("value", true, HexFormat.of().parseHex(BSLZ4_HDF5.substring(0, 100))), 6, 203);
+            throw new AssertionError("Did not detect missing data");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage().startsWith("Invalid compressed size"), equalTo(true));
+        }
+    }
+
+    /** @param hex Hex dump of little endian 16-bit values
+     *  @return Values
+     */
+    private static short[] toShorts(final String hex)
+    {
+        final byte[] bytes = HexFormat.of().parseHex(hex);
+        final short[] values = new short[bytes.length / 2];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(values);
+        return values;
+    }
+
+    @Test
+    public void testBloscLZ() throws Exception
+    {
+        final byte[] compressed = new byte[]
+        {
+            2, 'a', 'b', 'c',   // 3 literals
+            1 << 5, 2,          // Match of length 3, 3 bytes back
+            (byte) (2 << 5), 0, // Match of length 4, 1 byte back
+            0, 'd'              // 1 literal
+        };
+        byte[] expanded = new byte[20];
+        int length = BloscCodec.decompressBloscLZ(compressed, 0, compressed.length, expanded, 0, expanded.length);
+        assertThat(new String(expanded, 0, length), equalTo("abcabcccccd"));
+
+        // Long match and 16 bit distance
+        final byte[] far = new byte[4 + 2 + 1 + 35 + 2 + 4];
+        int i = 0;
+        far[i++] = 2;                   // 3 literals
+        far[i++] = 'x';
+        far[i++] = 'y';
+        far[i++] = 'z';
+        far[i++] = 0;                   // 1 literal
+        far[i++] = 'a';
+        far[i++] = (byte) (7 << 5);     // Match of length 9 + 35*255 + 65 = 8999, 1 byte back
+        for (int j=0; j<35; ++j)
+            far[i++] = (byte) 255;
+        far[i++] = 65;
+        far[i++] = 0;
+        far[i++] = (1 << 5) + 31;       // Match of length 3, 8191 + 811 + 1 = 9003 bytes back
+        far[i++] = (byte) 255;
+        far[i++] = 811 >> 8;
+        far[i++] = (byte) (811 & 255);
+        expanded = new byte[10000];
+        length = BloscCodec.decompressBloscLZ(far, 0, far.length, expanded, 0, expanded.length);
+        assertThat(new String(expanded, 0, length), equalTo("xyz" + "a".repeat(9000) + "xyz"));
+    }
+
+    @Test
+    public void testParallel() throws Exception
+    {
+        // Large enough to decompress blocks in parallel
+        final byte[] large = CodecEncoders.createImage16(1024, 1024);
+        final byte[] compressed = CodecEncoders.bslz4(large, 2, false);
+        final BitshuffleLZ4Codec codec = new BitshuffleLZ4Codec();
+        for (int i=0; i<3; ++i)
+        {
+            // Codec re-uses buffer for each frame
+            final PVAShortArray value = (PVAShortArray) codec.decompress(new PVAByteArray("value", true, compressed), 6, large.length / 2);
+            final short[] expected = new short[large.length / 2];
+            ByteBuffer.wrap(large).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(expected);
+            assertThat(Arrays.equals(value.get(), expected), equalTo(true));
+        }
+    }
+
+    private void checkImage(final PVAData value)
+    {
+        assertThat(value, instanceOf(PVAShortArray.class));
+        final short[] pixels = ((PVAShortArray) value).get();
+        final short[] expected = new short[image.length / 2];
+        ByteBuffer.wrap(image).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(expected);
+        assertThat(Arrays.equals(pixels, expected), equalTo(true));
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,7 @@
  ******************************************************************************/
 package org.phoebus.pv;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -190,6 +191,26 @@ public class PV
         return Flowable.create(new ValueEventHandler(this), mode);
     }
 
+    /** Obtain rate-limited {@link Flowable} for PV's values.
+     *
+     *  <p>Sends the first value right away,
+     *  then at most one value per <code>max_rate</code> period.
+     *  Values received within a period replace each other,
+     *  so the subscriber always receives the most recent value.
+     *
+     *  <p>Unlike adding <code>throttleLatest</code> to {@link #onValueEvent()},
+     *  no additional work is performed for each received value.
+     *  Values are delivered on a timer thread that is shared by
+     *  all rate-limited subscriptions.
+     *
+     *  @param max_rate Minimum period between updates
+     *  @return {@link Flowable} that receives {@link VType} updates of the PV
+     */
+    public Flowable<VType> onValueEvent(final Duration max_rate)
+    {
+        return Flowable.create(new ValueEventHandler(this, max_rate), BackpressureStrategy.LATEST);
+    }
+
     /** Obtain {@link Flowable} for PV's write access.
      *
      *  <p>The {@link Flowable} will receive <code>true</code> when the PV permits write access.
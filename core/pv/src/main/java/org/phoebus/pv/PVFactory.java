@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017-2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,9 @@
  ******************************************************************************/
 package org.phoebus.pv;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /** Factory for creating {@link PV}s
  *
  *  <p>Code that needs to create a {@link PV}
@@ -50,4 +53,25 @@ public interface PVFactory
      *  @throws Exception on error
      */
     public PV createPV(final String name, final String base_name) throws Exception;
+
+    /** Create several PVs
+     *
+     *  <p>Called by {@link PVPool#getPVs(java.util.Collection)} with all
+     *  the new PVs of this type.
+     *  Default implementation calls {@link #createPV(String, String)} for each PV.
+     *  Factories that can create many PVs more efficiently at once,
+     *  for example by creating their channels in one batch, may override.
+     *
+     *  @param names Full names of the PVs as provided by user
+     *  @param base_names Base names of the PVs, not including the prefix
+     *  @return PVs, in the same order as the names
+     *  @throws Exception on error
+     */
+    public default List<PV> createPVs(final List<String> names, final List<String> base_names) throws Exception
+    {
+        final List<PV> pvs = new ArrayList<>(names.size());
+        for (int i=0; i<names.size(); ++i)
+            pvs.add(createPV(names.get(i), base_names.get(i)));
+        return pvs;
+    }
 }
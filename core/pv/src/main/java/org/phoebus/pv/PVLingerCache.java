@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv;
+
+import static org.phoebus.pv.PV.logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.epics.util.array.ListByte;
+import org.epics.util.array.ListFloat;
+import org.epics.util.array.ListInteger;
+import org.epics.util.array.ListNumber;
+import org.epics.util.array.ListShort;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VStringArray;
+import org.epics.vtype.VType;
+
+/** Cache of released PVs
+ *
+ *  <p>PVs that are no longer referenced are kept
+ *  open for a while, so when they are requested again,
+ *  for example because a display is re-loaded,
+ *  the existing PV is re-used instead of creating
+ *  and connecting a new one.
+ *
+ *  <p>The cache is limited to a maximum number of PVs.
+ *  When it's full, the PV that was released first is closed.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class PVLingerCache
+{
+    /** Estimated size of a scalar value */
+    private static final long SCALAR_SIZE = 100;
+
+    /** Released PV
+     *  @param pv PV
+     *  @param expires Time (nanoTime) when PV will be closed
+     *  @param size Estimated size of its value in bytes
+     */
+    private static record Lingering(PV pv, long expires, long size)
+    {
+    }
+
+    /** Timer for closing expired PVs */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(target ->
+    {
+        final Thread thread = new Thread(target, "PVLinger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Maximum number of PVs to keep */
+    private final int max_size;
+
+    /** Released PVs by name, in order of release
+     *  SYNC on this
+     */
+    private final LinkedHashMap<String, Lingering> pvs = new LinkedHashMap<>();
+
+    /** Statistics
+     *  SYNC on this
+     */
+    private long bytes = 0, hits = 0, evictions = 0, expirations = 0;
+
+    /** @param max_size Maximum number of PVs to keep */
+    PVLingerCache(final int max_size)
+    {
+        this.max_size = Math.max(1, max_size);
+        timer.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /** @param value Value of a PV
+     *  @return Estimated size in bytes
+     */
+    static long estimateSize(final VType value)
+    {
+        if (value instanceof VNumberArray)
+        {
+            final ListNumber data = ((VNumberArray) value).getData();
+            final int size = data.size();
+            if (data instanceof ListByte)
+                return SCALAR_SIZE + size;
+            if (data instanceof ListShort)
+                return SCALAR_SIZE + 2L * size;
+            if (data instanceof ListInteger  ||  data instanceof ListFloat)
+                return SCALAR_SIZE + 4L * size;
+            return SCALAR_SIZE + 8L * size;
+        }
+        if (value instanceof VStringArray)
+        {
+            long size = SCALAR_SIZE;
+            for (String text : ((VStringArray) value).getData())
+                size += 40 + text.length();
+            return size;
+        }
+        return SCALAR_SIZE;
+    }
+
+    /** Add a released PV
+     *
+     *  @param key Key of the PV in the pool
+     *  @param pv PV that is no longer referenced
+     *  @param seconds How long to keep the PV
+     */
+    void add(final String key, final PV pv, final int seconds)
+    {
+        final List<PV> to_close = new ArrayList<>();
+        final Lingering lingering = new Lingering(pv, System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds), estimateSize(pv.read()));
+        synchronized (this)
+        {
+            // In case a PV of the same name was created while this one was released,
+            // close the older one
+            final Lingering previous = pvs.remove(key);
+            if (previous != null)
+            {
+                bytes -= previous.size();
+                to_close.add(previous.pv());
+            }
+            pvs.put(key, lingering);
+            bytes += lingering.size();
+
+            final Iterator<Lingering> iter = pvs.values().iterator();
+            while (pvs.size() > max_size)
+            {
+                final Lingering oldest = iter.next();
+                iter.remove();
+                bytes -= oldest.size();
+                ++evictions;
+                to_close.add(oldest.pv());
+            }
+        }
+        close(to_close);
+    }
+
+    /** Get a released PV
+     *
+     *  @param key Key of the PV in the pool
+     *  @return Released PV, no longer in this cache, or <code>null</code>
+     */
+    synchronized PV take(final String key)
+    {
+        final Lingering lingering = pvs.remove(key);
+        if (lingering == null)
+            return null;
+        ++hits;
+        bytes -= lingering.size();
+        return lingering.pv();
+    }
+
+    /** Close PVs that have expired */
+    private void expire()
+    {
+        final long now = System.nanoTime();
+        final List<PV> to_close = new ArrayList<>();
+        synchronized (this)
+        {
+            final Iterator<Lingering> iter = pvs.values().iterator();
+            while (iter.hasNext())
+            {
+                final Lingering lingering = iter.next();
+                if (lingering.expires() - now <= 0)
+                {
+                    iter.remove();
+                    bytes -= lingering.size();
+                    ++expirations;
+                    to_close.add(lingering.pv());
+                }
+            }
+        }
+        close(to_close);
+    }
+
+    private void close(final List<PV> to_close)
+    {
+        for (PV pv : to_close)
+        {
+            try
+            {
+                pv.close();
+                logger.log(Level.CONFIG, () -> "PV '" + pv.getName() + "' closed after lingering");
+            }
+            catch (Throwable ex)
+            {
+                logger.log(Level.WARNING, "Error closing PV '" + pv.getName() + "'", ex);
+            }
+        }
+    }
+
+    /** @return Statistics */
+    synchronized PVPool.LingerInfo getInfo()
+    {
+        return new PVPool.LingerInfo(pvs.size(), bytes, hits, evictions, expirations);
+    }
+}
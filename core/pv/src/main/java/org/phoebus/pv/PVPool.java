@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017-2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,9 +9,13 @@ package org.phoebus.pv;
 
 import static org.phoebus.pv.PV.logger;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -65,6 +69,18 @@ public class PVPool
     /** Default PV name type prefix */
     @Preference(name="default") public static String default_type;
 
+    /** Linger settings, "type=seconds" */
+    @Preference(name="linger") private static String[] linger_settings;
+
+    /** Maximum number of lingering PVs */
+    @Preference private static int linger_max;
+
+    /** Seconds to keep released PVs by type */
+    final private static Map<String, Integer> linger_seconds = new HashMap<>();
+
+    /** Released PVs, <code>null</code> if no type lingers */
+    private static PVLingerCache linger = null;
+
     static
     {
         try
@@ -80,6 +96,29 @@ public class PVPool
             AnnotatedPreferences.initialize(PVPool.class, "/pv_preferences.properties");
 
             logger.log(Level.INFO, "Default PV type " + default_type + "://");
+
+            for (String setting : linger_settings)
+            {
+                if (setting.isBlank())
+                    continue;
+                final int sep = setting.indexOf('=');
+                try
+                {
+                    final int seconds = Integer.parseInt(setting.substring(sep + 1).trim());
+                    if (sep <= 0  ||  seconds < 0)
+                        throw new Exception("Expecting type=seconds");
+                    linger_seconds.put(setting.substring(0, sep).trim(), seconds);
+                }
+                catch (Exception ex)
+                {
+                    logger.log(Level.WARNING, "Invalid PV linger setting '" + setting + "'", ex);
+                }
+            }
+            if (linger_seconds.values().stream().anyMatch(seconds -> seconds > 0))
+            {
+                logger.log(Level.CONFIG, "Released PVs linger " + linger_seconds + " seconds, keeping up to " + linger_max);
+                linger = new PVLingerCache(linger_max);
+            }
         }
         catch (Throwable ex)
         {
@@ -147,6 +186,18 @@ public class PVPool
         }
     }
 
+    /** Information about lingering PVs
+     *
+     *  @param lingering Number of released PVs that are kept
+     *  @param bytes Estimated memory used by the values of those PVs
+     *  @param hits Number of times that a released PV was re-used
+     *  @param evictions Number of released PVs that were closed because too many PVs were kept
+     *  @param expirations Number of released PVs that were closed after their linger period
+     */
+    public static record LingerInfo(int lingering, long bytes, long hits, long evictions, long expirations)
+    {
+    }
+
     /** @param name PV Name, may be "xxx" or "type://xxx"
      *  @param equivalent_pv_prefixes List of equivalent PV prefixes (types), e.g. "ca", "pva"
      *  @return Set of equivalent names, e.g. "xxx", "ca://xxx", "pva://xxx"
@@ -174,8 +225,9 @@ public class PVPool
     }
 
     /** PV Pool
-     *  SYNC on 'pool':
-     *  Otherwise, two threads concurrently looking for a new PV would both add it.
+     *
+     *  <p>Thread-safe. When two threads concurrently look for a new PV,
+     *  only one of them creates it.
      */
     final private static RefCountMap<String, PV> pool = new RefCountMap<>();
 
@@ -211,13 +263,141 @@ public class PVPool
             throw new Exception(_name + " has unknown PV type '" + type_name.type + "'");
 
         final String core_name = factory.getCoreName(_name);
-        final ReferencedEntry<PV> ref = pool.createOrGet(core_name, () -> createPV(factory, _name, type_name.name));
+        final ReferencedEntry<PV> ref = pool.createOrGet(core_name, () -> createPV(factory, core_name, _name, type_name.name));
         logger.log(Level.CONFIG, () -> "PV '" + ref.getEntry().getName() + "' references: " + ref.getReferences());
         return ref.getEntry();
     }
 
-    private static PV createPV(PVFactory factory, final String name, final String base_name)
+    /** Obtain several PVs
+     *
+     *  <p>Like calling {@link #getPV(String)} for each name,
+     *  but new PVs are created via one call to
+     *  {@link PVFactory#createPVs(List, List)} for each PV type,
+     *  so factories can create them in one batch.
+     *
+     *  @param names PV names, where prefix might be used to determine the type
+     *  @return {@link PV}s, in the same order as the names
+     *  @throws Exception on error, in which case none of the PVs are referenced
+     *  @see #releasePV(PV)
+     */
+    public static List<PV> getPVs(final Collection<String> names) throws Exception
     {
+        // Sort names by factory
+        final Map<PVFactory, List<Integer>> by_factory = new LinkedHashMap<>();
+        final List<String> full_names = new ArrayList<>(names.size());
+        final List<TypedName> type_names = new ArrayList<>(names.size());
+        final List<String> core_names = new ArrayList<>(names.size());
+        for (String name : names)
+        {
+            final String _name = name.trim();
+            if (_name.isBlank())
+                throw new Exception("Empty PV name");
+            final TypedName type_name = TypedName.analyze(_name);
+            final PVFactory factory = factories.get(type_name.type);
+            if (factory == null)
+                throw new Exception(_name + " has unknown PV type '" + type_name.type + "'");
+            by_factory.computeIfAbsent(factory, f -> new ArrayList<>()).add(full_names.size());
+            full_names.add(_name);
+            type_names.add(type_name);
+            core_names.add(factory.getCoreName(_name));
+        }
+
+        final PV[] pvs = new PV[full_names.size()];
+        try
+        {
+            for (Map.Entry<PVFactory, List<Integer>> entry : by_factory.entrySet())
+            {
+                final PVFactory factory = entry.getKey();
+                final List<Integer> indices = entry.getValue();
+                // Full name and base name for each core name
+                final Map<String, Integer> index_by_core = new HashMap<>();
+                final List<String> keys = new ArrayList<>(indices.size());
+                for (int index : indices)
+                {
+                    index_by_core.putIfAbsent(core_names.get(index), index);
+                    keys.add(core_names.get(index));
+                }
+                final List<ReferencedEntry<PV>> refs = pool.createOrGet(keys, new_keys ->
+                {
+                    // Use lingering PVs, create the remaining ones
+                    final PV[] new_pvs = new PV[new_keys.size()];
+                    final List<Integer> create = new ArrayList<>(new_keys.size());
+                    final List<String> new_names = new ArrayList<>(new_keys.size());
+                    final List<String> base_names = new ArrayList<>(new_keys.size());
+                    for (int i=0; i<new_pvs.length; ++i)
+                    {
+                        final String key = new_keys.get(i);
+                        new_pvs[i] = linger == null ? null : linger.take(key);
+                        if (new_pvs[i] == null)
+                        {
+                            final int index = index_by_core.get(key);
+                            create.add(i);
+                            new_names.add(full_names.get(index));
+                            base_names.add(type_names.get(index).name);
+                        }
+                    }
+                    try
+                    {
+                        if (! create.isEmpty())
+                        {
+                            final List<PV> created = createPVs(factory, new_names, base_names);
+                            for (int i=0; i<create.size(); ++i)
+                                new_pvs[create.get(i)] = created.get(i);
+                        }
+                        for (int i=0; i<new_pvs.length; ++i)
+                            if (new_pvs[i] == null)
+                                throw new Exception("Cannot create PV '" + new_keys.get(i) + "'");
+                    }
+                    catch (Exception ex)
+                    {
+                        // Close PVs that were created or taken from linger cache
+                        for (PV pv : new_pvs)
+                            if (pv != null)
+                                pv.close();
+                        throw ex instanceof RuntimeException ? (RuntimeException) ex : new RuntimeException(ex);
+                    }
+                    return Arrays.asList(new_pvs);
+                }, PVPool::dispose);
+                for (int i=0; i<indices.size(); ++i)
+                    pvs[indices.get(i)] = refs.get(i).getEntry();
+            }
+        }
+        catch (Exception ex)
+        {
+            // Release PVs of other factories that were already obtained
+            for (PV pv : pvs)
+                if (pv != null)
+                    releasePV(pv);
+            throw ex;
+        }
+        logger.log(Level.CONFIG, () -> "Obtained " + pvs.length + " PVs");
+        return List.of(pvs);
+    }
+
+    private static List<PV> createPVs(final PVFactory factory, final List<String> names, final List<String> base_names)
+    {
+        try
+        {
+            return factory.createPVs(names, base_names);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot create PVs " + names, ex);
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static PV createPV(PVFactory factory, final String core_name, final String name, final String base_name)
+    {
+        if (linger != null)
+        {
+            final PV pv = linger.take(core_name);
+            if (pv != null)
+            {
+                logger.log(Level.CONFIG, () -> "PV '" + name + "' re-used after lingering");
+                return pv;
+            }
+        }
         try
         {
             return factory.createPV(name, base_name);
@@ -234,20 +414,40 @@ public class PVPool
     {
         final int references = pool.release(pv.getName());
         if (references <= 0)
+            dispose(pv);
+        else
+            logger.log(Level.CONFIG, () -> "PV '" + pv.getName() + "' remaining references: " + references);
+    }
+
+    /** Let PV linger or close it
+     *  @param pv PV that is no longer referenced
+     */
+    private static void dispose(final PV pv)
+    {
+        final int seconds = linger == null
+                          ? 0
+                          : linger_seconds.getOrDefault(TypedName.analyze(pv.getName()).type, 0);
+        if (seconds > 0)
+        {
+            linger.add(pv.getName(), pv, seconds);
+            logger.log(Level.CONFIG, () -> "PV '" + pv.getName() + "' lingers for " + seconds + " seconds");
+        }
+        else
         {
             pv.close();
             logger.log(Level.CONFIG, () -> "PV '" + pv.getName() + "' closed");
         }
-        else
-            logger.log(Level.CONFIG, () -> "PV '" + pv.getName() + "' remaining references: " + references);
+    }
+
+    /** @return Information about released PVs that are kept for re-use, <code>null</code> if no PV type lingers */
+    public static LingerInfo getLingerInfo()
+    {
+        return linger == null ? null : linger.getInfo();
     }
 
     /** @return PVs currently in the pool with reference count information */
     public static Collection<ReferencedEntry<PV>> getPVReferences()
     {
-        synchronized (pool)
-        {
-            return pool.getEntries();
-        }
+        return pool.getEntries();
     }
 }
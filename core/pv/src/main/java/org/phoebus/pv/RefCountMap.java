@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,12 +9,16 @@ package org.phoebus.pv;
 
 import static org.phoebus.pv.PV.logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 
@@ -22,6 +26,11 @@ import java.util.logging.Level;
  *
  *  <p>Thread-safe.
  *
+ *  <p>New items are created without holding a lock on the map.
+ *  When several threads request the same new item,
+ *  one of them creates it while the others wait for that item,
+ *  but threads requesting different items do not block each other.
+ *
  *  @param <K> Key data type
  *  @param <E> Entry data type
  *  @author Kay Kasemir
@@ -32,18 +41,27 @@ public class RefCountMap<K, E>
     /** Wrapper for an entry with reference count */
     public static class ReferencedEntry<E>
     {
-        private final E entry;
-        private final AtomicInteger references = new AtomicInteger(0);
+        /** Completed with the item once it has been created */
+        private final CompletableFuture<E> entry = new CompletableFuture<>();
+
+        /** Thread that creates the item, <code>null</code> once created */
+        private volatile Thread creator = Thread.currentThread();
+
+        /** Reference count.
+         *  Starts at 1 for the thread that creates the item.
+         *  Once it drops to 0, the entry has been removed from the map
+         *  and can no longer be referenced.
+         */
+        private final AtomicInteger references = new AtomicInteger(1);
 
-        private ReferencedEntry(final E entry)
+        private ReferencedEntry()
         {
-            this.entry = Objects.requireNonNull(entry);
         }
 
         /** @return Item */
         public E getEntry()
         {
-            return entry;
+            return entry.getNow(null);
         }
 
         /** @return Reference count for the item */
@@ -52,9 +70,54 @@ public class RefCountMap<K, E>
             return references.get();
         }
 
-        private int addRef()
+        /** @return Has the item been created? */
+        private boolean isCreated()
+        {
+            return entry.isDone()  &&  ! entry.isCompletedExceptionally();
+        }
+
+        private void created(final E item)
+        {
+            entry.complete(Objects.requireNonNull(item));
+            creator = null;
+        }
+
+        private void failed(final Throwable error)
+        {
+            entry.completeExceptionally(error);
+            creator = null;
+        }
+
+        /** Wait for item to be created
+         *  @throws Exception on error
+         */
+        private void await() throws Exception
+        {
+            if (! entry.isDone()  &&  creator == Thread.currentThread())
+                throw new Exception("Recursive reference to item that is being created");
+            try
+            {
+                entry.get();
+            }
+            catch (ExecutionException ex)
+            {
+                throw new Exception("Creation failed in other thread", ex.getCause());
+            }
+        }
+
+        /** @return <code>true</code> if reference was added,
+         *          <code>false</code> if entry has already been released
+         */
+        private boolean addRef()
         {
-            return references.incrementAndGet();
+            int refs = references.get();
+            while (refs > 0)
+            {
+                if (references.compareAndSet(refs, refs + 1))
+                    return true;
+                refs = references.get();
+            }
+            return false;
         }
 
         private int decRef()
@@ -65,19 +128,59 @@ public class RefCountMap<K, E>
         @Override
         public String toString()
         {
-            return entry + " (" + references + " references)";
+            return getEntry() + " (" + references + " references)";
         }
     }
 
-    // Started with ConcurrentHashMap and computeIfAbsent() in createOrGet().
-    // But the computeIfAbsent() mapping function must not itself update the map,
-    // which can happen with a formula PV which references and thus creates
-    // other PVs.
-    // With plain synchronization, adding a formula takes the synchronization lock,
-    // and while it is held, recursive additions from the same thread are possible.
-    //
-    // SYNC on access.
-    final private Map<K, ReferencedEntry<E>> map = new HashMap<>();
+    // Originally used plain synchronization on a HashMap
+    // while creating new items, because a formula PV references and thus creates
+    // other PVs, so the creator must be able to recursively add to the map.
+    // That, however, serialized the creation of all items.
+    // Now the map only holds placeholders for items that are being created,
+    // and creation happens outside of any map operation,
+    // so recursive additions are possible without holding a lock.
+    private final ConcurrentHashMap<K, ReferencedEntry<E>> map = new ConcurrentHashMap<>();
+
+    /** Result of {@link #reference(Object)}
+     *  @param entry Entry with reference added
+     *  @param is_new Is this a new placeholder for which the caller must create the item?
+     */
+    private static record Reference<E>(ReferencedEntry<E> entry, boolean is_new)
+    {
+    }
+
+    /** Get existing item or reserve placeholder for creating a new one
+     *
+     *  @param key Item key
+     *  @return {@link Reference}
+     */
+    private Reference<E> reference(final K key)
+    {
+        while (true)
+        {
+            final ReferencedEntry<E> existing = map.get(key);
+            if (existing == null)
+            {
+                final ReferencedEntry<E> placeholder = new ReferencedEntry<>();
+                if (map.putIfAbsent(key, placeholder) == null)
+                    return new Reference<>(placeholder, true);
+            }
+            else if (existing.addRef())
+                return new Reference<>(existing, false);
+            // Else: Entry was just released or failed to be created,
+            // or other thread added placeholder. Try again.
+        }
+    }
+
+    /** @param key Key of item that failed to be created
+     *  @param entry Its placeholder
+     *  @param error Error
+     */
+    private void failed(final K key, final ReferencedEntry<E> entry, final Throwable error)
+    {
+        map.remove(key, entry);
+        entry.failed(error);
+    }
 
     /** Get or create item
      *
@@ -85,25 +188,29 @@ public class RefCountMap<K, E>
      *  Otherwise create new item with initial reference count of 1.
      *
      *  @param key Item key
-     *  @param creator Function that will be called atomically to create new items
+     *  @param creator Function that will be called to create new items
      *  @return reference counted entry
      */
     public ReferencedEntry<E> createOrGet(final K key, final Supplier<E> creator)
     {
+        final Reference<E> ref = reference(key);
         try
         {
-            ReferencedEntry<E> ref_entry;
-            synchronized (map)
+            if (ref.is_new())
             {
-                ref_entry = map.get(key);
-                if (ref_entry == null)
+                try
+                {
+                    ref.entry().created(creator.get());
+                }
+                catch (Throwable ex)
                 {
-                    ref_entry = new ReferencedEntry<>(creator.get());
-                    map.put(key, ref_entry);
+                    failed(key, ref.entry(), ex);
+                    throw ex;
                 }
             }
-            ref_entry.addRef();
-            return ref_entry;
+            else
+                ref.entry().await();
+            return ref.entry();
         }
         catch (Throwable ex)
         {
@@ -112,6 +219,94 @@ public class RefCountMap<K, E>
         }
     }
 
+    /** Get or create several items
+     *
+     *  <p>Adds a reference to each existing item.
+     *  Items that do not exist, yet, are created in one call to the creator,
+     *  which allows the creator to optimize the creation of many items.
+     *
+     *  <p>When the same key is listed more than once,
+     *  a reference is added for each occurrence.
+     *
+     *  @param keys Item keys
+     *  @param creator Function that will be called with the keys of new items
+     *                 and must return their items in the same order
+     *  @return reference counted entries, in order of keys
+     */
+    public List<ReferencedEntry<E>> createOrGet(final Collection<K> keys, final Function<List<K>, List<E>> creator)
+    {
+        return createOrGet(keys, creator, item -> {});
+    }
+
+    /** Get or create several items
+     *
+     *  <p>Like {@link #createOrGet(Collection, Function)},
+     *  but when an error releases the last reference to an item,
+     *  for example one that has just been created,
+     *  that item is passed to the <code>discard</code> handler.
+     *
+     *  @param keys Item keys
+     *  @param creator Function that will be called with the keys of new items
+     *                 and must return their items in the same order
+     *  @param discard Called with items that are no longer referenced after an error
+     *  @return reference counted entries, in order of keys
+     */
+    public List<ReferencedEntry<E>> createOrGet(final Collection<K> keys, final Function<List<K>, List<E>> creator,
+                                                final Consumer<E> discard)
+    {
+        final List<K> all_keys = new ArrayList<>(keys);
+        final List<ReferencedEntry<E>> result = new ArrayList<>(all_keys.size());
+        final List<K> new_keys = new ArrayList<>();
+        final List<ReferencedEntry<E>> new_entries = new ArrayList<>();
+        for (K key : all_keys)
+        {
+            final Reference<E> ref = reference(key);
+            result.add(ref.entry());
+            if (ref.is_new())
+            {
+                new_keys.add(key);
+                new_entries.add(ref.entry());
+            }
+        }
+
+        try
+        {
+            if (! new_keys.isEmpty())
+            {
+                final List<E> items = creator.apply(new_keys);
+                if (items.size() != new_keys.size())
+                    throw new Exception("Created " + items.size() + " instead of " + new_keys.size() + " items");
+                for (int i=0; i<new_keys.size(); ++i)
+                    new_entries.get(i).created(items.get(i));
+            }
+            for (ReferencedEntry<E> entry : result)
+                entry.await();
+            return result;
+        }
+        catch (Throwable ex)
+        {
+            // Fail new items, which also fails other threads waiting for them
+            for (int i=0; i<new_keys.size(); ++i)
+                if (! new_entries.get(i).entry.isDone())
+                    failed(new_keys.get(i), new_entries.get(i), ex);
+            // Release references to the items that were obtained,
+            // discarding those that are no longer referenced
+            for (int i=0; i<all_keys.size(); ++i)
+                if (result.get(i).isCreated()  &&  release(all_keys.get(i)) <= 0)
+                {
+                    try
+                    {
+                        discard.accept(result.get(i).getEntry());
+                    }
+                    catch (Throwable discard_error)
+                    {
+                        logger.log(Level.WARNING, "Cannot discard " + all_keys.get(i), discard_error);
+                    }
+                }
+            throw new RuntimeException("Error for PVs " + (new_keys.isEmpty() ? all_keys : new_keys), ex);
+        }
+    }
+
     /** Release an item from the map
      *  @param key Key for item to release
      *  @return Remaining reference counts. 0 if item has been removed from map.
@@ -119,31 +314,28 @@ public class RefCountMap<K, E>
     public int release(final K key)
     {
         // System.out.println("Release " + key + " in " + map);
-        synchronized (map)
+        final ReferencedEntry<E> entry = map.get(key);
+        if (entry == null)
         {
-            final ReferencedEntry<E> entry = map.get(key);
-            if (entry == null)
-            {
-                logger.log(Level.WARNING, "No reference found for " + key, new Exception("Call stack"));
-                return 0;
-            }
+            logger.log(Level.WARNING, "No reference found for " + key, new Exception("Call stack"));
+            return 0;
+        }
 
-            final int refs = entry.decRef();
-            if (refs <= 0)
-            {   // No more references
-                map.remove(key);
-                return 0;
-            }
-            return refs;
+        final int refs = entry.decRef();
+        if (refs <= 0)
+        {   // No more references
+            map.remove(key, entry);
+            return 0;
         }
+        return refs;
     }
 
     /** @return Entries in map */
     public Collection<ReferencedEntry<E>> getEntries()
     {
-        synchronized (map)
-        {
-            return Collections.unmodifiableCollection(map.values());
-        }
+        return map.values()
+                  .stream()
+                  .filter(ReferencedEntry::isCreated)
+                  .toList();
     }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018-2021 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,6 +7,14 @@
  ******************************************************************************/
 package org.phoebus.pv;
 
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
 import org.epics.vtype.VType;
 
 import io.reactivex.rxjava3.core.Flowable;
@@ -18,10 +26,29 @@ import io.reactivex.rxjava3.functions.Cancellable;
  *  @author Eric Berryman
  *  @author Kay Kasemir
  */
+@SuppressWarnings("nls")
 class ValueEventHandler implements FlowableOnSubscribe<VType>
 {
+    /** Timer shared by all rate-limited subscriptions */
+    private static final ScheduledExecutorService throttle_timer;
+
+    static
+    {
+        final AtomicInteger instance = new AtomicInteger();
+        final int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        throttle_timer = Executors.newScheduledThreadPool(threads, target ->
+        {
+            final Thread thread = new Thread(target, "PVThrottle" + instance.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     private final PV pv;
 
+    /** Minimum period between updates in nanoseconds, or -1 to send each update */
+    private final long period;
+
     class Subscription implements Cancellable
     {
         private final FlowableEmitter<VType> emitter;
@@ -29,7 +56,6 @@ class ValueEventHandler implements FlowableOnSubscribe<VType>
         public Subscription(final FlowableEmitter<VType> emitter)
         {
             this.emitter = emitter;
-            pv.addSubscription(this);
         }
 
         public void update(final VType value)
@@ -46,14 +72,83 @@ class ValueEventHandler implements FlowableOnSubscribe<VType>
         }
     };
 
+    /** Subscription that sends at most one update per period
+     *
+     *  <p>Received values are placed in a slot,
+     *  replacing a value that has not been sent, yet.
+     *  Only the transition of the slot from empty to holding a value
+     *  schedules a delivery on the shared timer,
+     *  so a fast-changing PV causes no additional work
+     *  beyond updating the slot.
+     */
+    private class ThrottledSubscription extends Subscription
+    {
+        /** Most recent value that has not been sent, or <code>null</code> */
+        private final AtomicReference<VType> latest = new AtomicReference<>();
+
+        /** Allocated once to avoid creating a new lambda for each delivery */
+        private final Runnable deliver = this::deliver;
+
+        /** Time (nanoTime) of last delivery */
+        private volatile long last_delivery;
+
+        public ThrottledSubscription(final FlowableEmitter<VType> emitter)
+        {
+            super(emitter);
+            last_delivery = System.nanoTime() - period;
+        }
+
+        @Override
+        public void update(final VType value)
+        {
+            if (latest.getAndSet(value) == null)
+            {
+                final long delay = last_delivery + period - System.nanoTime();
+                throttle_timer.schedule(deliver, Math.max(0, delay), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void deliver()
+        {
+            last_delivery = System.nanoTime();
+            final VType value = latest.getAndSet(null);
+            try
+            {
+                super.update(value);
+            }
+            catch (Throwable ex)
+            {
+                PV.logger.log(Level.WARNING, pv.getName() + " value update error", ex);
+            }
+        }
+    }
+
+    /** @param pv PV that sends each update */
     public ValueEventHandler(final PV pv)
     {
         this.pv = pv;
+        this.period = -1;
+    }
+
+    /** @param pv PV
+     *  @param max_rate Minimum period between updates
+     */
+    public ValueEventHandler(final PV pv, final Duration max_rate)
+    {
+        this.pv = pv;
+        this.period = Math.max(0, max_rate.toNanos());
     }
 
     @Override
     public void subscribe(final FlowableEmitter<VType> emitter) throws Exception
     {
-        emitter.setCancellable(new Subscription(emitter));
+        final Subscription subscription;
+        if (period < 0)
+            subscription = new Subscription(emitter);
+        else
+            // Deliveries for the same subscription may run on different timer threads
+            subscription = new ThrottledSubscription(emitter.serialize());
+        emitter.setCancellable(subscription);
+        pv.addSubscription(subscription);
     }
 }
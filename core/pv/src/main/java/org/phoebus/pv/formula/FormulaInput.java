@@ -9,7 +9,7 @@ package org.phoebus.pv.formula;
 
 import static org.phoebus.pv.PV.logger;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
 import java.util.logging.Level;
 
 import org.csstudio.apputil.formula.VariableNode;
@@ -39,8 +39,7 @@ class FormulaInput
         this.formula_pv = formula_pv;
         this.variable = variable;
         pv = PVPool.getPV(variable.getName());
-        subscription = pv.onValueEvent()
-                         .throttleLatest(FormulaPVPreferences.throttle_ms, TimeUnit.MILLISECONDS)
+        subscription = pv.onValueEvent(Duration.ofMillis(FormulaPVPreferences.throttle_ms))
                          .subscribe(this::handleUpdate);
     }
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2019-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,8 +10,6 @@ package org.phoebus.pv.formula;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
@@ -31,18 +29,33 @@ import org.phoebus.pv.PV;
 @SuppressWarnings("nls")
 public class FormulaPV extends PV
 {
-    /** Evaluate formulas on one thread
-     *  to decouple and throttle input updates
+    /** Evaluation statistics
+     *  @param threads Number of evaluation threads
+     *  @param queued Formulas waiting to be evaluated
+     *  @param evaluations Number of evaluations
+     *  @param skipped Input updates that were merged into an already pending evaluation
+     *  @param eval_nanos Total evaluation time
+     *  @param max_eval_nanos Longest evaluation time
      */
-    private static final ExecutorService update_thread = Executors.newSingleThreadExecutor(target ->
+    public static record EvaluationInfo(int threads, int queued, long evaluations, long skipped,
+                                        long eval_nanos, long max_eval_nanos)
     {
-        final Thread thread = new Thread(target, "FormulaPV");
-        thread.setDaemon(true);
-        return thread;
-    });
+    }
+
+    /** Evaluate formulas on a pool of threads
+     *  to decouple and throttle input updates
+     */
+    private static final FormulaScheduler scheduler = new FormulaScheduler(FormulaPVPreferences.threads);
+
+    /** Thread of the scheduler used by this formula */
+    private final int lane = scheduler.assignLane();
 
-    /** Is there already a pending update? */
-    private AtomicBoolean pending = new AtomicBoolean();
+    /** Is there already a pending update?
+     *
+     *  Several inputs that update at about the same time
+     *  result in only one evaluation.
+     */
+    private final AtomicBoolean pending = new AtomicBoolean();
 
     private Formula formula;
     private volatile FormulaInput[] inputs;
@@ -97,9 +110,18 @@ public class FormulaPV extends PV
     void update()
     {
         if (pending.getAndSet(true))
+        {
+            scheduler.skipped();
             logger.log(Level.FINE, () -> getName() + " skips recalc on " + Thread.currentThread());
+        }
         else
-            update_thread.submit(this::doUpdate);
+            scheduler.submit(lane, this::doUpdate);
+    }
+
+    /** @return Evaluation statistics for all formula PVs */
+    public static EvaluationInfo getEvaluationInfo()
+    {
+        return scheduler.getInfo();
     }
 
     /** Compute updated value of formula and notify listeners */
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.formula;
+
+import static org.phoebus.pv.PV.logger;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/** Scheduler for evaluating {@link FormulaPV}s
+ *
+ *  <p>Formulas are partitioned across a fixed number of threads.
+ *  Each formula is assigned to one thread when it's created,
+ *  so evaluations of the same formula never overlap
+ *  and are performed in order,
+ *  while different formulas are evaluated in parallel.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class FormulaScheduler
+{
+    private final ExecutorService[] lanes;
+
+    /** Next lane to assign */
+    private final AtomicInteger next_lane = new AtomicInteger();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong evaluations = new AtomicLong(), skipped = new AtomicLong(),
+                             eval_nanos = new AtomicLong(), max_eval_nanos = new AtomicLong();
+
+    /** @param threads Number of evaluation threads, 0 for number of CPU cores */
+    FormulaScheduler(final int threads)
+    {
+        final int count = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        lanes = new ExecutorService[count];
+        for (int i=0; i<count; ++i)
+        {
+            final String name = "FormulaPV" + (i+1);
+            lanes[i] = Executors.newSingleThreadExecutor(target ->
+            {
+                final Thread thread = new Thread(target, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        logger.log(Level.CONFIG, () -> "Formulas evaluated by " + count + " threads");
+    }
+
+    /** @return Lane for a new formula */
+    int assignLane()
+    {
+        return Math.floorMod(next_lane.getAndIncrement(), lanes.length);
+    }
+
+    /** @param lane Lane of the formula
+     *  @param evaluation Evaluation to perform on that lane
+     */
+    void submit(final int lane, final Runnable evaluation)
+    {
+        queued.incrementAndGet();
+        lanes[lane].execute(() ->
+        {
+            queued.decrementAndGet();
+            final long start = System.nanoTime();
+            try
+            {
+                evaluation.run();
+            }
+            catch (Throwable ex)
+            {
+                logger.log(Level.WARNING, "Formula evaluation error", ex);
+            }
+            final long nanos = System.nanoTime() - start;
+            evaluations.incrementAndGet();
+            eval_nanos.addAndGet(nanos);
+            max_eval_nanos.accumulateAndGet(nanos, Math::max);
+        });
+    }
+
+    /** Note that an update was merged into an already pending evaluation */
+    void skipped()
+    {
+        skipped.incrementAndGet();
+    }
+
+    /** @return Statistics */
+    FormulaPV.EvaluationInfo getInfo()
+    {
+        return new FormulaPV.EvaluationInfo(lanes.length, queued.get(), evaluations.get(), skipped.get(),
+                                            eval_nanos.get(), max_eval_nanos.get());
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014-2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2014-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,13 @@ import java.util.List;
 import java.util.Objects;
 import java.util.logging.Level;
 
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
 import org.epics.vtype.VDouble;
 import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
 import org.epics.vtype.VString;
 import org.epics.vtype.VStringArray;
 import org.epics.vtype.VType;
@@ -77,38 +82,81 @@ public class LocalPV extends PV
 
     @Override
     public void write(final Object new_value) throws Exception
+    {
+        update(adapt(new_value));
+    }
+
+    /** Convert value without changing the PV
+     *
+     *  <p>For a PV that still has the initial undefined double value,
+     *  the result may be of a different type.
+     *  The PV then changes to that type in {@link #update(VType)}.
+     *
+     *  @param new_value Value to write
+     *  @return Value converted to the type of this PV
+     *  @throws Exception on error
+     */
+    VType adapt(final Object new_value) throws Exception
     {
         if (new_value == null)
             throw new Exception(getName() + " got null");
 
+        // Fast path for values that already match the type, or numbers for numeric PVs.
+        // Their conversion doesn't depend on the current value.
+        final Class<? extends VType> current = type;
+        if (current.isInstance(new_value))
+            return (VType) new_value;
+        if (new_value instanceof Number)
+        {
+            if (current == VDouble.class)
+                return VDouble.of(((Number)new_value).doubleValue(), Alarm.none(), Time.now(), Display.none());
+            if (current == VLong.class)
+                return VLong.of(((Number)new_value).longValue(), Alarm.none(), Time.now(), Display.none());
+            if (current == VInt.class)
+                return VInt.of(((Number)new_value).intValue(), Alarm.none(), Time.now(), Display.none());
+        }
+
         try
         {
             final VType last_value = read();
-            final boolean change_from_double = initial_value == null  &&
-                                               last_value instanceof VDouble  &&
-                                               ((VDouble)last_value).getAlarm().getSeverity() == ValueHelper.UDF.getSeverity();
-            final VType value = ValueHelper.adapt(new_value, type, last_value, change_from_double);
-            if (change_from_double  &&  ! type.isInstance(value))
-            {
-                final Class<? extends VType> new_type;
-                if (value instanceof VDoubleArray)
-                    new_type = VDoubleArray.class;
-                else if (value instanceof VStringArray)
-                    new_type = VStringArray.class;
-                else
-                    new_type = VString.class;
-                logger.log(Level.WARNING, "PV " + getName() + " changed from " + type.getSimpleName() + " to " + new_type.getSimpleName());
-                type = new_type;
-            }
-            notifyListenersOfValue(value);
+            return ValueHelper.adapt(new_value, current, last_value, isUndefinedDouble(last_value));
         }
         catch (Exception ex)
         {
-            if (new_value != null  &&  new_value.getClass().isArray())
+            if (new_value.getClass().isArray())
                 throw new Exception("Failed to write " + new_value.getClass().getSimpleName() + " to " + getName(), ex);
             throw new Exception("Failed to write '" + new_value + "' to " + this, ex);
         }
-     }
+    }
+
+    /** @param last_value Current value of the PV
+     *  @return Does PV have the initial 0.0 UNDEFINED value, so the type may be changed?
+     */
+    private boolean isUndefinedDouble(final VType last_value)
+    {
+        return initial_value == null  &&
+               last_value instanceof VDouble  &&
+               ((VDouble)last_value).getAlarm().getSeverity() == ValueHelper.UDF.getSeverity();
+    }
+
+    /** @param value New value, obtained from {@link #adapt(Object)} */
+    void update(final VType value)
+    {
+        final Class<? extends VType> current = type;
+        if (! current.isInstance(value)  &&  isUndefinedDouble(read()))
+        {
+            final Class<? extends VType> new_type;
+            if (value instanceof VDoubleArray)
+                new_type = VDoubleArray.class;
+            else if (value instanceof VStringArray)
+                new_type = VStringArray.class;
+            else
+                new_type = VString.class;
+            logger.log(Level.WARNING, "PV " + getName() + " changed from " + current.getSimpleName() + " to " + new_type.getSimpleName());
+            type = new_type;
+        }
+        notifyListenersOfValue(value);
+    }
 
     @Override
     protected void close()
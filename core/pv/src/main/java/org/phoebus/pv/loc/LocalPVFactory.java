@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2014-2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2014-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,9 +7,10 @@
  ******************************************************************************/
 package org.phoebus.pv.loc;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.epics.vtype.VBoolean;
 import org.epics.vtype.VDouble;
@@ -34,8 +35,11 @@ public class LocalPVFactory implements PVFactory
     /** PV type implemented by this factory */
     final public static String TYPE = "loc";
 
-    /** Map of local PVs */
-    private static final Map<String, LocalPV> local_pvs = new HashMap<>();
+    /** "loc://" */
+    private static final String PREFIX = PVPool.TypedName.format(TYPE, "");
+
+    /** Map of local PVs by "loc://name" */
+    private static final Map<String, LocalPV> local_pvs = new ConcurrentHashMap<>();
 
     @Override
     public String getType()
@@ -70,19 +74,16 @@ public class LocalPVFactory implements PVFactory
         final Class<? extends VType> type = ntv[1] == null
                                           ? determineValueType(initial_value)
                                           : parseType(ntv[1]);
-        LocalPV pv;
-        // TODO Use ConcurrentHashMap, computeIfAbsent
-        synchronized (local_pvs)
-        {
-            pv = local_pvs.get(actual_name);
+        LocalPV pv = local_pvs.get(actual_name);
+        if (pv == null)
+        {   // When racing with another thread to create the PV,
+            // the first one to be added is used and the other discarded
+            final LocalPV new_pv = new LocalPV(actual_name, type, initial_value);
+            pv = local_pvs.putIfAbsent(actual_name, new_pv);
             if (pv == null)
-            {
-                pv = new LocalPV(actual_name, type, initial_value);
-                local_pvs.put(actual_name, pv);
-            }
-            else
-                pv.checkInitializer(type, initial_value);
+                return new_pv;
         }
+        pv.checkInitializer(type, initial_value);
         return pv;
     }
 
@@ -145,9 +146,40 @@ public class LocalPVFactory implements PVFactory
      */
     static void releasePV(final LocalPV pv)
     {
-        synchronized (local_pvs)
+        local_pvs.remove(pv.getName(), pv);
+    }
+
+    /** Write several local PVs
+     *
+     *  <p>All PV names are first resolved and all values converted
+     *  to the type of their PV.
+     *  An unknown PV or a value that cannot be converted leaves all PVs unchanged,
+     *  including the type of PVs that are still undefined.
+     *  Only then are the values applied, and each PV notifies its listeners once.
+     *
+     *  @param values Values to write by PV name, "loc://name" or just "name"
+     *  @throws Exception if a PV does not exist or a value cannot be converted
+     */
+    public static void writeAll(final Map<String, Object> values) throws Exception
+    {
+        // Validate all entries
+        final Map<LocalPV, Object> pvs = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+        for (Map.Entry<String, Object> entry : values.entrySet())
         {
-            local_pvs.remove(pv.getName());
+            final String name = entry.getKey().startsWith(PREFIX)
+                              ? entry.getKey()
+                              : PREFIX + entry.getKey();
+            final LocalPV pv = local_pvs.get(name);
+            if (pv == null)
+                throw new Exception("Unknown local PV " + name);
+            pvs.put(pv, entry.getValue());
         }
+        final Map<LocalPV, VType> updates = new LinkedHashMap<>(pvs.size() * 4 / 3 + 1);
+        for (Map.Entry<LocalPV, Object> entry : pvs.entrySet())
+            updates.put(entry.getKey(), entry.getKey().adapt(entry.getValue()));
+
+        // Apply them
+        for (Map.Entry<LocalPV, VType> update : updates.entrySet())
+            update.getKey().update(update.getValue());
     }
 }
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.sim;
+
+import java.util.List;
+
+import org.epics.util.array.ArrayUShort;
+import org.epics.util.array.ListNumber;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Time;
+import org.epics.vtype.VImage;
+import org.epics.vtype.VImageDataType;
+import org.epics.vtype.VImageType;
+import org.phoebus.pv.PV;
+
+/** Simulated PV for images
+ *
+ *  <p>16 bit mono image of a spot that moves around on a gradient.
+ *  Cycles through a fixed set of precomputed frames,
+ *  so updates don't allocate or compute any pixel data.
+ *  Meant for performance tests of image displays.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ImagePV extends SimulatedPV
+{
+    private static final int FRAMES = 16;
+    private final int width, height;
+    private final ListNumber[] frames = new ListNumber[FRAMES];
+    private int frame = 0;
+
+    /** @param name Name
+     *  @param parameters Parameters
+     *  @return PV
+     *  @throws Exception on error
+     */
+    public static PV forParameters(final String name, List<Double> parameters) throws Exception
+    {
+        if (parameters.isEmpty())
+            return new ImagePV(name, 640, 480, 0.1);
+        if (parameters.size() == 1)
+            return new ImagePV(name, 640, 480, parameters.get(0));
+        if (parameters.size() == 3)
+            return new ImagePV(name, parameters.get(0).intValue(), parameters.get(1).intValue(), parameters.get(2));
+        throw new Exception("sim://image needs no parameters, " +
+                            "(update_seconds) or" +
+                            "(width, height, update_seconds)");
+    }
+
+    /** @param name Name
+     *  @param width Image width
+     *  @param height Image height
+     *  @param update_seconds Seconds between updates
+     */
+    public ImagePV(final String name, final int width, final int height, final double update_seconds)
+    {
+        super(name);
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        final double radius = Math.max(2, Math.min(this.width, this.height) / 8.0);
+        for (int f=0; f<FRAMES; ++f)
+        {
+            // Spot circles around the center
+            final double angle = 2*Math.PI * f / FRAMES;
+            final double cx = this.width  * (0.5 + 0.3*Math.cos(angle));
+            final double cy = this.height * (0.5 + 0.3*Math.sin(angle));
+            final short[] pixels = new short[this.width * this.height];
+            for (int y=0; y<this.height; ++y)
+                for (int x=0; x<this.width; ++x)
+                {
+                    final double dx = (x - cx) / radius, dy = (y - cy) / radius;
+                    final double value = 10000.0 * x / this.width + 50000.0 * Math.exp(-(dx*dx + dy*dy));
+                    pixels[x + y*this.width] = (short) Math.min(65535, (int) value);
+                }
+            frames[f] = ArrayUShort.of(pixels);
+        }
+        start(update_seconds);
+    }
+
+    /** Called by periodic timer, never concurrently */
+    @Override
+    protected void update()
+    {
+        notifyListenersOfValue(VImage.of(height, width, frames[frame], VImageDataType.pvUShort, VImageType.TYPE_MONO,
+                                         Alarm.none(), Time.now()));
+        frame = (frame + 1) % FRAMES;
+    }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.sim;
+
+import java.util.List;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListDouble;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDoubleArray;
+import org.phoebus.pv.PV;
+
+/** Simulated PV for large waveforms
+ *
+ *  <p>Cycles through a fixed set of precomputed frames
+ *  of a running sine wave,
+ *  so updates don't allocate or compute any array data.
+ *  Meant for performance tests with many or large waveforms.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class LargeWavePV extends SimulatedPV
+{
+    private final ListDouble[] frames;
+    private final Display display = SimulatedDoublePV.createDisplay(-1.0, 1.0);
+    private int frame = 0;
+
+    /** @param name Name
+     *  @param parameters Parameters
+     *  @return PV
+     *  @throws Exception on error
+     */
+    public static PV forParameters(final String name, List<Double> parameters) throws Exception
+    {
+        if (parameters.isEmpty())
+            return new LargeWavePV(name, 100000, 10, 1.0);
+        if (parameters.size() == 2)
+            return new LargeWavePV(name, parameters.get(0).intValue(), 10, parameters.get(1));
+        if (parameters.size() == 3)
+            return new LargeWavePV(name, parameters.get(0).intValue(), parameters.get(1).intValue(), parameters.get(2));
+        throw new Exception("sim://largewave needs no parameters, " +
+                            "(size, update_seconds) or" +
+                            "(size, frames, update_seconds)");
+    }
+
+    /** @param name Name
+     *  @param size Array size
+     *  @param frame_count Number of frames to cycle through
+     *  @param update_seconds Seconds between updates
+     */
+    public LargeWavePV(final String name, final int size, final int frame_count, final double update_seconds)
+    {
+        super(name);
+        frames = new ListDouble[Math.max(1, frame_count)];
+        final int n = Math.max(0, size);
+        for (int f=0; f<frames.length; ++f)
+        {
+            final double[] value = new double[n];
+            final double phase = 2*Math.PI * f / frames.length;
+            for (int i=0; i<n; ++i)
+                value[i] = Math.sin(phase + 8*Math.PI * i / n);
+            frames[f] = ArrayDouble.of(value);
+        }
+        start(update_seconds);
+    }
+
+    /** Called by periodic timer, never concurrently */
+    @Override
+    protected void update()
+    {
+        notifyListenersOfValue(VDoubleArray.of(frames[frame], Alarm.none(), Time.now(), display));
+        frame = (frame + 1) % frames.length;
+    }
+}
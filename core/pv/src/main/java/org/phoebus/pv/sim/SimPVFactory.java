@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -69,6 +69,10 @@ public class SimPVFactory implements PVFactory
             return GaussianWavePV.forParameters(name, parseDoubles(parameters));
         else if (func.toLowerCase().startsWith("noisewave")) // diirt used "noiseWaveform"
             return NoiseWavePV.forParameters(name, parseDoubles(parameters));
+        else if (func.equalsIgnoreCase("largewave"))
+            return LargeWavePV.forParameters(name, parseDoubles(parameters));
+        else if (func.equals("image"))
+            return ImagePV.forParameters(name, parseDoubles(parameters));
         else if (func.equals("flipflop"))
             return FlipFlopPV.forParameters(name, parseDoubles(parameters));
         else if (func.equals("const"))
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,12 +7,6 @@
  ******************************************************************************/
 package org.phoebus.pv.sim;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
-
 import org.phoebus.pv.PV;
 
 /** Base for simulated PVs
@@ -22,16 +16,27 @@ import org.phoebus.pv.PV;
 @SuppressWarnings("nls")
 abstract public class SimulatedPV extends PV
 {
-    /** Timer for periodic updates */
-    private final static ScheduledExecutorService executor = Executors.newScheduledThreadPool(1, target ->
+    /** Statistics of periodic updates
+     *
+     *  @param threads Number of update threads
+     *  @param pvs Number of simulated PVs
+     *  @param groups Number of groups of PVs with same period and phase
+     *  @param requested_rate Requested updates per second, sum over all PVs
+     *  @param achieved_rate Updates per second performed during the last second
+     *  @param updates Total number of updates
+     *  @param missed Updates skipped because the previous update was still running or the timer fell behind
+     */
+    public static record UpdateInfo(int threads, int pvs, int groups,
+                                    double requested_rate, double achieved_rate,
+                                    long updates, long missed)
     {
-        final Thread thread = new Thread(target, "SimPV");
-        thread.setDaemon(true);
-        return thread;
-    });
+    }
 
-    /** Task that was submitted for periodic updates */
-    private ScheduledFuture<?> task;
+    /** Timer for periodic updates */
+    private final static SimulationTimer timer = new SimulationTimer(SimPVPreferences.threads);
+
+    /** Timer group that handles updates of this PV */
+    private SimulationTimer.Group group;
 
     /** @param name Full PV name */
     public SimulatedPV(final String name)
@@ -49,7 +54,13 @@ abstract public class SimulatedPV extends PV
     {
         // Limit rate to 100 Hz
         final long milli = Math.round(Math.max(update_seconds, 0.01) * 1000);
-        task = executor.scheduleAtFixedRate(this::update, milli, milli, TimeUnit.MILLISECONDS);
+        group = timer.add(this, milli);
+    }
+
+    /** @return Update statistics for all simulated PVs */
+    public static UpdateInfo getUpdateInfo()
+    {
+        return timer.getInfo();
     }
 
     /** Called by periodic timer */
@@ -58,8 +69,7 @@ abstract public class SimulatedPV extends PV
     @Override
     protected void close()
     {
-        if (! task.cancel(false))
-            logger.log(Level.WARNING, "Cannot cancel updates for " + getName());
+        timer.remove(group, this);
         super.close();
     }
 }
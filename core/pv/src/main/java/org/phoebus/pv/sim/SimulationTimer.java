@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv.sim;
+
+import static org.phoebus.pv.PV.logger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/** Timer for periodic updates of {@link SimulatedPV}s
+ *
+ *  <p>Hashed timer wheel:
+ *  PVs with the same period and phase are handled as one group.
+ *  Groups are kept in the slot of the wheel for their next due tick,
+ *  so each tick only inspects one slot.
+ *  When a group is due, its PVs are updated in batches on a pool of threads.
+ *
+ *  <p>If the PVs of a group are still being updated when the
+ *  group is due again, that update is skipped and counted as missed.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class SimulationTimer
+{
+    /** Tick period, also the shortest update period */
+    static final long TICK_MS = 10;
+
+    /** Number of wheel slots */
+    private static final int WHEEL_SIZE = 512;
+
+    /** Number of PVs updated by one task */
+    private static final int BATCH_SIZE = 500;
+
+    /** Group of PVs with same period and phase */
+    static class Group
+    {
+        /** Period in ticks */
+        final long period;
+
+        /** Phase in ticks, 0 .. period-1 */
+        final long phase;
+
+        /** Next tick when the group is due. SYNC on wheel */
+        private long due;
+
+        /** PVs in group. SYNC on wheel */
+        private final Set<SimulatedPV> pvs = new LinkedHashSet<>();
+
+        /** Array of the PVs, null when it needs to be re-created. SYNC on wheel */
+        private SimulatedPV[] snapshot;
+
+        /** Number of batches that are still being updated */
+        private final AtomicInteger busy = new AtomicInteger();
+
+        Group(final long period, final long phase)
+        {
+            this.period = period;
+            this.phase = phase;
+        }
+    }
+
+    /** Group that is due, with its PVs at that time
+     *  @param group Group
+     *  @param pvs Snapshot of the group's PVs
+     */
+    private static record Due(Group group, SimulatedPV[] pvs)
+    {
+    }
+
+    /** Thread that advances the wheel */
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(target ->
+    {
+        final Thread thread = new Thread(target, "SimPV");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Threads that update the PVs */
+    private final ExecutorService pool;
+    private final int threads;
+
+    /** Groups by due tick modulo WHEEL_SIZE. SYNC on wheel */
+    private final List<List<Group>> wheel = new ArrayList<>(WHEEL_SIZE);
+
+    /** Groups by period and phase. SYNC on wheel */
+    private final Map<List<Long>, Group> groups = new HashMap<>();
+
+    /** Number of PVs and requested updates per second. SYNC on wheel */
+    private int pv_count = 0;
+    private double requested_rate = 0.0;
+
+    private final long start = System.nanoTime();
+
+    /** Next tick to handle, only accessed by ticker */
+    private long next_tick = 1;
+
+    private final AtomicLong updates = new AtomicLong(), missed = new AtomicLong();
+
+    /** Measurement of achieved rate, only updated by ticker */
+    private long rate_tick = 0, rate_updates = 0;
+    private volatile double achieved_rate = 0.0;
+
+    /** @param threads Number of update threads, 0 for number of CPU cores */
+    SimulationTimer(final int threads)
+    {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        final AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(this.threads, target ->
+        {
+            final Thread thread = new Thread(target, "SimPV" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i=0; i<WHEEL_SIZE; ++i)
+            wheel.add(new ArrayList<>());
+        ticker.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+        logger.log(Level.CONFIG, () -> "Simulated PVs updated by " + this.threads + " threads");
+    }
+
+    /** @return Current tick */
+    private long now()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / TICK_MS;
+    }
+
+    /** @param pv PV to update
+     *  @param period_ms Update period in milliseconds
+     *  @return Group that PV was added to, needed to remove it
+     */
+    Group add(final SimulatedPV pv, final long period_ms)
+    {
+        final long period = Math.max(1, Math.round((double) period_ms / TICK_MS));
+        synchronized (wheel)
+        {
+            // First update one period from now
+            final long due = now() + period;
+            final List<Long> key = List.of(period, due % period);
+            Group group = groups.get(key);
+            if (group == null)
+            {
+                group = new Group(period, due % period);
+                group.due = due;
+                groups.put(key, group);
+                wheel.get((int) (due % WHEEL_SIZE)).add(group);
+            }
+            if (group.pvs.add(pv))
+            {
+                group.snapshot = null;
+                ++pv_count;
+                requested_rate += 1000.0 / (period * TICK_MS);
+            }
+            return group;
+        }
+    }
+
+    /** @param group Group of the PV
+     *  @param pv PV to no longer update
+     */
+    void remove(final Group group, final SimulatedPV pv)
+    {
+        synchronized (wheel)
+        {
+            if (group.pvs.remove(pv))
+            {
+                group.snapshot = null;
+                --pv_count;
+                requested_rate -= 1000.0 / (group.period * TICK_MS);
+            }
+            else
+                logger.log(Level.WARNING, "Cannot cancel updates for " + pv.getName());
+            // Empty group is removed from wheel when it's next due
+        }
+    }
+
+    /** Handle all ticks up to now */
+    private void tick()
+    {
+        try
+        {
+            final long now = now();
+            final List<Due> due = new ArrayList<>();
+            while (next_tick <= now)
+            {
+                synchronized (wheel)
+                {
+                    final List<Group> slot = wheel.get((int) (next_tick % WHEEL_SIZE));
+                    for (int i=slot.size()-1; i>=0; --i)
+                    {
+                        final Group group = slot.get(i);
+                        if (group.due != next_tick)
+                            continue; // Due in a later turn of the wheel
+                        slot.remove(i);
+                        if (group.pvs.isEmpty())
+                        {
+                            groups.remove(List.of(group.period, group.phase));
+                            continue;
+                        }
+                        if (group.snapshot == null)
+                            group.snapshot = group.pvs.toArray(new SimulatedPV[group.pvs.size()]);
+                        // Keep the snapshot, add() or remove() may replace it
+                        due.add(new Due(group, group.snapshot));
+
+                        // Re-schedule, skipping periods that have already passed
+                        group.due += group.period;
+                        if (group.due <= now)
+                        {
+                            final long skip = (now - group.due) / group.period + 1;
+                            missed.addAndGet(skip * group.pvs.size());
+                            group.due += skip * group.period;
+                        }
+                        wheel.get((int) (group.due % WHEEL_SIZE)).add(group);
+                    }
+                }
+                ++next_tick;
+            }
+
+            for (Due item : due)
+                submit(item.group(), item.pvs());
+
+            // Measure achieved rate about once per second
+            final long ticks = now - rate_tick;
+            if (ticks * TICK_MS >= 1000)
+            {
+                final long count = updates.get();
+                achieved_rate = (count - rate_updates) * 1000.0 / (ticks * TICK_MS);
+                rate_tick = now;
+                rate_updates = count;
+                logger.log(Level.FINE, () -> getInfo().toString());
+            }
+        }
+        catch (Throwable ex)
+        {
+            logger.log(Level.WARNING, "Simulated PV timer error", ex);
+        }
+    }
+
+    /** @param group Group to update in batches
+     *  @param pvs Snapshot of the group's PVs when it was due
+     */
+    private void submit(final Group group, final SimulatedPV[] pvs)
+    {
+        if (group.busy.get() > 0)
+        {   // Still updating from last time
+            missed.addAndGet(pvs.length);
+            return;
+        }
+        final int batches = (pvs.length + BATCH_SIZE - 1) / BATCH_SIZE;
+        group.busy.set(batches);
+        for (int b=0; b<batches; ++b)
+        {
+            final int first = b * BATCH_SIZE, last = Math.min(first + BATCH_SIZE, pvs.length);
+            pool.execute(() ->
+            {
+                for (int i=first; i<last; ++i)
+                {
+                    try
+                    {
+                        pvs[i].update();
+                    }
+                    catch (Throwable ex)
+                    {
+                        logger.log(Level.WARNING, pvs[i].getName() + " update error", ex);
+                    }
+                }
+                updates.addAndGet(last - first);
+                group.busy.decrementAndGet();
+            });
+        }
+    }
+
+    /** @return Statistics */
+    SimulatedPV.UpdateInfo getInfo()
+    {
+        synchronized (wheel)
+        {
+            return new SimulatedPV.UpdateInfo(threads, pv_count, groups.size(),
+                                              requested_rate, achieved_rate,
+                                              updates.get(), missed.get());
+        }
+    }
+}
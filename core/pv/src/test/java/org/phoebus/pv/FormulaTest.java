@@ -13,7 +13,10 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
 import org.phoebus.core.vtypes.VTypeHelper;
+import org.phoebus.pv.formula.FormulaPV;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -133,6 +136,31 @@ public class FormulaTest
         dumpPool();
     }
 
+    // Many formulas driven by the same input are evaluated in parallel
+    @Test
+    @Timeout(30)
+    public void manyFormulas() throws Exception
+    {
+        final int count = 200;
+        final PV loc = PVPool.getPV("loc://many(0)");
+        final List<PV> pvs = new ArrayList<>();
+        for (int i=0; i<count; ++i)
+            pvs.add(PVPool.getPV("= `loc://many(0)` + " + i));
+
+        loc.write(1000);
+        for (int i=0; i<count; ++i)
+            while (VTypeHelper.toDouble(pvs.get(i).read()) != 1000 + i)
+                TimeUnit.MILLISECONDS.sleep(50);
+
+        final FormulaPV.EvaluationInfo info = FormulaPV.getEvaluationInfo();
+        System.out.println(info);
+        assertTrue(info.evaluations() >= count);
+
+        for (PV pv : pvs)
+            PVPool.releasePV(pv);
+        PVPool.releasePV(loc);
+    }
+
     @Test
     public void initialDisconnect() throws Exception
     {
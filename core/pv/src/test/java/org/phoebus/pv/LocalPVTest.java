@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018-2021 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,11 +9,14 @@ package org.phoebus.pv;
 
 import io.reactivex.rxjava3.disposables.Disposable;
 import org.epics.vtype.VDouble;
+import org.epics.vtype.VString;
 import org.epics.vtype.VType;
 import org.junit.jupiter.api.Test;
 import org.phoebus.pv.loc.LocalPVFactory;
 import org.phoebus.pv.loc.ValueHelper;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -150,4 +153,58 @@ public class LocalPVTest {
         PVPool.releasePV(pv);
     }
 
+    @Test
+    public void testWriteAll() throws Exception {
+        final PV x = PVPool.getPV("loc://write_all_x(1)");
+        final PV y = PVPool.getPV("loc://write_all_y(2)");
+
+        final AtomicInteger updates = new AtomicInteger();
+        final Disposable sub = x.onValueEvent().subscribe(value -> updates.incrementAndGet());
+        assertThat(updates.get(), equalTo(1));
+
+        // Same PV by short and full name: Notified once, last value wins
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("write_all_x", 3);
+        values.put("loc://write_all_x", 4);
+        values.put("write_all_y", "5");
+        LocalPVFactory.writeAll(values);
+        assertThat(updates.get(), equalTo(2));
+        assertThat(((VDouble) x.read()).getValue(), equalTo(4.0));
+        assertThat(((VDouble) y.read()).getValue(), equalTo(5.0));
+
+        // Nothing is written when one value fails
+        values.put("write_all_y", "not a number");
+        try {
+            LocalPVFactory.writeAll(values);
+            fail("Wrote invalid value");
+        } catch (Exception ex) {
+            assertThat(ex.getMessage(), containsString("write_all_y"));
+        }
+        assertThat(updates.get(), equalTo(2));
+        assertThat(((VDouble) y.read()).getValue(), equalTo(5.0));
+
+        // Undefined PV keeps its type when another value fails
+        final PV u = PVPool.getPV("loc://write_all_u");
+        values.clear();
+        values.put("write_all_u", "Text");
+        values.put("write_all_y", "not a number");
+        try {
+            LocalPVFactory.writeAll(values);
+            fail("Wrote invalid value");
+        } catch (Exception ex) {
+            assertThat(ex.getMessage(), containsString("write_all_y"));
+        }
+        assertThat(u.read(), instanceOf(VDouble.class));
+
+        // .. and changes type once written
+        values.remove("write_all_y");
+        LocalPVFactory.writeAll(values);
+        assertThat(((VString) u.read()).getValue(), equalTo("Text"));
+
+        sub.dispose();
+        PVPool.releasePV(u);
+        PVPool.releasePV(y);
+        PVPool.releasePV(x);
+    }
+
 }
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDoubleArray;
+import org.junit.jupiter.api.Test;
+
+/** @author Kay Kasemir */
+@SuppressWarnings("nls")
+public class PVLingerCacheTest
+{
+    /** PV that remembers if it was closed */
+    private static class TestPV extends PV
+    {
+        volatile boolean closed = false;
+
+        TestPV(final String name)
+        {
+            super(name);
+        }
+
+        @Override
+        protected void close()
+        {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void testReuse()
+    {
+        final PVLingerCache cache = new PVLingerCache(10);
+        final TestPV pv = new TestPV("ca://x");
+        cache.add("ca://x", pv, 10);
+        assertThat(cache.getInfo().lingering(), equalTo(1));
+
+        assertThat(cache.take("ca://other"), nullValue());
+        assertThat(cache.take("ca://x"), sameInstance(pv));
+        assertThat(cache.take("ca://x"), nullValue());
+        assertThat(pv.closed, equalTo(false));
+
+        final PVPool.LingerInfo info = cache.getInfo();
+        assertThat(info.lingering(), equalTo(0));
+        assertThat(info.bytes(), equalTo(0L));
+        assertThat(info.hits(), equalTo(1L));
+    }
+
+    @Test
+    public void testEviction()
+    {
+        final PVLingerCache cache = new PVLingerCache(2);
+        final TestPV a = new TestPV("a"), b = new TestPV("b"), c = new TestPV("c");
+        cache.add("a", a, 10);
+        cache.add("b", b, 10);
+        cache.add("c", c, 10);
+
+        // PV released first was closed to make room
+        assertThat(a.closed, equalTo(true));
+        assertThat(b.closed, equalTo(false));
+        assertThat(c.closed, equalTo(false));
+        assertThat(cache.take("a"), nullValue());
+        assertThat(cache.getInfo().evictions(), equalTo(1L));
+        assertThat(cache.getInfo().lingering(), equalTo(2));
+    }
+
+    @Test
+    public void testExpiration() throws Exception
+    {
+        final PVLingerCache cache = new PVLingerCache(10);
+        final TestPV pv = new TestPV("x");
+        cache.add("x", pv, 1);
+        for (int i=0; i<50  &&  !pv.closed; ++i)
+            Thread.sleep(100);
+        assertThat(pv.closed, equalTo(true));
+        assertThat(cache.take("x"), nullValue());
+        assertThat(cache.getInfo().expirations(), equalTo(1L));
+    }
+
+    @Test
+    public void testSize()
+    {
+        final VDoubleArray value = VDoubleArray.of(ArrayDouble.of(new double[1000]), Alarm.none(), Time.now(), Display.none());
+        assertThat(PVLingerCache.estimateSize(value) > 8000, equalTo(true));
+    }
+}
@@ -14,8 +14,10 @@ import org.epics.vtype.VNumber;
 import org.epics.vtype.VType;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -254,4 +256,30 @@ public class ReactivePVTest
         PVPool.releasePV(pv);
     }
 
+    @Test
+    public void testRateLimit() throws Exception
+    {
+        final PV pv = PVPool.getPV("loc://rate_limit(0)");
+
+        System.out.println("Write 1000 values as fast as possible, receive at most one per 200ms");
+        final List<Double> received = new CopyOnWriteArrayList<>();
+        final Disposable dis = pv
+            .onValueEvent(Duration.ofMillis(200))
+            .subscribe(value -> received.add(numericValueOf(value)));
+
+        final long start = System.nanoTime();
+        for (int i=1; i<=1000; ++i)
+            pv.write(i);
+        final long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Last value must arrive, skipping most of the intermediate values
+        for (int i=0; i<50  &&  (received.isEmpty()  ||  received.get(received.size()-1) != 1000.0); ++i)
+            TimeUnit.MILLISECONDS.sleep(100);
+        System.out.println(received);
+        assertThat(received.get(received.size()-1), equalTo(1000.0));
+        assertThat(received.size() <= 3 + ms / 200, equalTo(true));
+
+        dis.dispose();
+        PVPool.releasePV(pv);
+    }
 }
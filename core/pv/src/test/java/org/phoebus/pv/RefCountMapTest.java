@@ -0,0 +1,198 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.phoebus.pv;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+import org.phoebus.pv.RefCountMap.ReferencedEntry;
+
+/** @author Kay Kasemir */
+@SuppressWarnings("nls")
+public class RefCountMapTest
+{
+    @Test
+    public void testReferences()
+    {
+        final RefCountMap<String, String> map = new RefCountMap<>();
+        final ReferencedEntry<String> a = map.createOrGet("a", () -> "A");
+        assertThat(a.getEntry(), equalTo("A"));
+        assertThat(a.getReferences(), equalTo(1));
+
+        final ReferencedEntry<String> again = map.createOrGet("a", () -> "Other A");
+        assertThat(again, sameInstance(a));
+        assertThat(a.getReferences(), equalTo(2));
+
+        assertThat(map.release("a"), equalTo(1));
+        assertThat(map.getEntries().size(), equalTo(1));
+        assertThat(map.release("a"), equalTo(0));
+        assertThat(map.getEntries().size(), equalTo(0));
+    }
+
+    @Test
+    public void testBulk()
+    {
+        final RefCountMap<String, String> map = new RefCountMap<>();
+        map.createOrGet("a", () -> "A");
+
+        // "a" exists, "b" and "c" are created in one call, "b" referenced twice
+        final List<List<String>> calls = new ArrayList<>();
+        final List<ReferencedEntry<String>> entries = map.createOrGet(List.of("a", "b", "c", "b"), keys ->
+        {
+            calls.add(keys);
+            return keys.stream().map(String::toUpperCase).toList();
+        });
+        assertThat(calls, equalTo(List.of(List.of("b", "c"))));
+        assertThat(entries.size(), equalTo(4));
+        assertThat(entries.get(0).getEntry(), equalTo("A"));
+        assertThat(entries.get(1).getEntry(), equalTo("B"));
+        assertThat(entries.get(2).getEntry(), equalTo("C"));
+        assertThat(entries.get(3), sameInstance(entries.get(1)));
+        assertThat(entries.get(0).getReferences(), equalTo(2));
+        assertThat(entries.get(1).getReferences(), equalTo(2));
+        assertThat(entries.get(2).getReferences(), equalTo(1));
+
+        // Failure to create one item releases all the others
+        assertThrows(RuntimeException.class, () -> map.createOrGet(List.of("a", "d"), keys ->
+        {
+            throw new IllegalStateException("Cannot create " + keys);
+        }));
+        assertThat(entries.get(0).getReferences(), equalTo(2));
+        assertThat(map.getEntries().size(), equalTo(3));
+    }
+
+    @Test
+    public void testBulkDiscard()
+    {
+        final RefCountMap<String, String> map = new RefCountMap<>();
+        map.createOrGet("a", () -> "A");
+
+        // "d" is created, but "e" fails, so "d" is discarded while "a" remains
+        final List<String> discarded = new ArrayList<>();
+        assertThrows(RuntimeException.class, () -> map.createOrGet(List.of("a", "d", "e"),
+                                                                   keys -> Arrays.asList("D", null),
+                                                                   discarded::add));
+        assertThat(discarded, equalTo(List.of("D")));
+        assertThat(map.getEntries().size(), equalTo(1));
+        assertThat(map.getEntries().iterator().next().getReferences(), equalTo(1));
+    }
+
+    @Test
+    public void testFailure()
+    {
+        final RefCountMap<String, String> map = new RefCountMap<>();
+        assertThrows(RuntimeException.class, () -> map.createOrGet("x", () -> null));
+        assertThat(map.getEntries().size(), equalTo(0));
+
+        // Can try again
+        assertThat(map.createOrGet("x", () -> "X").getEntry(), equalTo("X"));
+    }
+
+    @Test
+    public void testRecursion()
+    {
+        final RefCountMap<String, String> map = new RefCountMap<>();
+
+        // Like a formula, creating "f" creates other items
+        final ReferencedEntry<String> f = map.createOrGet("f", () -> "F of " + map.createOrGet("x", () -> "X").getEntry());
+        assertThat(f.getEntry(), equalTo("F of X"));
+        assertThat(map.getEntries().size(), equalTo(2));
+
+        // Item that refers to itself cannot be created, but must not hang
+        assertThrows(RuntimeException.class, () -> map.createOrGet("r", () -> map.createOrGet("r", () -> "R").getEntry()));
+        assertThat(map.getEntries().size(), equalTo(2));
+    }
+
+    /** Many threads opening and closing overlapping sets of items */
+    @Test
+    public void testContention() throws Exception
+    {
+        final int threads = 16, keys = 2000, set_size = 200, iterations = 50;
+        final RefCountMap<String, String> map = new RefCountMap<>();
+        final AtomicInteger created = new AtomicInteger();
+        // Count entries that were returned without an item or reference
+        final AtomicInteger errors = new AtomicInteger();
+
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final long start = System.nanoTime();
+        final List<Future<?>> results = new ArrayList<>();
+        for (int t=0; t<threads; ++t)
+        {
+            final boolean bulk = (t % 2) == 0;
+            final Random random = new Random(t);
+            results.add(pool.submit(() ->
+            {
+                for (int i=0; i<iterations; ++i)
+                {
+                    final int offset = random.nextInt(keys - set_size);
+                    final List<String> names = new ArrayList<>(set_size);
+                    for (int k=0; k<set_size; ++k)
+                        names.add("pv" + (offset + k));
+
+                    // Simulate the cost of creating a channel
+                    final List<ReferencedEntry<String>> entries;
+                    if (bulk)
+                        entries = map.createOrGet(names, new_names ->
+                        {
+                            final List<String> items = new ArrayList<>();
+                            for (String name : new_names)
+                            {
+                                LockSupport.parkNanos(20_000);
+                                created.incrementAndGet();
+                                items.add(name.toUpperCase());
+                            }
+                            return items;
+                        });
+                    else
+                    {
+                        entries = new ArrayList<>();
+                        for (String name : names)
+                            entries.add(map.createOrGet(name, () ->
+                            {
+                                LockSupport.parkNanos(20_000);
+                                created.incrementAndGet();
+                                return name.toUpperCase();
+                            }));
+                    }
+
+                    for (int k=0; k<set_size; ++k)
+                        if (! names.get(k).toUpperCase().equals(entries.get(k).getEntry())  ||
+                            entries.get(k).getReferences() <= 0)
+                            errors.incrementAndGet();
+
+                    for (String name : names)
+                        map.release(name);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> result : results)
+            result.get(60, TimeUnit.SECONDS);
+        final long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        pool.shutdown();
+
+        System.out.println(threads + " threads referenced " + (threads * iterations * set_size) + " items in " + ms + " ms, " +
+                           created.get() + " items created");
+        assertThat(errors.get(), equalTo(0));
+        assertThat(map.getEntries().size(), equalTo(0));
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2017-2021 Oak Ridge National Laboratory.
+ * Copyright (c) 2017-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -8,12 +8,21 @@
 package org.phoebus.pv;
 
 import io.reactivex.rxjava3.disposables.Disposable;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VImage;
+import org.epics.vtype.VType;
 import org.junit.jupiter.api.Test;
 import org.phoebus.core.vtypes.VTypeHelper;
+import org.phoebus.pv.sim.SimulatedPV;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /** @author Kay Kasemir */
 @SuppressWarnings("nls")
@@ -80,4 +89,54 @@ public class SimPVTest
         assertEquals(3.14, VTypeHelper.toDouble(pv.read()), 0.001);
         PVPool.releasePV(pv);
     }
+
+    @Test
+    public void demoLargeWaveAndImage() throws Exception
+    {
+        final PV wave = PVPool.getPV("sim://largewave(1000, 0.01)");
+        final PV image = PVPool.getPV("sim://image(100, 50, 0.01)");
+
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicReference<VType> last = new AtomicReference<>();
+        final Disposable flow = wave.onValueEvent().subscribe(value ->
+        {
+            if (value instanceof VDoubleArray)
+            {
+                // Each update is a new VType, even though data is re-used
+                assertNotSame(value, last.getAndSet(value));
+                done.countDown();
+            }
+        });
+        done.await();
+        flow.dispose();
+
+        assertEquals(1000, ((VDoubleArray) wave.read()).getData().size());
+        final VImage frame = (VImage) image.read();
+        assertEquals(100, frame.getWidth());
+        assertEquals(50, frame.getHeight());
+        assertEquals(100*50, frame.getData().size());
+
+        PVPool.releasePV(image);
+        PVPool.releasePV(wave);
+    }
+
+    @Test
+    public void demoManyPVs() throws Exception
+    {
+        final List<PV> pvs = new ArrayList<>();
+        for (int i=0; i<10000; ++i)
+            pvs.add(PVPool.getPV("sim://noise(0, " + (i+1) + ", " + (i % 2 == 0 ? "0.1" : "0.5") + ")"));
+        SimulatedPV.UpdateInfo info = SimulatedPV.getUpdateInfo();
+        System.out.println(info);
+        assertTrue(info.pvs() >= 10000);
+
+        Thread.sleep(2000);
+        info = SimulatedPV.getUpdateInfo();
+        System.out.println(info);
+        assertTrue(info.updates() > 0);
+
+        for (PV pv : pvs)
+            PVPool.releasePV(pv);
+    }
+
 }
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pva.data.PVAData;
+import org.epics.pva.data.PVAStructure;
+import org.epics.pva.data.PVATypeRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Encoding and decoding of data and type descriptions
+ *  @author Kay Kasemir
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CodingBenchmark
+{
+    @Param({ "scalar", "waveform_1000", "waveform_100000", "waveform_1000000", "image_1024", "table_1000" })
+    public String scenario;
+
+    /** Original data */
+    private PVAStructure data;
+
+    /** Copy that receives decoded data */
+    private PVAStructure copy;
+
+    /** Buffer with encoded data */
+    private ByteBuffer encoded;
+
+    /** Buffer with encoded type description */
+    private ByteBuffer encoded_type;
+
+    /** Buffer for encoding */
+    private ByteBuffer buffer;
+
+    private final PVATypeRegistry types = new PVATypeRegistry();
+
+    @Setup
+    public void setup() throws Exception
+    {
+        data = Scenarios.create(scenario, 1);
+        copy = data.cloneData();
+
+        buffer = ByteBuffer.allocate(64*1024*1024).order(ByteOrder.nativeOrder());
+        data.encode(buffer);
+        buffer.flip();
+        encoded = ByteBuffer.allocate(buffer.remaining()).order(ByteOrder.nativeOrder());
+        encoded.put(buffer).flip();
+
+        buffer.clear();
+        data.encodeType(buffer, new BitSet());
+        buffer.flip();
+        encoded_type = ByteBuffer.allocate(buffer.remaining()).order(ByteOrder.nativeOrder());
+        encoded_type.put(buffer).flip();
+    }
+
+    /** @return Buffer with encoded data */
+    @Benchmark
+    public ByteBuffer encode() throws Exception
+    {
+        buffer.clear();
+        data.encode(buffer);
+        return buffer;
+    }
+
+    /** @return Decoded data */
+    @Benchmark
+    public PVAStructure decode() throws Exception
+    {
+        encoded.rewind();
+        copy.decode(types, encoded);
+        return copy;
+    }
+
+    /** @return Buffer with encoded type description */
+    @Benchmark
+    public ByteBuffer encodeType() throws Exception
+    {
+        buffer.clear();
+        data.encodeType(buffer, new BitSet());
+        return buffer;
+    }
+
+    /** @return Decoded type description */
+    @Benchmark
+    public PVAData decodeType() throws Exception
+    {
+        encoded_type.rewind();
+        return types.decodeType("", encoded_type);
+    }
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.epics.pva.client.PVAChannel;
+import org.epics.pva.client.PVAClient;
+import org.epics.pva.data.PVAStructure;
+import org.epics.pva.server.PVAServer;
+import org.epics.pva.server.ServerPV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Monitor updates from {@link PVAServer} to {@link PVAClient} via loopback
+ *
+ *  <p>Each operation updates the PVs on the server
+ *  and waits until the client received all updates.
+ *  Scenario "storm_N" uses N scalar PVs,
+ *  other scenarios use one PV, see {@link Scenarios}.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-DEPICS_PVA_ADDR_LIST=127.0.0.1", "-DEPICS_PVA_AUTO_ADDR_LIST=NO" })
+@State(Scope.Benchmark)
+public class LoopbackBenchmark
+{
+    @Param({ "scalar", "storm_1000", "waveform_1000", "waveform_100000", "waveform_1000000", "image_1024", "table_1000" })
+    public String scenario;
+
+    private PVAServer server;
+    private PVAClient client;
+    private final List<ServerPV> pvs = new ArrayList<>();
+    private final List<PVAChannel> channels = new ArrayList<>();
+
+    /** Alternating new values */
+    private PVAStructure[] values;
+
+    private int index = 0;
+
+    /** Released for each received update */
+    private final Semaphore received = new Semaphore(0);
+
+    @Setup
+    public void setup() throws Exception
+    {
+        final int count;
+        final String data;
+        if (scenario.startsWith("storm_"))
+        {
+            count = Integer.parseInt(scenario.substring(6));
+            data = "scalar";
+        }
+        else
+        {
+            count = 1;
+            data = scenario;
+        }
+
+        server = new PVAServer();
+        for (int i=0; i<count; ++i)
+            pvs.add(server.createPV("benchmark" + i, Scenarios.create(data, 0)));
+        values = new PVAStructure[] { Scenarios.create(data, 1), Scenarios.create(data, 2) };
+
+        client = new PVAClient();
+        for (int i=0; i<count; ++i)
+            channels.add(client.getChannel("benchmark" + i));
+        for (PVAChannel channel : channels)
+        {
+            channel.connect().get(30, TimeUnit.SECONDS);
+            channel.subscribe("", (ch, changes, overruns, value) -> received.release());
+        }
+        // Wait for initial value
+        await(count);
+    }
+
+    private void await(final int count) throws Exception
+    {
+        if (! received.tryAcquire(count, 10, TimeUnit.SECONDS))
+            throw new TimeoutException("Missing updates for " + scenario);
+    }
+
+    /** Update all PVs and wait for the client to receive them */
+    @Benchmark
+    public void update() throws Exception
+    {
+        index = 1 - index;
+        for (ServerPV pv : pvs)
+            pv.update(values[index]);
+        await(pvs.size());
+    }
+
+    @TearDown
+    public void teardown() throws Exception
+    {
+        for (PVAChannel channel : channels)
+            channel.close();
+        client.close();
+        server.close();
+    }
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.benchmark;
+
+import java.time.Instant;
+
+import org.epics.pva.data.PVABool;
+import org.epics.pva.data.PVADoubleArray;
+import org.epics.pva.data.PVAInt;
+import org.epics.pva.data.PVAIntArray;
+import org.epics.pva.data.PVALong;
+import org.epics.pva.data.PVAShortArray;
+import org.epics.pva.data.PVAString;
+import org.epics.pva.data.PVAStringArray;
+import org.epics.pva.data.PVAStructure;
+import org.epics.pva.data.PVAStructureArray;
+import org.epics.pva.data.PVAUnion;
+import org.epics.pva.data.nt.PVAAlarm;
+import org.epics.pva.data.nt.PVAScalar;
+import org.epics.pva.data.nt.PVATable;
+import org.epics.pva.data.nt.PVATimeStamp;
+
+/** Data used by the benchmarks
+ *
+ *  <p>A scenario is selected by name:
+ *  <ul>
+ *  <li>"scalar" - NTScalar double
+ *  <li>"waveform_N" - NTScalarArray double with N elements
+ *  <li>"image_N" - NTNDArray with N x N unsigned short pixels
+ *  <li>"table_N" - NTTable with N rows
+ *  </ul>
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class Scenarios
+{
+    /** Create data for a scenario
+     *
+     *  @param scenario Name of scenario
+     *  @param variant Different variants create data with different values
+     *  @return Data
+     *  @throws Exception on error
+     */
+    static PVAStructure create(final String scenario, final int variant) throws Exception
+    {
+        final int sep = scenario.indexOf('_');
+        final String type = sep > 0 ? scenario.substring(0, sep) : scenario;
+        final int size = sep > 0 ? Integer.parseInt(scenario.substring(sep+1)) : 1;
+        switch (type)
+        {
+        case "scalar":
+            return createScalar(variant);
+        case "waveform":
+            return createWaveform(size, variant);
+        case "image":
+            return createImage(size, variant);
+        case "table":
+            return createTable(size, variant);
+        default:
+            throw new IllegalArgumentException("Unknown scenario '" + scenario + "'");
+        }
+    }
+
+    private static PVAStructure createScalar(final int variant) throws Exception
+    {
+        return PVAScalar.doubleScalarBuilder(variant * 0.1)
+                        .name("scalar")
+                        .alarm(new PVAAlarm())
+                        .timeStamp(new PVATimeStamp(Instant.ofEpochSecond(variant)))
+                        .build();
+    }
+
+    private static PVAStructure createWaveform(final int size, final int variant) throws Exception
+    {
+        final double[] value = new double[size];
+        for (int i=0; i<size; ++i)
+            value[i] = Math.sin((i + variant) * 0.01);
+        return PVAScalar.doubleArrayScalarBuilder(value)
+                        .name("waveform")
+                        .alarm(new PVAAlarm())
+                        .timeStamp(new PVATimeStamp(Instant.ofEpochSecond(variant)))
+                        .build();
+    }
+
+    private static PVAStructure createDimension(final int size)
+    {
+        return new PVAStructure("", "dimension_t",
+                                new PVAInt("size", size),
+                                new PVAInt("offset", 0),
+                                new PVAInt("fullSize", size),
+                                new PVAInt("binning", 1),
+                                new PVABool("reverse", false));
+    }
+
+    private static PVAStructure createImage(final int size, final int variant) throws Exception
+    {
+        final short[] pixel = new short[size * size];
+        for (int i=0; i<pixel.length; ++i)
+            pixel[i] = (short) ((i + variant) & 0xFFF);
+        final PVAUnion value = new PVAUnion("value", "", 0,
+                                            new PVAShortArray("ushortValue", true, pixel),
+                                            new PVADoubleArray("doubleValue"));
+        return new PVAStructure("image", "epics:nt/NTNDArray:1.0",
+                                value,
+                                new PVAStructure("codec", "codec_t",
+                                                 new PVAString("name", ""),
+                                                 new PVAUnion("parameters", "")),
+                                new PVALong("compressedSize", false, 2L * pixel.length),
+                                new PVALong("uncompressedSize", false, 2L * pixel.length),
+                                new PVAStructureArray("dimension", createDimension(size), createDimension(size), createDimension(size)),
+                                new PVAInt("uniqueId", false, variant),
+                                new PVATimeStamp("dataTimeStamp", Instant.ofEpochSecond(variant)),
+                                new PVAAlarm(),
+                                new PVATimeStamp(Instant.ofEpochSecond(variant)));
+    }
+
+    private static PVAStructure createTable(final int rows, final int variant) throws Exception
+    {
+        final String[] names = new String[rows];
+        final double[] values = new double[rows];
+        final int[] status = new int[rows];
+        for (int i=0; i<rows; ++i)
+        {
+            names[i] = "Device:" + i + ":Setpoint";
+            values[i] = i + variant * 0.1;
+            status[i] = (i + variant) % 3;
+        }
+        return PVATable.PVATableBuilder.aPVATable()
+                                       .name("table")
+                                       .alarm(new PVAAlarm())
+                                       .timeStamp(new PVATimeStamp(Instant.ofEpochSecond(variant)))
+                                       .descriptor("Benchmark")
+                                       .addColumn(new PVAStringArray("name", names))
+                                       .addColumn(new PVADoubleArray("value", values))
+                                       .addColumn(new PVAIntArray("status", false, status))
+                                       .build();
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.epics.pva.data.PVABitSet;
+import org.epics.pva.data.PVAStructure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Determining changes via {@link PVAStructure#update(PVAStructure)}
+ *  and coding the resulting {@link BitSet}
+ *
+ *  @author Kay Kasemir
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UpdateBenchmark
+{
+    @Param({ "scalar", "waveform_1000", "waveform_100000", "waveform_1000000", "image_1024", "table_1000" })
+    public String scenario;
+
+    /** Data that is updated */
+    private PVAStructure data;
+
+    /** Alternating new values */
+    private PVAStructure[] values;
+
+    private int index = 0;
+
+    /** Changes of an update */
+    private BitSet changes;
+
+    /** Buffer for coding changes */
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.nativeOrder());
+
+    @Setup
+    public void setup() throws Exception
+    {
+        data = Scenarios.create(scenario, 0);
+        values = new PVAStructure[] { Scenarios.create(scenario, 1), Scenarios.create(scenario, 2) };
+        changes = data.update(values[0]);
+    }
+
+    /** @return Changes */
+    @Benchmark
+    public BitSet update() throws Exception
+    {
+        index = 1 - index;
+        return data.update(values[index]);
+    }
+
+    /** @return Decoded changes */
+    @Benchmark
+    public BitSet codeBitSet()
+    {
+        buffer.clear();
+        PVABitSet.encodeBitSet(changes, buffer);
+        buffer.flip();
+        return PVABitSet.decodeBitSet(buffer);
+    }
+}
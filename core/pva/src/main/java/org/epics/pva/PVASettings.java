@@ -162,6 +162,14 @@ public class PVASettings
     /** Does EPICS_PVAS_TLS_OPTIONS contain "client_cert=require"? */
     public static boolean require_client_cert;
 
+    /** Default number of value updates that the PVA server queues per monitor subscription
+     *
+     *  <p>Used when the client does not request a 'record._options.queueSize'.
+     *  When the queue is full, additional updates are combined
+     *  with the last queued update and reported to the client as overruns.
+     */
+    public static int EPICS_PVAS_MONITOR_QUEUE_SIZE = 4;
+
     /** Path to PVA client keystore and truststore, a PKCS12 file that contains the certificates or root CA
      *  that the client will trust when verifying a server certificate,
      *  and optional client certificate used with x509 authentication to establish the client's name.
@@ -183,12 +191,59 @@ public class PVASettings
     // 1 million 'double' plus some protocol overhead
     public static int EPICS_PVA_SEND_BUFFER_SIZE = 8001000;
 
+    /** Number of bytes to collect before sending queued messages
+     *
+     *  <p>When several messages are queued for a TCP connection,
+     *  they are encoded back-to-back into the send buffer
+     *  and written with one call until this size is reached.
+     *  Messages are never delayed to fill a batch,
+     *  only those already queued are combined.
+     *  Value 0 sends each message on its own.
+     */
+    public static int EPICS_PVA_SEND_BATCH_SIZE = 64 * 1024;
+
+    /** Re-use arrays when decoding received data?
+     *
+     *  <p>By default, each received array value is decoded into
+     *  a newly allocated array.
+     *  When set to 'YES', a received array of the same size as
+     *  the current value is decoded into the existing array,
+     *  so steady updates of fixed-size waveforms do not allocate.
+     *  Only enable when code that receives the data
+     *  does not keep references to the arrays,
+     *  since their content will then change with the next update.
+     */
+    public static boolean EPICS_PVA_REUSE_ARRAYS = false;
+
     /** Initial TCP buffer size for receiving data
      *
      *  <p>Buffer grows when larger packages are received.
      */
     public static final int EPICS_PVA_RECEIVE_BUFFER_SIZE = 16 * 1024;
 
+    /** Use direct buffers to receive data?
+     *
+     *  <p>Only applies to non-blocking connections, see {@link #EPICS_PVA_TCP_NIO}.
+     *  Direct receive buffers avoid copying each read from native memory
+     *  into the heap, at the cost of using memory outside of the Java heap
+     *  which is limited by -XX:MaxDirectMemorySize.
+     *  Receive buffers are pooled and re-used either way.
+     */
+    public static boolean EPICS_PVA_DIRECT_BUFFERS = false;
+
+    /** Maximum number of bytes kept in released receive buffers for re-use
+     *
+     *  <p>Buffers released beyond this total are left to the garbage collector.
+     */
+    public static int EPICS_PVA_BUFFER_POOL_SIZE = 64 * 1024 * 1024;
+
+    /** Check for receive buffers that are not returned to their pool?
+     *
+     *  <p>Debug option that tracks where each pooled buffer was obtained,
+     *  and logs buffers that were never returned.
+     */
+    public static boolean EPICS_PVA_BUFFER_LEAK_CHECK = false;
+
     /** UDP maximum send message size (for sending search requests).
      *
      *  <p>MAX_UDP: 1500 (max of ethernet and 802.{2,3} MTU) - 20/40(IPv4/IPv6) - 8(UDP) - some reserve (e.g. IPSEC)
@@ -218,6 +273,21 @@ public class PVASettings
      */
     public static int EPICS_PVA_TCP_SOCKET_TMO = 5;
 
+    /** Use non-blocking TCP connections served by a few selector threads?
+     *
+     *  <p>By default, each TCP connection of client and server uses
+     *  one thread to receive and one thread to send.
+     *  When set to 'YES', plain TCP connections are instead
+     *  handled by {@link #EPICS_PVA_TCP_NIO_THREADS} event loops,
+     *  which is preferable for processes that connect to
+     *  a large number of servers or clients.
+     *  TLS connections still use threads.
+     */
+    public static boolean EPICS_PVA_TCP_NIO = false;
+
+    /** Number of TCP event loop threads used with {@link #EPICS_PVA_TCP_NIO} */
+    public static int EPICS_PVA_TCP_NIO_THREADS = Runtime.getRuntime().availableProcessors();
+
     /** Maximum number of array elements shown when printing data */
     public static int EPICS_PVA_MAX_ARRAY_FORMATTING = 50;
 
@@ -248,6 +318,25 @@ public class PVASettings
      */
     public static int EPICS_PVA_MAX_BEACON_AGE = 300;
 
+    /** Maximum number of channels per second to search when they are first created
+     *
+     *  <p>Default of 0 searches all new channels right away,
+     *  packing as many names as fit into each search message.
+     *
+     *  <p>When a client creates a large number of channels at once,
+     *  for example when opening a display with thousands of PVs,
+     *  the burst of search replies can exceed the UDP receive buffer,
+     *  so some replies are lost and those channels only connect
+     *  on a later search.
+     *  A positive value spreads the first search of new channels out
+     *  to stay within this rate, for example 1000 channels per second.
+     *  This avoids lost replies, but delays the connection of
+     *  channels at the end of the queue, so a rate that is too low
+     *  slows connections down.
+     *  Even when pacing, at least 100 channels per second are searched.
+     */
+    public static int EPICS_PVA_SEARCH_BURST_RATE = 0;
+
 
 
     /** Whether to allow PVA to use IPv6
@@ -270,10 +359,13 @@ public class PVASettings
         EPICS_PVAS_BROADCAST_PORT = get("EPICS_PVAS_BROADCAST_PORT", EPICS_PVAS_BROADCAST_PORT);
         EPICS_PVA_CONN_TMO = get("EPICS_PVA_CONN_TMO", EPICS_PVA_CONN_TMO);
         EPICS_PVA_TCP_SOCKET_TMO = get("EPICS_PVA_TCP_SOCKET_TMO", EPICS_PVA_TCP_SOCKET_TMO);
+        EPICS_PVA_TCP_NIO = get("EPICS_PVA_TCP_NIO", EPICS_PVA_TCP_NIO);
+        EPICS_PVA_TCP_NIO_THREADS = get("EPICS_PVA_TCP_NIO_THREADS", EPICS_PVA_TCP_NIO_THREADS);
         EPICS_PVA_MAX_ARRAY_FORMATTING = get("EPICS_PVA_MAX_ARRAY_FORMATTING", EPICS_PVA_MAX_ARRAY_FORMATTING);
         EPICS_PVAS_TLS_KEYCHAIN = get("EPICS_PVAS_TLS_KEYCHAIN", EPICS_PVAS_TLS_KEYCHAIN);
         EPICS_PVAS_TLS_OPTIONS = get("EPICS_PVAS_TLS_OPTIONS", EPICS_PVAS_TLS_OPTIONS);
         require_client_cert =  EPICS_PVAS_TLS_OPTIONS.contains("client_cert=require");
+        EPICS_PVAS_MONITOR_QUEUE_SIZE = get("EPICS_PVAS_MONITOR_QUEUE_SIZE", EPICS_PVAS_MONITOR_QUEUE_SIZE);
         EPICS_PVA_TLS_KEYCHAIN = get("EPICS_PVA_TLS_KEYCHAIN", EPICS_PVA_TLS_KEYCHAIN);
         if (EPICS_PVA_TLS_KEYCHAIN.isEmpty()  &&  !EPICS_PVAS_TLS_KEYCHAIN.isEmpty())
         {
@@ -281,9 +373,15 @@ public class PVASettings
             logger.log(Level.CONFIG, "EPICS_PVA_TLS_KEYCHAIN (empty) updated from EPICS_PVAS_TLS_KEYCHAIN");
         }
         EPICS_PVA_SEND_BUFFER_SIZE = get("EPICS_PVA_SEND_BUFFER_SIZE", EPICS_PVA_SEND_BUFFER_SIZE);
+        EPICS_PVA_SEND_BATCH_SIZE = get("EPICS_PVA_SEND_BATCH_SIZE", EPICS_PVA_SEND_BATCH_SIZE);
+        EPICS_PVA_REUSE_ARRAYS = get("EPICS_PVA_REUSE_ARRAYS", EPICS_PVA_REUSE_ARRAYS);
+        EPICS_PVA_DIRECT_BUFFERS = get("EPICS_PVA_DIRECT_BUFFERS", EPICS_PVA_DIRECT_BUFFERS);
+        EPICS_PVA_BUFFER_POOL_SIZE = get("EPICS_PVA_BUFFER_POOL_SIZE", EPICS_PVA_BUFFER_POOL_SIZE);
+        EPICS_PVA_BUFFER_LEAK_CHECK = get("EPICS_PVA_BUFFER_LEAK_CHECK", EPICS_PVA_BUFFER_LEAK_CHECK);
         EPICS_PVA_FAST_BEACON_MIN = get("EPICS_PVA_FAST_BEACON_MIN", EPICS_PVA_FAST_BEACON_MIN);
         EPICS_PVA_FAST_BEACON_MAX = get("EPICS_PVA_FAST_BEACON_MAX", EPICS_PVA_FAST_BEACON_MAX);
         EPICS_PVA_MAX_BEACON_AGE = get("EPICS_PVA_MAX_BEACON_AGE", EPICS_PVA_MAX_BEACON_AGE);
+        EPICS_PVA_SEARCH_BURST_RATE = get("EPICS_PVA_SEARCH_BURST_RATE", EPICS_PVA_SEARCH_BURST_RATE);
         EPICS_PVA_ENABLE_IPV6 = get("EPICS_PVA_ENABLE_IPV6", EPICS_PVA_ENABLE_IPV6);
     }
 
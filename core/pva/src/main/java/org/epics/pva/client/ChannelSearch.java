@@ -13,15 +13,19 @@ import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.BiFunction;
 import java.util.logging.Level;
 
@@ -63,6 +67,14 @@ import org.epics.pva.data.PVAString;
  *  known channel to return a positive reply.
  *  TCP searches thus need to be repeated, but compared to the UDP searches they are sent less frequently.
  *
+ *  <p>Channels that are registered to be searched "now" are queued
+ *  and searched as soon as possible, packing as many channel names
+ *  as fit into each search message.
+ *  With a non-zero {@link PVASettings#EPICS_PVA_SEARCH_BURST_RATE},
+ *  the initial searches for a large number of channels,
+ *  for example when a display with thousands of PVs opens,
+ *  are spread out over time.
+ *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
@@ -91,6 +103,8 @@ class ChannelSearch
          */
         final AtomicInteger search_period = new AtomicInteger(1);
         final PVAChannel channel;
+        /** When search was registered, System.nanoTime() */
+        final long registered = System.nanoTime();
 
         SearchedChannel(final PVAChannel channel)
         {
@@ -142,13 +156,39 @@ class ChannelSearch
     //   Efficiently schedule the search messages for all channels
     //   up to MAX_SEARCH_PERIOD.
     //
-    //  Access to either one needs to be synchronized
+    //  - new_channels
+    //   Channels to be searched right now,
+    //   before they're added to the search_buckets.
+    //
+    //  All of them are concurrent, there is no lock.
+    //  While a search runs, a channel might be registered,
+    //  unregistered or boosted, which may leave a channel
+    //  in a bucket after it has been unregistered.
+    //  When that bucket is searched, channels that are
+    //  no longer in searched_channels are dropped.
 
-    /**  Map of searched channels by channel ID
-     *
-     *   Access only from synchronized method
-     */
-    private HashMap<Integer, SearchedChannel> searched_channels = new HashMap<>();
+    /**  Map of searched channels by channel ID */
+    private final ConcurrentHashMap<Integer, SearchedChannel> searched_channels = new ConcurrentHashMap<>();
+
+    /** Channels to search as soon as possible */
+    private final ConcurrentLinkedQueue<SearchedChannel> new_channels = new ConcurrentLinkedQueue<>();
+
+    /** Has {@link #runNewSearches()} been scheduled? */
+    private final AtomicBoolean new_searches_scheduled = new AtomicBoolean();
+
+    /** Time slices per second for {@link PVASettings#EPICS_PVA_SEARCH_BURST_RATE} */
+    private static final int BURST_SLICES = 100;
+
+    /** Upper limits of reply time histogram bins in milliseconds, last bin is for all longer times */
+    static final long[] REPLY_TIME_BINS_MS = { 10, 100, 1000, 10000, 60000 };
+
+    /** Counters: Channel names included in searches, search messages sent, search replies */
+    private final AtomicLong searched_names = new AtomicLong(),
+                             sent_messages = new AtomicLong(),
+                             responses = new AtomicLong();
+
+    /** Histogram of time from registering a search to the reply */
+    private final AtomicLongArray reply_times = new AtomicLongArray(REPLY_TIME_BINS_MS.length + 1);
 
     /** Search buckets
      *
@@ -168,15 +208,11 @@ class ChannelSearch
      *  without putting the channel immediately back into bucket N
      *  which would result in an endless loop.
      *
-     *  <p>Access to either {@link #search_buckets} or {@link #current_search_bucket}
-     *  must only occur in a 'synchronized' method.
+     *  <p>Each bucket is a concurrent set.
      */
     private final ArrayList<Set<SearchedChannel>> search_buckets = new ArrayList<>(MAX_SEARCH_PERIOD+2);
 
-    /** Index of current search bucket, i.e. the one about to be searched.
-     *
-     *  <p>Access must only occur in a 'synchronized' method.
-     */
+    /** Index of current search bucket, i.e. the one about to be searched. */
     private final AtomicInteger current_search_bucket = new AtomicInteger();
 
     /** Timer used to periodically check channels and issue search requests */
@@ -220,7 +256,7 @@ class ChannelSearch
 
         // Each bucket holds set of channels to search in that time slot
         for (int i=0; i<MAX_SEARCH_PERIOD+2; ++i)
-            search_buckets.add(new HashSet<>());
+            search_buckets.add(ConcurrentHashMap.newKeySet());
 
         // Searches sent to multicast (IPv4, IPv6) or broadcast addresses (IPv4) reach every PVA server
         // on that multicast group or bcast subnet.
@@ -277,30 +313,41 @@ class ChannelSearch
     {
         logger.log(Level.FINE, () -> "Register search for " + channel + (now ? " now" : " soon"));
 
-        synchronized (this)
-        {
-            final ClientChannelState old = channel.setState(ClientChannelState.SEARCHING);
-            if (old == ClientChannelState.SEARCHING)
-                logger.log(Level.WARNING, "Registering channel " + channel + " to be searched more than once ");
+        final ClientChannelState old = channel.setState(ClientChannelState.SEARCHING);
+        if (old == ClientChannelState.SEARCHING)
+            logger.log(Level.WARNING, "Registering channel " + channel + " to be searched more than once ");
 
-            final SearchedChannel sc = searched_channels.computeIfAbsent(channel.getCID(), id -> new SearchedChannel(channel));
+        final SearchedChannel sc = searched_channels.computeIfAbsent(channel.getCID(), id -> new SearchedChannel(channel));
 
-            int bucket = current_search_bucket.get();
-            if (!now)
-                bucket = (bucket + SEARCH_SOON_DELAY) % search_buckets.size();
+        if (now)
+        {
+            new_channels.add(sc);
+            // Jumpstart search instead of waiting up to ~1 second for current bucket to be handled.
+            // When many channels are registered at once, one run handles all of them
+            if (new_searches_scheduled.compareAndSet(false, true))
+                timer.execute(this::runNewSearches);
+        }
+        else
+        {
+            final int bucket = (current_search_bucket.get() + SEARCH_SOON_DELAY) % search_buckets.size();
             search_buckets.get(bucket).add(sc);
         }
-
-        // Jumpstart search instead of waiting up to ~1 second for current bucket to be handled
-        if (now)
-            timer.execute(this::runSearches);
     }
 
     /** Stop searching for channel
      *  @param channel_id
      *  @return {@link PVAChannel}, <code>null</code> when channel wasn't searched any more
      */
-    public synchronized PVAChannel unregister(final int channel_id)
+    public PVAChannel unregister(final int channel_id)
+    {
+        final SearchedChannel searched = removeSearchedChannel(channel_id);
+        return searched == null ? null : searched.channel;
+    }
+
+    /** @param channel_id
+     *  @return {@link SearchedChannel} that was removed, <code>null</code> when channel wasn't searched any more
+     */
+    private SearchedChannel removeSearchedChannel(final int channel_id)
     {
         final SearchedChannel searched = searched_channels.remove(channel_id);
         if (searched != null)
@@ -309,16 +356,54 @@ class ChannelSearch
             // Remove `searched` from all `search_buckets`.
             for (Set<SearchedChannel> bucket : search_buckets)
                 bucket.remove(searched);
-            return searched.channel;
+            new_channels.remove(searched);
         }
-        return null;
+        return searched;
+    }
+
+    /** Handle search reply
+     *
+     *  <p>Stops searching for the channel
+     *  and updates search statistics.
+     *
+     *  @param channel_id
+     *  @return {@link PVAChannel}, <code>null</code> when channel wasn't searched any more
+     */
+    public PVAChannel found(final int channel_id)
+    {
+        responses.incrementAndGet();
+        // Channel and registration time from the same removed entry,
+        // even if the channel is concurrently registered again
+        final SearchedChannel searched = removeSearchedChannel(channel_id);
+        if (searched == null)
+            return null;
+        final long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - searched.registered);
+        int bin = 0;
+        while (bin < REPLY_TIME_BINS_MS.length  &&  ms > REPLY_TIME_BINS_MS[bin])
+            ++bin;
+        reply_times.incrementAndGet(bin);
+        return searched.channel;
+    }
+
+    /** @return Search statistics */
+    public PVAClient.SearchStatistics getStatistics()
+    {
+        final long[] histogram = new long[reply_times.length()];
+        for (int i=0; i<histogram.length; ++i)
+            histogram[i] = reply_times.get(i);
+        return new PVAClient.SearchStatistics(searched_channels.size(),
+                                              searched_names.get(),
+                                              sent_messages.get(),
+                                              responses.get(),
+                                              REPLY_TIME_BINS_MS.clone(),
+                                              histogram);
     }
 
     /** Boost search for missing channels
      *
      *  <p>Resets their search counter so they're searched "real soon".
      */
-    public synchronized void boost()
+    public void boost()
     {
         for (SearchedChannel searched : searched_channels.values())
         {
@@ -342,52 +427,99 @@ class ChannelSearch
         }
     }
 
+    /** Invoked by timer: Search channels that were registered to be searched now */
+    private void runNewSearches()
+    {
+        new_searches_scheduled.set(false);
+
+        // Limit number of channels per time slice?
+        final int rate = PVASettings.EPICS_PVA_SEARCH_BURST_RATE;
+        final int limit = rate > 0
+                        ? Math.max(1, rate / BURST_SLICES)
+                        : Integer.MAX_VALUE;
+
+        final ArrayList<SearchRequest.Channel> to_search = new ArrayList<>();
+        final int current = current_search_bucket.get();
+        SearchedChannel sc;
+        while (to_search.size() < limit  &&  (sc = new_channels.poll()) != null)
+        {
+            if (sc.channel.getState() == ClientChannelState.SEARCHING  &&
+                searched_channels.containsKey(sc.channel.getCID()))
+            {
+                to_search.add(sc.channel);
+                scheduleNextSearch(sc, current);
+            }
+        }
+        searchPacked(to_search);
+
+        // Continue with remaining channels in next time slice
+        if (! new_channels.isEmpty()  &&  new_searches_scheduled.compareAndSet(false, true))
+        {
+            logger.log(Level.FINE, () -> "Delaying search for " + new_channels.size() + " channels");
+            timer.schedule(this::runNewSearches, 1000 / BURST_SLICES, TimeUnit.MILLISECONDS);
+        }
+    }
+
     /** Invoked by timer: Check searched channels for the next one to handle */
     private void runSearches()
     {
         // Determine current search bucket
         final int current = current_search_bucket.getAndUpdate(i -> (i + 1) % search_buckets.size());
-        // Collect channels to be searched while sync'ed
+        final Set<SearchedChannel> bucket = search_buckets.get(current);
+        logger.log(Level.FINEST, () -> "Search bucket " + current);
+
+        // Remove searched channels from the current bucket.
+        // Channels added to the bucket while we iterate
+        // might be seen now or remain in the bucket for the next round
         final ArrayList<SearchRequest.Channel> to_search = new ArrayList<>();
-        synchronized (this)
+        final Iterator<SearchedChannel> iter = bucket.iterator();
+        while (iter.hasNext())
         {
-            final Set<SearchedChannel> bucket = search_buckets.get(current);
-            logger.log(Level.FINEST, () -> "Search bucket " + current);
-
-            // Remove searched channels from the current bucket
-            for (SearchedChannel sc : bucket)
+            final SearchedChannel sc = iter.next();
+            iter.remove();
+            if (sc.channel.getState() == ClientChannelState.SEARCHING  &&
+                searched_channels.containsKey(sc.channel.getCID()))
             {
-                if (sc.channel.getState() == ClientChannelState.SEARCHING  &&
-                    searched_channels.containsKey(sc.channel.getCID()))
-                {
-                    // Collect channels in 'to_search' for handling outside of sync. section
-                    to_search.add(sc.channel);
-
-                    // Determine next search period
-                    final int period = sc.search_period.updateAndGet(sec -> sec < MAX_SEARCH_PERIOD
-                                                                     ? sec + 1
-                                                                     : MAX_SEARCH_PERIOD);
-
-                    // Add to corresponding search bucket, or delay by one second
-                    // in case that search bucket is quite full
-                    final int i_n   = (current + period) % search_buckets.size();
-                    final int i_n_n = (i_n + 1)          % search_buckets.size();
-                    final Set<SearchedChannel> next      = search_buckets.get(i_n);
-                    final Set<SearchedChannel> next_next = search_buckets.get(i_n_n);
-                    if (i_n == current  ||  i_n_n == current)
-                        throw new IllegalStateException("Current, next and nextnext search indices for " + sc.channel + " are " +
-                                                        current + ", " + i_n + ", " + i_n_n);
-                    if (next_next.size() < next.size())
-                        next_next.add(sc);
-                    else
-                        next.add(sc);
-                }
-                else
-                    logger.log(Level.FINE, "Dropping channel from search: " + sc.channel);
+                to_search.add(sc.channel);
+                scheduleNextSearch(sc, current);
             }
-            bucket.clear();
+            else
+                logger.log(Level.FINE, "Dropping channel from search: " + sc.channel);
         }
+        searchPacked(to_search);
+    }
 
+    /** Add channel to the search bucket for its next search
+     *  @param sc Channel that is searched now
+     *  @param current Index of current search bucket
+     */
+    private void scheduleNextSearch(final SearchedChannel sc, final int current)
+    {
+        // Determine next search period
+        final int period = sc.search_period.updateAndGet(sec -> sec < MAX_SEARCH_PERIOD
+                                                         ? sec + 1
+                                                         : MAX_SEARCH_PERIOD);
+
+        // Add to corresponding search bucket, or delay by one second
+        // in case that search bucket is quite full
+        final int i_n   = (current + period) % search_buckets.size();
+        final int i_n_n = (i_n + 1)          % search_buckets.size();
+        final Set<SearchedChannel> next      = search_buckets.get(i_n);
+        final Set<SearchedChannel> next_next = search_buckets.get(i_n_n);
+        if (i_n == current  ||  i_n_n == current)
+            throw new IllegalStateException("Current, next and nextnext search indices for " + sc.channel + " are " +
+                                            current + ", " + i_n + ", " + i_n_n);
+        if (next_next.size() < next.size())
+            next_next.add(sc);
+        else
+            next.add(sc);
+    }
+
+    /** Search channels, packing as many as possible into each search message
+     *  @param to_search Channels to search
+     */
+    private void searchPacked(final List<SearchRequest.Channel> to_search)
+    {
         // Search batch..
         // Size of a search request is close to 50 bytes
         // plus { int cid, string name } for each channel.
@@ -412,7 +544,7 @@ class ChannelSearch
                 else if (count == 0)
                 {   // Can't fit this single name?
                     logger.log(Level.WARNING, "PV name exceeds search buffer size: " + channel);
-                    searched_channels.remove(channel.getCID());
+                    unregister(channel.getCID());
                     to_search.remove(start + count);
                 }
                 else
@@ -426,6 +558,7 @@ class ChannelSearch
 
             // Submit one batch from 'to_search'
             final List<SearchRequest.Channel> batch = to_search.subList(start, start + count);
+            searched_names.addAndGet(count);
             search(batch);
             start += count;
         }
@@ -481,6 +614,7 @@ class ChannelSearch
                     SearchRequest.encode(true, true, seq, channels, response_address, tls , buffer);
                 };
                 tcp.submit(search_request);
+                sent_messages.incrementAndGet();
             }
         }
 
@@ -520,6 +654,7 @@ class ChannelSearch
                 logger.log(Level.FINER, () -> "Sending search to UDP  " + addr + " (unicast), " +
                                               "response addr " + response + "\n" + Hexdump.toHexdump(send_buffer));
                 udp.send(send_buffer, addr);
+                sent_messages.incrementAndGet();
             }
             catch (Exception ex)
             {
@@ -538,6 +673,7 @@ class ChannelSearch
                 logger.log(Level.FINER, () -> "Sending search to UDP  " + addr + " (broadcast/multicast), " +
                                               "response addr " + response + "\n" + Hexdump.toHexdump(send_buffer));
                 udp.send(send_buffer, addr);
+                sent_messages.incrementAndGet();
             }
             catch (Exception ex)
             {
@@ -549,10 +685,8 @@ class ChannelSearch
     /** Stop searching channels */
     public void close()
     {
-        synchronized (this)
-        {
-            searched_channels.clear();
-        }
+        searched_channels.clear();
+        new_channels.clear();
         timer.shutdown();
     }
 }
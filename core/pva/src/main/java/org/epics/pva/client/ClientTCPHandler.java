@@ -253,11 +253,10 @@ class ClientTCPHandler extends TCPHandler
     }
 
     @Override
-    protected void send(ByteBuffer buffer) throws Exception
+    protected void onMessageSent()
     {
         // Remember when we last sent a message to the server
         last_message_sent = System.currentTimeMillis();
-        super.send(buffer);
     }
 
     ResponseHandler getResponseHandler(final int request_id)
@@ -126,6 +126,31 @@ public class PVAClient implements AutoCloseable
         return list_replies.values();
     }
 
+    /** Channel search statistics
+     *
+     *  @param searching Number of channels that are currently searched
+     *  @param searched_names Number of channel names included in search messages
+     *  @param sent_messages Number of search messages sent, UDP packets and TCP search requests
+     *  @param responses Number of search replies for specific channels, including duplicates
+     *  @param reply_time_bins_ms Upper limits in milliseconds of the reply time histogram bins,
+     *                            the last histogram bin holds all longer times
+     *  @param reply_times Histogram of time from registering a channel's search to the first reply
+     */
+    public static record SearchStatistics(int searching,
+                                          long searched_names,
+                                          long sent_messages,
+                                          long responses,
+                                          long[] reply_time_bins_ms,
+                                          long[] reply_times)
+    {
+    }
+
+    /** @return Channel search statistics */
+    public SearchStatistics getSearchStatistics()
+    {
+        return search.getStatistics();
+    }
+
     private void handleListResponse(final InetSocketAddress server, final int version, final Guid guid, final boolean tls)
     {
         logger.log(Level.FINE, () -> "Server list response: " + guid + " version " + version + ", tcp@" + server + (tls ? " (TLS)" : ""));
@@ -244,7 +269,7 @@ public class PVAClient implements AutoCloseable
         }
 
         // Reply for specific channel
-        final PVAChannel channel = search.unregister(channel_id);
+        final PVAChannel channel = search.found(channel_id);
         // Late reply for search that was already satisfied?
         if (channel == null)
         {
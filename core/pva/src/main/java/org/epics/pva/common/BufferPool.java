@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.common;
+
+import static org.epics.pva.PVASettings.logger;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.epics.pva.PVASettings;
+
+/** Pool of receive buffers
+ *
+ *  <p>Buffers are handed out in power-of-two size classes.
+ *  Released buffers are kept for re-use by the next connection
+ *  or the next large message, so receiving multi-megabyte
+ *  messages does not need to allocate and zero a new buffer each time.
+ *
+ *  <p>At most {@link #MAX_POOLED} buffers are kept per size class,
+ *  and no more than {@link PVASettings#EPICS_PVA_BUFFER_POOL_SIZE} bytes in total.
+ *
+ *  <p>Direct buffers are used for non-blocking socket channels
+ *  when {@link PVASettings#EPICS_PVA_DIRECT_BUFFERS} is enabled,
+ *  which avoids the copy from a temporary native buffer into
+ *  the heap on each socket read.
+ *
+ *  <p>With {@link PVASettings#EPICS_PVA_BUFFER_LEAK_CHECK},
+ *  the pool remembers where each buffer was acquired
+ *  and logs buffers that were garbage collected without
+ *  having been released, as well as buffers released twice.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class BufferPool
+{
+    /** Smallest size class, 2^12 = 4kB */
+    private static final int MIN_SHIFT = 12;
+
+    /** Largest pooled size class, 2^26 = 64MB */
+    private static final int MAX_SHIFT = 26;
+
+    /** Maximum number of buffers kept per size class */
+    static final int MAX_POOLED = 8;
+
+    /** Released heap buffers by size class */
+    private static final List<ConcurrentLinkedDeque<ByteBuffer>> heap = createClasses();
+
+    /** Released direct buffers by size class */
+    private static final List<ConcurrentLinkedDeque<ByteBuffer>> direct = createClasses();
+
+    /** Total capacity of released buffers */
+    private static final AtomicLong pooled_bytes = new AtomicLong();
+
+    /** Number of buffers currently acquired and not released */
+    private static final AtomicInteger outstanding = new AtomicInteger();
+
+    /** Buffer that's handed out, tracked for leak check */
+    private static record Allocation(WeakReference<ByteBuffer> buffer, Exception origin)
+    {
+    }
+
+    /** Buffers that are handed out, only used with leak check
+     *  SYNC on allocations
+     */
+    private static final List<Allocation> allocations = new ArrayList<>();
+
+    private static List<ConcurrentLinkedDeque<ByteBuffer>> createClasses()
+    {
+        final List<ConcurrentLinkedDeque<ByteBuffer>> classes = new ArrayList<>(MAX_SHIFT - MIN_SHIFT + 1);
+        for (int i=MIN_SHIFT; i<=MAX_SHIFT; ++i)
+            classes.add(new ConcurrentLinkedDeque<>());
+        return List.copyOf(classes);
+    }
+
+    /** @param size Requested size
+     *  @return Index of size class that holds at least that size
+     */
+    static int getSizeClass(final int size)
+    {
+        final int shift = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        return Math.max(shift, MIN_SHIFT) - MIN_SHIFT;
+    }
+
+    /** Get a buffer
+     *
+     *  @param size Minimum size
+     *  @param use_direct Use direct buffer?
+     *  @return Cleared buffer with at least the requested capacity, default (big endian) byte order
+     */
+    static ByteBuffer acquire(final int size, final boolean use_direct)
+    {
+        final int index = getSizeClass(size);
+        ByteBuffer buffer = null;
+        if (index < heap.size())
+            buffer = (use_direct ? direct : heap).get(index).poll();
+        if (buffer == null)
+        {
+            final int capacity = index < heap.size() ? 1 << (index + MIN_SHIFT) : size;
+            buffer = use_direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            logger.log(Level.FINE, "Allocated " + (use_direct ? "direct" : "heap") + " buffer of " + capacity + " bytes");
+        }
+        else
+        {
+            pooled_bytes.addAndGet(-buffer.capacity());
+            buffer.clear();
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        outstanding.incrementAndGet();
+
+        if (PVASettings.EPICS_PVA_BUFFER_LEAK_CHECK)
+            synchronized (allocations)
+            {
+                checkLeaks();
+                allocations.add(new Allocation(new WeakReference<>(buffer), new Exception("Buffer acquired here")));
+            }
+        return buffer;
+    }
+
+    /** Return buffer to pool
+     *
+     *  <p>Caller must no longer use the buffer.
+     *
+     *  @param buffer Buffer obtained from {@link #acquire(int, boolean)}, may be <code>null</code>
+     */
+    static void release(final ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+        if (PVASettings.EPICS_PVA_BUFFER_LEAK_CHECK)
+            synchronized (allocations)
+            {
+                boolean found = false;
+                final Iterator<Allocation> iter = allocations.iterator();
+                while (iter.hasNext())
+                    if (iter.next().buffer().get() == buffer)
+                    {
+                        iter.remove();
+                        found = true;
+                        break;
+                    }
+                if (! found)
+                {
+                    logger.log(Level.WARNING, "Buffer released twice or not acquired from pool", new Exception("Buffer released here"));
+                    return;
+                }
+            }
+        outstanding.decrementAndGet();
+
+        final int capacity = buffer.capacity();
+        final int index = getSizeClass(capacity);
+        // Only keep buffers that exactly match a size class
+        if (index >= heap.size()  ||  capacity != 1 << (index + MIN_SHIFT))
+            return;
+        final ConcurrentLinkedDeque<ByteBuffer> pool = (buffer.isDirect() ? direct : heap).get(index);
+        if (pool.size() >= MAX_POOLED)
+            return;
+        // Reserve the bytes, undo if that exceeds the total
+        if (pooled_bytes.addAndGet(capacity) > PVASettings.EPICS_PVA_BUFFER_POOL_SIZE)
+            pooled_bytes.addAndGet(-capacity);
+        else
+            pool.push(buffer);
+    }
+
+    /** Log buffers that were garbage collected without being released
+     *
+     *  <p>Caller must SYNC on allocations
+     */
+    private static void checkLeaks()
+    {
+        final Iterator<Allocation> iter = allocations.iterator();
+        while (iter.hasNext())
+        {
+            final Allocation allocation = iter.next();
+            if (allocation.buffer().get() == null)
+            {
+                logger.log(Level.WARNING, "Buffer was not released to pool", allocation.origin());
+                outstanding.decrementAndGet();
+                iter.remove();
+            }
+        }
+    }
+
+    /** @return Number of buffers that are currently acquired */
+    static int getOutstanding()
+    {
+        return outstanding.get();
+    }
+
+    /** @param use_direct Direct or heap buffers?
+     *  @param size Size of buffer
+     *  @return Number of pooled buffers for that size class
+     */
+    static int getPooled(final boolean use_direct, final int size)
+    {
+        final int index = getSizeClass(size);
+        return index < heap.size() ? (use_direct ? direct : heap).get(index).size() : 0;
+    }
+
+    /** @return Total capacity of pooled buffers */
+    static long getPooledBytes()
+    {
+        return pooled_bytes.get();
+    }
+}
@@ -13,6 +13,8 @@ import java.io.FileInputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.security.KeyStore;
 import java.security.Principal;
 import java.security.cert.Certificate;
@@ -111,6 +113,10 @@ public class SecureSockets
     }
 
     /** Create server socket
+     *
+     *  <p>With {@link PVASettings#EPICS_PVA_TCP_NIO}, a plain TCP server socket
+     *  is backed by a channel.
+     *
      *  @param address IP address and port to which the socket will be bound
      *  @param tls Use TLS socket? Otherwise plain TCP
      *  @return Plain or secure server socket
@@ -139,6 +145,8 @@ public class SecureSockets
                 ssl.setWantClientAuth(true);
             ssl.setEnabledProtocols(PROTOCOLS);
         }
+        else if (PVASettings.EPICS_PVA_TCP_NIO)
+            socket = ServerSocketChannel.open().socket(); // Accepted sockets will have a channel
         else
             socket = new ServerSocket();
 
@@ -156,6 +164,10 @@ public class SecureSockets
     }
 
     /** Create client socket
+     *
+     *  <p>With {@link PVASettings#EPICS_PVA_TCP_NIO}, a plain TCP socket
+     *  is backed by a channel.
+     *
      *  @param address IP address and port to which the socket will be bound
      *  @param tls Use TLS socket? Otherwise plain TCP
      *  @return Plain or secure client socket
@@ -167,7 +179,8 @@ public class SecureSockets
         int connection_timeout = Math.max(1, PVASettings.EPICS_PVA_TCP_SOCKET_TMO) * 1000; // Use EPICS_PVA_TCP_SOCKET_TMO for socket connection timeout, but at least 1 second
 
         if (!tls) {
-            Socket socket = new Socket();
+            // With EPICS_PVA_TCP_NIO, use socket of a channel that TCPHandler can then handle non-blocking
+            Socket socket = PVASettings.EPICS_PVA_TCP_NIO ? SocketChannel.open().socket() : new Socket();
             socket.connect(address, connection_timeout);
             return socket;
         }
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.common;
+
+import static org.epics.pva.PVASettings.logger;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import org.epics.pva.PVASettings;
+
+/** Selector-based event loop for non-blocking TCP connections
+ *
+ *  <p>Used when {@link PVASettings#EPICS_PVA_TCP_NIO} is enabled.
+ *  Each loop runs one thread that waits on a {@link Selector}
+ *  and invokes the {@link TCPHandler} of ready channels.
+ *  Connections are assigned to a fixed number of loops in round-robin
+ *  fashion, so the number of threads scales with
+ *  {@link PVASettings#EPICS_PVA_TCP_NIO_THREADS},
+ *  not with the number of connected peers.
+ *
+ *  <p>All selection key operations of a connection happen on the
+ *  thread of its loop. Other threads use {@link #execute(Runnable)}
+ *  to pass work to the loop.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class TCPEventLoop
+{
+    /** Event loops, created on first use */
+    private static TCPEventLoop[] loops = null;
+
+    /** Index of next loop to use */
+    private static final AtomicInteger next = new AtomicInteger();
+
+    private final Selector selector;
+
+    /** Tasks to run on the loop thread */
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final Thread thread;
+
+    /** @return Event loop to use for a new connection */
+    static synchronized TCPEventLoop next() throws Exception
+    {
+        if (loops == null)
+        {
+            final int count = Math.max(1, PVASettings.EPICS_PVA_TCP_NIO_THREADS);
+            logger.log(Level.CONFIG, "Starting " + count + " TCP event loops");
+            final TCPEventLoop[] new_loops = new TCPEventLoop[count];
+            for (int i=0; i<count; ++i)
+                new_loops[i] = new TCPEventLoop(i+1);
+            loops = new_loops;
+        }
+        return loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+    }
+
+    private TCPEventLoop(final int index) throws Exception
+    {
+        selector = Selector.open();
+        thread = new Thread(this::run, "TCP event loop " + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** @return Is the calling thread the one of this loop? */
+    boolean isLoopThread()
+    {
+        return Thread.currentThread() == thread;
+    }
+
+    /** @param task Task to run on the loop thread */
+    void execute(final Runnable task)
+    {
+        tasks.add(task);
+        // When called on the loop thread,
+        // the task runs before the next 'select'
+        if (! isLoopThread())
+            selector.wakeup();
+    }
+
+    /** Register channel with this loop
+     *
+     *  <p>Must be called on the loop thread.
+     *
+     *  @param channel Channel to register, will be configured as non-blocking
+     *  @param handler Handler for the channel
+     *  @return {@link SelectionKey}
+     *  @throws Exception on error
+     */
+    SelectionKey register(final SocketChannel channel, final TCPHandler handler) throws Exception
+    {
+        channel.configureBlocking(false);
+        return channel.register(selector, SelectionKey.OP_READ, handler);
+    }
+
+    private void run()
+    {
+        logger.log(Level.FINER, () -> thread.getName() + " started");
+        while (true)
+        {
+            try
+            {
+                selector.select();
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext())
+                {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    final TCPHandler handler = (TCPHandler) key.attachment();
+                    if (key.isValid()  &&  key.isReadable())
+                        handler.handleReadable();
+                    if (key.isValid()  &&  key.isWritable())
+                        handler.flushSendQueue();
+                }
+
+                Runnable task;
+                while ((task = tasks.poll()) != null)
+                    task.run();
+            }
+            catch (Throwable ex)
+            {
+                logger.log(Level.WARNING, thread.getName() + " error", ex);
+            }
+        }
+    }
+}
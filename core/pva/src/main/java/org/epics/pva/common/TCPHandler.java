@@ -16,12 +16,17 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import org.epics.pva.PVASettings;
@@ -37,6 +42,11 @@ import org.epics.pva.data.PVAString;
  *
  *  <p>Maintains send queue.
  *
+ *  <p>By default, each connection uses one receive and one send thread.
+ *  With {@link PVASettings#EPICS_PVA_TCP_NIO}, plain TCP connections
+ *  are instead handled by a {@link TCPEventLoop}.
+ *  TLS connections always use threads.
+ *
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
@@ -75,12 +85,15 @@ abstract public class TCPHandler
     /** Flag to indicate that 'close' was called to close the 'socket' */
     protected volatile boolean running = true;
 
-    /** Buffer used to receive data via {@link TCPHandler#receive_thread} */
-    protected ByteBuffer receive_buffer = ByteBuffer.allocate(PVASettings.EPICS_PVA_RECEIVE_BUFFER_SIZE);
+    /** Buffer used to receive data via {@link TCPHandler#receive_thread}
+     *
+     *  <p>Obtained from {@link BufferPool}, returned when receiver exits
+     */
+    protected ByteBuffer receive_buffer = BufferPool.acquire(PVASettings.EPICS_PVA_RECEIVE_BUFFER_SIZE, false);
 
     /** Buffer for assembling parts of segmented message
      *
-     *  <p>Created and then grown as needed
+     *  <p>Obtained from {@link BufferPool} and then grown as needed
      */
     private ByteBuffer segments = null;
 
@@ -115,6 +128,36 @@ abstract public class TCPHandler
     /** Thread that runs {@link TCPHandler#sender()} */
     private volatile Future<Void> send_thread = null;
 
+    /** Non-blocking channel when handled by {@link #event_loop}, else <code>null</code> */
+    private volatile SocketChannel channel = null;
+
+    /** Event loop for the non-blocking channel */
+    private volatile TCPEventLoop event_loop = null;
+
+    /** Key of channel registered with {@link #event_loop}. Only accessed on loop thread */
+    private SelectionKey key = null;
+
+    /** Does {@link #send_buffer} hold a partially written message? Only accessed on loop thread */
+    private boolean send_pending = false;
+
+    /** Has non-blocking channel been removed from loop? Only accessed on loop thread */
+    private boolean disconnected = false;
+
+    /** Has {@link #flushSendQueue()} been requested on the {@link #event_loop}? */
+    private final AtomicBoolean flush_requested = new AtomicBoolean();
+
+    /** Completed when non-blocking sender reached {@link #END_REQUEST} */
+    private final CompletableFuture<Void> send_done = new CompletableFuture<>();
+
+    /** Number of messages taken off the send queue and sent */
+    private final AtomicLong sent_messages = new AtomicLong();
+
+    /** Number of socket write calls */
+    private final AtomicLong send_writes = new AtomicLong();
+
+    /** Number of bytes sent */
+    private final AtomicLong sent_bytes = new AtomicLong();
+
     /** Start receiving messages
      *
      *  <p>Will accept messages to be sent,
@@ -164,10 +207,30 @@ abstract public class TCPHandler
      */
     protected void startSender() throws Exception
     {
-        if (send_thread == null)
-            send_thread = thread_pool.submit(this::sender);
-        else
+        if (send_thread != null)
             throw new Exception("Send thread already running");
+        if (isNonBlocking())
+        {
+            send_thread = send_done;
+            requestFlush();
+        }
+        else
+            send_thread = thread_pool.submit(this::sender);
+    }
+
+    /** @return Is the socket handled by a {@link TCPEventLoop}? */
+    private boolean isNonBlocking()
+    {
+        // Only created with a channel for EPICS_PVA_TCP_NIO
+        return socket != null  &&  socket.getChannel() != null;
+    }
+
+    /** @return Event loop for this connection */
+    private synchronized TCPEventLoop getEventLoop() throws Exception
+    {
+        if (event_loop == null)
+            event_loop = TCPEventLoop.next();
+        return event_loop;
     }
 
     /** @return Is the send queue idle/empty? */
@@ -184,11 +247,33 @@ abstract public class TCPHandler
     public boolean submit(final RequestEncoder item)
     {
         if (send_items.offer(item))
+        {
+            if (channel != null  &&  send_thread != null)
+                requestFlush();
             return true;
+        }
         logger.log(Level.WARNING, this + " send queue full");
         return false;
     }
 
+    /** @return Number of messages taken off the send queue and sent */
+    public long getSentMessages()
+    {
+        return sent_messages.get();
+    }
+
+    /** @return Number of socket write calls. Compare with {@link #getSentMessages()} to see how well messages are batched */
+    public long getSendWrites()
+    {
+        return send_writes.get();
+    }
+
+    /** @return Number of bytes sent */
+    public long getSentBytes()
+    {
+        return sent_bytes.get();
+    }
+
     /** Send {@link RequestEncoder} entries off queue */
     private Void sender()
     {
@@ -198,21 +283,11 @@ abstract public class TCPHandler
             logger.log(Level.FINER, () -> Thread.currentThread().getName() + " started");
             while (true)
             {
-                send_buffer.clear();
                 final RequestEncoder to_send = send_items.take();
                 if (to_send == END_REQUEST)
                     break;
-                try
-                {
-                    to_send.encodeRequest(server_version, send_buffer);
-                }
-                catch (Exception ex)
-                {
-                    logger.log(Level.WARNING, Thread.currentThread().getName() + " request encoding error", ex);
-                    continue;
-                }
-                send_buffer.flip();
-                send(send_buffer);
+                if (encodeBatch(to_send) > 0)
+                    send(send_buffer);
             }
         }
         catch (Exception ex)
@@ -223,10 +298,71 @@ abstract public class TCPHandler
         return null;
     }
 
+    /** Encode item and further queued items into {@link #send_buffer}
+     *
+     *  <p>Items that are already queued are added
+     *  until {@link PVASettings#EPICS_PVA_SEND_BATCH_SIZE} is reached,
+     *  so they can be sent with one write.
+     *  An item that does not fit into the remaining buffer
+     *  is left on the queue for the next batch,
+     *  so encoders must not change their state before they know
+     *  that their message fits.
+     *  Only an item that cannot be encoded into the empty buffer is dropped.
+     *
+     *  @param first Item that has been taken off the queue
+     *  @return Number of encoded messages, buffer is flipped and ready to send
+     */
+    private int encodeBatch(final RequestEncoder first)
+    {
+        send_buffer.clear();
+        int count = 0;
+        RequestEncoder item = first;
+        // Is item still on the queue, or has it been taken off?
+        boolean queued = false;
+        while (true)
+        {
+            final int start = send_buffer.position();
+            try
+            {
+                item.encodeRequest(server_version, send_buffer);
+                ++count;
+            }
+            catch (Exception ex)
+            {
+                // Drop what the failed item might have added
+                send_buffer.position(start);
+                if (start > 0)
+                {   // Try queued item again with empty buffer in next batch
+                    logger.log(Level.FINE, () -> this + " ends batch, next request does not fit");
+                    break;
+                }
+                logger.log(Level.WARNING, this + " request encoding error", ex);
+            }
+            // Item has been encoded (or failed in empty buffer),
+            // remove from queue
+            if (queued)
+                send_items.poll();
+            if (send_buffer.position() >= PVASettings.EPICS_PVA_SEND_BATCH_SIZE)
+                break;
+            // Add next item unless that would be END_REQUEST,
+            // which is left on the queue until batch has been sent
+            item = send_items.peek();
+            if (item == null  ||  item == END_REQUEST)
+                break;
+            queued = true;
+        }
+        send_buffer.flip();
+        sent_messages.addAndGet(count);
+        return count;
+    }
+
     /** Send message
      *
      *  <p>Must only be called by outside code before
-     *  the sender has been started
+     *  the sender has been started.
+     *  For a non-blocking channel, must be called on the event loop thread
+     *  with the {@link #send_buffer}, and returns after writing what the
+     *  channel accepts. The event loop writes the rest once the channel is writable.
      *
      *  @param buffer Buffer to send
      *  @throws Exception on error
@@ -234,6 +370,23 @@ abstract public class TCPHandler
     protected void send(final ByteBuffer buffer) throws Exception
     {
         logger.log(Level.FINER, () -> Thread.currentThread().getName() + " sends:\n" + Hexdump.toHexdump(buffer));
+        onMessageSent();
+
+        if (channel != null)
+        {   // Non-blocking channel, only used for the few messages
+            // sent before the sender has been started.
+            // Don't wait for the socket on the event loop thread,
+            // keep what's left as pending and ask to be called when writable
+            if (buffer != send_buffer)
+                throw new IllegalStateException("Non-blocking channel can only send the send_buffer");
+            writeChannel();
+            if (buffer.hasRemaining())
+            {
+                send_pending = true;
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+            return;
+        }
 
         // Original AbstractCodec.send() mentions
         // Microsoft KB article KB823764:
@@ -251,7 +404,9 @@ abstract public class TCPHandler
         final OutputStream out = socket.getOutputStream();
         while (batch > 0)
         {
+            send_writes.incrementAndGet();
             out.write(buffer.array(), pos, batch);
+            sent_bytes.addAndGet(batch);
             pos += batch;
             buffer.position(pos);
             // Determine next batch
@@ -263,9 +418,19 @@ abstract public class TCPHandler
         }
     }
 
+    /** Invoked whenever a message is sent to the peer.
+     *
+     *  <p>Derived class may override to track activity
+     */
+    protected void onMessageSent()
+    {
+        // NOP
+    }
+
     /** Receiver */
     private Void receiver()
     {
+        boolean handed_to_event_loop = false;
         try
         {
             // Establish connection
@@ -273,6 +438,22 @@ abstract public class TCPHandler
             if (! initializeSocket())
                 return null;
 
+            if (isNonBlocking())
+            {   // Event loop handles connection from now on, this thread is done
+                if (PVASettings.EPICS_PVA_DIRECT_BUFFERS)
+                {   // Read from channel into direct buffer of same size
+                    final ByteBuffer heap_buffer = receive_buffer;
+                    receive_buffer = BufferPool.acquire(heap_buffer.capacity(), true);
+                    BufferPool.release(heap_buffer);
+                }
+                channel = socket.getChannel();
+                final TCPEventLoop loop = getEventLoop();
+                loop.execute(() -> register(loop));
+                handed_to_event_loop = true;
+                logger.log(Level.FINER, () -> this + " handled by event loop");
+                return null;
+            }
+
             // Listen on the connection
             Thread.currentThread().setName("TCP receiver " + socket.getLocalSocketAddress());
             logger.log(Level.FINER, () -> Thread.currentThread().getName() + " started for " + socket.getRemoteSocketAddress());
@@ -301,35 +482,7 @@ abstract public class TCPHandler
                     message_size = PVAHeader.checkMessageAndGetSize(receive_buffer, client_mode);
                 }
                 // .. then decode
-                receive_buffer.flip();
-                logger.log(Level.FINER, () -> Thread.currentThread().getName() + " received:\n" + Hexdump.toHexdump(receive_buffer));
-
-                // While buffer may contain more data,
-                // limit it to the end of this message to prevent
-                // message handler from reading beyond message boundary.
-                final int actual_limit = receive_buffer.limit();
-                receive_buffer.limit(message_size);
-                try
-                {
-                    handleMessage(receive_buffer);
-                }
-                catch (Exception ex)
-                {
-                    // Once we fail to decode and handle a message,
-                    // it is likely that the server/client protocol gets
-                    // out of step and never recovers.
-                    // Still, log error and keep reading in case
-                    // the issue is limited to just this one message.
-                    logger.log(Level.WARNING, Thread.currentThread().getName() + " message error. Protocol might be broken from here on.", ex);
-                }
-
-                receive_buffer.limit(actual_limit);
-                // No matter if message handler read the complete message,
-                // position at end of handled message
-                receive_buffer.position(message_size);
-
-                // Shift rest to start of buffer and handle next message
-                receive_buffer.compact();
+                handleReceivedMessage(message_size);
             }
         }
         catch (Exception ex)
@@ -339,12 +492,202 @@ abstract public class TCPHandler
         }
         finally
         {
-            logger.log(Level.FINER, Thread.currentThread().getName() + " done.");
-            onReceiverExited(running);
+            if (! handed_to_event_loop)
+            {
+                logger.log(Level.FINER, Thread.currentThread().getName() + " done.");
+                releaseBuffers();
+                onReceiverExited(running);
+            }
         }
         return null;
     }
 
+    /** Handle one received message
+     *
+     *  @param message_size Size of message at start of {@link #receive_buffer}
+     */
+    private void handleReceivedMessage(final int message_size)
+    {
+        receive_buffer.flip();
+        logger.log(Level.FINER, () -> Thread.currentThread().getName() + " received:\n" + Hexdump.toHexdump(receive_buffer));
+
+        // While buffer may contain more data,
+        // limit it to the end of this message to prevent
+        // message handler from reading beyond message boundary.
+        final int actual_limit = receive_buffer.limit();
+        receive_buffer.limit(message_size);
+        try
+        {
+            handleMessage(receive_buffer);
+        }
+        catch (Exception ex)
+        {
+            // Once we fail to decode and handle a message,
+            // it is likely that the server/client protocol gets
+            // out of step and never recovers.
+            // Still, log error and keep reading in case
+            // the issue is limited to just this one message.
+            logger.log(Level.WARNING, Thread.currentThread().getName() + " message error. Protocol might be broken from here on.", ex);
+        }
+
+        receive_buffer.limit(actual_limit);
+        // No matter if message handler read the complete message,
+        // position at end of handled message
+        receive_buffer.position(message_size);
+
+        // Shift rest to start of buffer and handle next message
+        receive_buffer.compact();
+    }
+
+    /** Register non-blocking channel. Called on event loop thread
+     *  @param loop Event loop
+     */
+    private void register(final TCPEventLoop loop)
+    {
+        try
+        {
+            receive_buffer.clear();
+            key = loop.register(channel, this);
+            logger.log(Level.FINER, () -> Thread.currentThread().getName() + " handles " + this);
+            // Sender may have been started before channel was registered
+            if (send_thread != null)
+                flushSendQueue();
+        }
+        catch (Exception ex)
+        {
+            if (running)
+                logger.log(Level.WARNING, "Cannot register " + this + " with event loop", ex);
+            disconnect();
+        }
+    }
+
+    /** Read available data from non-blocking channel and handle complete messages
+     *
+     *  <p>Called on event loop thread when channel is readable.
+     *  Reads once, then returns to let the loop serve other connections.
+     */
+    void handleReadable()
+    {
+        try
+        {
+            final int read = channel.read(receive_buffer);
+            if (read < 0)
+            {
+                logger.log(Level.FINER, () -> this + ": socket closed");
+                disconnect();
+                return;
+            }
+            logger.log(Level.FINER, () -> this + ": " + read + " bytes");
+            int message_size = PVAHeader.checkMessageAndGetSize(receive_buffer, client_mode);
+            while (receive_buffer.position() >= message_size)
+            {
+                handleReceivedMessage(message_size);
+                message_size = PVAHeader.checkMessageAndGetSize(receive_buffer, client_mode);
+            }
+            receive_buffer = assertBufferSize(receive_buffer, message_size);
+        }
+        catch (Exception ex)
+        {
+            if (running)
+                logger.log(Level.WARNING, this + " receive error", ex);
+            disconnect();
+        }
+    }
+
+    /** Request {@link #flushSendQueue()} on event loop */
+    private void requestFlush()
+    {
+        if (! flush_requested.compareAndSet(false, true))
+            return;
+        try
+        {
+            getEventLoop().execute(this::flushSendQueue);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, "Cannot send for " + this, ex);
+        }
+    }
+
+    /** Send {@link RequestEncoder} entries off queue via non-blocking channel
+     *
+     *  <p>Called on event loop thread when items were submitted
+     *  or channel became writable.
+     *  When the channel cannot accept more data, the remaining
+     *  message is kept in the {@link #send_buffer} and the loop
+     *  is asked to call again once the channel is writable.
+     *  Until the sender has been started, only completes
+     *  a message that {@link #send(ByteBuffer)} could not write at once.
+     */
+    void flushSendQueue()
+    {
+        flush_requested.set(false);
+        if (key == null  ||  !key.isValid()  ||  send_done.isDone())
+            return;
+        try
+        {
+            while (true)
+            {
+                if (! send_pending)
+                {
+                    if (send_thread == null)
+                        break;
+                    final RequestEncoder to_send = send_items.poll();
+                    if (to_send == null)
+                        break;
+                    if (to_send == END_REQUEST)
+                    {
+                        send_done.complete(null);
+                        break;
+                    }
+                    if (encodeBatch(to_send) <= 0)
+                        continue;
+                    logger.log(Level.FINER, () -> this + " sends:\n" + Hexdump.toHexdump(send_buffer));
+                    onMessageSent();
+                    send_pending = true;
+                }
+                writeChannel();
+                if (send_buffer.hasRemaining())
+                {   // Socket buffer is full, continue when writable
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                send_pending = false;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+        catch (Exception ex)
+        {
+            if (running)
+                logger.log(Level.WARNING, this + " send error", ex);
+            disconnect();
+        }
+    }
+
+    /** Write {@link #send_buffer} to non-blocking channel, as much as it accepts
+     *  @throws Exception on error
+     */
+    private void writeChannel() throws Exception
+    {
+        send_writes.incrementAndGet();
+        sent_bytes.addAndGet(channel.write(send_buffer));
+    }
+
+    /** Remove non-blocking channel from event loop after error or when peer closed the connection */
+    private void disconnect()
+    {
+        if (disconnected)
+            return;
+        disconnected = true;
+        if (key != null)
+            key.cancel();
+        // Release anybody waiting for sender
+        send_done.complete(null);
+        logger.log(Level.FINER, () -> this + " done.");
+        releaseBuffers();
+        onReceiverExited(running);
+    }
+
     /** Invoked when the receiver thread exits because socket has been closed.
      *
      *  <p>Derived class may override to perform cleanup
@@ -357,10 +700,19 @@ abstract public class TCPHandler
         // NOP
     }
 
+    /** Return receive buffers to pool once receiver is done */
+    private void releaseBuffers()
+    {
+        BufferPool.release(receive_buffer);
+        receive_buffer = null;
+        BufferPool.release(segments);
+        segments = null;
+    }
+
     /** Check buffer size, grow if needed
      *
-     *  <p>When necessary, a new buffer is allocated,
-     *  existing data copied.
+     *  <p>When necessary, a new buffer is obtained from the pool,
+     *  existing data copied, and the original buffer returned to the pool.
      *
      *  @param buffer Original buffer
      *  @param message_size Required receive buffer size
@@ -371,7 +723,7 @@ abstract public class TCPHandler
         if (buffer.capacity() >= size)
             return buffer;
 
-        final ByteBuffer new_buffer = ByteBuffer.allocate(size);
+        final ByteBuffer new_buffer = BufferPool.acquire(size, buffer.isDirect());
         new_buffer.order(buffer.order());
         buffer.flip();
         new_buffer.put(buffer);
@@ -380,6 +732,7 @@ abstract public class TCPHandler
                    Thread.currentThread().getName() + " extends buffer from " +
                    buffer.capacity() + " to " + new_buffer.capacity() +
                    ", copied " + new_buffer.position() + " bytes to new buffer");
+        BufferPool.release(buffer);
         return new_buffer;
     }
 
@@ -436,7 +789,7 @@ abstract public class TCPHandler
             {
                 logger.log(Level.INFO,
                            () -> Thread.currentThread().getName() + " allocates segmented message accumulator buffer for " + buffer.limit() + " bytes");
-                segments = ByteBuffer.allocate(buffer.limit());
+                segments = BufferPool.acquire(buffer.limit(), buffer.isDirect());
                 segments.order(buffer.order());
             }
             else if (segments.position() > 0)
@@ -558,12 +911,15 @@ abstract public class TCPHandler
     /** Close network socket and threads
      *  @param wait Wait for threads to end?
      */
-    public void close(final boolean wait)
+    public void close(boolean wait)
     {
         logger.log(Level.FINE, "Closing " + this);
 
         // Wait until all requests are sent out
         submit(END_REQUEST);
+        // Event loop cannot wait for itself
+        if (event_loop != null  &&  event_loop.isLoopThread())
+            wait = false;
         try
         {
             if (send_thread != null  &&  wait)
@@ -578,6 +934,10 @@ abstract public class TCPHandler
         {
             running = false;
             socket.close();
+            // Closed channel is removed from selector without another 'read',
+            // so remove from event loop
+            if (channel != null)
+                event_loop.execute(this::disconnect);
             if (wait && receive_thread != null)
                 receive_thread.get(5, TimeUnit.SECONDS);
         }
@@ -585,7 +945,7 @@ abstract public class TCPHandler
         {
             logger.log(Level.WARNING, "Cannot stop receive thread", ex);
         }
-        logger.log(Level.FINE, () -> this + " closed  ============================");
+        logger.log(Level.FINE, () -> this + " closed after sending " + sent_messages.get() + " messages in " + send_writes.get() + " writes  ============================");
     }
 
     @Override
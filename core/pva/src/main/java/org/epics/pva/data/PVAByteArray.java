@@ -114,7 +114,9 @@ public class PVAByteArray extends PVAData implements PVAArray, PVAValue
     public void decode(final PVATypeRegistry types, final ByteBuffer buffer) throws Exception
     {
         final int size = PVASize.decodeSize(buffer);
-        final byte[] new_value = new byte[size];
+        byte[] new_value = value;
+        if (! PVASettings.EPICS_PVA_REUSE_ARRAYS  ||  new_value == null  ||  new_value.length != size)
+            new_value = new byte[size];
         buffer.get(new_value);
         value = new_value;
     }
@@ -124,8 +126,7 @@ public class PVAByteArray extends PVAData implements PVAArray, PVAValue
     {
         final byte[] copy = value;
         PVASize.encodeSize(copy.length, buffer);
-        for (int i=0; i<copy.length; ++i)
-            buffer.put(copy[i]);
+        buffer.put(copy);
     }
 
     @Override
@@ -98,9 +98,12 @@ public class PVADoubleArray extends PVAData implements PVAArray, PVAValue
     public void decode(final PVATypeRegistry types, final ByteBuffer buffer) throws Exception
     {
         final int size = PVASize.decodeSize(buffer);
-        final double[] new_value = new double[size];
-        for (int i=0; i<size; ++i)
-            new_value[i] = buffer.getDouble();
+        double[] new_value = value;
+        if (! PVASettings.EPICS_PVA_REUSE_ARRAYS  ||  new_value == null  ||  new_value.length != size)
+            new_value = new double[size];
+        // Bulk transfer via view, which uses the byte order of the buffer
+        buffer.asDoubleBuffer().get(new_value);
+        buffer.position(buffer.position() + size * Double.BYTES);
         value = new_value;
     }
 
@@ -109,8 +112,8 @@ public class PVADoubleArray extends PVAData implements PVAArray, PVAValue
     {
         final double[] copy = value;
         PVASize.encodeSize(copy.length, buffer);
-        for (int i=0; i<copy.length; ++i)
-            buffer.putDouble(copy[i]);
+        buffer.asDoubleBuffer().put(copy);
+        buffer.position(buffer.position() + copy.length * Double.BYTES);
     }
 
     @Override
@@ -99,9 +99,12 @@ public class PVAFloatArray extends PVAData implements PVAArray, PVAValue
     public void decode(final PVATypeRegistry types, final ByteBuffer buffer) throws Exception
     {
         final int size = PVASize.decodeSize(buffer);
-        final float[] new_value = new float[size];
-        for (int i=0; i<size; ++i)
-            new_value[i] = buffer.getFloat();
+        float[] new_value = value;
+        if (! PVASettings.EPICS_PVA_REUSE_ARRAYS  ||  new_value == null  ||  new_value.length != size)
+            new_value = new float[size];
+        // Bulk transfer via view, which uses the byte order of the buffer
+        buffer.asFloatBuffer().get(new_value);
+        buffer.position(buffer.position() + size * Float.BYTES);
         value = new_value;
     }
 
@@ -110,8 +113,8 @@ public class PVAFloatArray extends PVAData implements PVAArray, PVAValue
     {
         final float[] copy = value;
         PVASize.encodeSize(copy.length, buffer);
-        for (int i=0; i<copy.length; ++i)
-            buffer.putFloat(copy[i]);
+        buffer.asFloatBuffer().put(copy);
+        buffer.position(buffer.position() + copy.length * Float.BYTES);
     }
 
     @Override
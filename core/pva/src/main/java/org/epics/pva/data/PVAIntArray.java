@@ -111,9 +111,12 @@ public class PVAIntArray extends PVAData implements PVAArray, PVAValue
     public void decode(final PVATypeRegistry types, final ByteBuffer buffer) throws Exception
     {
         final int size = PVASize.decodeSize(buffer);
-        final int[] new_value = new int[size];
-        for (int i=0; i<size; ++i)
-            new_value[i] = buffer.getInt();
+        int[] new_value = value;
+        if (! PVASettings.EPICS_PVA_REUSE_ARRAYS  ||  new_value == null  ||  new_value.length != size)
+            new_value = new int[size];
+        // Bulk transfer via view, which uses the byte order of the buffer
+        buffer.asIntBuffer().get(new_value);
+        buffer.position(buffer.position() + size * Integer.BYTES);
         value = new_value;
     }
 
@@ -122,8 +125,8 @@ public class PVAIntArray extends PVAData implements PVAArray, PVAValue
     {
         final int[] copy = value;
         PVASize.encodeSize(copy.length, buffer);
-        for (int i=0; i<copy.length; ++i)
-            buffer.putInt(copy[i]);
+        buffer.asIntBuffer().put(copy);
+        buffer.position(buffer.position() + copy.length * Integer.BYTES);
     }
 
     @Override
@@ -111,9 +111,12 @@ public class PVALongArray extends PVAData implements PVAArray, PVAValue
     public void decode(final PVATypeRegistry types, final ByteBuffer buffer) throws Exception
     {
         final int size = PVASize.decodeSize(buffer);
-        final long[] new_value = new long[size];
-        for (int i=0; i<size; ++i)
-            new_value[i] = buffer.getLong();
+        long[] new_value = value;
+        if (! PVASettings.EPICS_PVA_REUSE_ARRAYS  ||  new_value == null  ||  new_value.length != size)
+            new_value = new long[size];
+        // Bulk transfer via view, which uses the byte order of the buffer
+        buffer.asLongBuffer().get(new_value);
+        buffer.position(buffer.position() + size * Long.BYTES);
         value = new_value;
     }
 
@@ -122,8 +125,8 @@ public class PVALongArray extends PVAData implements PVAArray, PVAValue
     {
         final long[] copy = value;
         PVASize.encodeSize(copy.length, buffer);
-        for (int i=0; i<copy.length; ++i)
-            buffer.putLong(copy[i]);
+        buffer.asLongBuffer().put(copy);
+        buffer.position(buffer.position() + copy.length * Long.BYTES);
     }
 
     @Override
@@ -111,15 +111,14 @@ public class PVAShortArray extends PVAData implements PVAArray, PVAValue
     public void decode(final PVATypeRegistry types, final ByteBuffer buffer) throws Exception
     {
         final int size = PVASize.decodeSize(buffer);
-        // Try to re-use existing array
-        final short[] new_value = new short[size];
-        // Considered using
-        //   buffer.asShortBuffer().get(new_value);
-        // but debugger shows that it ends up in the same loop:
-        //   for (..) short_array[i] = buffer.get()
-        // Profiler shows that it's overall slower.
-        for (int i=0; i<size; ++i)
-            new_value[i] = buffer.getShort();
+        short[] new_value = value;
+        if (! PVASettings.EPICS_PVA_REUSE_ARRAYS  ||  new_value == null  ||  new_value.length != size)
+            new_value = new short[size];
+        // Bulk transfer via view, which uses the byte order of the buffer.
+        // Older JDKs implemented this as a loop over buffer.getShort(),
+        // since JDK 16 it is a (swapping) memory copy.
+        buffer.asShortBuffer().get(new_value);
+        buffer.position(buffer.position() + size * Short.BYTES);
         value = new_value;
     }
 
@@ -128,8 +127,8 @@ public class PVAShortArray extends PVAData implements PVAArray, PVAValue
     {
         final short[] copy = value;
         PVASize.encodeSize(copy.length, buffer);
-        for (int i=0; i<copy.length; ++i)
-            buffer.putShort(copy[i]);
+        buffer.asShortBuffer().put(copy);
+        buffer.position(buffer.position() + copy.length * Short.BYTES);
     }
 
     @Override
@@ -17,7 +17,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 /** PV Access structure
@@ -78,6 +80,44 @@ public class PVAStructure extends PVADataWithID
      */
     private final List<PVAData> elements;
 
+    /** Flat index of this structure and its elements
+     *
+     *  <p>Since elements cannot be added, removed or replaced,
+     *  the index remains valid once created.
+     *  Created on first call to {@link #get(int)} or {@link #getIndex(PVAData)}
+     */
+    private volatile FlatIndex flat_index = null;
+
+    /** Elements by index and index by element */
+    private static class FlatIndex
+    {
+        /** Structure itself at index 0, elements, sub-elements at index 1, 2, ... */
+        final PVAData[] elements;
+
+        /** Index of each element, compared by identity */
+        final Map<PVAData, Integer> indices;
+
+        FlatIndex(final PVAStructure structure)
+        {
+            final List<PVAData> flat = new ArrayList<>();
+            add(flat, structure);
+            elements = flat.toArray(new PVAData[flat.size()]);
+            indices = new IdentityHashMap<>(elements.length);
+            for (int i=0; i<elements.length; ++i)
+                indices.put(elements[i], i);
+        }
+
+        private static void add(final List<PVAData> flat, final PVAStructure structure)
+        {
+            flat.add(structure);
+            for (PVAData element : structure.elements)
+                if (element instanceof PVAStructure)
+                    add(flat, (PVAStructure) element);
+                else
+                    flat.add(element);
+        }
+    }
+
 
     /** @param name Name of the structure (may be "")
      *  @param struct_name Type name of the structure (may be "")
@@ -374,41 +414,22 @@ public class PVAStructure extends PVADataWithID
     @SuppressWarnings("unchecked")
     public <PVA extends PVAData> PVA get(final int index)
     {
-        final Object result = getElementOrNextIndex(0, index);
-        if (result instanceof PVAData)
-            return (PVA) result;
+        final PVAData[] flat = getFlatIndex().elements;
+        if (index >= 0  &&  index < flat.length)
+            return (PVA) flat[index];
         return null;
     }
 
-    /** Locate element by index
-     *
-     *  @param i Incremented element index as we recurse structures
-     *  @param index Desired element index
-     *  @return Located {@link PVAData} or {@link Integer} for next i
-     */
-    private Object getElementOrNextIndex(int i, final int index)
+    /** @return {@link FlatIndex}, created on first call */
+    private FlatIndex getFlatIndex()
     {
-        // Does index refer to complete structure?
-        if (i == index)
-            return this;
-        // Check elements
-        for (PVAData element : elements)
-        {
-            ++i;
-            if (i == index)
-                return element;
-            // Descend into sub struct,
-            // get the incremented index upon return
-            if (element instanceof PVAStructure)
-            {
-                final Object next = ((PVAStructure) element).getElementOrNextIndex(i, index);
-                if (next instanceof Integer)
-                    i = (Integer) next;
-                else
-                    return next;
-            }
+        FlatIndex index = flat_index;
+        if (index == null)
+        {   // In case of concurrent calls, each creates the same index
+            index = new FlatIndex(this);
+            flat_index = index;
         }
-        return i;
+        return index;
     }
 
     /** Get index of element within structure
@@ -434,42 +455,13 @@ public class PVAStructure extends PVADataWithID
      */
     public int getIndex(final PVAData element) throws Exception
     {
-        final int index = getIndexOrNext(0, element);
-        if (index >= 0)
+        final Integer index = getFlatIndex().indices.get(element);
+        if (index != null)
             return index;
         throw new Exception("Cannot locate " + element.formatType() +
                             " in " + getStructureName() + " " + getName());
     }
 
-    /** Locate element, recursing into sub-structures
-     *  @param i Index of this structure
-     *  @param element Element to locate
-     *  @return Zero or larger: Index of the element. Negative: Next index to check
-     */
-    private int getIndexOrNext(int i, final PVAData element)
-    {
-        if (element == this)
-            return i;
-        // Check elements
-        for (PVAData sub : elements)
-        {
-            ++i;
-            if (sub == element)
-                return i;
-            // Descend into sub struct,
-            // get the incremented index upon return
-            if (sub instanceof PVAStructure)
-            {
-                final int next = ((PVAStructure) sub).getIndexOrNext(i, element);
-                if (next >= 0)
-                    return next;
-                else
-                    i = -next;
-            }
-        }
-        return -i;
-    }
-
     /** Update this structure with provided data
      *
      *  <p>The provided new value must be compatible,
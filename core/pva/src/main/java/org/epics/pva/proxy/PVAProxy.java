@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2020-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,12 +10,13 @@ package org.epics.pva.proxy;
 import java.net.InetSocketAddress;
 import java.time.Instant;
 import java.util.BitSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
@@ -25,7 +26,9 @@ import org.epics.pva.PVASettings;
 import org.epics.pva.client.ClientChannelState;
 import org.epics.pva.client.PVAChannel;
 import org.epics.pva.client.PVAClient;
+import org.epics.pva.data.PVADouble;
 import org.epics.pva.data.PVAInt;
+import org.epics.pva.data.PVANumber;
 import org.epics.pva.data.PVAStructure;
 import org.epics.pva.data.nt.PVATimeStamp;
 import org.epics.pva.server.PVAServer;
@@ -39,8 +42,18 @@ import org.epics.pva.server.ServerPV;
  *  <li>EPICS_PVA_ADDR_LIST, EPICS_PVA_BROADCAST_PORT - Where proxy searches for PVs
  *  <li>EPICS_PVAS_BROADCAST_PORT, EPICS_PVA_SERVER_PORT - Where proxy makes those PVs available
  *  <li>PREFIX - Prefix for internal PVs
+ *  <li>SEARCH_TIMEOUT - Seconds to wait for a PV to connect before giving up, default 5
+ *  <li>UNKNOWN_PV_HOLDOFF - Seconds to ignore further searches for a PV that did not connect, default 30
+ *  <li>MAX_UPDATE_RATE - Maximum number of updates per second forwarded for each PV, 0 for no limit (default)
+ *  <li>IDLE_TIMEOUT - Seconds after which a PV without clients is closed, default 60
  *  </ul>
  *
+ *  <p>Each PV is only subscribed once on the upstream server,
+ *  and that subscription is shared by all clients of the proxy.
+ *  Searches for PVs that could not be found are ignored for a while,
+ *  so clients that keep searching for a missing PV don't
+ *  cause the proxy to keep searching upstream.
+ *
  *  <p>For a 'local' test and to debug, assert that IOC, proxy and client each use unique ports.
  *
  *  <p>Run  `softIocPVA -m N='' -d demo.db`
@@ -68,6 +81,9 @@ import org.epics.pva.server.ServerPV;
  *
  *  <ul>
  *  <li>$(PREFIX)count - Number of proxied PVs
+ *  <li>$(PREFIX)clients - Number of connected clients
+ *  <li>$(PREFIX)updates - Updates per second received for proxied PVs
+ *  <li>$(PREFIX)bytes - Bytes per second sent to clients
  *  <li>$(PREFIX)QUIT - Reading this will stop the proxy
  *  </ul>
  *
@@ -86,26 +102,90 @@ public class PVAProxy
 
     private String prefix = "";
 
+    /** Seconds to wait for upstream PV to connect */
+    private int search_timeout = 5;
+
+    /** Seconds to ignore searches for a PV that did not connect */
+    private int unknown_pv_holdoff = 30;
+
+    /** Minimum period between forwarded updates of a PV in nanoseconds, 0 for no limit */
+    private long min_update_period = 0;
+
+    /** Seconds after which a PV without clients is closed */
+    private int idle_timeout = 60;
+
     private PVAServer server;
     private PVAClient client;
 
     /** Latch for quitting */
     private final CountDownLatch quit = new CountDownLatch(1);
 
-    /** Executor for background jobs */
-    private final ExecutorService executor = Executors.newCachedThreadPool();
+    /** Timer for connecting, checking timeouts, rate limiting etc. */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(run ->
+    {
+        final Thread thread = new Thread(run, "PVAProxy Timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Internal PV for proxy status */
+    private class StatusPV
+    {
+        private final PVATimeStamp time = new PVATimeStamp();
+        private final PVAStructure data;
+        private ServerPV pv;
+
+        StatusPV(final String name, final PVANumber value)
+        {
+            data = new PVAStructure(name, "", value, time);
+        }
 
-    /** Timer for checking timeouts etc. */
-    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        void create()
+        {
+            pv = server.createPV(prefix + data.getName(), data);
+            System.out.println(pv.getName());
+        }
+
+        synchronized void update(final Number value)
+        {
+            if (pv == null)
+                return;
+            try
+            {
+                data.get("value").setValue(value);
+                time.set(Instant.now());
+                pv.update(data);
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Cannot update " + pv, ex);
+            }
+        }
+    }
 
-    /** Timestamp of 'count' PV */
-    private PVATimeStamp count_time = new PVATimeStamp();
-    /** Value of 'count' PV */
-    private PVAStructure count_value = new PVAStructure("count", "",
-                                                        new PVAInt("value", 0),
-                                                        count_time);
     /** 'count' PV */
-    private ServerPV count_channel;
+    private final StatusPV count_channel = new StatusPV("count", new PVAInt("value", 0));
+
+    /** 'clients' PV */
+    private final StatusPV clients_channel = new StatusPV("clients", new PVAInt("value", 0));
+
+    /** 'updates' PV */
+    private final StatusPV updates_channel = new StatusPV("updates", new PVADouble("value", 0.0));
+
+    /** 'bytes' PV */
+    private final StatusPV bytes_channel = new StatusPV("bytes", new PVADouble("value", 0.0));
+
+    /** Names of internal PVs */
+    private Set<String> internal_names;
+
+    /** Updates received for proxied PVs */
+    private final AtomicLong updates = new AtomicLong();
+
+    /** Values at last status update, used to compute rates */
+    private long last_status_time = System.nanoTime(), last_updates = 0, last_bytes = 0;
+
+    /** Map of PV names that did not connect to the time (nanoTime) when they may again be searched */
+    private final ConcurrentHashMap<String, Long> unknown_pvs = new ConcurrentHashMap<>();
 
     /** Handler for one proxied PV */
     private class ProxyChannel implements AutoCloseable
@@ -116,18 +196,33 @@ public class PVAProxy
         private volatile ServerPV server_pv;
         private volatile AutoCloseable subscription  = null;
 
+        /** Time (nanoTime) of last update sent to server_pv
+         *  SYNC on this
+         */
+        private long last_forward = 0;
+
+        /** Update that's waiting to be sent because of rate limit
+         *  SYNC on this
+         */
+        private PVAStructure pending = null;
+
+        /** Time (nanoTime) since which server_pv has no clients, 0 while used
+         *  Only accessed by timer
+         */
+        private long idle_since = 0;
+
         ProxyChannel(final String name)
         {
             logger.log(Level.INFO, () -> "++++ New Server Proxy " + name);
             this.name = name;
-            executor.submit(() -> connect(name));
+            timer.execute(() -> connect(name));
         }
 
         private void connect(final String name)
         {
             logger.log(Level.INFO, () -> "Search for " + name);
             client_pv = client.getChannel(name, this::channelStateChanged);
-            timer.schedule(this::connectionTimeout, 5000, TimeUnit.MILLISECONDS);
+            timer.schedule(this::connectionTimeout, search_timeout, TimeUnit.SECONDS);
 
             updateChannelCount();
         }
@@ -143,6 +238,8 @@ public class PVAProxy
             }
 
             logger.log(Level.INFO, () -> "Connection timeout for " + name);
+            // Ignore searches for this PV for a while
+            unknown_pvs.put(name, System.nanoTime() + TimeUnit.SECONDS.toNanos(unknown_pv_holdoff));
             try
             {
                 close();
@@ -184,26 +281,79 @@ public class PVAProxy
                 logger.log(Level.FINER, "Value update for " + name + " = " + data);
             else
                 logger.log(Level.FINE, () -> "Value update for " + name);
+            updates.incrementAndGet();
 
-            if (server_pv == null)
+            synchronized (this)
             {
-                server_pv = server.createPV(channel.getName(), data);
-                logger.log(Level.INFO, () -> "Now serving " + server_pv);
-            }
-            else
-            {
-                // TODO Periodically check how many clients the ServerPV has, close if unused for a while
-                if (! server_pv.isSubscribed())
-                    System.out.println("****** UNUSED Proxy " + channel.getName());
-
-                try
+                if (server_pv == null)
                 {
-                    server_pv.update(data);
+                    server_pv = server.createPV(channel.getName(), data);
+                    last_forward = System.nanoTime();
+                    logger.log(Level.INFO, () -> "Now serving " + server_pv);
+                    return;
                 }
-                catch (Exception ex)
+
+                if (min_update_period > 0)
                 {
-                    logger.log(Level.WARNING, "Cannot publish update to " + server_pv, ex);
+                    final long now = System.nanoTime();
+                    final long wait = last_forward + min_update_period - now;
+                    if (pending != null  ||  wait > 0)
+                    {   // Keep most recent value until the rate limit allows sending it.
+                        // The client structure is updated in place, so keep a copy
+                        if (pending == null)
+                            timer.schedule(this::forwardPending, wait, TimeUnit.NANOSECONDS);
+                        pending = data.cloneData();
+                        return;
+                    }
                 }
+                forward(data);
+            }
+        }
+
+        /** Send update that was held because of rate limit */
+        private synchronized void forwardPending()
+        {
+            if (pending != null)
+            {
+                forward(pending);
+                pending = null;
+            }
+        }
+
+        /** @param data Data to send to clients of the proxy
+         *
+         *  <p>Caller must SYNC on this
+         */
+        private void forward(final PVAStructure data)
+        {
+            last_forward = System.nanoTime();
+            final ServerPV pv = server_pv;
+            if (pv == null)
+                return;
+            try
+            {
+                pv.update(data);
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Cannot publish update to " + pv, ex);
+            }
+        }
+
+        /** Close proxy when it has not had any clients for a while
+         *  @param now Current nanoTime
+         */
+        void checkIdle(final long now)
+        {
+            final ServerPV pv = server_pv;
+            if (pv == null  ||  pv.getClientCount() > 0)
+                idle_since = 0;
+            else if (idle_since == 0)
+                idle_since = now;
+            else if (now - idle_since > TimeUnit.SECONDS.toNanos(idle_timeout))
+            {
+                logger.log(Level.INFO, () -> "PV " + name + " has no clients, closing proxy");
+                close();
             }
         }
 
@@ -227,10 +377,14 @@ public class PVAProxy
                 client_pv.close();
                 client_pv = null;
             }
-            if (server_pv != null)
+            synchronized (this)
             {
-                server_pv.close();
-                server_pv = null;
+                pending = null;
+                if (server_pv != null)
+                {
+                    server_pv.close();
+                    server_pv = null;
+                }
             }
 
             // Remove proxy. A new client search for this name will re-create a proxy
@@ -247,6 +401,13 @@ public class PVAProxy
     public PVAProxy()
     {
         prefix = PVASettings.get("PREFIX", prefix);
+        search_timeout = PVASettings.get("SEARCH_TIMEOUT", search_timeout);
+        unknown_pv_holdoff = PVASettings.get("UNKNOWN_PV_HOLDOFF", unknown_pv_holdoff);
+        final int max_update_rate = PVASettings.get("MAX_UPDATE_RATE", 0);
+        if (max_update_rate > 0)
+            min_update_period = TimeUnit.SECONDS.toNanos(1) / max_update_rate;
+        idle_timeout = PVASettings.get("IDLE_TIMEOUT", idle_timeout);
+        internal_names = Set.of(prefix + "count", prefix + "clients", prefix + "updates", prefix + "bytes");
     }
 
     /** @param seq Client's search sequence
@@ -260,16 +421,31 @@ public class PVAProxy
                                         final InetSocketAddress client,
                                         final Consumer<InetSocketAddress> reply_sender)
     {
-        logger.log(Level.INFO, () -> client + " searches for " + name + " (CID " + cid + ", seq " + seq + ")");
+        logger.log(Level.FINE, () -> client + " searches for " + name + " (CID " + cid + ", seq " + seq + ")");
         if (name.equals(prefix+"QUIT"))
         {
             quit.countDown();
             return true;
         }
 
-        // Unless it's an internal PV, setup proxy
-        if (!count_channel.getName().equals(name))
-            proxies.computeIfAbsent(name, ProxyChannel::new);
+        // Internal PVs are handled by default search handler
+        if (internal_names.contains(name))
+            return false;
+
+        // Ignore searches for PVs that recently failed to connect
+        final Long holdoff = unknown_pvs.get(name);
+        if (holdoff != null)
+        {
+            if (holdoff - System.nanoTime() > 0)
+            {
+                logger.log(Level.FINE, () -> "Ignoring search for unknown PV " + name);
+                return true;
+            }
+            unknown_pvs.remove(name, holdoff);
+        }
+
+        // Setup proxy
+        proxies.computeIfAbsent(name, ProxyChannel::new);
 
         // Proceed with default search handler
         return false;
@@ -277,16 +453,35 @@ public class PVAProxy
 
     private void updateChannelCount()
     {
-        try
-        {
-            count_value.get("value").setValue(proxies.size());
-            count_time.set(Instant.now());
-            count_channel.update(count_value);
-        }
-        catch (Exception ex)
+        count_channel.update(proxies.size());
+    }
+
+    /** Periodically update status PVs and close idle proxies */
+    private void updateStatus()
+    {
+        final long now = System.nanoTime();
+        final double seconds = (now - last_status_time) * 1e-9;
+        last_status_time = now;
+
+        final long total_updates = updates.get();
+        updates_channel.update((total_updates - last_updates) / seconds);
+        last_updates = total_updates;
+
+        int clients = 0;
+        long total_bytes = 0;
+        for (PVAServer.ClientInfo info : server.getClientInfos())
         {
-            logger.log(Level.WARNING, "Cannot update channel count", ex);
+            ++clients;
+            total_bytes += info.sent_bytes();
         }
+        clients_channel.update(clients);
+        // Total drops when clients disconnect
+        bytes_channel.update(Math.max(0, total_bytes - last_bytes) / seconds);
+        last_bytes = total_bytes;
+
+        for (ProxyChannel proxy : proxies.values())
+            proxy.checkIdle(now);
+        unknown_pvs.values().removeIf(holdoff -> holdoff - now <= 0);
     }
 
     private void run() throws Exception
@@ -308,8 +503,11 @@ public class PVAProxy
 
         System.out.println("");
         System.out.println("Info PVs:");
-        count_channel = server.createPV(prefix + "count", count_value);
-        System.out.println(count_channel.getName());
+        count_channel.create();
+        clients_channel.create();
+        updates_channel.create();
+        bytes_channel.create();
+        timer.scheduleWithFixedDelay(this::updateStatus, 1, 1, TimeUnit.SECONDS);
 
         try
         {
@@ -318,7 +516,6 @@ public class PVAProxy
         finally
         {
             timer.shutdownNow();
-            executor.shutdownNow();
             server.close();
             client.close();
         }
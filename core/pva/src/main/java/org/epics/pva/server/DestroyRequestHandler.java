@@ -40,5 +40,6 @@ class DestroyRequestHandler implements CommandHandler<ServerTCPHandler>
             pv.unregisterSubscription(tcp, req);
         else
             logger.log(Level.FINE, "Received request destroy command for unknown PV with SID " + sid + " request " + req);
+        tcp.clearMonitorOptions(req);
     }
 }
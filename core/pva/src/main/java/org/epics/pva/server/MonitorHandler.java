@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2019-2020 Oak Ridge National Laboratory.
+ * Copyright (c) 2019-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,7 +40,7 @@ class MonitorHandler implements CommandHandler<ServerTCPHandler>
         // int requestID
         final int req = buffer.getInt();
 
-        // byte sub command = 0x08 for INIT
+        // byte sub command = 0x08 for INIT, 0x88 for INIT with pipeline, 0x80 for pipeline ack
         final byte subcmd = buffer.get();
 
         final ServerPV pv = tcp.getServer().getPV(sid);
@@ -50,19 +50,34 @@ class MonitorHandler implements CommandHandler<ServerTCPHandler>
             return;
         }
 
-        if (subcmd == PVAHeader.CMD_SUB_INIT)
+        if ((subcmd & PVAHeader.CMD_SUB_INIT) != 0)
         {
             // FieldDesc pvRequestIF
             // PVField pvRequest
             final PVAData requested_type = tcp.getClientTypes().decodeType("", buffer);
-            logger.log(Level.FINE, () -> "Received MONITOR INIT request for " + pv + " as\n" + requested_type.formatType());
+            if (requested_type != null  &&  buffer.hasRemaining())
+                requested_type.decode(tcp.getClientTypes(), buffer);
+            // With pipeline, int nfree
+            int pipeline = 0;
+            if ((subcmd & PVAHeader.CMD_SUB_PIPELINE) != 0  &&  buffer.remaining() >= 4)
+                pipeline = buffer.getInt();
+            final MonitorSubscription.Options options = MonitorSubscription.Options.create(requested_type, pipeline);
+            tcp.setMonitorOptions(req, options);
+            logger.log(Level.FINE, () -> "Received MONITOR INIT request for " + pv + " with " + options + " as\n" + requested_type.formatType());
             GetHandler.sendDataInitReply(tcp, PVAHeader.CMD_MONITOR, req, pv, requested_type);
         }
         else if (subcmd == PVAHeader.CMD_SUB_START)
         {
             logger.log(Level.FINE, () -> "Received MONITOR START for " + pv);
             // Register monitor to PV can keep sending updates as data changes
-            pv.registerSubscription(new MonitorSubscription(req, pv, tcp));
+            pv.registerSubscription(new MonitorSubscription(req, pv, tcp, tcp.getMonitorOptions(req)));
+        }
+        else if (subcmd == PVAHeader.CMD_SUB_PIPELINE)
+        {
+            // int nfree
+            final int ack = buffer.getInt();
+            logger.log(Level.FINE, () -> "Received MONITOR pipeline ack of " + ack + " for " + pv);
+            pv.acknowledgeSubscription(tcp, req, ack);
         }
         else if (subcmd == PVAHeader.CMD_SUB_STOP  ||
                  subcmd == PVAHeader.CMD_SUB_DESTROY)
@@ -70,6 +85,8 @@ class MonitorHandler implements CommandHandler<ServerTCPHandler>
             logger.log(Level.FINE, () -> "Received MONITOR STOP/DESTROY for  " + pv);
             // Stop/cancel/remove subscription
             pv.unregisterSubscription(tcp, req);
+            if (subcmd == PVAHeader.CMD_SUB_DESTROY)
+                tcp.clearMonitorOptions(req);
         }
         else
         {
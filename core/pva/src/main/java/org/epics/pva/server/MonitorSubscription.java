@@ -9,13 +9,18 @@ package org.epics.pva.server;
 
 import static org.epics.pva.PVASettings.logger;
 
+import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.BitSet;
 import java.util.logging.Level;
 
+import org.epics.pva.PVASettings;
 import org.epics.pva.common.PVAHeader;
-import org.epics.pva.data.PVABitSet;
 import org.epics.pva.data.PVAData;
+import org.epics.pva.data.PVANumber;
+import org.epics.pva.data.PVASize;
+import org.epics.pva.data.PVAString;
 import org.epics.pva.data.PVAStructure;
 
 /** One client's subscription to "monitor" a PV
@@ -23,10 +28,82 @@ import org.epics.pva.data.PVAStructure;
  *  <p>Maintains the most recent value sent to client,
  *  sends changes to that client as the value is updated.
  *
+ *  <p>Updates that cannot be sent right away because
+ *  the TCP connection is busy or, in pipeline mode,
+ *  the client has not acknowledged earlier updates,
+ *  are kept in a queue.
+ *  When the queue is full, further updates are combined
+ *  with the last queued update, marking overruns.
+ *
+ *  <p>The changes of a PV update are encoded once by the {@link ServerPV}
+ *  and shared by all its subscriptions, so the cost of encoding
+ *  a large value does not depend on the number of subscribers.
+ *  Only combined updates with more changes than the latest update
+ *  need to be encoded per subscription,
+ *  which happens when they are combined, so that updates
+ *  which are later moved to the queue hold the data
+ *  at that time and not the data of newer updates.
+ *
  *  @author Kay Kasemir
  */
+@SuppressWarnings("nls")
 class MonitorSubscription
 {
+    /** Changes of a PV update, encoded once and shared by all subscriptions
+     *
+     *  @param changes Changed elements
+     *  @param payload Read-only buffer with changed bits and changed data
+     */
+    static record Delta(BitSet changes, ByteBuffer payload)
+    {
+    }
+
+    /** Queued update
+     *
+     *  @param payload Read-only buffer with changed bits and changed data
+     *  @param overrun Overrun bits
+     */
+    private static record Entry(ByteBuffer payload, BitSet overrun)
+    {
+    }
+
+    /** Options requested by client in MONITOR INIT
+     *
+     *  @param queue_size Number of updates to queue
+     *  @param pipeline Initial number of updates that client accepts
+     *                  in pipeline mode, 0 for no pipeline
+     */
+    static record Options(int queue_size, int pipeline)
+    {
+        /** Options used when client did not send INIT */
+        static final Options DEFAULT = new Options(PVASettings.EPICS_PVAS_MONITOR_QUEUE_SIZE, 0);
+
+        /** @param request pvRequest sent by client, may contain record._options.queueSize
+         *  @param pipeline 'nfree' sent by client in pipeline mode, else 0
+         *  @return {@link Options}
+         */
+        static Options create(final PVAData request, final int pipeline)
+        {
+            int queue_size = PVASettings.EPICS_PVAS_MONITOR_QUEUE_SIZE;
+            if (request instanceof PVAStructure)
+            {
+                try
+                {
+                    final PVAData option = ((PVAStructure) request).locate("record._options.queueSize");
+                    if (option instanceof PVANumber)
+                        queue_size = ((PVANumber) option).getNumber().intValue();
+                    else if (option instanceof PVAString)
+                        queue_size = Integer.parseInt(((PVAString) option).get().trim());
+                }
+                catch (Exception ex)
+                {
+                    // No or invalid queueSize, use default
+                }
+            }
+            return new Options(Math.max(1, queue_size), Math.max(0, pipeline));
+        }
+    }
+
     /** ID of monitor request sent by client */
     private final int req;
 
@@ -36,53 +113,87 @@ class MonitorSubscription
     /** TCP connection to client */
     private final ServerTCPHandler tcp;
 
+    /** Maximum number of updates waiting to be sent, including the last one that collects changes */
+    private final int queue_size;
+
+    /** Use pipeline flow control? */
+    private final boolean pipeline;
+
     // Clients subscribe at different times,
     // and their TCP connection might be able to handle updates
     // at different rates, so each subscription maintains
-    // the per-client state of the data, changes and overruns.
+    // the per-client state of changes and overruns.
+    // The data itself is held by the PV.
     //
     //   /------------------------------------\
-    //  /--- SYNC on data for the following ---\
+    //  /--- SYNC on this for the following ---\
 
-    /** Most recent value, to be sent to clients
-     *  SYNC on data
+    /** Most recent changes, yet to be sent to clients
+     *  SYNC on this
      */
-    private final PVAStructure data;
+    private final BitSet changes = new BitSet();
 
-    /** Most recent changes, yet to be sent to clients
-     *  SYNC on data
+    /** Encoding of exactly the current `changes`, or <code>null</code> when there are none.
+     *  Shared by all subscriptions unless updates were combined.
+     *  SYNC on this
      */
-    private volatile BitSet changes = new BitSet();
+    private Delta delta = null;
 
-    /** Overruns, u.e. updates received between successful transmissions to client
-     *  SYNC on data
+    /** Overruns, i.e. fields that changed again before they were sent to client
+     *  SYNC on this
      */
     private final BitSet overrun = new BitSet();
 
-    /** Is an update pending to be sent out?
+    /** Earlier updates, kept when they had to make room for newer changes
+     *  SYNC on this
+     */
+    private final ArrayDeque<Entry> queue = new ArrayDeque<>();
+
+    /** In pipeline mode, number of updates that client will still accept
+     *  SYNC on this
+     */
+    private int credit;
+
+    /** Has {@link #encodeMonitor(byte, ByteBuffer)} been submitted to TCP connection?
      *
      *  <p>Used to prevent scheduling more updates than TCP connection can handle.
-     *  Changes from multiple updates are combined, potentially indicating overrun.
-     *  SYNC on data
+     *  SYNC on this
      */
-    private volatile boolean pending = true;
+    private boolean submitted = false;
 
-    //  \--- SYNC on data for the above     ---/
+    /** Statistics
+     *  SYNC on this
+     */
+    private long sent = 0, coalesced = 0, dropped = 0;
+
+    //  \--- SYNC on this for the above     ---/
     //   \------------------------------------/
 
 
-    MonitorSubscription(final int req, final ServerPV pv, final ServerTCPHandler tcp)
+    MonitorSubscription(final int req, final ServerPV pv, final ServerTCPHandler tcp, final Options options)
     {
         this.req = req;
         this.pv = pv;
         this.tcp = tcp;
-        data = pv.getData();
+        queue_size = options.queue_size();
+        pipeline = options.pipeline() > 0;
+        credit = options.pipeline();
+    }
 
-        // Initial update: Send all the data (bit zero)
-        // Later we typically send changes to "value" etc.
-        // as determined in `update`
-        changes.set(0);
-        tcp.submit(this::encodeMonitor);
+    /** Start the subscription
+     *
+     *  <p>Called by the {@link ServerPV} when registering the subscription.
+     *  The initial update sends all the data (bit zero).
+     *  Later we typically send changes to "value" etc.
+     *  as determined in `update`.
+     *
+     *  @param initial Encoding of all the PV's data
+     */
+    synchronized void start(final Delta initial)
+    {
+        changes.or(initial.changes());
+        delta = initial;
+        submitIfPossible();
     }
 
     /** @param tcp TCP connection
@@ -95,51 +206,116 @@ class MonitorSubscription
         return this.tcp == tcp  &&  (req == -1 || this.req == req);
     }
 
-    void update(final PVAStructure new_data) throws Exception
+    /** @param update Changes of the PV, already applied to the PV's data
+     *  @throws Exception on error
+     */
+    synchronized void update(final Delta update) throws Exception
     {
-        // We update `data`, then submit an `encodeMonitor` run.
-        // As updates arrive, one could occur before or right when
-        // `encodeMonitor` runs.
-        // Since we all sync on data, there are several scenarios
-        // a) Previously submitted `encodeMonitor` is pending,
-        //    another `update` adds changes and maybe accumulates overruns.
-        //    It will not submit another `encodeMonitor` run
-        //    because one is already pending which will eventually
-        //    transmit the combined update.
-        // c) Previously submitted `encodeMonitor` runs but
-        //    we are able to lock `data` before `encodeMonitor`.
-        //    Plays out just like case a), add changes, detect
-        //    a pending `encodeMonitor` run.
-        // b) Previously submitted `encodeMonitor` runs and
-        //    syncs on data, we are blocked.
-        //    `encodeMonitor` transmits the update, clears `pending`,
-        //    and then we can update data and submit another `encodeMonitor` run.
-        synchronized (data)
+        // We add the update, then submit an `encodeMonitor` run.
+        // If an update is still waiting to be sent and there is room
+        // in the queue, it is moved to the queue so that the client
+        // will receive it separately.
+        // Otherwise, the new changes are combined with the waiting
+        // update, and fields that changed again are marked as overrun.
+        if (! changes.isEmpty()  &&  queue.size() < queue_size - 1)
         {
-            final BitSet old_changes = changes;
-
-            // Update data, see what's new
-            changes = data.update(new_data);
+            queue.add(new Entry(delta.payload(), (BitSet) overrun.clone()));
+            changes.clear();
+            overrun.clear();
+        }
 
-            // Accumulate overrun:
+        if (changes.isEmpty())
+            delta = update;
+        else
+        {   // Accumulate overrun:
             // See what had changed before, and now changed again
-            old_changes.and(changes);
-            overrun.or(old_changes);
-
-            // Only submit when there's not already one pending, waiting to be sent out
-            if (pending)
-                logger.log(Level.WARNING, "Skipping already submitted " + this + ", changes " + changes + ", overrun " + overrun);
+            final BitSet lost = (BitSet) changes.clone();
+            lost.and(update.changes());
+            overrun.or(lost);
+            ++coalesced;
+            dropped += lost.cardinality();
+            logger.log(Level.FINE, () -> "Combining update for " + this + ", changes " + changes + ", overrun " + overrun);
+        }
+        changes.or(update.changes());
+        if (delta != update)
+        {
+            if (changes.equals(update.changes()))
+            {   // Waiting changes were a subset of the new ones,
+                // so the shared encoding of the update covers all of them
+                delta = update;
+            }
             else
-            {
-                tcp.submit(this::encodeMonitor);
-                pending = true;
+            {   // Encode combined changes for this subscription now,
+                // while the PV's data matches them
+                delta = new Delta((BitSet) changes.clone(), pv.encodeChanges(changes));
             }
         }
+
+        submitIfPossible();
     }
 
-    private void encodeMonitor(final byte version, final ByteBuffer buffer) throws Exception
+    /** Client acknowledged updates in pipeline mode
+     *  @param count Number of updates that client is ready to receive
+     */
+    synchronized void acknowledge(final int count)
+    {
+        if (! pipeline)
+        {
+            logger.log(Level.WARNING, "Received pipeline ack for " + this + " which is not in pipeline mode");
+            return;
+        }
+        credit += count;
+        logger.log(Level.FINE, () -> "Pipeline ack of " + count + " for " + this + ", credit now " + credit);
+        submitIfPossible();
+    }
+
+    /** @return Statistics */
+    synchronized PVAServer.MonitorInfo getInfo()
+    {
+        return new PVAServer.MonitorInfo(pv.getName(), queue.size() + (changes.isEmpty() ? 0 : 1), sent, coalesced, dropped);
+    }
+
+    /** Submit encoder to TCP connection if there is something to send,
+     *  the client can receive it, and encoder isn't already pending
+     *
+     *  <p>Caller must SYNC on this
+     */
+    private void submitIfPossible()
+    {
+        if (submitted  ||  (queue.isEmpty()  &&  changes.isEmpty()))
+            return;
+        if (pipeline  &&  credit <= 0)
+        {
+            logger.log(Level.FINE, () -> "Waiting for pipeline ack for " + this);
+            return;
+        }
+        submitted = true;
+        tcp.submit(this::encodeMonitor);
+    }
+
+    /** Remove update that has been sent (or dropped)
+     *
+     *  <p>Caller must SYNC on this
+     *
+     *  @param queued Queued entry, or <code>null</code> for the current changes
+     */
+    private void removeSent(final Entry queued)
     {
+        if (queued != null)
+            queue.poll();
+        else
+        {
+            changes.clear();
+            overrun.clear();
+            delta = null;
+        }
+        submitted = false;
+    }
 
+    private void encodeMonitor(final byte version, final ByteBuffer buffer) throws Exception
+    {
+        final int message_start = buffer.position();
+        final int size_offset = message_start + PVAHeader.HEADER_OFFSET_PAYLOAD_SIZE;
         PVAHeader.encodeMessageHeader(buffer, PVAHeader.FLAG_SERVER, PVAHeader.CMD_MONITOR, 0);
         final int payload_start = buffer.position();
 
@@ -147,38 +323,47 @@ class MonitorSubscription
         // Subcommand 0 = value update
         buffer.put((byte)0);
 
-        synchronized (data)
+        synchronized (this)
         {
-            logger.log(Level.FINE, () -> "Sending MONITOR value for " + pv + ": changes " + changes + ", overrun " + overrun);
-
-            // Encode what changed
-            PVABitSet.encodeBitSet(changes, buffer);
-            // Encode the changed data
-            for (int index = changes.nextSetBit(0);
-                    index >= 0;
-                    index = changes.nextSetBit(index + 1))
+            // Check if the update fits before changing any state.
+            // When it doesn't fit into a partially filled buffer,
+            // the TCP handler calls again with an empty buffer,
+            // and this encoder remains submitted until then.
+            final Entry queued = queue.peek();
+            final ByteBuffer payload = queued != null ? queued.payload() : delta.payload();
+            final byte[] overrun_bytes = (queued != null ? queued.overrun() : overrun).toByteArray();
+            final int size = payload.remaining() + PVASize.size(overrun_bytes.length) + overrun_bytes.length;
+            if (size > buffer.remaining())
             {
-                // final version of index to allow use in logging lambdas
-                final int i = index;
-                final PVAData element = data.get(i);
-                logger.log(Level.FINER, () -> "Encode data for indexed element " + i + ": " + element);
-                element.encode(buffer);
-
-                // Javadoc for nextSetBit() suggests checking for MAX_VALUE
-                // to avoid index + 1 overflow and thus starting over with first bit
-                if (i == Integer.MAX_VALUE)
-                    break;
+                if (message_start == 0)
+                {   // Doesn't even fit into empty buffer, so TCP handler drops this encoder.
+                    // Drop the update to continue with the next one.
+                    logger.log(Level.WARNING, "Dropping MONITOR value for " + pv + ", " +
+                               (buffer.position() - message_start + size) + " bytes exceed send buffer size " + buffer.capacity());
+                    removeSent(queued);
+                    submitIfPossible();
+                }
+                throw new BufferOverflowException();
             }
-            changes.clear();
 
-            PVABitSet.encodeBitSet(overrun, buffer);
-            overrun.clear();
+            if (queued != null)
+                logger.log(Level.FINE, () -> "Sending queued MONITOR value for " + pv + ", " + (queue.size()-1) + " more queued");
+            else
+                logger.log(Level.FINE, () -> "Sending MONITOR value for " + pv + ": changes " + changes + ", overrun " + overrun);
+            buffer.put(payload.duplicate());
+            PVASize.encodeSize(overrun_bytes.length, buffer);
+            buffer.put(overrun_bytes);
+            removeSent(queued);
+            ++sent;
+            if (pipeline)
+                --credit;
 
-            pending = false;
+            // Anything else to send?
+            submitIfPossible();
         }
 
         final int payload_end = buffer.position();
-        buffer.putInt(PVAHeader.HEADER_OFFSET_PAYLOAD_SIZE, payload_end - payload_start);
+        buffer.putInt(size_offset, payload_end - payload_start);
     }
 
     @Override
@@ -10,7 +10,9 @@ package org.epics.pva.server;
 import static org.epics.pva.PVASettings.logger;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentHashMap.KeySetView;
 import java.util.concurrent.ForkJoinPool;
@@ -164,10 +166,34 @@ public class PVAServer implements AutoCloseable
 
 
     /** Info about a client to the PVA server:
-     *  Network address and authentication info
+     *  Network address, authentication info, monitor subscriptions
+     *  and number of messages and bytes sent to the client in how many socket writes
      */
     public static record ClientInfo(InetSocketAddress address,
-                                    ServerAuth authentication)
+                                    ServerAuth authentication,
+                                    List<MonitorInfo> monitors,
+                                    long sent_messages,
+                                    long send_writes,
+                                    long sent_bytes)
+    {
+        /** @param address Client address
+         *  @param authentication Client authentication
+         */
+        public ClientInfo(final InetSocketAddress address, final ServerAuth authentication)
+        {
+            this(address, authentication, List.of(), 0, 0, 0);
+        }
+    }
+
+    /** Info about a client's monitor subscription
+     *
+     *  @param pv Name of PV
+     *  @param queued Updates waiting to be sent to client
+     *  @param sent Updates sent to client
+     *  @param coalesced Updates that were combined with a queued update because the queue was full
+     *  @param dropped Field values that were lost because they changed again within a combined update
+     */
+    public static record MonitorInfo(String pv, int queued, long sent, long coalesced, long dropped)
     {
     }
 
@@ -178,10 +204,25 @@ public class PVAServer implements AutoCloseable
     {
         return tcp_handlers.stream()
                            .map(tcp -> new ClientInfo(tcp.getRemoteAddress(),
-                                                      tcp.getAuth()))
+                                                      tcp.getAuth(),
+                                                      getMonitorInfos(tcp),
+                                                      tcp.getSentMessages(),
+                                                      tcp.getSendWrites(),
+                                                      tcp.getSentBytes()))
                            .toList();
     }
 
+    /** @param tcp Client's TCP connection
+     *  @return {@link MonitorInfo}s for that client
+     */
+    private List<MonitorInfo> getMonitorInfos(final ServerTCPHandler tcp)
+    {
+        final List<MonitorInfo> infos = new ArrayList<>();
+        for (ServerPV pv : pv_by_sid.values())
+            pv.getMonitorInfos(tcp, infos);
+        return infos;
+    }
+
     /** Special address used in TCP search reply to indicate "Use this TCP connection" */
     private static final InetSocketAddress USE_THIS_TCP_CONNECTION = new InetSocketAddress(0);
 
@@ -9,7 +9,11 @@ package org.epics.pva.server;
 
 import static org.epics.pva.PVASettings.logger;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentHashMap.KeySetView;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -18,6 +22,8 @@ import java.util.logging.Level;
 
 import org.epics.pva.common.AccessRightsChange;
 import org.epics.pva.common.PVAHeader;
+import org.epics.pva.data.PVABitSet;
+import org.epics.pva.data.PVAData;
 import org.epics.pva.data.PVAString;
 import org.epics.pva.data.PVAStructure;
 
@@ -69,6 +75,11 @@ public class ServerPV implements AutoCloseable
      */
     private final PVAStructure data;
 
+    /** Size of the most recently encoded changes, used to guess the size of the next one
+     *  SYNC on data
+     */
+    private int last_encoded_size = 1024;
+
     /** Handler for RPC invocations. May be DEFAULT_RPC_SERVICE */
     private final RPCService rpc;
 
@@ -168,11 +179,21 @@ public class ServerPV implements AutoCloseable
         unregisterSubscription(tcp, -1);
     }
 
-    /** @param subscription Subscription that needs to receive value updates */
-    void registerSubscription(final MonitorSubscription subscription)
+    /** @param subscription Subscription that needs to receive value updates
+     *  @throws Exception on error
+     */
+    void registerSubscription(final MonitorSubscription subscription) throws Exception
     {
         logger.log(Level.FINER, () -> "Add " + subscription);
-        subscriptions.add(subscription);
+        // Start with all the current data (bit zero), then add the subscription
+        // before the data changes again so that it receives all later updates
+        synchronized (data)
+        {
+            final BitSet all = new BitSet();
+            all.set(0);
+            subscription.start(new MonitorSubscription.Delta(all, encodeChanges(all)));
+            subscriptions.add(subscription);
+        }
     }
 
     /** Forget monitor subscriptions
@@ -193,6 +214,33 @@ public class ServerPV implements AutoCloseable
         logger.log(Level.FINEST, () -> "There are " + subscriptions.size() + " remaining subscriptions");
     }
 
+    /** @param tcp TCP connection
+     *  @param req Client's monitor request ID
+     *  @param count Number of updates that client acknowledged in pipeline mode
+     */
+    void acknowledgeSubscription(final ServerTCPHandler tcp, final int req, final int count)
+    {
+        for (MonitorSubscription subscription : subscriptions)
+            if (subscription.isFor(tcp, req))
+                subscription.acknowledge(count);
+    }
+
+    /** @param tcp TCP connection
+     *  @param infos List where info for that connection's subscriptions is added
+     */
+    void getMonitorInfos(final ServerTCPHandler tcp, final List<PVAServer.MonitorInfo> infos)
+    {
+        for (MonitorSubscription subscription : subscriptions)
+            if (subscription.isFor(tcp, -1))
+                infos.add(subscription.getInfo());
+    }
+
+    /** @return Number of clients that are connected to this PV */
+    public int getClientCount()
+    {
+        return cid_by_client.size();
+    }
+
     /** @return Does the PV have client subscriptions? */
     public boolean isSubscribed()
     {
@@ -211,14 +259,104 @@ public class ServerPV implements AutoCloseable
      */
     public void update(final PVAStructure new_data) throws Exception
     {
-        // Update data
+        // Update data, and encode the changes once
+        // to be shared by all subscriptions
+        final MonitorSubscription.Delta delta;
         synchronized (data)
         {
-            data.update(new_data);
+            final BitSet changes = data.update(new_data);
+            if (changes.isEmpty()  ||  subscriptions.isEmpty())
+                return;
+            delta = new MonitorSubscription.Delta(changes, encodeChanges(changes));
         }
         // Update subscriptions
         for (MonitorSubscription subscription : subscriptions)
-            subscription.update(new_data);
+            subscription.update(delta);
+    }
+
+    /** Encode changed elements of the current value
+     *
+     *  @param changes Changed elements
+     *  @return Read-only buffer with changed bits and changed data
+     *  @throws Exception on error
+     */
+    ByteBuffer encodeChanges(final BitSet changes) throws Exception
+    {
+        synchronized (data)
+        {
+            int size = last_encoded_size;
+            while (true)
+            {
+                // Server's send buffer uses native byte order
+                final ByteBuffer buffer = ByteBuffer.allocate(size);
+                buffer.order(ByteOrder.nativeOrder());
+                try
+                {
+                    encodeChanges(changes, buffer);
+                }
+                catch (BufferOverflowException ex)
+                {
+                    size *= 2;
+                    continue;
+                }
+                buffer.flip();
+                last_encoded_size = Math.max(1024, buffer.limit());
+                return buffer.asReadOnlyBuffer();
+            }
+        }
+    }
+
+    /** Encode changed elements of the current value
+     *
+     *  @param changes Changed elements
+     *  @param buffer Buffer into which changed bits and changed data are encoded
+     *  @throws Exception on error
+     */
+    void encodeChanges(final BitSet changes, final ByteBuffer buffer) throws Exception
+    {
+        synchronized (data)
+        {
+            // Encode what changed
+            PVABitSet.encodeBitSet(changes, buffer);
+            // Encode the changed data
+            int skip_until = 0;
+            for (int index = changes.nextSetBit(0);
+                 index >= 0;
+                 index = changes.nextSetBit(index + 1))
+            {
+                // Combined updates may mark both a structure and elements
+                // within the structure, which have then been encoded with the structure
+                if (index < skip_until)
+                    continue;
+                // final version of index to allow use in logging lambdas
+                final int i = index;
+                final PVAData element = data.get(i);
+                logger.log(Level.FINER, () -> "Encode data for indexed element " + i + ": " + element);
+                element.encode(buffer);
+                if (element instanceof PVAStructure)
+                    skip_until = i + 1 + getDeepSize((PVAStructure) element);
+
+                // Javadoc for nextSetBit() suggests checking for MAX_VALUE
+                // to avoid index + 1 overflow and thus starting over with first bit
+                if (i == Integer.MAX_VALUE)
+                    break;
+            }
+        }
+    }
+
+    /** @param structure Structure
+     *  @return Number of elements in structure, including elements of sub-structures
+     */
+    private static int getDeepSize(final PVAStructure structure)
+    {
+        int count = 0;
+        for (PVAData element : structure.get())
+        {
+            ++count;
+            if (element instanceof PVAStructure)
+                count += getDeepSize((PVAStructure) element);
+        }
+        return count;
     }
 
     /** Get current value (thread-safe copy)
@@ -13,6 +13,7 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import org.epics.pva.common.CommandHandlers;
@@ -59,6 +60,9 @@ class ServerTCPHandler extends TCPHandler
     /** Auth info, e.g. client user info and his/her permissions */
     private volatile ServerAuth auth = ServerAuth.Anonymous;
 
+    /** Monitor options received in MONITOR INIT, by client's request ID, until DESTROY */
+    private final ConcurrentHashMap<Integer, MonitorSubscription.Options> monitor_options = new ConcurrentHashMap<>();
+
 
     public ServerTCPHandler(final PVAServer server, final Socket client, final TLSHandshakeInfo tls_info) throws Exception
     {
@@ -87,6 +91,7 @@ class ServerTCPHandler extends TCPHandler
                     PVAHeader.CTRL_SET_BYTE_ORDER, size_used_as_hint);
         });
         // .. and requesting connection validation
+        final int receive_buffer_size = receive_buffer.capacity();
         submit((version, buffer) ->
         {
             logger.log(Level.FINE, () -> "Sending Validation Request");
@@ -96,7 +101,7 @@ class ServerTCPHandler extends TCPHandler
             final int payload_start = buffer.position();
 
             // int serverReceiveBufferSize;
-            buffer.putInt(receive_buffer.capacity());
+            buffer.putInt(receive_buffer_size);
 
             // short serverIntrospectionRegistryMaxSize;
             buffer.putShort(Short.MAX_VALUE);
@@ -143,6 +148,28 @@ class ServerTCPHandler extends TCPHandler
         return client_types;
     }
 
+    /** @param req Client's monitor request ID
+     *  @param options Options requested in MONITOR INIT
+     */
+    void setMonitorOptions(final int req, final MonitorSubscription.Options options)
+    {
+        monitor_options.put(req, options);
+    }
+
+    /** @param req Client's monitor request ID
+     *  @return Options requested in MONITOR INIT
+     */
+    MonitorSubscription.Options getMonitorOptions(final int req)
+    {
+        return monitor_options.getOrDefault(req, MonitorSubscription.Options.DEFAULT);
+    }
+
+    /** @param req Client's monitor request ID */
+    void clearMonitorOptions(final int req)
+    {
+        monitor_options.remove(req);
+    }
+
     void setAuth(final ServerAuth auth)
     {
         this.auth = auth;
@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.combined;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.epics.pva.PVASettings;
+import org.epics.pva.client.PVAChannel;
+import org.epics.pva.client.PVAClient;
+import org.epics.pva.data.PVADoubleArray;
+import org.epics.pva.data.PVAInt;
+import org.epics.pva.data.PVAStructure;
+import org.epics.pva.server.PVAServer;
+import org.epics.pva.server.PVAServer.ClientInfo;
+import org.epics.pva.server.PVAServer.MonitorInfo;
+import org.epics.pva.server.ServerPV;
+import org.junit.jupiter.api.Test;
+
+/** Test of queued monitor updates
+ *
+ *  <p>Server sends updates faster than the client handles them,
+ *  so they are queued and combined.
+ *  Client must still receive each value at most once, in order.
+ *  Updates that don't fit into a partially filled send buffer
+ *  must be sent in the next batch.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class MonitorQueueTest
+{
+    @Test
+    public void testQueuedUpdates() throws Exception
+    {
+        if (! PVASettings.EPICS_PVA_ENABLE_IPV6)
+        {
+            PVASettings.EPICS_PVAS_INTF_ADDR_LIST = "127.0.0.1";
+            PVASettings.EPICS_PVA_ADDR_LIST = "127.0.0.1";
+        }
+        final PVAInt value = new PVAInt("value", 0);
+        final PVAStructure data = new PVAStructure("demo", "demo_t", value);
+        final int updates = 2000;
+        final List<Integer> received = new ArrayList<>();
+        try
+        (
+            PVAServer server = new PVAServer();
+            PVAClient client = new PVAClient();
+        )
+        {
+            final ServerPV pv = server.createPV("queue_test", data);
+            final PVAChannel channel = client.getChannel("queue_test");
+            channel.connect().get(10, TimeUnit.SECONDS);
+            channel.subscribe("", 4, (ch, changes, overruns, update) ->
+            {
+                synchronized (received)
+                {
+                    received.add(update.<PVAInt>get("value").get());
+                    received.notifyAll();
+                }
+                // Slow client
+                try
+                {
+                    TimeUnit.MILLISECONDS.sleep(1);
+                }
+                catch (InterruptedException ex)
+                {
+                    // Ignore
+                }
+            });
+            // Wait for initial value
+            synchronized (received)
+            {
+                while (received.isEmpty())
+                    received.wait(10000);
+            }
+
+            for (int i=1; i<=updates; ++i)
+            {
+                value.set(i);
+                pv.update(data);
+            }
+
+            // Wait for last value
+            synchronized (received)
+            {
+                final long end = System.currentTimeMillis() + 10000;
+                while (received.get(received.size()-1) != updates  &&  System.currentTimeMillis() < end)
+                    received.wait(1000);
+            }
+            channel.close();
+        }
+
+        synchronized (received)
+        {
+            System.out.println("Received " + received.size() + " of " + (updates + 1) + " values");
+            for (int i=1; i<received.size(); ++i)
+                assertThat("Value after " + received.get(i-1), received.get(i) > received.get(i-1), equalTo(true));
+            assertThat(received.get(received.size()-1), equalTo(updates));
+        }
+    }
+
+    /** @param name PV name
+     *  @param size Array size
+     *  @return Structure with 'value' array
+     */
+    private static PVAStructure createArray(final String name, final int size)
+    {
+        return new PVAStructure(name, "demo_t", new PVADoubleArray("value", new double[size]));
+    }
+
+    /** @param received List of received values, last value is awaited
+     *  @param last Last expected value
+     */
+    private static void awaitValue(final List<Integer> received, final int last) throws Exception
+    {
+        synchronized (received)
+        {
+            final long end = System.currentTimeMillis() + 10000;
+            while ((received.isEmpty()  ||  received.get(received.size()-1) != last)  &&  System.currentTimeMillis() < end)
+                received.wait(1000);
+        }
+    }
+
+    /** @param received Values received in order, must end with last */
+    private static void checkValues(final List<Integer> received, final int last)
+    {
+        synchronized (received)
+        {
+            for (int i=1; i<received.size(); ++i)
+                assertThat("Value after " + received.get(i-1), received.get(i) > received.get(i-1), equalTo(true));
+            assertThat(received.get(received.size()-1), equalTo(last));
+        }
+    }
+
+    @Test
+    public void testLargeUpdates() throws Exception
+    {
+        if (! PVASettings.EPICS_PVA_ENABLE_IPV6)
+        {
+            PVASettings.EPICS_PVAS_INTF_ADDR_LIST = "127.0.0.1";
+            PVASettings.EPICS_PVA_ADDR_LIST = "127.0.0.1";
+        }
+        // Small send buffer so that a 'small' and 'big' update
+        // don't fit into one batch, while each fits on its own.
+        // A 'huge' update never fits.
+        final int orig_buffer_size = PVASettings.EPICS_PVA_SEND_BUFFER_SIZE;
+        PVASettings.EPICS_PVA_SEND_BUFFER_SIZE = 100000;
+        final PVAStructure small = createArray("small", 4000);
+        final PVAStructure big = createArray("big", 9000);
+        final PVAStructure huge = createArray("huge", 20000);
+        final int updates = 200;
+        final List<Integer> small_received = new ArrayList<>();
+        final List<Integer> big_received = new ArrayList<>();
+        final List<Integer> huge_received = new ArrayList<>();
+        final AtomicInteger lost = new AtomicInteger();
+        try
+        (
+            PVAServer server = new PVAServer();
+            PVAClient client = new PVAClient();
+        )
+        {
+            final ServerPV small_pv = server.createPV("small_test", small);
+            final ServerPV big_pv = server.createPV("big_test", big);
+            final ServerPV huge_pv = server.createPV("huge_test", huge);
+            final List<PVAChannel> channels = new ArrayList<>();
+            for (String name : List.of("huge_test", "small_test", "big_test"))
+            {
+                final PVAChannel channel = client.getChannel(name);
+                channel.connect().get(10, TimeUnit.SECONDS);
+                final List<Integer> received = name.startsWith("small")
+                                             ? small_received
+                                             : name.startsWith("big") ? big_received : huge_received;
+                channel.subscribe("", (ch, changes, overruns, update) ->
+                {
+                    final int value = (int) update.<PVADoubleArray>get("value").get()[0];
+                    synchronized (received)
+                    {
+                        // Skipping values is only allowed for combined updates
+                        if (! received.isEmpty()  &&  value > received.get(received.size()-1) + 1  &&  overruns.isEmpty())
+                            lost.incrementAndGet();
+                        received.add(value);
+                        received.notifyAll();
+                    }
+                });
+                channels.add(channel);
+            }
+            awaitValue(small_received, 0);
+            awaitValue(big_received, 0);
+
+            for (int i=1; i<=updates; ++i)
+            {
+                small.<PVADoubleArray>get("value").get()[0] = i;
+                small_pv.update(small);
+                big.<PVADoubleArray>get("value").get()[0] = i;
+                big_pv.update(big);
+                huge.<PVADoubleArray>get("value").get()[0] = i;
+                huge_pv.update(huge);
+            }
+
+            awaitValue(small_received, updates);
+            awaitValue(big_received, updates);
+
+            // Each byte is counted once
+            long expected = 0;
+            for (ClientInfo info : server.getClientInfos())
+                for (MonitorInfo monitor : info.monitors())
+                    if (monitor.pv().equals("small_test"))
+                        expected += monitor.sent() * 4000 * Double.BYTES;
+                    else if (monitor.pv().equals("big_test"))
+                        expected += monitor.sent() * 9000 * Double.BYTES;
+            final long bytes = server.getClientInfos().stream().mapToLong(ClientInfo::sent_bytes).sum();
+            assertThat("Sent " + bytes + " bytes, expected about " + expected, bytes >= expected  &&  bytes < expected + 100000, equalTo(true));
+            for (PVAChannel channel : channels)
+                channel.close();
+        }
+        finally
+        {
+            PVASettings.EPICS_PVA_SEND_BUFFER_SIZE = orig_buffer_size;
+        }
+
+        System.out.println("Received " + small_received.size() + " small and " + big_received.size() + " big values");
+        checkValues(small_received, updates);
+        checkValues(big_received, updates);
+        assertThat(lost.get(), equalTo(0));
+        // Huge updates are dropped without blocking the others
+        synchronized (huge_received)
+        {
+            assertThat(huge_received.isEmpty(), equalTo(true));
+        }
+    }
+}
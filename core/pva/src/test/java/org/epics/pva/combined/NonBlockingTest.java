@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.combined;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.epics.pva.PVASettings;
+import org.epics.pva.client.PVAChannel;
+import org.epics.pva.client.PVAClient;
+import org.epics.pva.data.PVADouble;
+import org.epics.pva.data.PVADoubleArray;
+import org.epics.pva.data.PVAStructure;
+import org.epics.pva.server.PVAServer;
+import org.epics.pva.server.PVAServer.ClientInfo;
+import org.epics.pva.server.PVAServer.MonitorInfo;
+import org.epics.pva.server.ServerPV;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Client and server round trips with {@link PVASettings#EPICS_PVA_TCP_NIO}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class NonBlockingTest
+{
+    private boolean orig_nio;
+    private PVAServer server;
+    private PVAClient client;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        if (! PVASettings.EPICS_PVA_ENABLE_IPV6)
+        {
+            PVASettings.EPICS_PVAS_INTF_ADDR_LIST = "127.0.0.1";
+            PVASettings.EPICS_PVA_ADDR_LIST = "127.0.0.1";
+        }
+        // Sockets are created non-blocking while this is set
+        orig_nio = PVASettings.EPICS_PVA_TCP_NIO;
+        PVASettings.EPICS_PVA_TCP_NIO = true;
+        server = new PVAServer();
+        client = new PVAClient();
+    }
+
+    @AfterEach
+    public void shutdown()
+    {
+        client.close();
+        server.close();
+        PVASettings.EPICS_PVA_TCP_NIO = orig_nio;
+    }
+
+    @Test
+    public void testReadWrite() throws Exception
+    {
+        final PVAStructure data = new PVAStructure("demo", "demo_t", new PVADouble("value", 3.14));
+        server.createPV("nio_rw", data, (tcp, pv, changes, written) -> pv.update(written));
+
+        final PVAChannel channel = client.getChannel("nio_rw");
+        channel.connect().get(10, TimeUnit.SECONDS);
+        PVAStructure value = channel.read("").get(10, TimeUnit.SECONDS);
+        assertThat(value.<PVADouble>get("value").get(), equalTo(3.14));
+
+        channel.write(true, "value", 42.0).get(10, TimeUnit.SECONDS);
+        value = channel.read("").get(10, TimeUnit.SECONDS);
+        assertThat(value.<PVADouble>get("value").get(), equalTo(42.0));
+        channel.close();
+    }
+
+    @Test
+    public void testManyChannels() throws Exception
+    {
+        final int count = 50;
+        for (int i=0; i<count; ++i)
+            server.createPV("nio_pv" + i, new PVAStructure("demo", "demo_t", new PVADouble("value", i)));
+
+        final PVAChannel[] channels = new PVAChannel[count];
+        final CompletableFuture<?>[] connected = new CompletableFuture<?>[count];
+        for (int i=0; i<count; ++i)
+        {
+            channels[i] = client.getChannel("nio_pv" + i);
+            connected[i] = channels[i].connect();
+        }
+        CompletableFuture.allOf(connected).get(10, TimeUnit.SECONDS);
+
+        final CompletableFuture<?>[] reads = new CompletableFuture<?>[count];
+        for (int i=0; i<count; ++i)
+            reads[i] = channels[i].read("");
+        for (int i=0; i<count; ++i)
+        {
+            final PVAStructure value = (PVAStructure) reads[i].get(10, TimeUnit.SECONDS);
+            assertThat(value.<PVADouble>get("value").get(), equalTo((double) i));
+            channels[i].close();
+        }
+    }
+
+    @Test
+    public void testLargeMonitor() throws Exception
+    {
+        // Messages larger than the socket buffers need several writes
+        // and several reads on the event loop,
+        // but must fit into EPICS_PVA_SEND_BUFFER_SIZE
+        final double[] array = new double[500000];
+        final PVADoubleArray value = new PVADoubleArray("value", array);
+        final PVAStructure data = new PVAStructure("demo", "demo_t", value);
+        final ServerPV pv = server.createPV("nio_array", data);
+
+        final PVAChannel channel = client.getChannel("nio_array");
+        channel.connect().get(10, TimeUnit.SECONDS);
+        final AtomicReference<double[]> received = new AtomicReference<>();
+        channel.subscribe("", (ch, changes, overruns, update) ->
+        {
+            received.set(update.<PVADoubleArray>get("value").get().clone());
+            synchronized (received)
+            {
+                received.notifyAll();
+            }
+        });
+
+        final int updates = 5;
+        for (int i=1; i<=updates; ++i)
+        {
+            array[0] = i;
+            array[array.length-1] = -i;
+            value.set(array);
+            pv.update(data);
+        }
+
+        // Wait for last update
+        final long end = System.currentTimeMillis() + 20000;
+        synchronized (received)
+        {
+            while ((received.get() == null  ||  received.get()[0] != updates)  &&
+                   System.currentTimeMillis() < end)
+                received.wait(1000);
+        }
+        final double[] last = received.get();
+        assertThat(last.length, equalTo(array.length));
+        assertThat(List.of(last[0], last[1], last[last.length-1]), equalTo(List.of((double) updates, 0.0, (double) -updates)));
+
+        // Each byte is counted once
+        final long sent = server.getClientInfos().stream()
+                                .flatMap(info -> info.monitors().stream())
+                                .mapToLong(MonitorInfo::sent)
+                                .sum();
+        final long bytes = server.getClientInfos().stream()
+                                 .mapToLong(ClientInfo::sent_bytes)
+                                 .sum();
+        final long expected = sent * array.length * Double.BYTES;
+        assertThat("Sent " + bytes + " bytes for " + sent + " updates", bytes >= expected  &&  bytes < expected + 10000, equalTo(true));
+        channel.close();
+    }
+}
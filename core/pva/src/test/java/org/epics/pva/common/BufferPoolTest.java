@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.common;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.epics.pva.PVASettings;
+import org.junit.jupiter.api.Test;
+
+/** Unit test of {@link BufferPool}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class BufferPoolTest
+{
+    @Test
+    public void testSizeClasses()
+    {
+        // Minimum size class
+        assertThat(BufferPool.getSizeClass(1), equalTo(0));
+        assertThat(BufferPool.getSizeClass(4096), equalTo(0));
+        // Next power of two
+        assertThat(BufferPool.getSizeClass(4097), equalTo(1));
+        assertThat(BufferPool.getSizeClass(16 * 1024), equalTo(2));
+        assertThat(BufferPool.getSizeClass(8001000), equalTo(11));
+    }
+
+    @Test
+    public void testReuse()
+    {
+        final int size = 3 * 1024 * 1024;
+        final ByteBuffer buffer = BufferPool.acquire(size, false);
+        assertThat(buffer.capacity(), equalTo(4 * 1024 * 1024));
+        assertThat(buffer.isDirect(), equalTo(false));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(42);
+
+        BufferPool.release(buffer);
+        assertTrue(BufferPool.getPooled(false, size) > 0);
+
+        // Get the same buffer back, cleared and in default byte order
+        final ByteBuffer again = BufferPool.acquire(size, false);
+        assertThat(again, sameInstance(buffer));
+        assertThat(again.position(), equalTo(0));
+        assertThat(again.order(), equalTo(ByteOrder.BIG_ENDIAN));
+
+        // Direct buffers are pooled separately
+        final ByteBuffer direct = BufferPool.acquire(size, true);
+        assertThat(direct.isDirect(), equalTo(true));
+        assertThat(direct, not(sameInstance(again)));
+
+        BufferPool.release(direct);
+        BufferPool.release(again);
+    }
+
+    @Test
+    public void testPoolLimit()
+    {
+        final int size = 256 * 1024;
+        final ByteBuffer[] buffers = new ByteBuffer[BufferPool.MAX_POOLED + 2];
+        for (int i=0; i<buffers.length; ++i)
+            buffers[i] = BufferPool.acquire(size, false);
+        for (ByteBuffer buffer : buffers)
+            BufferPool.release(buffer);
+        assertThat(BufferPool.getPooled(false, size), equalTo(BufferPool.MAX_POOLED));
+    }
+
+    @Test
+    public void testByteLimit()
+    {
+        final int size = 512 * 1024;
+        final ByteBuffer[] buffers = new ByteBuffer[6];
+        for (int i=0; i<buffers.length; ++i)
+            buffers[i] = BufferPool.acquire(size, false);
+        // Allow room for just two more buffers
+        final int orig = PVASettings.EPICS_PVA_BUFFER_POOL_SIZE;
+        final long limit = BufferPool.getPooledBytes() + 2 * size;
+        PVASettings.EPICS_PVA_BUFFER_POOL_SIZE = (int) limit;
+        try
+        {
+            for (ByteBuffer buffer : buffers)
+                BufferPool.release(buffer);
+            assertThat(BufferPool.getPooled(false, size), equalTo(2));
+            assertThat(BufferPool.getPooledBytes(), equalTo(limit));
+        }
+        finally
+        {
+            PVASettings.EPICS_PVA_BUFFER_POOL_SIZE = orig;
+        }
+    }
+
+    @Test
+    public void testLargeBuffer()
+    {
+        // Buffers above the largest size class are not pooled
+        final int size = 128 * 1024 * 1024;
+        final ByteBuffer buffer = BufferPool.acquire(size, false);
+        assertThat(buffer.capacity(), equalTo(size));
+        final long pooled = BufferPool.getPooledBytes();
+        BufferPool.release(buffer);
+        assertThat(BufferPool.getPooled(false, size), equalTo(0));
+        assertThat(BufferPool.getPooledBytes(), equalTo(pooled));
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.data;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.epics.pva.PVASettings;
+
+/** Compare element-by-element array coding with bulk coding of {@link PVADoubleArray}
+ *
+ *  <p>Run with -verbose:gc to see the effect of EPICS_PVA_REUSE_ARRAYS
+ *  on allocations.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ArrayCodingDemo
+{
+    private static final int SIZE = 1000000, RUNS = 100;
+
+    public static void main(String[] args) throws Exception
+    {
+        final double[] data = new double[SIZE];
+        for (int i=0; i<SIZE; ++i)
+            data[i] = Math.sin(i * 0.001);
+        final PVADoubleArray array = new PVADoubleArray("value", data);
+        final PVADoubleArray decoded = new PVADoubleArray("value");
+
+        // Use non-native order to include byte swapping
+        final ByteBuffer buffer = ByteBuffer.allocate(SIZE * Double.BYTES + 10);
+        buffer.order(ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+
+        for (int pass=0; pass<5; ++pass)
+        {
+            // Element-by-element, as used before
+            long start = System.nanoTime();
+            for (int run=0; run<RUNS; ++run)
+            {
+                buffer.clear();
+                PVASize.encodeSize(data.length, buffer);
+                for (int i=0; i<data.length; ++i)
+                    buffer.putDouble(data[i]);
+                buffer.flip();
+                final int size = PVASize.decodeSize(buffer);
+                final double[] value = new double[size];
+                for (int i=0; i<size; ++i)
+                    value[i] = buffer.getDouble();
+            }
+            final double loop_ms = (System.nanoTime() - start) / 1e6 / RUNS;
+
+            // Bulk
+            PVASettings.EPICS_PVA_REUSE_ARRAYS = false;
+            start = System.nanoTime();
+            for (int run=0; run<RUNS; ++run)
+            {
+                buffer.clear();
+                array.encode(buffer);
+                buffer.flip();
+                decoded.decode(null, buffer);
+            }
+            final double bulk_ms = (System.nanoTime() - start) / 1e6 / RUNS;
+
+            // Bulk, re-using array
+            PVASettings.EPICS_PVA_REUSE_ARRAYS = true;
+            start = System.nanoTime();
+            for (int run=0; run<RUNS; ++run)
+            {
+                buffer.clear();
+                array.encode(buffer);
+                buffer.flip();
+                decoded.decode(null, buffer);
+            }
+            final double reuse_ms = (System.nanoTime() - start) / 1e6 / RUNS;
+
+            System.out.format("Encode + decode %d doubles: loop %.2f ms, bulk %.2f ms, bulk with re-use %.2f ms\n",
+                              SIZE, loop_ms, bulk_ms, reuse_ms);
+        }
+    }
+}
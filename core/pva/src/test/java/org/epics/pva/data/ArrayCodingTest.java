@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.epics.pva.data;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.epics.pva.PVASettings;
+import org.junit.jupiter.api.Test;
+
+/** Check bulk encoding and decoding of arrays
+ *
+ *  <p>Result must match the element-by-element encoding
+ *  in both byte orders, also when the array data
+ *  does not start at the beginning of the buffer.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ArrayCodingTest
+{
+    private static final ByteOrder[] ORDERS = { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN };
+
+    /** @param order Byte order
+     *  @return Buffer that already has one byte of other data
+     */
+    private static ByteBuffer createBuffer(final ByteOrder order)
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(1000);
+        buffer.order(order);
+        buffer.put((byte) 42);
+        return buffer;
+    }
+
+    /** Decode from buffer, checking that all data was used
+     *  @param data Data to decode into
+     *  @param buffer Flipped buffer with one 'other' byte, then encoded data
+     *  @throws Exception on error
+     */
+    private static void decode(final PVAData data, final ByteBuffer buffer) throws Exception
+    {
+        assertThat(buffer.get(), equalTo((byte) 42));
+        data.decode(null, buffer);
+        assertThat(buffer.remaining(), equalTo(0));
+    }
+
+    @Test
+    public void testDouble() throws Exception
+    {
+        final double[] value = { 1.0, -2.5, Double.NaN, Double.MAX_VALUE, 3.14 };
+        for (ByteOrder order : ORDERS)
+        {
+            final ByteBuffer expected = createBuffer(order);
+            PVASize.encodeSize(value.length, expected);
+            for (double item : value)
+                expected.putDouble(item);
+
+            final ByteBuffer buffer = createBuffer(order);
+            new PVADoubleArray("value", value).encode(buffer);
+            buffer.flip();
+            expected.flip();
+            assertThat(buffer, equalTo(expected));
+
+            final PVADoubleArray decoded = new PVADoubleArray("value");
+            decode(decoded, buffer);
+            assertThat(decoded, equalTo(new PVADoubleArray("value", value)));
+        }
+    }
+
+    @Test
+    public void testFloat() throws Exception
+    {
+        final float[] value = { 1.0f, -2.5f, Float.NaN, 3.14f };
+        for (ByteOrder order : ORDERS)
+        {
+            final ByteBuffer expected = createBuffer(order);
+            PVASize.encodeSize(value.length, expected);
+            for (float item : value)
+                expected.putFloat(item);
+
+            final ByteBuffer buffer = createBuffer(order);
+            new PVAFloatArray("value", value).encode(buffer);
+            buffer.flip();
+            expected.flip();
+            assertThat(buffer, equalTo(expected));
+
+            final PVAFloatArray decoded = new PVAFloatArray("value");
+            decode(decoded, buffer);
+            assertThat(decoded, equalTo(new PVAFloatArray("value", value)));
+        }
+    }
+
+    @Test
+    public void testInt() throws Exception
+    {
+        final int[] value = { 1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        for (ByteOrder order : ORDERS)
+        {
+            final ByteBuffer expected = createBuffer(order);
+            PVASize.encodeSize(value.length, expected);
+            for (int item : value)
+                expected.putInt(item);
+
+            final ByteBuffer buffer = createBuffer(order);
+            new PVAIntArray("value", false, value).encode(buffer);
+            buffer.flip();
+            expected.flip();
+            assertThat(buffer, equalTo(expected));
+
+            final PVAIntArray decoded = new PVAIntArray("value", false);
+            decode(decoded, buffer);
+            assertThat(decoded, equalTo(new PVAIntArray("value", false, value)));
+        }
+    }
+
+    @Test
+    public void testShort() throws Exception
+    {
+        final short[] value = { 1, -2, Short.MAX_VALUE, Short.MIN_VALUE };
+        for (ByteOrder order : ORDERS)
+        {
+            final ByteBuffer expected = createBuffer(order);
+            PVASize.encodeSize(value.length, expected);
+            for (short item : value)
+                expected.putShort(item);
+
+            final ByteBuffer buffer = createBuffer(order);
+            new PVAShortArray("value", false, value).encode(buffer);
+            buffer.flip();
+            expected.flip();
+            assertThat(buffer, equalTo(expected));
+
+            final PVAShortArray decoded = new PVAShortArray("value", false);
+            decode(decoded, buffer);
+            assertThat(decoded, equalTo(new PVAShortArray("value", false, value)));
+        }
+    }
+
+    @Test
+    public void testLong() throws Exception
+    {
+        final long[] value = { 1, -2, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (ByteOrder order : ORDERS)
+        {
+            final ByteBuffer expected = createBuffer(order);
+            PVASize.encodeSize(value.length, expected);
+            for (long item : value)
+                expected.putLong(item);
+
+            final ByteBuffer buffer = createBuffer(order);
+            new PVALongArray("value", false, value).encode(buffer);
+            buffer.flip();
+            expected.flip();
+            assertThat(buffer, equalTo(expected));
+
+            final PVALongArray decoded = new PVALongArray("value", false);
+            decode(decoded, buffer);
+            assertThat(decoded, equalTo(new PVALongArray("value", false, value)));
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception
+    {
+        final ByteBuffer buffer = ByteBuffer.allocate(1000);
+        final PVADoubleArray decoded = new PVADoubleArray("value", new double[3]);
+        final double[] original = decoded.get();
+
+        final boolean orig_setting = PVASettings.EPICS_PVA_REUSE_ARRAYS;
+        try
+        {
+            // By default, decode into new array
+            PVASettings.EPICS_PVA_REUSE_ARRAYS = false;
+            new PVADoubleArray("value", 1, 2, 3).encode(buffer);
+            buffer.flip();
+            decoded.decode(null, buffer);
+            assertThat(decoded.get(), not(sameInstance(original)));
+
+            // Re-use array when enabled and size matches..
+            PVASettings.EPICS_PVA_REUSE_ARRAYS = true;
+            final double[] current = decoded.get();
+            buffer.clear();
+            new PVADoubleArray("value", 4, 5, 6).encode(buffer);
+            buffer.flip();
+            decoded.decode(null, buffer);
+            assertThat(decoded.get(), sameInstance(current));
+            assertThat(decoded.get()[2], equalTo(6.0));
+
+            // .. but not when size changes
+            buffer.clear();
+            new PVADoubleArray("value", 7, 8).encode(buffer);
+            buffer.flip();
+            decoded.decode(null, buffer);
+            assertThat(decoded.get(), not(sameInstance(current)));
+            assertThat(decoded.get().length, equalTo(2));
+        }
+        finally
+        {
+            PVASettings.EPICS_PVA_REUSE_ARRAYS = orig_setting;
+        }
+    }
+}
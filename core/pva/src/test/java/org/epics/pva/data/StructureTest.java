@@ -304,4 +304,39 @@ public class StructureTest
             assertThat(ex.getMessage(), containsString("Cannot locate 'x'"));
         }
     }
-}
\ No newline at end of file
+
+    /** Check index lookup in structure and sub-structure */
+    @Test
+    public void testIndex() throws Exception
+    {
+        final PVAInt nano = new PVAInt("nanoseconds");
+        final PVAStructure time = new PVAStructure("timeStamp", "time_t",
+                                                   new PVALong("secondsPastEpoch"),
+                                                   nano);
+        final PVAStructure data = new PVAStructure("demo", "NTBogus",
+                                                   new PVADouble("value", 3.14),
+                                                   time,
+                                                   new PVAInt("extra", 42));
+        // Every index maps to an element, and back
+        for (int i=0; i<6; ++i)
+            assertThat(data.getIndex(data.get(i)), equalTo(i));
+        assertThat(data.get(-1), nullValue());
+        assertThat(data.get(6), nullValue());
+
+        // Sub-structure indices are relative to that sub-structure
+        assertThat(data.getIndex(nano), equalTo(4));
+        assertThat(time.getIndex(nano), equalTo(2));
+        assertThat(time.get(0), sameInstance(time));
+
+        // Element with same name and type is not an element of the structure
+        try
+        {
+            data.getIndex(new PVAInt("nanoseconds"));
+            fail("Located element that is not in structure");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage(), containsString("Cannot locate"));
+        }
+    }
+}
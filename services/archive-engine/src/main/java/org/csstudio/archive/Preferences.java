@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018-2022 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import org.phoebus.framework.preferences.Preference;
 public class Preferences
 {
     @Preference public static String url;
+    @Preference public static String write_url;
     @Preference public static String user;
     @Preference public static String password;
     @Preference public static String schema;
@@ -25,10 +26,16 @@ public class Preferences
     @Preference public static String write_sample_table;
     @Preference public static int max_text_sample_length;
     @Preference public static boolean use_postgres_copy;
+    @Preference public static boolean use_postgres_binary_copy;
     @Preference public static String[] equivalent_pv_prefixes;
     @Preference public static int log_trouble_samples;
     @Preference public static int log_overrun;
     @Preference public static int write_period;
+    @Preference public static int write_threads;
+    @Preference public static String spill_directory;
+    @Preference public static int spill_segment_size;
+    @Preference public static int spill_max_size;
+    @Preference public static int spill_replay_rate;
     @Preference public static int max_repeats;
     @Preference public static int batch_size;
     @Preference public static double buffer_reserve;
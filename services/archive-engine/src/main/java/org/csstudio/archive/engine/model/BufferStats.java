@@ -61,4 +61,12 @@ public class BufferStats
     {
         ++overruns;
     }
+
+    /** Add overruns.
+     *  @param count Number of overruns
+     */
+    synchronized public void addOverruns(final int count)
+    {
+        overruns += count;
+    }
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010-2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,8 +40,8 @@ public class EngineModel
     /** Name of this model */
     private String name = "Archive Engine";  //$NON-NLS-1$
 
-    /** Thread that writes to the <code>archive</code> */
-    final private WriteThread writer;
+    /** Threads that write to the <code>archive</code> */
+    final private WriteThreads writer;
 
     /** All the channels.
      *  <p>
@@ -91,7 +91,7 @@ public class EngineModel
     /** Construct model that writes to archive */
     public EngineModel()
     {
-        writer = new WriteThread();
+        writer = new WriteThreads(Preferences.write_threads);
     }
 
     /** @return Name (description) */
@@ -308,6 +308,12 @@ public class EngineModel
         return writer.getWriteDuration();
     }
 
+    /** @return Write threads */
+    public List<WriteThread> getWriteThreads()
+    {
+        return writer.getThreads();
+    }
+
     /** @see Scanner#getIdlePercentage() */
     public double getIdlePercentage()
     {
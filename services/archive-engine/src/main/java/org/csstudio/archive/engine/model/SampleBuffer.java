@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010-2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,23 +7,79 @@
  ******************************************************************************/
 package org.csstudio.archive.engine.model;
 
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 
 import org.csstudio.archive.Preferences;
 import org.csstudio.archive.ThrottledLogger;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VByte;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VFloat;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VShort;
 import org.epics.vtype.VType;
-import org.phoebus.framework.util.RingBuffer;
 
 /** Buffer for the samples of one channel.
  *
- *  <p>Assumes that one thread adds samples, while a different
- *  thread removes them.
+ *  <p>Threads that add samples, mostly the PV callback,
+ *  and the one thread that removes them do not block each other.
  *  When the queue size is reached, older samples get dropped.
  *
+ *  <p>Scalar numeric samples with a valid time stamp are stored
+ *  as primitive time stamp and value, sharing the alarm and display
+ *  with the previous sample when they're equal.
+ *  The <code>VType</code> is re-created when the sample is removed.
+ *  Other samples are kept as they are.
+ *
+ *  <p>Samples are stored in chunks which are allocated as samples are added
+ *  and released once all their samples have been removed.
+ *
  *  @author Kay Kasemir
  */
 public class SampleBuffer
 {
+    /** Number of samples per storage chunk */
+    private static final int CHUNK_BITS = 4, CHUNK_SIZE = 1 << CHUNK_BITS, CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Kinds of stored samples */
+    private static final byte OBJECT = 0, DOUBLE = 1, FLOAT = 2, LONG = 3, INT = 4, SHORT = 5, BYTE = 6;
+
+    /** Time stamps within this many seconds from 1970 fit into epoch nanoseconds */
+    private static final long MAX_EPOCH_SECONDS = Long.MAX_VALUE / 1000000000L - 1;
+
+    /** Storage for the CHUNK_SIZE samples starting at position number * CHUNK_SIZE.
+     *  Each slot is written once, then read once.
+     */
+    private static class Chunk
+    {
+        final long number;
+        /** 1 when the sample in a slot has been written */
+        final AtomicIntegerArray written = new AtomicIntegerArray(CHUNK_SIZE);
+        final byte[] kind = new byte[CHUNK_SIZE];
+        /** Epoch nanoseconds and user tag of primitive samples */
+        final long[] stamp = new long[CHUNK_SIZE];
+        final Integer[] tag = new Integer[CHUNK_SIZE];
+        /** Value of primitive samples, <code>double</code> as raw bits */
+        final long[] value = new long[CHUNK_SIZE];
+        /** Alarm of primitive samples */
+        final Alarm[] alarm = new Alarm[CHUNK_SIZE];
+        /** Display of primitive samples, or the complete sample */
+        final Object[] object = new Object[CHUNK_SIZE];
+
+        Chunk(final long number)
+        {
+            this.number = number;
+        }
+    }
+
     /** Name of channel that writes to this buffer.
      *  (we keep only the name, not the full channel,
      *  to decouple stuff).
@@ -35,14 +91,28 @@ public class SampleBuffer
      */
     final private String retention;
 
-    /** The actual samples in a thread-save queue. */
-    final private RingBuffer<VType> samples;
+    /** Maximum number of samples */
+    final private int capacity;
+
+    /** Chunks that hold the samples from tail to head, indexed by chunk number */
+    final private AtomicReferenceArray<Chunk> chunks;
+    final private int chunk_mask;
+
+    /** Position of the next sample to add */
+    final private AtomicLong head = new AtomicLong();
+
+    /** Position of the next sample to remove */
+    final private AtomicLong tail = new AtomicLong();
+
+    /** Alarm and display of the last primitive sample, shared by following samples when equal */
+    private volatile Alarm last_alarm = null;
+    private volatile Display last_display = null;
 
     /** Statistics */
     final private BufferStats stats = new BufferStats();
 
     /** Number of overruns when new string of overruns started, or <code>null</code> */
-    private Integer start_of_overruns;
+    private volatile Integer start_of_overruns;
 
     /** Logger for overrun messages */
     final private static ThrottledLogger overrun_msg = new ThrottledLogger(Level.WARNING, Preferences.log_overrun);
@@ -66,7 +136,11 @@ public class SampleBuffer
     {
         this.channel_name = channel_name;
         this.retention = retention;
-        samples = new RingBuffer<>(capacity);
+        this.capacity = Math.max(1, capacity);
+        // 'capacity' samples can span one more chunk than they fill
+        final int count = (this.capacity + CHUNK_SIZE - 1) / CHUNK_SIZE + 1;
+        chunks = new AtomicReferenceArray<>(Integer.highestOneBit(count - 1) << 1);
+        chunk_mask = chunks.length() - 1;
     }
 
     /** @return channel name of this buffer */
@@ -84,19 +158,14 @@ public class SampleBuffer
     /** @return Queue capacity, i.e. maximum queue size. */
     public int getCapacity()
     {
-        synchronized (samples)
-        {
-            return samples.getCapacity();
-        }
+        return capacity;
     }
 
     /** @return Current queue size, i.e. number of samples in the queue. */
     public int getQueueSize()
     {
-        synchronized (samples)
-        {
-            return samples.size();
-        }
+        final long t = tail.get();
+        return (int) Math.max(0, Math.min(capacity, head.get() - t));
     }
 
     /** @return <code>true</code> if currently experiencing write errors */
@@ -111,34 +180,206 @@ public class SampleBuffer
         SampleBuffer.error = error;
     }
 
+    /** @param number Chunk number
+     *  @return Chunk, allocated if necessary,
+     *          or <code>null</code> if chunk has already been replaced by a newer one
+     */
+    private Chunk getChunk(final long number)
+    {
+        final int index = (int) number & chunk_mask;
+        while (true)
+        {
+            final Chunk chunk = chunks.get(index);
+            if (chunk != null  &&  chunk.number >= number)
+                return chunk.number == number ? chunk : null;
+            // Replace older chunk, which only holds samples that have been dropped
+            final Chunk created = new Chunk(number);
+            if (chunks.compareAndSet(index, chunk, created))
+                return created;
+        }
+    }
+
     /** Add a sample to the queue, maybe dropping older samples */
     @SuppressWarnings("nls")
     void add(final VType value)
     {
-        synchronized (samples)
+        final long p = head.getAndIncrement();
+
+        // When full, drop older samples
+        long dropped = 0;
+        long t = tail.get();
+        while (p - t >= capacity)
         {
-            if (samples.isFull())
-            {   // Note start of overruns, then drop older sample
-                if (start_of_overruns == null)
-                    start_of_overruns = Integer.valueOf(stats.getOverruns());
-                stats.addOverrun();
+            if (tail.compareAndSet(t, p - capacity + 1))
+            {
+                dropped = p - capacity + 1 - t;
+                break;
             }
-            else if (start_of_overruns != null)
+            t = tail.get();
+        }
+        if (dropped > 0)
+        {   // Note start of overruns
+            if (start_of_overruns == null)
+                start_of_overruns = Integer.valueOf(stats.getOverruns());
+            stats.addOverruns((int) dropped);
+        }
+        else
+        {
+            final Integer start = start_of_overruns;
+            if (start != null)
             {   // Ending a string of overruns. Maybe log it.
-                final int overruns = stats.getOverruns() - start_of_overruns;
+                final int overruns = stats.getOverruns() - start;
                 overrun_msg.log(channel_name + ": " + overruns + " overruns");
                 start_of_overruns = null;
             }
-            samples.add(value);
         }
+
+        final Chunk chunk = getChunk(p >>> CHUNK_BITS);
+        if (chunk == null)
+            return; // Newer samples have already been added, and this one was dropped
+        final int slot = (int) p & CHUNK_MASK;
+        store(chunk, slot, value);
+        chunk.written.set(slot, 1);
+    }
+
+    /** @param chunk Chunk
+     *  @param slot Slot in chunk
+     *  @param value Sample to store in slot
+     */
+    private void store(final Chunk chunk, final int slot, final VType value)
+    {
+        final byte kind = getKind(value);
+        chunk.kind[slot] = kind;
+        if (kind == OBJECT)
+        {
+            chunk.object[slot] = value;
+            return;
+        }
+
+        final VNumber number = (VNumber) value;
+        final Time time = number.getTime();
+        final Instant stamp = time.getTimestamp();
+        chunk.stamp[slot] = stamp.getEpochSecond() * 1000000000L + stamp.getNano();
+        chunk.tag[slot] = time.getUserTag();
+        if (kind == DOUBLE  ||  kind == FLOAT)
+            chunk.value[slot] = Double.doubleToRawLongBits(number.getValue().doubleValue());
+        else
+            chunk.value[slot] = number.getValue().longValue();
+
+        // Share alarm and display with previous sample when possible
+        Alarm alarm = number.getAlarm();
+        final Alarm last_alarm = this.last_alarm;
+        if (alarm.equals(last_alarm))
+            alarm = last_alarm;
+        else
+            this.last_alarm = alarm;
+        Display display = number.getDisplay();
+        final Display last_display = this.last_display;
+        if (display.equals(last_display))
+            display = last_display;
+        else
+            this.last_display = display;
+
+        chunk.alarm[slot] = alarm;
+        chunk.object[slot] = display;
+    }
+
+    /** @param value Sample
+     *  @return Kind of storage to use for the sample
+     */
+    private static byte getKind(final VType value)
+    {
+        if (! (value instanceof VNumber))
+            return OBJECT;
+        final VNumber number = (VNumber) value;
+        if (number.getAlarm() == null  ||  number.getDisplay() == null)
+            return OBJECT;
+        final Time time = number.getTime();
+        if (time == null  ||  !time.isValid())
+            return OBJECT;
+        final Instant stamp = time.getTimestamp();
+        if (stamp == null  ||  Math.abs(stamp.getEpochSecond()) > MAX_EPOCH_SECONDS)
+            return OBJECT;
+        if (value instanceof VDouble)
+            return DOUBLE;
+        if (value instanceof VFloat)
+            return FLOAT;
+        if (value instanceof VLong)
+            return LONG;
+        if (value instanceof VInt)
+            return INT;
+        if (value instanceof VShort)
+            return SHORT;
+        if (value instanceof VByte)
+            return BYTE;
+        return OBJECT;
     }
 
     /** @return latest sample in queue or <code>null</code> if empty */
     VType remove()
     {
-        synchronized (samples)
+        while (true)
+        {
+            final long t = tail.get();
+            if (t >= head.get())
+                return null;
+            final long number = t >>> CHUNK_BITS;
+            final int index = (int) number & chunk_mask;
+            final Chunk chunk = chunks.get(index);
+            if (chunk == null  ||  chunk.number < number)
+            {
+                if (tail.get() == t)
+                    return null; // Sample is still being added
+                continue; // Sample was dropped
+            }
+            if (chunk.number > number)
+                continue; // Sample was dropped
+            final int slot = (int) t & CHUNK_MASK;
+            if (chunk.written.get(slot) == 0)
+            {
+                if (tail.get() == t)
+                    return null; // Sample is still being added
+                continue; // Sample was dropped
+            }
+            if (! tail.compareAndSet(t, t + 1))
+                continue; // Sample was dropped while we looked at it
+            // Release chunk once its last sample has been removed
+            if (slot == CHUNK_MASK)
+                chunks.compareAndSet(index, chunk, null);
+            return get(chunk, slot);
+        }
+    }
+
+    /** @param chunk Chunk
+     *  @param slot Slot in chunk
+     *  @return Sample in slot
+     */
+    private static VType get(final Chunk chunk, final int slot)
+    {
+        final byte kind = chunk.kind[slot];
+        if (kind == OBJECT)
+            return (VType) chunk.object[slot];
+        final long stamp = chunk.stamp[slot];
+        final Time time = Time.of(Instant.ofEpochSecond(Math.floorDiv(stamp, 1000000000L),
+                                                        Math.floorMod(stamp, 1000000000L)),
+                                  chunk.tag[slot], true);
+        final long value = chunk.value[slot];
+        final Alarm alarm = chunk.alarm[slot];
+        final Display display = (Display) chunk.object[slot];
+        switch (kind)
         {
-            return samples.remove();
+        case DOUBLE:
+            return VDouble.of(Double.longBitsToDouble(value), alarm, time, display);
+        case FLOAT:
+            return VFloat.of((float) Double.longBitsToDouble(value), alarm, time, display);
+        case LONG:
+            return VLong.of(value, alarm, time, display);
+        case INT:
+            return VInt.of((int) value, alarm, time, display);
+        case SHORT:
+            return VShort.of((short) value, alarm, time, display);
+        default:
+            return VByte.of((byte) value, alarm, time, display);
         }
     }
 
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.epics.util.array.ArrayByte;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ListByte;
+import org.epics.util.array.ListNumber;
+import org.epics.util.stats.Range;
+import org.epics.util.text.NumberFormats;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.EnumDisplay;
+import org.epics.vtype.Time;
+import org.epics.vtype.VByteArray;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VFloat;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VString;
+import org.epics.vtype.VStringArray;
+import org.epics.vtype.VType;
+
+/** Encode and decode samples for the {@link SpillQueue}
+ *
+ *  <p>Keeps what the archive writer uses:
+ *  Time stamp, alarm, value, numeric display or enum labels.
+ *  Numeric arrays other than byte arrays are kept as double arrays,
+ *  unknown types as their string representation.
+ *
+ *  @author Kay Kasemir
+ */
+class SpillCodec
+{
+    /** Spilled sample */
+    static record Sample(String channel, String retention, VType value)
+    {
+    }
+
+    private static final byte DOUBLE = 0, LONG = 1, DOUBLE_ARRAY = 2, BYTE_ARRAY = 3, ENUM = 4, STRING = 5, STRING_ARRAY = 6;
+
+    /** @param out Output
+     *  @param channel Channel name
+     *  @param retention Data retention, may be <code>null</code>
+     *  @param value Sample
+     *  @throws IOException on error
+     */
+    static void encode(final DataOutput out, final String channel, final String retention, final VType value) throws IOException
+    {
+        writeString(out, channel);
+        out.writeBoolean(retention != null);
+        if (retention != null)
+            writeString(out, retention);
+
+        // Invalid time stamps would be written as 'now', so do that right away
+        final Time time = Time.timeOf(value);
+        final Instant stamp = time != null  &&  time.isValid() ? time.getTimestamp() : Instant.now();
+        out.writeLong(stamp.getEpochSecond());
+        out.writeInt(stamp.getNano());
+
+        Alarm alarm = Alarm.alarmOf(value);
+        if (alarm == null)
+            alarm = Alarm.none();
+        out.writeByte(alarm.getSeverity().ordinal());
+        out.writeByte(alarm.getStatus().ordinal());
+        writeString(out, alarm.getName());
+
+        if (value instanceof VNumber)
+        {
+            final Number number = ((VNumber) value).getValue();
+            if (value instanceof VDouble  ||  value instanceof VFloat  ||
+                number instanceof Double  ||  number instanceof Float)
+            {
+                out.writeByte(DOUBLE);
+                out.writeDouble(number.doubleValue());
+            }
+            else
+            {
+                out.writeByte(LONG);
+                out.writeLong(number.longValue());
+            }
+            writeDisplay(out, ((VNumber) value).getDisplay());
+        }
+        else if (value instanceof VByteArray)
+        {
+            final ListByte data = ((VByteArray) value).getData();
+            final int N = data.size();
+            out.writeByte(BYTE_ARRAY);
+            out.writeInt(N);
+            for (int i=0; i<N; ++i)
+                out.writeByte(data.getByte(i));
+            writeDisplay(out, ((VByteArray) value).getDisplay());
+        }
+        else if (value instanceof VNumberArray)
+        {
+            final ListNumber data = ((VNumberArray) value).getData();
+            final int N = data.size();
+            out.writeByte(DOUBLE_ARRAY);
+            out.writeInt(N);
+            for (int i=0; i<N; ++i)
+                out.writeDouble(data.getDouble(i));
+            writeDisplay(out, ((VNumberArray) value).getDisplay());
+        }
+        else if (value instanceof VEnum)
+        {
+            final VEnum venum = (VEnum) value;
+            out.writeByte(ENUM);
+            out.writeInt(venum.getIndex());
+            writeStrings(out, venum.getDisplay().getChoices());
+        }
+        else if (value instanceof VStringArray)
+        {
+            out.writeByte(STRING_ARRAY);
+            writeStrings(out, ((VStringArray) value).getData());
+        }
+        else
+        {
+            out.writeByte(STRING);
+            writeString(out, value instanceof VString ? ((VString) value).getValue() : String.valueOf(value));
+        }
+    }
+
+    /** @param in Input
+     *  @return Sample
+     *  @throws IOException on error
+     */
+    static Sample decode(final DataInput in) throws IOException
+    {
+        final String channel = readString(in);
+        final String retention = in.readBoolean() ? readString(in) : null;
+        final Time time = Time.of(Instant.ofEpochSecond(in.readLong(), in.readInt()));
+        final AlarmSeverity severity = AlarmSeverity.values()[in.readByte()];
+        final AlarmStatus status = AlarmStatus.values()[in.readByte()];
+        final Alarm alarm = Alarm.of(severity, status, readString(in));
+
+        final byte type = in.readByte();
+        final VType value;
+        switch (type)
+        {
+        case DOUBLE:
+        {
+            final double number = in.readDouble();
+            value = VDouble.of(number, alarm, time, readDisplay(in));
+            break;
+        }
+        case LONG:
+        {
+            final long number = in.readLong();
+            value = VLong.of(number, alarm, time, readDisplay(in));
+            break;
+        }
+        case DOUBLE_ARRAY:
+        {
+            final double[] data = new double[in.readInt()];
+            for (int i=0; i<data.length; ++i)
+                data[i] = in.readDouble();
+            value = VDoubleArray.of(ArrayDouble.of(data), alarm, time, readDisplay(in));
+            break;
+        }
+        case BYTE_ARRAY:
+        {
+            final byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            value = VByteArray.of(ArrayByte.of(data), alarm, time, readDisplay(in));
+            break;
+        }
+        case ENUM:
+        {
+            final int index = in.readInt();
+            value = VEnum.of(index, EnumDisplay.of(readStrings(in)), alarm, time);
+            break;
+        }
+        case STRING:
+            value = VString.of(readString(in), alarm, time);
+            break;
+        case STRING_ARRAY:
+            value = VStringArray.of(readStrings(in), alarm, time);
+            break;
+        default:
+            throw new IOException("Unknown sample type " + type);
+        }
+        return new Sample(channel, retention, value);
+    }
+
+    private static void writeDisplay(final DataOutput out, final Display display) throws IOException
+    {
+        out.writeBoolean(display != null);
+        if (display == null)
+            return;
+        writeRange(out, display.getDisplayRange());
+        writeRange(out, display.getAlarmRange());
+        writeRange(out, display.getWarningRange());
+        writeRange(out, display.getControlRange());
+        writeString(out, display.getUnit());
+        final NumberFormat format = display.getFormat();
+        out.writeInt(format == null ? -1 : format.getMinimumFractionDigits());
+    }
+
+    private static Display readDisplay(final DataInput in) throws IOException
+    {
+        if (! in.readBoolean())
+            return Display.none();
+        final Range display = readRange(in);
+        final Range alarm = readRange(in);
+        final Range warning = readRange(in);
+        final Range control = readRange(in);
+        final String units = readString(in);
+        final int precision = in.readInt();
+        return Display.of(display, alarm, warning, control, units,
+                          precision < 0 ? NumberFormats.toStringFormat() : NumberFormats.precisionFormat(precision));
+    }
+
+    private static void writeRange(final DataOutput out, final Range range) throws IOException
+    {
+        out.writeDouble(range.getMinimum());
+        out.writeDouble(range.getMaximum());
+    }
+
+    private static Range readRange(final DataInput in) throws IOException
+    {
+        final double min = in.readDouble(), max = in.readDouble();
+        if (Double.isNaN(min)  &&  Double.isNaN(max))
+            return Range.undefined();
+        return Range.of(min, max);
+    }
+
+    private static void writeStrings(final DataOutput out, final List<String> strings) throws IOException
+    {
+        out.writeInt(strings.size());
+        for (String text : strings)
+            writeString(out, text);
+    }
+
+    private static List<String> readStrings(final DataInput in) throws IOException
+    {
+        final int N = in.readInt();
+        final List<String> strings = new ArrayList<>(N);
+        for (int i=0; i<N; ++i)
+            strings.add(readString(in));
+        return strings;
+    }
+
+    /** Write string as length and UTF-8, not limited to 64k like writeUTF */
+    private static void writeString(final DataOutput out, final String text) throws IOException
+    {
+        final byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInput in) throws IOException
+    {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.csstudio.archive.Engine.logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+import org.epics.vtype.VType;
+import org.phoebus.core.vtypes.VTypeHelper;
+
+/** Disk-backed queue for samples that could not be written
+ *
+ *  <p>Samples are appended to {@link SpillSegment} files in a directory.
+ *  When the queue is read, samples are returned in the order
+ *  in which they were appended.
+ *  Samples that have been read are only removed from the queue
+ *  once they are committed, i.e. after they have been written
+ *  to the archive.
+ *  Segment files that remain from a previous run are read first.
+ *
+ *  <p>Calls are synchronized, but the queue is meant to be
+ *  used by one {@link WriteThread}, with the web server reading statistics.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class SpillQueue
+{
+    /** Output stream with access to its buffer */
+    private static class Buffer extends ByteArrayOutputStream
+    {
+        byte[] get()
+        {
+            return buf;
+        }
+    }
+
+    private final File directory;
+    private final int segment_size;
+    private final long max_size;
+
+    /** Segments, oldest first */
+    private final List<SpillSegment> segments = new ArrayList<>();
+
+    /** Segment to which we append, <code>null</code> to start a new one */
+    private SpillSegment append_segment = null;
+
+    /** Index of segment from which we read */
+    private int read_index = 0;
+
+    /** Number for the next segment file */
+    private long next_segment;
+
+    private final Buffer buffer = new Buffer();
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    /** Total number of bytes spilled */
+    private long spilled_bytes = 0;
+
+    /** Time stamp of last sample read, and of last sample committed */
+    private Instant last_read = null, last_committed = null;
+
+    /** @param directory Directory for segment files, will be created
+     *  @param segment_size Size of each segment file
+     *  @param max_size Maximum total size of segment files
+     *  @throws IOException on error
+     */
+    SpillQueue(final File directory, final int segment_size, final long max_size) throws IOException
+    {
+        this.directory = directory;
+        this.segment_size = segment_size;
+        this.max_size = max_size;
+        if (! directory.isDirectory()  &&  ! directory.mkdirs())
+            throw new IOException("Cannot create spill directory " + directory);
+
+        // Open existing segments. They are not appended,
+        // new samples always go to a new segment.
+        final File[] files = listSegments(directory);
+        next_segment = 0;
+        for (File file : files)
+        {
+            try
+            {
+                next_segment = Math.max(next_segment, getSegmentNumber(file) + 1);
+                final SpillSegment segment = new SpillSegment(file);
+                if (segment.isDone())
+                    delete(segment);
+                else
+                    segments.add(segment);
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Ignoring spill segment " + file, ex);
+            }
+        }
+        if (! segments.isEmpty())
+            logger.log(Level.INFO, "Found " + segments.size() + " spill segments with " + getPendingBytes() + " bytes in " + directory);
+    }
+
+    /** @param directory Directory
+     *  @return Segment files in the directory, sorted by number
+     */
+    private static File[] listSegments(final File directory)
+    {
+        final File[] files = directory.listFiles((dir, name) -> name.endsWith(".spill"));
+        if (files == null)
+            return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    /** @param file Segment file
+     *  @return Number of the segment
+     *  @throws NumberFormatException if file name is not a segment number
+     */
+    private static long getSegmentNumber(final File file)
+    {
+        return Long.parseLong(file.getName().replace(".spill", ""));
+    }
+
+    /** Move segment files to another directory
+     *
+     *  <p>Segments are appended to those found in the target directory,
+     *  keeping their order.
+     *  Must be called before a {@link SpillQueue} is created for either directory.
+     *
+     *  @param from Directory with segment files
+     *  @param to Target directory, will be created
+     *  @return Number of segment files that were moved
+     *  @throws IOException on error
+     */
+    static int moveSegments(final File from, final File to) throws IOException
+    {
+        final File[] files = listSegments(from);
+        if (files.length <= 0)
+            return 0;
+        if (! to.isDirectory()  &&  ! to.mkdirs())
+            throw new IOException("Cannot create spill directory " + to);
+        long next = 0;
+        for (File file : listSegments(to))
+            next = Math.max(next, getSegmentNumber(file) + 1);
+        for (File file : files)
+            Files.move(file.toPath(), new File(to, String.format("%016d.spill", next++)).toPath());
+        return files.length;
+    }
+
+    /** @return Directory used by the queue */
+    File getDirectory()
+    {
+        return directory;
+    }
+
+    /** @return <code>true</code> if nothing to read */
+    synchronized boolean isEmpty()
+    {
+        return segments.isEmpty();
+    }
+
+    /** @return <code>true</code> if queue reached its maximum size */
+    synchronized boolean isFull()
+    {
+        return (long) segments.size() * segment_size >= max_size;
+    }
+
+    /** @param channel Channel name
+     *  @param retention Data retention, may be <code>null</code>
+     *  @param value Sample to append
+     *  @throws IOException on error
+     */
+    synchronized void append(final String channel, final String retention, final VType value) throws IOException
+    {
+        buffer.reset();
+        SpillCodec.encode(out, channel, retention, value);
+        final int length = buffer.size();
+        if (SpillSegment.HEADER + SpillSegment.RECORD_HEADER + length > segment_size)
+            throw new IOException("Sample for " + channel + " exceeds spill segment size");
+        if (append_segment == null  ||  ! append_segment.append(buffer.get(), length))
+        {
+            if (append_segment != null)
+                append_segment.force();
+            final File file = new File(directory, String.format("%016d.spill", next_segment++));
+            append_segment = new SpillSegment(file, segment_size);
+            segments.add(append_segment);
+            append_segment.append(buffer.get(), length);
+        }
+        spilled_bytes += length;
+    }
+
+    /** Write appended samples to disk */
+    synchronized void force()
+    {
+        if (append_segment != null)
+            append_segment.force();
+    }
+
+    /** @return Next sample or <code>null</code> */
+    synchronized SpillCodec.Sample read()
+    {
+        while (read_index < segments.size())
+        {
+            final byte[] data = segments.get(read_index).read();
+            if (data == null)
+            {
+                ++read_index;
+                continue;
+            }
+            try
+            {
+                final SpillCodec.Sample sample = SpillCodec.decode(new DataInputStream(new ByteArrayInputStream(data)));
+                last_read = VTypeHelper.getTimestamp(sample.value());
+                return sample;
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Skipping invalid sample in " + segments.get(read_index).getFile(), ex);
+            }
+        }
+        // Start a new segment for further appends,
+        // allowing commit() to delete the one that's been read
+        append_segment = null;
+        return null;
+    }
+
+    /** Remove samples that have been read from the queue */
+    synchronized void commit()
+    {
+        for (SpillSegment segment : segments)
+            segment.commit();
+        for (int i=segments.size()-1; i>=0; --i)
+        {
+            final SpillSegment segment = segments.get(i);
+            if (segment.isDone()  &&  segment != append_segment)
+            {
+                segments.remove(i);
+                delete(segment);
+            }
+        }
+        read_index = 0;
+        last_committed = last_read;
+    }
+
+    /** Return samples that have been read to the queue */
+    synchronized void rollback()
+    {
+        for (SpillSegment segment : segments)
+            segment.rollback();
+        read_index = 0;
+    }
+
+    private void delete(final SpillSegment segment)
+    {
+        // Release the memory mapping, otherwise the file
+        // cannot be deleted on Windows, and address space leaks
+        segment.close();
+        if (! segment.getFile().delete())
+            logger.log(Level.WARNING, "Cannot delete spill segment " + segment.getFile());
+    }
+
+    /** @return Number of segment files */
+    synchronized int getSegmentCount()
+    {
+        return segments.size();
+    }
+
+    /** @return Total number of bytes spilled */
+    synchronized long getSpilledBytes()
+    {
+        return spilled_bytes;
+    }
+
+    /** @return Number of bytes waiting to be written */
+    synchronized long getPendingBytes()
+    {
+        long pending = 0;
+        for (SpillSegment segment : segments)
+            pending += segment.getPending();
+        return pending;
+    }
+
+    /** @return Age of the last sample written from the queue, zero when empty */
+    synchronized Duration getReplayLag()
+    {
+        if (segments.isEmpty()  ||  last_committed == null)
+            return Duration.ZERO;
+        return Duration.between(last_committed, Instant.now());
+    }
+
+    /** Write remaining samples to disk */
+    synchronized void close()
+    {
+        for (SpillSegment segment : segments)
+        {
+            segment.force();
+            segment.close();
+        }
+        segments.clear();
+        append_segment = null;
+    }
+}
@@ -0,0 +1,258 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.csstudio.archive.Engine.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.logging.Level;
+import java.util.zip.CRC32;
+
+/** Memory-mapped, append-only segment file of the {@link SpillQueue}
+ *
+ *  <pre>
+ *  int  magic
+ *  int  unused
+ *  long read position, i.e. offset of first record that has not been replayed
+ *  Records:
+ *    int length of data, 0 for end of data
+ *    int CRC32 of data
+ *    byte[length] data
+ *  </pre>
+ *
+ *  <p>The length of a record is written last,
+ *  and the CRC detects records that were not completely written
+ *  when the engine or host crashed.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class SpillSegment
+{
+    private static final int MAGIC = 0x5350494C;
+
+    /** Size of segment header */
+    static final int HEADER = 16;
+
+    /** Offset of read position in header */
+    private static final int READ_POSITION = 8;
+
+    /** Size of record header */
+    static final int RECORD_HEADER = 8;
+
+    /** 'Unsafe' instance and its 'invokeCleaner' method to unmap buffers, or <code>null</code> */
+    private static final Object unsafe;
+    private static final Method unmapper;
+
+    static
+    {
+        Object instance = null;
+        Method method = null;
+        try
+        {
+            final Class<?> clazz = Class.forName("sun.misc.Unsafe");
+            final Field field = clazz.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            instance = field.get(null);
+            method = clazz.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Cannot unmap spill segments", ex);
+            instance = null;
+            method = null;
+        }
+        unsafe = instance;
+        unmapper = method;
+    }
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+
+    /** Offset for next record to append */
+    private int write_position;
+
+    /** Offset of next record to read, and of the first record not yet committed */
+    private int read_position, committed_position;
+
+    /** Create new segment
+     *  @param file File to create
+     *  @param size Size of the file
+     *  @throws IOException on error
+     */
+    SpillSegment(final File file, final int size) throws IOException
+    {
+        this.file = file;
+        try
+        (
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            FileChannel channel = raf.getChannel();
+        )
+        {
+            raf.setLength(size);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putLong(READ_POSITION, HEADER);
+        write_position = read_position = committed_position = HEADER;
+    }
+
+    /** Open existing segment
+     *  @param file File to open
+     *  @throws IOException on error
+     */
+    SpillSegment(final File file) throws IOException
+    {
+        this.file = file;
+        try
+        (
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            FileChannel channel = raf.getChannel();
+        )
+        {
+            if (channel.size() < HEADER  ||  channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Invalid spill segment size " + channel.size());
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException("Invalid spill segment " + file);
+        final long position = buffer.getLong(READ_POSITION);
+        if (position < HEADER  ||  position > buffer.capacity())
+            throw new IOException("Invalid read position " + position + " in " + file);
+        read_position = committed_position = (int) position;
+
+        // Locate end of valid records
+        write_position = read_position;
+        while (getRecordLength(write_position) > 0)
+            write_position += RECORD_HEADER + getRecordLength(write_position);
+    }
+
+    /** @return Segment file */
+    File getFile()
+    {
+        return file;
+    }
+
+    /** @return Size of segment file */
+    int getSize()
+    {
+        return buffer.capacity();
+    }
+
+    /** @return Number of bytes that have not been read */
+    int getPending()
+    {
+        return write_position - committed_position;
+    }
+
+    /** @return <code>true</code> when all records have been read and committed */
+    boolean isDone()
+    {
+        return committed_position >= write_position;
+    }
+
+    /** @param offset Offset of a record
+     *  @return Length of valid record at offset, or 0
+     */
+    private int getRecordLength(final int offset)
+    {
+        if (offset + RECORD_HEADER > buffer.capacity())
+            return 0;
+        final int length = buffer.getInt(offset);
+        if (length <= 0  ||  offset + RECORD_HEADER + length > buffer.capacity())
+            return 0;
+        final byte[] data = new byte[length];
+        buffer.get(offset + RECORD_HEADER, data);
+        crc.reset();
+        crc.update(data);
+        if ((int) crc.getValue() != buffer.getInt(offset + 4))
+        {
+            logger.log(Level.WARNING, "Spill segment " + file + " has invalid record at offset " + offset);
+            return 0;
+        }
+        return length;
+    }
+
+    /** @param data Buffer with record data
+     *  @param length Length of record data
+     *  @return <code>true</code> if record was appended, <code>false</code> if segment is full
+     */
+    boolean append(final byte[] data, final int length)
+    {
+        if (write_position + RECORD_HEADER + length > buffer.capacity())
+            return false;
+        crc.reset();
+        crc.update(data, 0, length);
+        buffer.putInt(write_position + 4, (int) crc.getValue());
+        buffer.put(write_position + RECORD_HEADER, data, 0, length);
+        // Length marks the record as complete
+        buffer.putInt(write_position, length);
+        write_position += RECORD_HEADER + length;
+        return true;
+    }
+
+    /** @return Data of next record or <code>null</code> */
+    byte[] read()
+    {
+        if (read_position >= write_position)
+            return null;
+        final int length = buffer.getInt(read_position);
+        final byte[] data = new byte[length];
+        buffer.get(read_position + RECORD_HEADER, data);
+        read_position += RECORD_HEADER + length;
+        return data;
+    }
+
+    /** Mark records read so far as done */
+    void commit()
+    {
+        committed_position = read_position;
+        buffer.putLong(READ_POSITION, committed_position);
+    }
+
+    /** Reset to read uncommitted records again */
+    void rollback()
+    {
+        read_position = committed_position;
+    }
+
+    /** Write changes to disk */
+    void force()
+    {
+        buffer.force();
+    }
+
+    /** Release the memory mapping
+     *
+     *  <p>A mapped buffer is otherwise only released when garbage collected,
+     *  which keeps the file from being deleted on Windows
+     *  and holds on to address space.
+     *  The segment must not be used after calling this method.
+     */
+    void close()
+    {
+        if (unmapper == null)
+            return;
+        try
+        {
+            unmapper.invoke(unsafe, buffer);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.FINE, "Cannot unmap spill segment " + file, ex);
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010-2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -9,14 +9,20 @@ package org.csstudio.archive.engine.model;
 
 import static org.csstudio.archive.Engine.logger;
 
+import java.io.File;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.logging.Level;
 
+import org.csstudio.archive.Preferences;
 import org.csstudio.archive.writer.ArchiveWriter;
 import org.csstudio.archive.writer.ArchiveWriterFactory;
 import org.csstudio.archive.writer.WriteChannel;
 import org.epics.vtype.VType;
+import org.phoebus.core.vtypes.VTypeHelper;
 
 /** Thread that writes values from multiple <code>SampleBuffer</code>s
  *  to an <code>RDBArchiveServer</code>.
@@ -28,6 +34,18 @@ import org.epics.vtype.VType;
  *  be lost.
  *  The channels that add samples to the sample buffer supposedly notice
  *  the error condition and add a special indicator once we recover.
+ *  <p>
+ *  After repeated errors, the delay between reconnect attempts
+ *  is extended up to a multiple of the write period.
+ *  <p>
+ *  When a spill directory is configured, samples are moved
+ *  from the sample buffers into a {@link SpillQueue} on disk while
+ *  there are errors, and written to the archive after recovery
+ *  at a limited rate in addition to the current samples.
+ *  <p>
+ *  Each thread has its own <code>ArchiveWriter</code>
+ *  and handles a subset of the channels,
+ *  see {@link WriteThreads}.
  *
  *  @author Kay Kasemir
  */
@@ -36,6 +54,15 @@ public class WriteThread implements Runnable
     /** Minimum write period [seconds] */
     private static final double MIN_WRITE_PERIOD = 5.0;
 
+    /** Maximum factor by which errors extend the write period */
+    private static final int MAX_BACKOFF = 8;
+
+    /** Name of the thread */
+    private final String name;
+
+    /** Called when the error state may have changed */
+    private final Runnable error_listener;
+
     /** Server to which this thread writes. */
     private ArchiveWriter writer;
 
@@ -66,9 +93,69 @@ public class WriteThread implements Runnable
     /** Average duration of write run */
     private Average write_time = new Average();
 
+    /** Is the last write or reconnect attempt in error? */
+    private volatile boolean write_error = false;
+
+    /** Number of errors since last successful write */
+    private volatile int consecutive_errors = 0;
+
+    /** Total number of write errors */
+    private volatile long error_count = 0;
+
+    /** Queue for samples that could not be written, or <code>null</code> */
+    private final SpillQueue spill;
+
     /** Thread the executes this.run() */
     private Thread thread;
 
+    /** @param name Name of the thread
+     *  @param spill_directory Directory for spilled samples, <code>null</code> to disable
+     *  @param error_listener Called when the error state may have changed
+     */
+    WriteThread(final String name, final File spill_directory, final Runnable error_listener)
+    {
+        this.name = name;
+        this.error_listener = error_listener;
+        this.spill = createSpillQueue(name, spill_directory);
+    }
+
+    /** @param name Name of the thread
+     *  @param directory Directory for spilled samples, <code>null</code> to disable
+     *  @return {@link SpillQueue} or <code>null</code>
+     */
+    @SuppressWarnings("nls")
+    private static SpillQueue createSpillQueue(final String name, final File directory)
+    {
+        if (directory == null)
+            return null;
+        try
+        {
+            return new SpillQueue(directory,
+                                  Preferences.spill_segment_size * 1024 * 1024,
+                                  Preferences.spill_max_size * 1024L * 1024L);
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.SEVERE, name + " cannot spill to " + directory, ex);
+            return null;
+        }
+    }
+
+    /** @return Name of the thread */
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return Number of channels written by this thread */
+    public int getChannelCount()
+    {
+        synchronized (buffers)
+        {
+            return buffers.size();
+        }
+    }
+
     /** Add a channel's buffer that this thread reads */
     public void addChannel(final ArchiveChannel channel)
     {
@@ -78,7 +165,10 @@ public class WriteThread implements Runnable
     /** Add a sample buffer that this thread reads */
     void addSampleBuffer(final SampleBuffer buffer)
     {
-        buffers.add(buffer);
+        synchronized (buffers)
+        {
+            buffers.add(buffer);
+        }
     }
 
     /** Start the write thread.
@@ -96,7 +186,7 @@ public class WriteThread implements Runnable
         }
         millisec_delay = (int)(1000.0 * write_period);
         this.batch_size = batch_size;
-        thread = new Thread(this, "WriteThread");
+        thread = new Thread(this, name);
         thread.start();
     }
 
@@ -108,7 +198,7 @@ public class WriteThread implements Runnable
     }
 
     /** Ask the write thread to stop ASAP. */
-    private void stop()
+    void stop()
     {
         do_run = false;
         synchronized (wait_block)
@@ -135,6 +225,48 @@ public class WriteThread implements Runnable
         return write_time.get();
     }
 
+    /** @return <code>true</code> if last write or reconnect failed */
+    public boolean isInErrorState()
+    {
+        return write_error;
+    }
+
+    /** @return Total number of write errors */
+    public long getErrorCount()
+    {
+        return error_count;
+    }
+
+    /** @return <code>true</code> if samples are spilled to disk on errors */
+    public boolean isSpillEnabled()
+    {
+        return spill != null;
+    }
+
+    /** @return Number of spill segment files */
+    public int getSpillSegmentCount()
+    {
+        return spill == null ? 0 : spill.getSegmentCount();
+    }
+
+    /** @return Total number of bytes spilled to disk */
+    public long getSpilledBytes()
+    {
+        return spill == null ? 0 : spill.getSpilledBytes();
+    }
+
+    /** @return Number of spilled bytes waiting to be written */
+    public long getSpillPendingBytes()
+    {
+        return spill == null ? 0 : spill.getPendingBytes();
+    }
+
+    /** @return Age of last spilled sample that was written */
+    public Duration getSpillReplayLag()
+    {
+        return spill == null ? Duration.ZERO : spill.getReplayLag();
+    }
+
     /** 'Main loop' of the write thread.
      *  <p>
      *  Writes all values out, then waits.
@@ -152,8 +284,7 @@ public class WriteThread implements Runnable
     @SuppressWarnings("nls")
     public void run()
     {
-        logger.info("WriteThread starts");
-        boolean write_error = false;
+        logger.info(name + " starts");
         do_run = true;
         while (do_run)
         {
@@ -177,7 +308,8 @@ public class WriteThread implements Runnable
                 final long start = System.currentTimeMillis();
                 // In case of a network problem, we can hang in here
                 // for a long time...
-                final long written = write();
+                final long written = write() + replay();
+                consecutive_errors = 0;
                 final long milli = System.currentTimeMillis() - start;
                 last_write_stamp = Instant.now();
                 write_count.update(written);
@@ -187,30 +319,39 @@ public class WriteThread implements Runnable
             }
             catch (Exception ex)
             {   // Error in write() or the preceding reconnect()...
-                logger.log(Level.WARNING, "Error, will try to reconnect", ex);
-                // Use max. delay
-                delay = millisec_delay;
+                ++error_count;
+                ++consecutive_errors;
+                // Use max. delay, extended after consecutive errors
+                delay = millisec_delay * Math.min(1 << Math.min(consecutive_errors-1, 3), MAX_BACKOFF);
+                logger.log(Level.WARNING, name + " error, will try to reconnect in " + delay/1000 + " seconds", ex);
                 write_error = true;
+                spill();
             }
-            SampleBuffer.setErrorState(write_error);
+            error_listener.run();
             // See if there's any time left to wait,
             // or if we already used all that time in the last 'write'
-            if (delay > 0)
+            while (delay > 0  &&  do_run)
             {
+                // While waiting to reconnect, keep spilling once per write period
+                final boolean spilling = write_error  &&  spill != null;
+                final long wait = spilling ? Math.min(delay, millisec_delay) : delay;
                 synchronized (wait_block)
                 {
                     try
                     {
-                        wait_block.wait(delay);
+                        wait_block.wait(wait);
                     }
                     catch (InterruptedException ex)
                     {
                         logger.log(Level.WARNING, "Interrupted wait", ex);
                     }
                 }
+                delay -= wait;
+                if (spilling  &&  delay > 0  &&  do_run)
+                    spill();
             }
         }
-        logger.info("WriteThread exists");
+        logger.info(name + " exits");
     }
 
     /** Stop the write thread, performing a final write. */
@@ -224,10 +365,20 @@ public class WriteThread implements Runnable
         // Errors in this last write are passed up.
         try
         {
+            if (writer == null)
+                writer = ArchiveWriterFactory.getArchiveWriter();
             write();
         }
+        catch (Exception ex)
+        {
+            // Keep what's left for the next run
+            spill();
+            throw ex;
+        }
         finally
         {
+            if (spill != null)
+                spill.close();
             if (writer != null)
             {
                 writer.close();
@@ -243,6 +394,11 @@ public class WriteThread implements Runnable
     {
         int total_count = 0;
         int count = 0;
+        final SampleBuffer[] buffers;
+        synchronized (this.buffers)
+        {
+            buffers = this.buffers.toArray(new SampleBuffer[this.buffers.size()]);
+        }
         for (SampleBuffer buffer : buffers)
         {
             // Update max buffer length etc. before we start to remove samples
@@ -272,4 +428,97 @@ public class WriteThread implements Runnable
         total_count += count;
         return total_count;
     }
+
+    /** Move samples from the sample buffers to the spill queue,
+     *  sorted by time stamp
+     */
+    @SuppressWarnings("nls")
+    private void spill()
+    {
+        if (spill == null)
+            return;
+        final SampleBuffer[] buffers;
+        synchronized (this.buffers)
+        {
+            buffers = this.buffers.toArray(new SampleBuffer[this.buffers.size()]);
+        }
+        final List<SpillCodec.Sample> samples = new ArrayList<>();
+        for (SampleBuffer buffer : buffers)
+        {
+            // Leave remaining samples in the buffers when the spill is full
+            if (spill.isFull())
+            {
+                logger.log(Level.WARNING, name + " spill directory " + spill.getDirectory() + " is full");
+                break;
+            }
+            buffer.updateStats();
+            final String name = buffer.getChannelName();
+            final String retention = buffer.getArchiveDataRetention();
+            VType sample = buffer.remove();
+            while (sample != null)
+            {
+                samples.add(new SpillCodec.Sample(name, retention, sample));
+                sample = buffer.remove();
+            }
+        }
+        if (samples.isEmpty())
+            return;
+        samples.sort(Comparator.comparing(sample -> VTypeHelper.getTimestamp(sample.value())));
+        try
+        {
+            for (SpillCodec.Sample sample : samples)
+                spill.append(sample.channel(), sample.retention(), sample.value());
+        }
+        catch (Exception ex)
+        {
+            logger.log(Level.WARNING, name + " cannot spill samples to " + spill.getDirectory(), ex);
+        }
+        finally
+        {
+            spill.force();
+        }
+        logger.log(Level.FINE, () -> name + " spilled " + samples.size() + " samples");
+    }
+
+    /** Write samples from the spill queue,
+     *  limited to the replay rate for one write period
+     *
+     *  <p>The spill queue is committed after each flush,
+     *  so an error only replays samples that have not been written.
+     *
+     *  @return number of samples written
+     */
+    private long replay() throws Exception
+    {
+        if (spill == null  ||  spill.isEmpty())
+            return 0;
+        final long max = Math.max(1, Preferences.spill_replay_rate * millisec_delay / 1000);
+        long count = 0;
+        try
+        {
+            SpillCodec.Sample sample = spill.read();
+            while (sample != null)
+            {
+                final WriteChannel channel = writer.getChannel(sample.channel(), sample.retention());
+                writer.addSample(channel, sample.value());
+                if (++count % batch_size == 0)
+                {
+                    writer.flush();
+                    spill.commit();
+                }
+                if (count >= max)
+                    break;
+                sample = spill.read();
+            }
+            writer.flush();
+            spill.commit();
+        }
+        catch (Exception ex)
+        {
+            // Keep samples in the spill queue to try again
+            spill.rollback();
+            throw ex;
+        }
+        return count;
+    }
 }
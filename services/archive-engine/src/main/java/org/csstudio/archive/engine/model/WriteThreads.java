@@ -0,0 +1,210 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.csstudio.archive.Engine.logger;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+
+import org.csstudio.archive.Preferences;
+
+/** Write threads for all channels
+ *
+ *  <p>Channels are partitioned by the hash of their name
+ *  onto a fixed number of {@link WriteThread}s.
+ *  Each thread uses its own connection to the archive,
+ *  so writes are performed in parallel,
+ *  and a thread that has errors reconnects on its own
+ *  while the remaining threads continue to write.
+ *
+ *  <p>Each thread spills to a sub-directory named after its shard,
+ *  i.e. the index of its partition of the channels.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class WriteThreads
+{
+    private final WriteThread[] threads;
+
+    /** @param count Number of write threads */
+    public WriteThreads(final int count)
+    {
+        threads = new WriteThread[Math.max(1, count)];
+        final File spill_directory = Preferences.spill_directory.isBlank()
+                                   ? null
+                                   : new File(Preferences.spill_directory);
+        if (spill_directory != null)
+            moveLeftoverSpills(spill_directory, threads.length);
+        for (int i=0; i<threads.length; ++i)
+            threads[i] = new WriteThread(threads.length == 1 ? "WriteThread" : "WriteThread " + (i+1),
+                                         spill_directory == null ? null : getSpillDirectory(spill_directory, i),
+                                         this::updateErrorState);
+    }
+
+    /** @param spill_directory Spill directory
+     *  @param shard Index of the write thread, i.e. the partition of the channels
+     *  @return Sub-directory for spilled samples of that shard
+     */
+    static File getSpillDirectory(final File spill_directory, final int shard)
+    {
+        return new File(spill_directory, "shard_" + shard);
+    }
+
+    /** Move spilled samples of shards that are no longer used
+     *
+     *  <p>When the number of write threads is reduced,
+     *  or with directories of an earlier version that used other names,
+     *  spill segments in sub-directories that don't belong to
+     *  a current shard would never be replayed.
+     *  They are moved into the directories of the current shards,
+     *  to be replayed after the segments already found there.
+     *  Since any write thread can write samples for any channel,
+     *  it does not matter which one replays them.
+     *
+     *  @param spill_directory Spill directory
+     *  @param count Number of shards
+     */
+    static void moveLeftoverSpills(final File spill_directory, final int count)
+    {
+        final File[] dirs = spill_directory.listFiles(File::isDirectory);
+        if (dirs == null)
+            return;
+        Arrays.sort(dirs);
+        final Set<File> shards = new HashSet<>();
+        for (int i=0; i<count; ++i)
+            shards.add(getSpillDirectory(spill_directory, i));
+        int shard = 0;
+        for (File dir : dirs)
+        {
+            if (shards.contains(dir))
+                continue;
+            final File target = getSpillDirectory(spill_directory, shard);
+            shard = (shard + 1) % count;
+            try
+            {
+                final int moved = SpillQueue.moveSegments(dir, target);
+                if (moved > 0)
+                    logger.log(Level.INFO, "Moved " + moved + " spill segments from " + dir + " to " + target);
+                final String[] remaining = dir.list();
+                if (remaining != null  &&  remaining.length == 0)
+                    dir.delete();
+            }
+            catch (Exception ex)
+            {
+                logger.log(Level.WARNING, "Cannot move spill segments from " + dir + " to " + target, ex);
+            }
+        }
+    }
+
+    /** @return Write threads */
+    public List<WriteThread> getThreads()
+    {
+        return List.of(threads);
+    }
+
+    /** Add a channel, to be written by one of the threads */
+    public void addChannel(final ArchiveChannel channel)
+    {
+        threads[Math.floorMod(channel.getName().hashCode(), threads.length)].addChannel(channel);
+    }
+
+    /** Start the write threads.
+     *  @param write_period Period between writes in seconds
+     *  @param batch_size Number of values to batch
+     */
+    public void start(final double write_period, final int batch_size)
+    {
+        for (WriteThread thread : threads)
+            thread.start(write_period, batch_size);
+    }
+
+    /** Reset statistics */
+    public void reset()
+    {
+        for (WriteThread thread : threads)
+            thread.reset();
+    }
+
+    /** Global sample buffer error state reflects errors in any write thread */
+    private void updateErrorState()
+    {
+        boolean error = false;
+        for (WriteThread thread : threads)
+            error |= thread.isInErrorState();
+        SampleBuffer.setErrorState(error);
+    }
+
+    /** @return Timestamp of end of last write run of the thread that's been idle longest,
+     *          <code>null</code> if one thread hasn't written at all
+     */
+    public Instant getLastWriteTime()
+    {
+        Instant oldest = null;
+        for (WriteThread thread : threads)
+        {
+            final Instant stamp = thread.getLastWriteTime();
+            if (stamp == null)
+                return null;
+            if (oldest == null  ||  stamp.isBefore(oldest))
+                oldest = stamp;
+        }
+        return oldest;
+    }
+
+    /** @return Average number of values per write run, sum over all threads */
+    public double getWriteCount()
+    {
+        double count = 0;
+        for (WriteThread thread : threads)
+            count += thread.getWriteCount();
+        return count;
+    }
+
+    /** @return Average duration of write run in seconds, maximum of all threads */
+    public double getWriteDuration()
+    {
+        double duration = 0;
+        for (WriteThread thread : threads)
+            duration = Math.max(duration, thread.getWriteDuration());
+        return duration;
+    }
+
+    /** Stop the write threads, each performing a final write.
+     *  @throws Exception on error in a final write
+     */
+    public void shutdown() throws Exception
+    {
+        // Ask all threads to stop, then perform the final writes
+        for (WriteThread thread : threads)
+            thread.stop();
+        Exception error = null;
+        for (WriteThread thread : threads)
+        {
+            try
+            {
+                thread.shutdown();
+            }
+            catch (Exception ex)
+            {
+                if (error == null)
+                    error = ex;
+                else
+                    error.addSuppressed(ex);
+            }
+        }
+        if (error != null)
+            throw error;
+    }
+}
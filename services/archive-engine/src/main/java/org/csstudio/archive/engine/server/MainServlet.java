@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2018-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,8 @@ package org.csstudio.archive.engine.server;
 import java.io.IOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -21,6 +23,7 @@ import org.csstudio.archive.Preferences;
 import org.csstudio.archive.engine.model.ArchiveGroup;
 import org.csstudio.archive.engine.model.EngineModel;
 import org.csstudio.archive.engine.model.SampleBuffer;
+import org.csstudio.archive.engine.model.WriteThread;
 import org.csstudio.archive.writer.rdb.TimestampHelper;
 import org.phoebus.util.time.SecondsParser;
 import org.phoebus.util.time.TimeDuration;
@@ -64,6 +67,22 @@ public class MainServlet extends HttpServlet
         final Instant start = model.getStartTime();
         final Instant last_write_time = model.getLastWriteTime();
 
+        // Spill statistics, summed over all write threads
+        final List<WriteThread> writers = model.getWriteThreads();
+        final boolean spill = writers.get(0).isSpillEnabled();
+        int spill_segments = 0;
+        long spilled = 0, spill_pending = 0;
+        Duration replay_lag = Duration.ZERO;
+        for (WriteThread writer : writers)
+        {
+            spill_segments += writer.getSpillSegmentCount();
+            spilled += writer.getSpilledBytes();
+            spill_pending += writer.getSpillPendingBytes();
+            final Duration lag = writer.getSpillReplayLag();
+            if (lag.compareTo(replay_lag) > 0)
+                replay_lag = lag;
+        }
+
         if ("json".equals(request.getParameter("format")))
         {
             final JSONWriter json = new JSONWriter(request, response);
@@ -95,6 +114,39 @@ public class MainServlet extends HttpServlet
             jg.writeNumberField(Messages.HTTP_WriteDuration, model.getWriteDuration());
             jg.writeNumberField(Messages.HTTP_Idletime, model.getIdlePercentage());
 
+            if (spill)
+            {
+                jg.writeNumberField(Messages.HTTP_SpillSegments, spill_segments);
+                jg.writeNumberField(Messages.HTTP_Spilled, spilled);
+                jg.writeNumberField(Messages.HTTP_SpillPending, spill_pending);
+                jg.writeNumberField(Messages.HTTP_ReplayLag, TimeDuration.toSecondsDouble(replay_lag));
+            }
+
+            // Per write thread objects
+            jg.writeArrayFieldStart(Messages.HTTP_WriteThreads);
+            for (WriteThread writer : writers)
+            {
+                final Instant writer_time = writer.getLastWriteTime();
+                jg.writeStartObject();
+                jg.writeStringField(Messages.HTTP_WriteThread, writer.getName());
+                jg.writeNumberField(Messages.HTTP_ChannelCount, writer.getChannelCount());
+                jg.writeStringField(Messages.HTTP_WriteState, (writer.isInErrorState()
+                        ? Messages.HTTP_WriteError : "OK"));
+                jg.writeStringField(Messages.HTTP_LastWriteTime, writer_time == null ? "Never" : TimestampHelper.format(writer_time));
+                jg.writeNumberField(Messages.HTTP_WriteCount, writer.getWriteCount());
+                jg.writeNumberField(Messages.HTTP_WriteDuration, writer.getWriteDuration());
+                jg.writeNumberField(Messages.HTTP_WriteErrors, writer.getErrorCount());
+                if (spill)
+                {
+                    jg.writeNumberField(Messages.HTTP_SpillSegments, writer.getSpillSegmentCount());
+                    jg.writeNumberField(Messages.HTTP_Spilled, writer.getSpilledBytes());
+                    jg.writeNumberField(Messages.HTTP_SpillPending, writer.getSpillPendingBytes());
+                    jg.writeNumberField(Messages.HTTP_ReplayLag, TimeDuration.toSecondsDouble(writer.getSpillReplayLag()));
+                }
+                jg.writeEndObject();
+            }
+            jg.writeEndArray();
+
             final Runtime runtime = Runtime.getRuntime();
             final double used_mem = runtime.totalMemory() / MB;
             final double max_mem = runtime.maxMemory() / MB;
@@ -142,6 +194,14 @@ public class MainServlet extends HttpServlet
 
             html.tableLine(Messages.HTTP_Idletime, String.format("%.1f %%", model.getIdlePercentage()));
 
+            if (spill)
+            {
+                html.tableLine(Messages.HTTP_SpillSegments, Integer.toString(spill_segments));
+                html.tableLine(Messages.HTTP_Spilled, String.format("%.1f MB", spilled / MB));
+                html.tableLine(Messages.HTTP_SpillPending, String.format("%.1f MB", spill_pending / MB));
+                html.tableLine(Messages.HTTP_ReplayLag, SecondsParser.formatSeconds(TimeDuration.toSecondsDouble(replay_lag)));
+            }
+
             final Runtime runtime = Runtime.getRuntime();
             final double used_mem = runtime.totalMemory() / MB;
             final double max_mem = runtime.maxMemory() / MB;
@@ -150,6 +210,46 @@ public class MainServlet extends HttpServlet
             html.tableLine("Memory", String.format("%.1f MB of %.1f MB used (%.1f %%)", used_mem, max_mem, perc_mem));
 
             html.closeTable();
+
+            // Details for each write thread, if there's more than one
+            if (writers.size() > 1)
+            {
+                final List<String> headers = new ArrayList<>(List.of(
+                                  Messages.HTTP_WriteThread,
+                                  Messages.HTTP_ChannelCount,
+                                  Messages.HTTP_WriteState,
+                                  Messages.HTTP_LastWriteTime,
+                                  Messages.HTTP_WriteCount,
+                                  Messages.HTTP_WriteDuration,
+                                  Messages.HTTP_WriteErrors));
+                if (spill)
+                    headers.addAll(List.of(Messages.HTTP_SpillSegments,
+                                           Messages.HTTP_Spilled,
+                                           Messages.HTTP_SpillPending,
+                                           Messages.HTTP_ReplayLag));
+                html.openTable(1, headers.toArray(new String[headers.size()]));
+                for (WriteThread writer : writers)
+                {
+                    final Instant writer_time = writer.getLastWriteTime();
+                    final List<String> cells = new ArrayList<>(List.of(
+                        writer.getName(),
+                        Integer.toString(writer.getChannelCount()),
+                        writer.isInErrorState()
+                          ? HTMLWriter.makeRedText(Messages.HTTP_WriteError) : "OK",
+                        writer_time == null ? "Never" : TimestampHelper.format(writer_time),
+                        (int) writer.getWriteCount() + " samples",
+                        String.format("%.1f sec", writer.getWriteDuration()),
+                        Long.toString(writer.getErrorCount())));
+                    if (spill)
+                        cells.addAll(List.of(Integer.toString(writer.getSpillSegmentCount()),
+                                             String.format("%.1f MB", writer.getSpilledBytes() / MB),
+                                             String.format("%.1f MB", writer.getSpillPendingBytes() / MB),
+                                             SecondsParser.formatSeconds(TimeDuration.toSecondsDouble(writer.getSpillReplayLag()))));
+                    html.tableLine(cells.toArray(new String[cells.size()]));
+                }
+                html.closeTable();
+            }
+
             html.close();
         }
     }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010-2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2010-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -44,6 +44,10 @@ public class Messages
     final public static String HTTP_QueueCapacity = "Capacity";
     final public static String HTTP_QueueOverruns = "Overruns";
     final public static String HTTP_ReceivedValues = "Received Values";
+    final public static String HTTP_ReplayLag = "Replay Lag";
+    final public static String HTTP_SpillPending = "Spill Pending";
+    final public static String HTTP_SpillSegments = "Spill Segments";
+    final public static String HTTP_Spilled = "Spilled";
     final public static String HTTP_StartTime = "Start Time";
     final public static String HTTP_State = "State";
     final public static String HTTP_Status = "Status";
@@ -54,6 +58,9 @@ public class Messages
     final public static String HTTP_WriteCount = "Write Count";
     final public static String HTTP_WriteDuration = "Write Duration";
     final public static String HTTP_WriteError = "Write Error";
+    final public static String HTTP_WriteErrors = "Write Errors";
     final public static String HTTP_WritePeriod = "Write Period";
     final public static String HTTP_WriteState = "Write State";
+    final public static String HTTP_WriteThread = "Write Thread";
+    final public static String HTTP_WriteThreads = "Write Threads";
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011-2018 Oak Ridge National Laboratory.
+ * Copyright (c) 2011-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -7,7 +7,10 @@
  ******************************************************************************/
 package org.csstudio.archive.writer;
 
+import java.io.File;
+
 import org.csstudio.archive.Preferences;
+import org.csstudio.archive.writer.column.ColumnArchiveWriter;
 import org.csstudio.archive.writer.rdb.RDBArchiveWriter;
 
 /** Factory for obtaining an {@link ArchiveWriter}
@@ -21,7 +24,10 @@ public class ArchiveWriterFactory
      */
     public static ArchiveWriter getArchiveWriter() throws Exception
     {
-        // XXX Use SPI when there's more than one implementation.
-        return new RDBArchiveWriter(Preferences.url, Preferences.user, Preferences.password, Preferences.schema, Preferences.use_array_blob);
+        // XXX Use SPI when there are more implementations.
+        final String url = Preferences.write_url.isEmpty() ? Preferences.url : Preferences.write_url;
+        if (url.startsWith(ColumnArchiveWriter.PREFIX))
+            return new ColumnArchiveWriter(new File(url.substring(ColumnArchiveWriter.PREFIX.length())));
+        return new RDBArchiveWriter(url, Preferences.user, Preferences.password, Preferences.schema, Preferences.use_array_blob);
     }
 }
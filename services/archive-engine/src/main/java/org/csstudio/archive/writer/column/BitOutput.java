@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import java.util.Arrays;
+
+/** Stream of bits, most significant bit first
+ *  @author Kay Kasemir
+ */
+class BitOutput
+{
+    private byte[] data = new byte[256];
+
+    /** Number of bits written */
+    private long bits = 0;
+
+    /** @param value Value to write
+     *  @param count Number of lower bits of value to write, 0..64
+     */
+    void write(final long value, int count)
+    {
+        final int needed = (int) ((bits + count + 7) >>> 3);
+        if (needed > data.length)
+            data = Arrays.copyOf(data, Math.max(needed, 2*data.length));
+        while (count > 0)
+        {
+            final int index = (int) (bits >>> 3);
+            final int free = 8 - (int) (bits & 7);
+            final int take = Math.min(free, count);
+            final int chunk = (int) (value >>> (count - take)) & ((1 << take) - 1);
+            data[index] |= chunk << (free - take);
+            bits += take;
+            count -= take;
+        }
+    }
+
+    /** @param bit Bit to write */
+    void writeBit(final boolean bit)
+    {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /** @return Bytes written, last byte padded with zero bits */
+    byte[] toByteArray()
+    {
+        return Arrays.copyOf(data, (int) ((bits + 7) >>> 3));
+    }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import static org.csstudio.archive.Engine.logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+
+import org.csstudio.archive.writer.ArchiveWriter;
+import org.csstudio.archive.writer.WriteChannel;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VType;
+
+/** ArchiveWriter for column archive files
+ *
+ *  <p>Writes samples into a directory without requiring a database.
+ *  Each channel has a sub-directory, named by the URL-encoded channel name,
+ *  with one partition file per UTC day, "yyyy-MM-dd.col".
+ *  Each flush appends a block of compressed time stamp, alarm and value columns
+ *  to the partition file, see {@link ColumnBlockEncoder} for the format.
+ *
+ *  <p>Samples within a block are in time order, but blocks may overlap,
+ *  for example when samples that were spilled to disk during an archive error
+ *  are written after newer samples.
+ *  The reader merges overlapping blocks.
+ *
+ *  <p>The files can be read with the "column:" archive reader of the Data Browser.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnArchiveWriter implements ArchiveWriter
+{
+    /** URL prefix for column archives */
+    public static final String PREFIX = "column:";
+
+    /** Partition file extension */
+    public static final String EXTENSION = ".col";
+
+    final private File root;
+
+    /** Cache of channels by name */
+    final private Map<String, ColumnWriteChannel> channels = new HashMap<>();
+
+    /** Latest time stamp [epoch nanoseconds] in each partition file
+     *  that has been checked for incomplete blocks
+     */
+    final private Map<File, Long> latest = new HashMap<>();
+
+    /** Sample with its time stamp */
+    private static record Stamped(Instant stamp, VType sample)
+    {
+    }
+
+    /** @param root Root directory of the archive, will be created
+     *  @throws Exception on error
+     */
+    public ColumnArchiveWriter(final File root) throws Exception
+    {
+        this.root = root;
+        if (! root.isDirectory()  &&  ! root.mkdirs())
+            throw new Exception("Cannot create column archive directory " + root);
+    }
+
+    /** @param name Channel name
+     *  @return Name of the channel directory
+     */
+    public static String encodeName(final String name)
+    {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8).replace("*", "%2A");
+    }
+
+    /** @param stamp Time stamp
+     *  @return Name of partition file for that time
+     */
+    public static String getPartition(final Instant stamp)
+    {
+        return LocalDate.ofInstant(stamp, ZoneOffset.UTC) + EXTENSION;
+    }
+
+    @Override
+    public WriteChannel getChannel(final String name) throws Exception
+    {
+        return channels.computeIfAbsent(name,
+                                        n -> new ColumnWriteChannel(n, new File(root, encodeName(n))));
+    }
+
+    @Override
+    public void addSample(final WriteChannel channel, final VType sample) throws Exception
+    {
+        ((ColumnWriteChannel) channel).samples.add(sample);
+    }
+
+    @Override
+    public void flush() throws Exception
+    {
+        for (ColumnWriteChannel channel : channels.values())
+        {
+            if (channel.samples.isEmpty())
+                continue;
+            try
+            {
+                write(channel);
+            }
+            finally
+            {
+                channel.samples.clear();
+            }
+        }
+    }
+
+    /** Write the samples of a channel
+     *  @param channel Channel
+     *  @throws Exception on error
+     */
+    private void write(final ColumnWriteChannel channel) throws Exception
+    {
+        final File directory = channel.getDirectory();
+        if (! directory.isDirectory()  &&  ! directory.mkdirs())
+            throw new Exception("Cannot create directory " + directory + " for " + channel.getName());
+
+        // Blocks hold samples in time order.
+        // Sort is stable, keeping the order of samples with the same time stamp.
+        final List<Stamped> samples = new ArrayList<>(channel.samples.size());
+        for (VType sample : channel.samples)
+            samples.add(new Stamped(ColumnBlockEncoder.getTimestamp(sample), sample));
+        samples.sort(Comparator.comparing(Stamped::stamp));
+
+        // Encode samples into blocks, starting a new block for each
+        // partition, value type or change in enum labels
+        final Map<File, List<ColumnBlockEncoder>> blocks = new LinkedHashMap<>();
+        File file = null;
+        ColumnBlockEncoder encoder = null;
+        byte kind = -1;
+        List<String> labels = null;
+        for (Stamped stamped : samples)
+        {
+            final VType sample = stamped.sample();
+            final File sample_file = new File(directory, getPartition(stamped.stamp()));
+            final byte sample_kind = ColumnBlockEncoder.kindOf(sample);
+            final List<String> sample_labels = sample instanceof VEnum ? ((VEnum) sample).getDisplay().getChoices() : null;
+            if (encoder == null  ||  ! sample_file.equals(file)  ||  sample_kind != kind  ||  ! Objects.equals(sample_labels, labels))
+            {
+                if (encoder != null)
+                    blocks.computeIfAbsent(file, f -> new ArrayList<>()).add(encoder);
+                file = sample_file;
+                kind = sample_kind;
+                labels = sample_labels;
+                encoder = new ColumnBlockEncoder(kind);
+            }
+            encoder.add(stamped.stamp(), sample);
+        }
+        if (encoder != null)
+            blocks.computeIfAbsent(file, f -> new ArrayList<>()).add(encoder);
+
+        // Append blocks to partition files
+        for (Map.Entry<File, List<ColumnBlockEncoder>> entry : blocks.entrySet())
+        {
+            final File partition = entry.getKey();
+            check(partition);
+            long partition_latest = latest.getOrDefault(partition, Long.MIN_VALUE);
+            try
+            (
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(partition, true));
+            )
+            {
+                for (ColumnBlockEncoder block : entry.getValue())
+                {
+                    if (block.getEarliest() <= partition_latest)
+                        logger.log(Level.FINE, channel.getName() + " writes " + block.getCount() +
+                                   " samples that overlap earlier samples in " + partition);
+                    partition_latest = Math.max(partition_latest, block.getLatest());
+                    out.write(block.toByteArray());
+                }
+            }
+            latest.put(partition, partition_latest);
+        }
+    }
+
+    /** Remove an incomplete block from the end of a partition file,
+     *  left when a previous write was interrupted,
+     *  and determine the latest time stamp in the file
+     *  @param file Partition file
+     *  @throws IOException on error
+     */
+    private void check(final File file) throws IOException
+    {
+        if (latest.containsKey(file))
+            return;
+        long file_latest = Long.MIN_VALUE;
+        latest.put(file, file_latest);
+        if (! file.exists())
+            return;
+        try
+        (
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        )
+        {
+            final long length = raf.length();
+            long pos = 0;
+            while (pos < length)
+            {
+                boolean valid = pos + 8 <= length;
+                if (valid)
+                {
+                    raf.seek(pos);
+                    final int magic = raf.readInt();
+                    final int size = raf.readInt();
+                    valid = magic == ColumnBlockEncoder.MAGIC  &&  size >= 20  &&  pos + 8 + size <= length;
+                    if (valid)
+                    {   // Skip count and earliest time stamp
+                        raf.skipBytes(12);
+                        file_latest = Math.max(file_latest, raf.readLong());
+                        pos += 8 + size;
+                    }
+                }
+                if (! valid)
+                {
+                    logger.log(Level.WARNING, "Truncating incomplete block at offset " + pos + " of " + file);
+                    raf.setLength(pos);
+                    break;
+                }
+            }
+        }
+        latest.put(file, file_latest);
+    }
+
+    @Override
+    public void close()
+    {
+        channels.clear();
+        latest.clear();
+    }
+}
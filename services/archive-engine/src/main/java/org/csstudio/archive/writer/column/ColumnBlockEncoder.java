@@ -0,0 +1,376 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.time.Instant;
+import java.util.List;
+
+import org.epics.util.array.ListNumber;
+import org.epics.util.stats.Range;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VString;
+import org.epics.vtype.VType;
+
+/** Encode samples into a block of a column archive file
+ *
+ *  <p>A partition file is a sequence of blocks,
+ *  each holding samples of one channel and one value type:
+ *  <pre>
+ *  int  magic "COL1"
+ *  int  length of the rest of the block
+ *  int  sample count
+ *  long earliest time stamp [epoch nanoseconds]
+ *  long latest time stamp [epoch nanoseconds]
+ *  byte kind of values
+ *  DOUBLE, LONG, DOUBLE_ARRAY: display (8 doubles for display, alarm, warning, control range,
+ *                        string units, int precision or -1)
+ *  ENUM: int label count, labels
+ *  int  length, time stamp column
+ *  int  length, alarm column
+ *  int  length, value column
+ *  </pre>
+ *
+ *  <p>Strings are written as int length and UTF-8 bytes.
+ *
+ *  <p>The time stamp column is a bit stream that starts with the first time stamp
+ *  as 64 bits, followed by the 'delta of delta' of each further time stamp,
+ *  i.e. 0 for a sample that follows at the same period as the previous sample,
+ *  otherwise a prefix 10, 110, 1110 or 1111 and a signed 20, 32, 48 or 64 bit value.
+ *
+ *  <p>The alarm column lists runs of identical alarms as
+ *  int count, byte severity, byte status, string name.
+ *
+ *  <p>Samples are added in time stamp order.
+ *
+ *  <p>Double values are written as a bit stream in the 'Gorilla' format:
+ *  The first value as 64 bits,
+ *  then the XOR with the previous value, written as 0 if the value is unchanged,
+ *  10 and the meaningful bits if they fit the leading and trailing zeros
+ *  of the previous XOR value,
+ *  otherwise 11, 5 bits leading zeros, 6 bits number of meaningful bits (0 for 64), meaningful bits.
+ *  Integer values use the same format for their 64 bit value,
+ *  so they are kept without loss of precision.
+ *  Arrays prefix the elements of each sample with its 32 bit element count,
+ *  and keep all numeric elements as double.
+ *  Enumerated values are written as int index,
+ *  other values as strings.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+class ColumnBlockEncoder
+{
+    /** Block magic "COL1" */
+    static final int MAGIC = 0x434F4C31;
+
+    /** Kind of values in block */
+    static final byte DOUBLE = 0, DOUBLE_ARRAY = 1, ENUM = 2, STRING = 3, LONG = 4;
+
+    private final BitOutput times = new BitOutput();
+    private long last_time, last_delta = 0;
+
+    private final ByteArrayOutputStream alarm_bytes = new ByteArrayOutputStream();
+    private final DataOutputStream alarms = new DataOutputStream(alarm_bytes);
+    private Alarm last_alarm = null;
+    private int alarm_run = 0;
+
+    /** Bits of double or long values */
+    private final BitOutput doubles = new BitOutput();
+    private boolean first_double = true;
+    private long last_bits;
+    /** Leading and trailing zeros of last XOR value, -1 if none */
+    private int last_leading = -1, last_trailing = 0;
+
+    private final ByteArrayOutputStream value_bytes = new ByteArrayOutputStream();
+    private final DataOutputStream values = new DataOutputStream(value_bytes);
+
+    private final byte kind;
+    private int count = 0;
+    private long earliest = Long.MAX_VALUE, latest = Long.MIN_VALUE;
+    private VType last = null;
+
+    /** @param sample Sample
+     *  @return Kind of values used to write the sample
+     */
+    static byte kindOf(final VType sample)
+    {
+        if (sample instanceof VNumber)
+        {
+            final Number number = ((VNumber) sample).getValue();
+            return number instanceof Double  ||  number instanceof Float ? DOUBLE : LONG;
+        }
+        if (sample instanceof VNumberArray)
+            return DOUBLE_ARRAY;
+        if (sample instanceof VEnum)
+            return ENUM;
+        return STRING;
+    }
+
+    /** @param sample Sample
+     *  @return Time stamp of sample, 'now' if it has no valid time stamp
+     */
+    static Instant getTimestamp(final VType sample)
+    {
+        final Time time = Time.timeOf(sample);
+        if (time != null  &&  time.isValid())
+            return time.getTimestamp();
+        return Instant.now();
+    }
+
+    /** @param kind Kind of values in block */
+    ColumnBlockEncoder(final byte kind)
+    {
+        this.kind = kind;
+    }
+
+    /** @param stamp Time stamp of sample, see {@link #getTimestamp(VType)}
+     *  @param sample Sample to add, must match the kind of the block
+     *  @throws IOException on error
+     */
+    void add(final Instant stamp, final VType sample) throws IOException
+    {
+        addTime(stamp.getEpochSecond() * 1000000000L + stamp.getNano());
+
+        Alarm alarm = Alarm.alarmOf(sample);
+        if (alarm == null)
+            alarm = Alarm.none();
+        addAlarm(alarm);
+
+        switch (kind)
+        {
+        case DOUBLE:
+            addDouble(((VNumber) sample).getValue().doubleValue());
+            break;
+        case LONG:
+            addBits(((VNumber) sample).getValue().longValue());
+            break;
+        case DOUBLE_ARRAY:
+        {
+            final ListNumber data = ((VNumberArray) sample).getData();
+            final int N = data.size();
+            doubles.write(N, 32);
+            for (int i=0; i<N; ++i)
+                addDouble(data.getDouble(i));
+            break;
+        }
+        case ENUM:
+            values.writeInt(((VEnum) sample).getIndex());
+            break;
+        default:
+            writeString(values, sample instanceof VString ? ((VString) sample).getValue() : String.valueOf(sample));
+        }
+        last = sample;
+        ++count;
+    }
+
+    /** @return Number of samples in block */
+    int getCount()
+    {
+        return count;
+    }
+
+    /** @return Earliest time stamp in block [epoch nanoseconds] */
+    long getEarliest()
+    {
+        return earliest;
+    }
+
+    /** @return Latest time stamp in block [epoch nanoseconds] */
+    long getLatest()
+    {
+        return latest;
+    }
+
+    private void addTime(final long time)
+    {
+        earliest = Math.min(earliest, time);
+        latest = Math.max(latest, time);
+        if (count == 0)
+        {
+            times.write(time, 64);
+            last_time = time;
+            return;
+        }
+        final long delta = time - last_time;
+        final long dod = delta - last_delta;
+        if (dod == 0)
+            times.writeBit(false);
+        else if (fits(dod, 20))
+        {
+            times.write(0b10, 2);
+            times.write(dod, 20);
+        }
+        else if (fits(dod, 32))
+        {
+            times.write(0b110, 3);
+            times.write(dod, 32);
+        }
+        else if (fits(dod, 48))
+        {
+            times.write(0b1110, 4);
+            times.write(dod, 48);
+        }
+        else
+        {
+            times.write(0b1111, 4);
+            times.write(dod, 64);
+        }
+        last_time = time;
+        last_delta = delta;
+    }
+
+    /** @return Does signed value fit into given number of bits? */
+    private static boolean fits(final long value, final int bits)
+    {
+        final long limit = 1L << (bits-1);
+        return value >= -limit  &&  value < limit;
+    }
+
+    private void addAlarm(final Alarm alarm) throws IOException
+    {
+        if (alarm.equals(last_alarm))
+        {
+            ++alarm_run;
+            return;
+        }
+        flushAlarms();
+        last_alarm = alarm;
+        alarm_run = 1;
+    }
+
+    private void flushAlarms() throws IOException
+    {
+        if (alarm_run <= 0)
+            return;
+        alarms.writeInt(alarm_run);
+        alarms.writeByte(last_alarm.getSeverity().ordinal());
+        alarms.writeByte(last_alarm.getStatus().ordinal());
+        writeString(alarms, last_alarm.getName());
+        alarm_run = 0;
+    }
+
+    private void addDouble(final double value)
+    {
+        addBits(Double.doubleToRawLongBits(value));
+    }
+
+    private void addBits(final long bits)
+    {
+        if (first_double)
+        {
+            doubles.write(bits, 64);
+            last_bits = bits;
+            first_double = false;
+            return;
+        }
+        final long xor = bits ^ last_bits;
+        last_bits = bits;
+        if (xor == 0)
+        {
+            doubles.writeBit(false);
+            return;
+        }
+        doubles.writeBit(true);
+        final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        final int trailing = Long.numberOfTrailingZeros(xor);
+        if (last_leading >= 0  &&  leading >= last_leading  &&  trailing >= last_trailing)
+        {
+            doubles.writeBit(false);
+            doubles.write(xor >>> last_trailing, 64 - last_leading - last_trailing);
+        }
+        else
+        {
+            final int meaningful = 64 - leading - trailing;
+            doubles.writeBit(true);
+            doubles.write(leading, 5);
+            doubles.write(meaningful == 64 ? 0 : meaningful, 6);
+            doubles.write(xor >>> trailing, meaningful);
+            last_leading = leading;
+            last_trailing = trailing;
+        }
+    }
+
+    /** @return Encoded block
+     *  @throws IOException on error
+     */
+    byte[] toByteArray() throws IOException
+    {
+        flushAlarms();
+        final ByteArrayOutputStream body_bytes = new ByteArrayOutputStream();
+        final DataOutputStream body = new DataOutputStream(body_bytes);
+        body.writeInt(count);
+        body.writeLong(earliest);
+        body.writeLong(latest);
+        body.writeByte(kind);
+        if (kind == DOUBLE  ||  kind == LONG  ||  kind == DOUBLE_ARRAY)
+            writeDisplay(body, Display.displayOf(last));
+        else if (kind == ENUM)
+        {
+            final List<String> labels = ((VEnum) last).getDisplay().getChoices();
+            body.writeInt(labels.size());
+            for (String label : labels)
+                writeString(body, label);
+        }
+        writeColumn(body, times.toByteArray());
+        writeColumn(body, alarm_bytes.toByteArray());
+        writeColumn(body, kind == DOUBLE  ||  kind == LONG  ||  kind == DOUBLE_ARRAY
+                          ? doubles.toByteArray()
+                          : value_bytes.toByteArray());
+        body.flush();
+
+        final ByteArrayOutputStream block_bytes = new ByteArrayOutputStream(body_bytes.size() + 8);
+        final DataOutputStream block = new DataOutputStream(block_bytes);
+        block.writeInt(MAGIC);
+        block.writeInt(body_bytes.size());
+        body_bytes.writeTo(block);
+        block.flush();
+        return block_bytes.toByteArray();
+    }
+
+    private static void writeColumn(final DataOutputStream out, final byte[] column) throws IOException
+    {
+        out.writeInt(column.length);
+        out.write(column);
+    }
+
+    private static void writeDisplay(final DataOutputStream out, Display display) throws IOException
+    {
+        if (display == null)
+            display = Display.none();
+        writeRange(out, display.getDisplayRange());
+        writeRange(out, display.getAlarmRange());
+        writeRange(out, display.getWarningRange());
+        writeRange(out, display.getControlRange());
+        writeString(out, display.getUnit());
+        final NumberFormat format = display.getFormat();
+        out.writeInt(format == null ? -1 : format.getMinimumFractionDigits());
+    }
+
+    private static void writeRange(final DataOutputStream out, final Range range) throws IOException
+    {
+        out.writeDouble(range.getMinimum());
+        out.writeDouble(range.getMaximum());
+    }
+
+    private static void writeString(final DataOutputStream out, final String text) throws IOException
+    {
+        final byte[] bytes = (text == null ? "" : text).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
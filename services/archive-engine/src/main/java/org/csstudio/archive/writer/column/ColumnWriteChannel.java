@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.archive.writer.WriteChannel;
+import org.epics.vtype.VType;
+
+/** Channel in a column archive
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnWriteChannel implements WriteChannel
+{
+    final private String name;
+    final private File directory;
+
+    /** Samples added since last flush */
+    final List<VType> samples = new ArrayList<>();
+
+    /** @param name Channel name
+     *  @param directory Directory for the channel's partition files
+     */
+    ColumnWriteChannel(final String name, final File directory)
+    {
+        this.name = name;
+        this.directory = directory;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return Directory for the channel's partition files */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString()
+    {
+        return "ColumnWriteChannel '" + name + "' (" + directory + ")";
+    }
+}
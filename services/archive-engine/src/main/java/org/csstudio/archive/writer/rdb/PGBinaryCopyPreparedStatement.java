@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/** PreparedStatement that uses the binary PostgreSQL COPY format
+ *
+ *  <p>Each row is encoded into a reusable buffer as it is added to the batch,
+ *  and the buffer is sent to the database as is when the batch executes.
+ *  Compared to the CSV format of the base class, numbers and time stamps
+ *  are not formatted as text, byte arrays are not escaped,
+ *  and no intermediate strings are created.
+ *
+ *  <p>Supports the column types used by the archive tables:
+ *  int2, int4, int8, float4, float8, bool, timestamp, timestamptz,
+ *  text, varchar, bpchar, bytea and float8[] (via <code>setObject</code>
+ *  with a <code>double[]</code>).
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class PGBinaryCopyPreparedStatement extends PGCopyPreparedStatement
+{
+    /** Header: Signature, flags, header extension length */
+    private static final byte[] HEADER =
+    {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,
+        0, 0, 0, 0,
+        0, 0, 0, 0
+    };
+
+    /** Seconds from 1970-01-01 to the PostgreSQL epoch 2000-01-01 */
+    private static final long PG_EPOCH_SECS = 946684800L;
+
+    /** OID of the float8 type, needed for array elements */
+    private static final int FLOAT8_OID = 701;
+
+    /** Column encodings */
+    private static final byte INT2 = 1, INT4 = 2, INT8 = 3, FLOAT4 = 4, FLOAT8 = 5, BOOL = 6,
+                              TIMESTAMP = 7, TIMESTAMPTZ = 8, TEXT = 9, BYTEA = 10, FLOAT8_ARRAY = 11;
+
+    /** Kind of value set for a column */
+    private static final byte NULL = 0, LONG = 1, DOUBLE = 2, OBJECT = 3;
+
+    /** Encoding for each database column */
+    private final byte[] encodings;
+
+    /** Values of the current row by database column, without boxing numbers */
+    private final byte[] kinds;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Object[] objects;
+
+    /** Batch of encoded rows, starting with the header */
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    /** Number of rows in batch */
+    private int rows = 0;
+
+    /** @param connection Connection
+     *  @param insertSqlQuery "INSERT INTO table (columns..) ..." statement
+     *  @throws SQLException on error, including a table column of unsupported type
+     */
+    public PGBinaryCopyPreparedStatement(final Connection connection, final String insertSqlQuery)
+            throws SQLException
+    {
+        super(connection, insertSqlQuery);
+        encodings = new byte[columnTypes.length];
+        for (int i=0; i<encodings.length; ++i)
+            encodings[i] = getEncoding(columnTypes[i]);
+        kinds = new byte[encodings.length];
+        longs = new long[encodings.length];
+        doubles = new double[encodings.length];
+        objects = new Object[encodings.length];
+        buffer.put(HEADER);
+    }
+
+    /** @param type Column type name
+     *  @return Encoding
+     *  @throws SQLException if type is not supported
+     */
+    private byte getEncoding(final String type) throws SQLException
+    {
+        if (type == null)
+            throw new SQLException("Unknown column type in table " + tableName);
+        switch (type)
+        {
+        case "int2":        return INT2;
+        case "int4":
+        case "serial":      return INT4;
+        case "int8":
+        case "bigserial":   return INT8;
+        case "float4":      return FLOAT4;
+        case "float8":      return FLOAT8;
+        case "bool":        return BOOL;
+        case "timestamp":   return TIMESTAMP;
+        case "timestamptz": return TIMESTAMPTZ;
+        case "text":
+        case "varchar":
+        case "bpchar":      return TEXT;
+        case "bytea":       return BYTEA;
+        case "_float8":     return FLOAT8_ARRAY;
+        default:
+            throw new SQLException("Binary COPY does not support column type '" + type + "' in table " + tableName);
+        }
+    }
+
+    private void setLongValue(final int parameterIndex, final long value)
+    {
+        final int column = columnOrderMapping[parameterIndex];
+        kinds[column] = LONG;
+        longs[column] = value;
+    }
+
+    private void setDoubleValue(final int parameterIndex, final double value)
+    {
+        final int column = columnOrderMapping[parameterIndex];
+        kinds[column] = DOUBLE;
+        doubles[column] = value;
+    }
+
+    private void setObjectValue(final int parameterIndex, final Object value)
+    {
+        final int column = columnOrderMapping[parameterIndex];
+        kinds[column] = value == null ? NULL : OBJECT;
+        objects[column] = value;
+    }
+
+    @Override
+    public void setBoolean(final int parameterIndex, final boolean x) throws SQLException
+    {
+        setLongValue(parameterIndex, x ? 1 : 0);
+    }
+
+    @Override
+    public void setShort(final int parameterIndex, final short x) throws SQLException
+    {
+        setLongValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(final int parameterIndex, final int x) throws SQLException
+    {
+        setLongValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(final int parameterIndex, final long x) throws SQLException
+    {
+        setLongValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(final int parameterIndex, final float x) throws SQLException
+    {
+        setDoubleValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(final int parameterIndex, final double x) throws SQLException
+    {
+        setDoubleValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(final int parameterIndex, final BigDecimal x) throws SQLException
+    {
+        setObjectValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(final int parameterIndex, final String x) throws SQLException
+    {
+        setObjectValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(final int parameterIndex, final String value) throws SQLException
+    {
+        setObjectValue(parameterIndex, value);
+    }
+
+    @Override
+    public void setBytes(final int parameterIndex, final byte[] x) throws SQLException
+    {
+        setObjectValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(final int parameterIndex, final Timestamp x) throws SQLException
+    {
+        setObjectValue(parameterIndex, x);
+    }
+
+    /** {@inheritDoc}
+     *  Supports <code>double[]</code> for float8[] columns
+     */
+    @Override
+    public void setObject(final int parameterIndex, final Object x) throws SQLException
+    {
+        if (x != null  &&  !(x instanceof double[]))
+            throw new SQLException("Not implemented for " + x.getClass().getName());
+        setObjectValue(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(final int parameterIndex, final int sqlType) throws SQLException
+    {
+        setObjectValue(parameterIndex, null);
+    }
+
+    @Override
+    public void setNull(final int parameterIndex, final int sqlType, final String typeName)
+            throws SQLException
+    {
+        setObjectValue(parameterIndex, null);
+    }
+
+    @Override
+    public void clearParameters() throws SQLException
+    {
+        Arrays.fill(kinds, NULL);
+        Arrays.fill(objects, null);
+    }
+
+    /** @param bytes Number of bytes that need to fit into the buffer */
+    private void ensureCapacity(final int bytes)
+    {
+        if (buffer.remaining() >= bytes)
+            return;
+        final ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        bigger.put(buffer);
+        buffer = bigger;
+    }
+
+    /** {@inheritDoc}
+     *  When a value cannot be encoded, the row is not added
+     *  and the batch remains usable
+     */
+    @Override
+    public void addBatch() throws SQLException
+    {
+        // Remember start of row to drop a partially encoded row on error
+        final int start = buffer.position();
+        int column = 0;
+        try
+        {
+            // Row starts with field count. Null fields are written as length -1
+            ensureCapacity(2);
+            buffer.putShort((short) encodings.length);
+            for (column=0; column<encodings.length; ++column)
+                addField(column);
+        }
+        catch (SQLException ex)
+        {
+            buffer.position(start);
+            throw ex;
+        }
+        catch (RuntimeException ex)
+        {
+            buffer.position(start);
+            throw new SQLException("Invalid value for column " + (column+1) + " of type " + columnTypes[column], ex);
+        }
+        ++rows;
+        clearParameters();
+    }
+
+    /** @param column Database column to encode into buffer */
+    private void addField(final int column) throws SQLException
+    {
+        final byte kind = kinds[column];
+        if (kind == NULL)
+        {
+            ensureCapacity(4);
+            buffer.putInt(-1);
+            return;
+        }
+        switch (encodings[column])
+        {
+        case INT2:
+            ensureCapacity(6);
+            buffer.putInt(2).putShort((short) getLong(column));
+            break;
+        case INT4:
+            ensureCapacity(8);
+            buffer.putInt(4).putInt((int) getLong(column));
+            break;
+        case INT8:
+            ensureCapacity(12);
+            buffer.putInt(8).putLong(getLong(column));
+            break;
+        case FLOAT4:
+            ensureCapacity(8);
+            buffer.putInt(4).putFloat((float) getDouble(column));
+            break;
+        case FLOAT8:
+            ensureCapacity(12);
+            buffer.putInt(8).putDouble(getDouble(column));
+            break;
+        case BOOL:
+            ensureCapacity(5);
+            buffer.putInt(1).put((byte) (getLong(column) != 0 ? 1 : 0));
+            break;
+        case TIMESTAMP:
+        {   // Microseconds since 2000-01-01 in local time, same as Timestamp.toString() used for CSV
+            final Timestamp stamp = (Timestamp) getObject(column);
+            final LocalDateTime local = stamp.toLocalDateTime();
+            ensureCapacity(12);
+            buffer.putInt(8).putLong((local.toEpochSecond(ZoneOffset.UTC) - PG_EPOCH_SECS) * 1000000L + local.getNano() / 1000);
+            break;
+        }
+        case TIMESTAMPTZ:
+        {   // Microseconds since 2000-01-01 UTC
+            final Timestamp stamp = (Timestamp) getObject(column);
+            ensureCapacity(12);
+            buffer.putInt(8).putLong((Math.floorDiv(stamp.getTime(), 1000L) - PG_EPOCH_SECS) * 1000000L + stamp.getNanos() / 1000);
+            break;
+        }
+        case TEXT:
+        {
+            final Object value = kind == OBJECT ? objects[column]
+                               : kind == LONG   ? Long.valueOf(longs[column])
+                                                : Double.valueOf(doubles[column]);
+            final byte[] text = value.toString().getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(4 + text.length);
+            buffer.putInt(text.length).put(text);
+            break;
+        }
+        case BYTEA:
+        {
+            final byte[] bytes = (byte[]) getObject(column);
+            ensureCapacity(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+            break;
+        }
+        case FLOAT8_ARRAY:
+        {   // Dimensions, has-null flag, element type, size and lower bound of the one dimension,
+            // then length and value of each element.
+            // Like PostgreSQL, write empty array with zero dimensions
+            final double[] values = (double[]) getObject(column);
+            if (values.length == 0)
+            {
+                ensureCapacity(16);
+                buffer.putInt(12).putInt(0).putInt(0).putInt(FLOAT8_OID);
+                break;
+            }
+            final int size = 20 + 12 * values.length;
+            ensureCapacity(4 + size);
+            buffer.putInt(size).putInt(1).putInt(0).putInt(FLOAT8_OID).putInt(values.length).putInt(1);
+            for (double value : values)
+                buffer.putInt(8).putDouble(value);
+            break;
+        }
+        default:
+            throw new SQLException("Unknown encoding for column " + (column+1));
+        }
+    }
+
+    /** @param column Database column
+     *  @return Object value of column
+     *  @throws SQLException if column was set to a number
+     */
+    private Object getObject(final int column) throws SQLException
+    {
+        if (kinds[column] != OBJECT)
+            throw new SQLException("Number is not supported for column " + (column+1) + " of type " + columnTypes[column]);
+        return objects[column];
+    }
+
+    /** @param column Database column
+     *  @return Integer value of column
+     */
+    private long getLong(final int column)
+    {
+        switch (kinds[column])
+        {
+        case LONG:   return longs[column];
+        case DOUBLE: return (long) doubles[column];
+        default:     return ((Number) objects[column]).longValue();
+        }
+    }
+
+    /** @param column Database column
+     *  @return Floating point value of column
+     */
+    private double getDouble(final int column)
+    {
+        switch (kinds[column])
+        {
+        case DOUBLE: return doubles[column];
+        case LONG:   return longs[column];
+        default:     return ((Number) objects[column]).doubleValue();
+        }
+    }
+
+    @Override
+    public void clearBatch() throws SQLException
+    {
+        buffer.clear();
+        buffer.put(HEADER);
+        rows = 0;
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException
+    {
+        if (rows <= 0)
+            return new int[] { 0 };
+        // File trailer
+        ensureCapacity(2);
+        buffer.putShort((short) -1);
+        final CopyIn copy = ((PGConnection) connection).getCopyAPI()
+                                                       .copyIn("COPY " + tableName + " FROM STDIN WITH (FORMAT binary)");
+        try
+        {
+            copy.writeToCopy(buffer.array(), 0, buffer.position());
+            final long res = copy.endCopy();
+            return new int[] { (int) res };
+        }
+        finally
+        {
+            if (copy.isActive())
+                copy.cancelCopy();
+            clearBatch();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException
+    {
+        buffer = null;
+        super.close();
+    }
+}
@@ -2,7 +2,6 @@ package org.csstudio.archive.writer.rdb;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.math.BigDecimal;
@@ -37,20 +36,24 @@ import org.postgresql.copy.CopyManager;
 @SuppressWarnings("nls")
 public class PGCopyPreparedStatement implements PreparedStatement {
 
-    private Connection connection;
+    protected Connection connection;
 
     private String[] rowValues;
 
-    private StringBuffer batchBuilder;
+    private StringBuilder batchBuilder;
 
-    private int[] columnOrderMapping;
+    /** Database column index for each parameter index, element 0 unused */
+    protected int[] columnOrderMapping;
 
-    private String tableName;
+    /** Type name of each database column, for example "int8" */
+    protected String[] columnTypes;
+
+    protected String tableName;
 
     public PGCopyPreparedStatement(Connection connection, String insertSqlQuery)
             throws SQLException {
         this.connection = connection;
-        batchBuilder = new StringBuffer();
+        batchBuilder = new StringBuilder();
 
         // Analyze query string to get table name and list of column
         tableName = null;
@@ -66,13 +69,20 @@ public class PGCopyPreparedStatement implements PreparedStatement {
 
         // Get the column order as it's stored in database
         Map<String, Integer> postgresColumnOrderMap = new HashMap<>();
+        Map<Integer, String> postgresColumnTypeMap = new HashMap<>();
         ResultSet columnsRs = connection.getMetaData().getColumns(
                 connection.getCatalog(), null, tableName, null);
         while (columnsRs.next()) {
             postgresColumnOrderMap.put(columnsRs.getString("COLUMN_NAME"),
                     columnsRs.getInt("ORDINAL_POSITION"));
+            postgresColumnTypeMap.put(columnsRs.getInt("ORDINAL_POSITION"),
+                    columnsRs.getString("TYPE_NAME"));
         }
         rowValues = new String[postgresColumnOrderMap.size()];
+        columnTypes = new String[rowValues.length];
+        for (int i = 0; i < columnTypes.length; i++) {
+            columnTypes[i] = postgresColumnTypeMap.get(i + 1);
+        }
 
         // Generate a tab containing mapping between order in insert query and
         // database order
@@ -101,25 +111,41 @@ public class PGCopyPreparedStatement implements PreparedStatement {
                 // ESCAPE char is preceded by the escape char
                 // ESCAPE defaults to QUOTE which defaults to " double quote
                 // delimiter char defaults to , comma
-                final String[] metaCharacters = {",","\"","NULL","\\n","\\r"};
-                String inputRow = rowValues[i];
-                if(rowValues[i].contains("\""))
-                    inputRow = inputRow.replace("\"","\"\"");
-                for (int j = 0 ; j < metaCharacters.length ; j++){
-                    if(rowValues[i].toLowerCase().
-                            contains(metaCharacters[j].toLowerCase())){
-                        inputRow = "\"" + inputRow + "\"";
-                        break;
-                    }
+                final String value = rowValues[i];
+                if (needsQuotes(value)) {
+                    batchBuilder.append('"');
+                    if (value.indexOf('"') >= 0)
+                        batchBuilder.append(value.replace("\"", "\"\""));
+                    else
+                        batchBuilder.append(value);
+                    batchBuilder.append('"');
                 }
-                batchBuilder.append(inputRow);
+                else
+                    batchBuilder.append(value);
             }
-            batchBuilder.append(",");
+            batchBuilder.append(',');
         }
         batchBuilder.setCharAt(batchBuilder.length() - 1, '\n');
         Arrays.fill(rowValues, null);
     }
 
+    /**
+     * @param value CSV value
+     * @return <code>true</code> if value contains a delimiter, quote,
+     *         line break, backslash or the NULL string
+     */
+    private static boolean needsQuotes(final String value) {
+        final int len = value.length();
+        for (int i = 0; i < len; i++) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r' || c == '\\')
+                return true;
+            if ((c == 'n' || c == 'N') && value.regionMatches(true, i, "NULL", 0, 4))
+                return true;
+        }
+        return false;
+    }
+
     @Override
     public void addBatch(String arg0) throws SQLException {
         throw new SQLException("Not implemented");
@@ -185,9 +211,7 @@ public class PGCopyPreparedStatement implements PreparedStatement {
         long res = 0;
         try {
             CopyManager cpManager = ((PGConnection) connection).getCopyAPI();
-            PushbackReader reader = new PushbackReader(new StringReader(""),
-                    batchBuilder.length());
-            reader.unread(batchBuilder.toString().toCharArray());
+            StringReader reader = new StringReader(batchBuilder.toString());
             res = cpManager.copyIn("COPY " + tableName +  " FROM STDIN WITH CSV", reader);
             batchBuilder.setLength(0);
             reader.close();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2011-2024 Oak Ridge National Laboratory.
+ * Copyright (c) 2011-2025 Oak Ridge National Laboratory.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -131,6 +131,8 @@ public class RDBArchiveWriter implements ArchiveWriter
     /** Create a new prepared statement. For PostgreSQL connections, this method
      *  create a PGCopyPreparedStatement to improve insert speed using COPY
      *  instead of INSERT.
+     *  The binary COPY format is used if enabled and supported by the table,
+     *  otherwise CSV.
      *
      *  @param sqlQuery
      *  @return
@@ -143,7 +145,21 @@ public class RDBArchiveWriter implements ArchiveWriter
     {
         final PreparedStatement statement;
         if (dialect == Dialect.PostgreSQL  &&  Preferences.use_postgres_copy)
-            statement = new PGCopyPreparedStatement(connection, sqlQuery);
+        {
+            PreparedStatement copy = null;
+            if (Preferences.use_postgres_binary_copy)
+            {
+                try
+                {
+                    copy = new PGBinaryCopyPreparedStatement(connection, sqlQuery);
+                }
+                catch (SQLException ex)
+                {
+                    logger.log(Level.WARNING, "Using CSV instead of binary COPY for " + sqlQuery, ex);
+                }
+            }
+            statement = copy != null ? copy : new PGCopyPreparedStatement(connection, sqlQuery);
+        }
         else
             statement = connection.prepareStatement(sqlQuery);
         if (Preferences.timeout_secs > 0)
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VByte;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VFloat;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VShort;
+import org.epics.vtype.VString;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link SampleBuffer}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class SampleBufferTest
+{
+    private static final Alarm OK = Alarm.of(AlarmSeverity.NONE, AlarmStatus.NONE, "NO_ALARM"),
+                               HIGH = Alarm.of(AlarmSeverity.MINOR, AlarmStatus.RECORD, "HIGH");
+
+    /** Number of samples added by each producer in the stress test */
+    private static final int SAMPLES = 200000;
+
+    /** Assert that sample removed from buffer matches the one that was added */
+    private static void assertSample(final VType actual, final VType expected)
+    {
+        if (! (expected instanceof VNumber))
+        {
+            assertThat(actual, sameInstance(expected));
+            return;
+        }
+        assertThat(actual.getClass(), equalTo(expected.getClass()));
+        final VNumber a = (VNumber) actual, e = (VNumber) expected;
+        assertThat(a.getValue(), equalTo(e.getValue()));
+        assertThat(a.getAlarm(), equalTo(e.getAlarm()));
+        assertThat(a.getTime().getTimestamp(), equalTo(e.getTime().getTimestamp()));
+        assertThat(a.getTime().getUserTag(), equalTo(e.getTime().getUserTag()));
+        assertThat(a.getTime().isValid(), equalTo(e.getTime().isValid()));
+        assertThat(a.getDisplay(), equalTo(e.getDisplay()));
+    }
+
+    @Test
+    public void testPrimitiveSamples()
+    {
+        final Display display = Display.none();
+        final List<VType> samples = List.of(
+            VDouble.of(3.14, OK, Time.of(Instant.ofEpochSecond(1700000000L, 123456789)), display),
+            VDouble.of(Double.NaN, HIGH, Time.of(Instant.ofEpochSecond(1700000001L, 1)), display),
+            VDouble.of(-0.0, HIGH, Time.of(Instant.ofEpochSecond(-100, 7), 42, true), display),
+            VFloat.of(2.5f, OK, Time.of(Instant.ofEpochSecond(0, 999999999)), display),
+            VLong.of(Long.MIN_VALUE, OK, Time.of(Instant.ofEpochSecond(1, 1)), display),
+            VLong.of(Long.MAX_VALUE, OK, Time.of(Instant.ofEpochSecond(2, 2)), display),
+            VInt.of(-3, HIGH, Time.of(Instant.ofEpochSecond(3, 3), -1, true), display),
+            VShort.of((short) -32768, OK, Time.of(Instant.ofEpochSecond(4, 4)), display),
+            VByte.of((byte) 127, OK, Time.of(Instant.ofEpochSecond(5, 5)), display),
+            // Kept as object: Invalid time, time stamp beyond epoch nanoseconds, not a number
+            VInt.of(7, OK, Time.of(Instant.ofEpochSecond(6), null, false), display),
+            VLong.of(8, OK, Time.of(Instant.ofEpochSecond(Long.MAX_VALUE / 1000000000L + 1)), display),
+            VString.of("Text", OK, Time.of(Instant.ofEpochSecond(7))));
+
+        final SampleBuffer buffer = new SampleBuffer("test", null, samples.size());
+        for (VType sample : samples)
+            buffer.add(sample);
+        assertThat(buffer.getQueueSize(), equalTo(samples.size()));
+        for (VType sample : samples)
+            assertSample(buffer.remove(), sample);
+        assertThat(buffer.remove(), nullValue());
+        assertThat(buffer.getQueueSize(), equalTo(0));
+        assertThat(buffer.getBufferStats().getOverruns(), equalTo(0));
+    }
+
+    private static VType createSample(final int value)
+    {
+        return VLong.of(value, OK, Time.of(Instant.ofEpochSecond(value)), Display.none());
+    }
+
+    @Test
+    public void testChunks()
+    {
+        // Buffer is larger than one chunk: Samples fill and release several chunks
+        final SampleBuffer buffer = new SampleBuffer("test", null, 100);
+        int next = 0;
+        for (int round=0; round<10; ++round)
+        {
+            final int first = next;
+            for (int i=0; i<37; ++i)
+                buffer.add(createSample(next++));
+            assertThat(buffer.getQueueSize(), equalTo(37));
+            for (int i=first; i<next; ++i)
+                assertSample(buffer.remove(), createSample(i));
+            assertThat(buffer.remove(), nullValue());
+        }
+        assertThat(buffer.getBufferStats().getOverruns(), equalTo(0));
+    }
+
+    @Test
+    public void testOverruns()
+    {
+        // Buffer is smaller than one chunk: Overruns replace chunks that still hold dropped samples
+        final SampleBuffer buffer = new SampleBuffer("test", null, 5);
+        for (int i=0; i<40; ++i)
+            buffer.add(createSample(i));
+        assertThat(buffer.getQueueSize(), equalTo(5));
+        assertThat(buffer.getBufferStats().getOverruns(), equalTo(35));
+        for (int i=35; i<40; ++i)
+            assertSample(buffer.remove(), createSample(i));
+        assertThat(buffer.remove(), nullValue());
+
+        // Partially drained buffer
+        for (int i=40; i<47; ++i)
+            buffer.add(createSample(i));
+        assertSample(buffer.remove(), createSample(42));
+        for (int i=47; i<60; ++i)
+            buffer.add(createSample(i));
+        assertThat(buffer.getBufferStats().getOverruns(), equalTo(35 + 2 + 12));
+        for (int i=55; i<60; ++i)
+            assertSample(buffer.remove(), createSample(i));
+        assertThat(buffer.remove(), nullValue());
+
+        buffer.reset();
+        assertThat(buffer.getBufferStats().getOverruns(), equalTo(0));
+    }
+
+    /** @param producer Producer 0..3
+     *  @param index Sample index of that producer
+     *  @return Sample, kind depending on producer
+     */
+    private static VType createSample(final int producer, final int index)
+    {
+        final Time time = Time.of(Instant.ofEpochSecond(producer * 1000000L + index, index), producer, true);
+        final Alarm alarm = (index % 3) == 0 ? HIGH : OK;
+        switch (producer)
+        {
+        case 0:
+            return VDouble.of(index + 0.5, alarm, time, Display.none());
+        case 1:
+            return VLong.of(-index, alarm, time, Display.none());
+        case 2:
+            return VInt.of(index, alarm, time, Display.none());
+        default:
+            return VString.of(Integer.toString(index), alarm, time);
+        }
+    }
+
+    /** Run producers and one consumer
+     *  @param capacity Buffer capacity
+     *  @return Number of received samples
+     */
+    private static int stress(final int capacity) throws Exception
+    {
+        final SampleBuffer buffer = new SampleBuffer("test", null, capacity);
+        final int producers = 4;
+
+        // Create samples ahead of time to compare received samples,
+        // including those kept as object
+        final List<List<VType>> samples = new ArrayList<>();
+        for (int p=0; p<producers; ++p)
+        {
+            final List<VType> list = new ArrayList<>(SAMPLES);
+            for (int i=0; i<SAMPLES; ++i)
+                list.add(createSample(p, i));
+            samples.add(list);
+        }
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int p=0; p<producers; ++p)
+        {
+            final List<VType> list = samples.get(p);
+            final Thread thread = new Thread(() ->
+            {
+                for (VType sample : list)
+                    buffer.add(sample);
+            }, "Producer" + p);
+            threads.add(thread);
+        }
+        for (Thread thread : threads)
+            thread.start();
+
+        // Consume while producers are running, then drain
+        final int[] next = new int[producers];
+        int received = 0;
+        boolean running = true;
+        while (true)
+        {
+            if (running)
+                running = threads.stream().anyMatch(Thread::isAlive);
+            final VType sample = buffer.remove();
+            if (sample == null)
+            {
+                if (running)
+                    continue;
+                // Producers are done, so remove() can no longer miss a sample that's being added
+                if (buffer.getQueueSize() == 0)
+                    break;
+                continue;
+            }
+            ++received;
+            // Determine producer and index from time stamp, check order
+            final Time time = sample instanceof VNumber ? ((VNumber) sample).getTime() : ((VString) sample).getTime();
+            final int producer = time.getUserTag();
+            final int index = (int) (time.getTimestamp().getEpochSecond() - producer * 1000000L);
+            assertThat(index >= next[producer], equalTo(true));
+            next[producer] = index + 1;
+            assertSample(sample, samples.get(producer).get(index));
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        assertThat(buffer.remove(), nullValue());
+        // Each sample was either received or counted as overrun
+        assertThat(received + buffer.getBufferStats().getOverruns(), equalTo(producers * SAMPLES));
+        return received;
+    }
+
+    @Test
+    public void testConcurrentOverruns() throws Exception
+    {
+        // Small buffer, mostly overruns
+        stress(7);
+        stress(100);
+    }
+
+    @Test
+    public void testConcurrentNoLoss() throws Exception
+    {
+        // Buffer that can hold all samples: Nothing dropped
+        assertThat(stress(4 * SAMPLES), equalTo(4 * SAMPLES));
+    }
+}
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.time.Instant;
+import java.util.List;
+
+import org.epics.util.array.ArrayByte;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.array.ArrayFloat;
+import org.epics.util.stats.Range;
+import org.epics.util.text.NumberFormats;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.EnumDisplay;
+import org.epics.vtype.Time;
+import org.epics.vtype.VByteArray;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VFloat;
+import org.epics.vtype.VFloatArray;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VString;
+import org.epics.vtype.VStringArray;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link SpillCodec}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class SpillCodecTest
+{
+    private static final Time TIME = Time.of(Instant.ofEpochSecond(1735689600L, 123456789));
+    private static final Alarm ALARM = Alarm.of(AlarmSeverity.MINOR, AlarmStatus.RECORD, "HIGH");
+    private static final Display DISPLAY = Display.of(Range.of(0, 10), Range.of(1, 9), Range.of(2, 8), Range.undefined(),
+                                                      "mm", NumberFormats.precisionFormat(3));
+
+    /** @return Decoded sample after encoding */
+    private static SpillCodec.Sample roundTrip(final String channel, final String retention, final VType value) throws Exception
+    {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        SpillCodec.encode(new DataOutputStream(buf), channel, retention, value);
+        final SpillCodec.Sample sample = SpillCodec.decode(new DataInputStream(new ByteArrayInputStream(buf.toByteArray())));
+        assertThat(sample.channel(), equalTo(channel));
+        assertThat(sample.retention(), equalTo(retention));
+        assertThat(Time.timeOf(sample.value()).getTimestamp(), equalTo(TIME.getTimestamp()));
+        final Alarm alarm = Alarm.alarmOf(sample.value());
+        assertThat(alarm.getSeverity(), equalTo(ALARM.getSeverity()));
+        assertThat(alarm.getStatus(), equalTo(ALARM.getStatus()));
+        assertThat(alarm.getName(), equalTo(ALARM.getName()));
+        return sample;
+    }
+
+    private static void checkRange(final Range range, final double min, final double max)
+    {
+        assertThat(range.getMinimum(), equalTo(min));
+        assertThat(range.getMaximum(), equalTo(max));
+    }
+
+    private static void checkDisplay(final Display display)
+    {
+        checkRange(display.getDisplayRange(), 0, 10);
+        checkRange(display.getAlarmRange(), 1, 9);
+        checkRange(display.getWarningRange(), 2, 8);
+        checkRange(display.getControlRange(), Double.NaN, Double.NaN);
+        assertThat(display.getUnit(), equalTo("mm"));
+        assertThat(display.getFormat().getMinimumFractionDigits(), equalTo(3));
+    }
+
+    @Test
+    public void testDouble() throws Exception
+    {
+        final VType value = roundTrip("ca://double", "forever", VDouble.of(3.14, ALARM, TIME, DISPLAY)).value();
+        assertThat(value, instanceOf(VDouble.class));
+        assertThat(((VDouble) value).getValue(), equalTo(3.14));
+        checkDisplay(((VNumber) value).getDisplay());
+
+        // Float is kept as double
+        final VType flt = roundTrip("float", null, VFloat.of(2.5f, ALARM, TIME, DISPLAY)).value();
+        assertThat(flt, instanceOf(VDouble.class));
+        assertThat(((VDouble) flt).getValue(), equalTo(2.5));
+
+        final VType nan = roundTrip("nan", null, VDouble.of(Double.NaN, ALARM, TIME, DISPLAY)).value();
+        assertThat(((VDouble) nan).getValue().isNaN(), equalTo(true));
+    }
+
+    @Test
+    public void testLong() throws Exception
+    {
+        // Integers are kept without loss of precision
+        final VType value = roundTrip("long", null, VLong.of(Long.MAX_VALUE - 1, ALARM, TIME, DISPLAY)).value();
+        assertThat(value, instanceOf(VLong.class));
+        assertThat(((VLong) value).getValue(), equalTo(Long.MAX_VALUE - 1));
+        checkDisplay(((VNumber) value).getDisplay());
+
+        final VType integer = roundTrip("int", null, VInt.of(-42, ALARM, TIME, DISPLAY)).value();
+        assertThat(integer, instanceOf(VLong.class));
+        assertThat(((VLong) integer).getValue(), equalTo(-42L));
+    }
+
+    @Test
+    public void testArrays() throws Exception
+    {
+        VType value = roundTrip("array", null, VDoubleArray.of(ArrayDouble.of(1.0, -2.5, 1e100), ALARM, TIME, DISPLAY)).value();
+        assertThat(value, instanceOf(VDoubleArray.class));
+        assertThat(((VNumberArray) value).getData(), equalTo(ArrayDouble.of(1.0, -2.5, 1e100)));
+        checkDisplay(((VNumberArray) value).getDisplay());
+
+        // Other numeric arrays are kept as double
+        value = roundTrip("floats", null, VFloatArray.of(ArrayFloat.of(1.5f, 2.5f), ALARM, TIME, DISPLAY)).value();
+        assertThat(value, instanceOf(VDoubleArray.class));
+        assertThat(((VNumberArray) value).getData(), equalTo(ArrayDouble.of(1.5, 2.5)));
+
+        value = roundTrip("empty", null, VDoubleArray.of(ArrayDouble.of(), ALARM, TIME, DISPLAY)).value();
+        assertThat(((VNumberArray) value).getData().size(), equalTo(0));
+
+        // .. except for byte arrays
+        value = roundTrip("bytes", null, VByteArray.of(ArrayByte.of((byte)1, (byte)-2, (byte)127), ALARM, TIME, DISPLAY)).value();
+        assertThat(value, instanceOf(VByteArray.class));
+        assertThat(((VByteArray) value).getData(), equalTo(ArrayByte.of((byte)1, (byte)-2, (byte)127)));
+        checkDisplay(((VNumberArray) value).getDisplay());
+    }
+
+    @Test
+    public void testEnum() throws Exception
+    {
+        final VType value = roundTrip("enum", null, VEnum.of(1, EnumDisplay.of("Off", "On", "Fault"), ALARM, TIME)).value();
+        assertThat(value, instanceOf(VEnum.class));
+        assertThat(((VEnum) value).getIndex(), equalTo(1));
+        assertThat(((VEnum) value).getDisplay().getChoices(), equalTo(List.of("Off", "On", "Fault")));
+    }
+
+    @Test
+    public void testStrings() throws Exception
+    {
+        VType value = roundTrip("text", null, VString.of("Hello, éè ☃", ALARM, TIME)).value();
+        assertThat(value, instanceOf(VString.class));
+        assertThat(((VString) value).getValue(), equalTo("Hello, éè ☃"));
+
+        // Longer than the 64k limit of writeUTF
+        final String long_text = "x".repeat(100000);
+        value = roundTrip("long text", null, VString.of(long_text, ALARM, TIME)).value();
+        assertThat(((VString) value).getValue(), equalTo(long_text));
+
+        value = roundTrip("texts", null, VStringArray.of(List.of("a", "", "c"), ALARM, TIME)).value();
+        assertThat(value, instanceOf(VStringArray.class));
+        assertThat(((VStringArray) value).getData(), equalTo(List.of("a", "", "c")));
+    }
+
+    @Test
+    public void testNoRetention() throws Exception
+    {
+        assertThat(roundTrip("channel", null, VDouble.of(1.0, ALARM, TIME, DISPLAY)).retention(), nullValue());
+    }
+}
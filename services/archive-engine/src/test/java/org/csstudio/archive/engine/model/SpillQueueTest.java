@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VNumber;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link SpillQueue}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class SpillQueueTest
+{
+    private static final int SEGMENT_SIZE = 4096;
+
+    private File directory;
+
+    @BeforeEach
+    public void createDirectory() throws Exception
+    {
+        directory = Files.createTempDirectory("spill").toFile();
+    }
+
+    @AfterEach
+    public void deleteDirectory()
+    {
+        delete(directory);
+    }
+
+    private static void delete(final File file)
+    {
+        if (file.isDirectory())
+            for (File child : file.listFiles())
+                delete(child);
+        file.delete();
+    }
+
+    private static VDouble sample(final int i)
+    {
+        return VDouble.of(i, Alarm.none(), Time.of(Instant.ofEpochSecond(1735689600L + i)), Display.none());
+    }
+
+    private void append(final SpillQueue queue, final int first, final int last) throws Exception
+    {
+        for (int i=first; i<=last; ++i)
+            queue.append("ch" + i, null, sample(i));
+        queue.force();
+    }
+
+    /** Check that queue returns samples first..last in order */
+    private void read(final SpillQueue queue, final int first, final int last)
+    {
+        for (int i=first; i<=last; ++i)
+        {
+            final SpillCodec.Sample sample = queue.read();
+            assertThat(sample.channel(), equalTo("ch" + i));
+            assertThat(((VNumber) sample.value()).getValue().intValue(), equalTo(i));
+        }
+    }
+
+    private int countFiles()
+    {
+        return countFiles(directory);
+    }
+
+    private static int countFiles(final File directory)
+    {
+        return directory.list((dir, name) -> name.endsWith(".spill")).length;
+    }
+
+    @Test
+    public void testCommitDeletesSegments() throws Exception
+    {
+        final SpillQueue queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        assertThat(queue.isEmpty(), equalTo(true));
+        assertThat(queue.read(), nullValue());
+
+        append(queue, 0, 499);
+        final int segments = queue.getSegmentCount();
+        assertThat(segments > 2, equalTo(true));
+        assertThat(countFiles(), equalTo(segments));
+
+        // Commit after reading part of the samples removes segments that are done
+        read(queue, 0, 249);
+        queue.commit();
+        assertThat(queue.getSegmentCount() < segments, equalTo(true));
+        assertThat(countFiles(), equalTo(queue.getSegmentCount()));
+
+        read(queue, 250, 499);
+        assertThat(queue.read(), nullValue());
+        // Read, but not committed
+        assertThat(queue.isEmpty(), equalTo(false));
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(true));
+        assertThat(queue.getPendingBytes(), equalTo(0L));
+        assertThat(countFiles(), equalTo(0));
+        queue.close();
+    }
+
+    @Test
+    public void testRollback() throws Exception
+    {
+        final SpillQueue queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        append(queue, 0, 299);
+        final long pending = queue.getPendingBytes();
+
+        read(queue, 0, 99);
+        queue.commit();
+        read(queue, 100, 199);
+        // Rollback returns to the last commit, even across segments
+        queue.rollback();
+        read(queue, 100, 299);
+        queue.rollback();
+        assertThat(queue.getPendingBytes() < pending, equalTo(true));
+        read(queue, 100, 299);
+        assertThat(queue.read(), nullValue());
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(true));
+        queue.close();
+    }
+
+    @Test
+    public void testAppendWhileReading() throws Exception
+    {
+        final SpillQueue queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        append(queue, 0, 9);
+        read(queue, 0, 9);
+        assertThat(queue.read(), nullValue());
+        append(queue, 10, 19);
+        queue.commit();
+        // First segment has been read, new samples went to new segment
+        assertThat(queue.getSegmentCount(), equalTo(1));
+        read(queue, 10, 19);
+        // Segment is kept for appending until read() reaches its end
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(false));
+        assertThat(queue.read(), nullValue());
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(true));
+        queue.close();
+    }
+
+    @Test
+    public void testReopen() throws Exception
+    {
+        SpillQueue queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        append(queue, 0, 299);
+        read(queue, 0, 99);
+        queue.commit();
+        // Read, but not committed before 'crash'
+        read(queue, 100, 149);
+        queue.close();
+
+        // Segments left by previous run are read first
+        queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        assertThat(queue.isEmpty(), equalTo(false));
+        append(queue, 300, 309);
+        read(queue, 100, 309);
+        assertThat(queue.read(), nullValue());
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(true));
+        assertThat(countFiles(), equalTo(0));
+        queue.close();
+    }
+
+    @Test
+    public void testCorruptedLastRecord() throws Exception
+    {
+        SpillQueue queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        append(queue, 0, 99);
+        queue.close();
+
+        // Corrupt the last record of the last segment
+        final File[] files = directory.listFiles();
+        Arrays.sort(files);
+        final File last_file = files[files.length-1];
+        try (RandomAccessFile raf = new RandomAccessFile(last_file, "rw"))
+        {
+            int pos = SpillSegment.HEADER, last = pos;
+            while (pos + SpillSegment.RECORD_HEADER <= raf.length())
+            {
+                raf.seek(pos);
+                final int length = raf.readInt();
+                if (length <= 0)
+                    break;
+                last = pos;
+                pos += SpillSegment.RECORD_HEADER + length;
+            }
+            raf.seek(last + 4);
+            raf.writeInt(0);
+        }
+
+        // All but the last sample are read
+        queue = new SpillQueue(directory, SEGMENT_SIZE, 1024*1024);
+        read(queue, 0, 98);
+        assertThat(queue.read(), nullValue());
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(true));
+        queue.close();
+    }
+
+    @Test
+    public void testFull() throws Exception
+    {
+        final SpillQueue queue = new SpillQueue(directory, SEGMENT_SIZE, 2*SEGMENT_SIZE);
+        assertThat(queue.isFull(), equalTo(false));
+        int i = 0;
+        while (! queue.isFull())
+            queue.append("ch" + i, null, sample(i++));
+        assertThat(queue.getSegmentCount(), equalTo(2));
+        queue.close();
+    }
+
+    @Test
+    public void testMoveSegments() throws Exception
+    {
+        final File from = new File(directory, "from"), to = new File(directory, "to");
+        SpillQueue queue = new SpillQueue(to, SEGMENT_SIZE, 1024*1024);
+        append(queue, 0, 299);
+        queue.close();
+        queue = new SpillQueue(from, SEGMENT_SIZE, 1024*1024);
+        append(queue, 300, 599);
+        queue.close();
+        final int segments = countFiles(from);
+
+        // Moved segments are appended to those already in the target directory
+        assertThat(SpillQueue.moveSegments(from, to), equalTo(segments));
+        assertThat(countFiles(from), equalTo(0));
+        queue = new SpillQueue(to, SEGMENT_SIZE, 1024*1024);
+        read(queue, 0, 599);
+        assertThat(queue.read(), nullValue());
+        queue.commit();
+        assertThat(queue.isEmpty(), equalTo(true));
+        assertThat(countFiles(to), equalTo(0));
+        queue.close();
+
+        // Nothing to move
+        assertThat(SpillQueue.moveSegments(from, to), equalTo(0));
+    }
+
+    @Test
+    public void testLeftoverSpills() throws Exception
+    {
+        // Segments of a legacy directory and of a shard that's no longer used
+        final File legacy = new File(directory, "WriteThread");
+        SpillQueue queue = new SpillQueue(legacy, SEGMENT_SIZE, 1024*1024);
+        append(queue, 0, 99);
+        queue.close();
+        final File shard2 = WriteThreads.getSpillDirectory(directory, 2);
+        queue = new SpillQueue(shard2, SEGMENT_SIZE, 1024*1024);
+        append(queue, 100, 199);
+        queue.close();
+
+        // Reduced to two shards: Leftovers are spread over the remaining shards
+        WriteThreads.moveLeftoverSpills(directory, 2);
+        assertThat(legacy.exists(), equalTo(false));
+        assertThat(shard2.exists(), equalTo(false));
+
+        // Each remaining shard replays one of the leftover directories
+        final Set<Integer> values = new TreeSet<>();
+        for (int shard=0; shard<2; ++shard)
+        {
+            queue = new SpillQueue(WriteThreads.getSpillDirectory(directory, shard), SEGMENT_SIZE, 1024*1024);
+            SpillCodec.Sample sample = queue.read();
+            for (int i=0; i<100; ++i)
+            {
+                values.add(((VNumber) sample.value()).getValue().intValue());
+                sample = queue.read();
+            }
+            assertThat(sample, nullValue());
+            queue.close();
+        }
+        assertThat(values.size(), equalTo(200));
+    }
+}
@@ -0,0 +1,214 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link SpillSegment}
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class SpillSegmentTest
+{
+    private static final int SIZE = 1024;
+
+    private File file;
+
+    @BeforeEach
+    public void createFile() throws Exception
+    {
+        file = File.createTempFile("segment", ".spill");
+        file.delete();
+    }
+
+    @AfterEach
+    public void deleteFile()
+    {
+        file.delete();
+    }
+
+    private static byte[] record(final int i)
+    {
+        return ("Record " + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(final byte[] data)
+    {
+        return data == null ? null : new String(data, StandardCharsets.UTF_8);
+    }
+
+    /** @return Offset of the last record in the file */
+    private int findLastRecord() throws Exception
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            int pos = SpillSegment.HEADER, last = -1;
+            while (pos + SpillSegment.RECORD_HEADER <= raf.length())
+            {
+                raf.seek(pos);
+                final int length = raf.readInt();
+                if (length <= 0)
+                    break;
+                last = pos;
+                pos += SpillSegment.RECORD_HEADER + length;
+            }
+            return last;
+        }
+    }
+
+    @Test
+    public void testAppendRead() throws Exception
+    {
+        final SpillSegment segment = new SpillSegment(file, SIZE);
+        assertThat(segment.getSize(), equalTo(SIZE));
+        assertThat(segment.isDone(), equalTo(true));
+
+        int count = 0;
+        while (segment.append(record(count), record(count).length))
+            ++count;
+        // Full segment rejects further records
+        assertThat(count > 10, equalTo(true));
+        assertThat(segment.getPending() <= SIZE - SpillSegment.HEADER, equalTo(true));
+        assertThat(segment.isDone(), equalTo(false));
+
+        for (int i=0; i<count; ++i)
+            assertThat(text(segment.read()), equalTo(text(record(i))));
+        assertThat(segment.read(), nullValue());
+        // Read, but not committed
+        assertThat(segment.isDone(), equalTo(false));
+        segment.commit();
+        assertThat(segment.isDone(), equalTo(true));
+        assertThat(segment.getPending(), equalTo(0));
+    }
+
+    @Test
+    public void testRollbackCommit() throws Exception
+    {
+        final SpillSegment segment = new SpillSegment(file, SIZE);
+        for (int i=0; i<5; ++i)
+            segment.append(record(i), record(i).length);
+
+        assertThat(text(segment.read()), equalTo(text(record(0))));
+        assertThat(text(segment.read()), equalTo(text(record(1))));
+        segment.rollback();
+        // Rollback returns to start
+        assertThat(text(segment.read()), equalTo(text(record(0))));
+        assertThat(text(segment.read()), equalTo(text(record(1))));
+        segment.commit();
+        final int pending = segment.getPending();
+        assertThat(text(segment.read()), equalTo(text(record(2))));
+        segment.rollback();
+        // Rollback returns to last commit
+        assertThat(segment.getPending(), equalTo(pending));
+        assertThat(text(segment.read()), equalTo(text(record(2))));
+    }
+
+    @Test
+    public void testReopen() throws Exception
+    {
+        SpillSegment segment = new SpillSegment(file, SIZE);
+        for (int i=0; i<5; ++i)
+            segment.append(record(i), record(i).length);
+        segment.read();
+        segment.read();
+        segment.commit();
+        // Read, but not committed, so it's read again after re-opening
+        segment.read();
+        segment.force();
+        final int pending = segment.getPending();
+
+        // Re-open file as left by previous run
+        segment = new SpillSegment(file);
+        assertThat(segment.getSize(), equalTo(SIZE));
+        assertThat(segment.getPending(), equalTo(pending));
+        for (int i=2; i<5; ++i)
+            assertThat(text(segment.read()), equalTo(text(record(i))));
+        assertThat(segment.read(), nullValue());
+
+        // Can append to re-opened segment
+        assertThat(segment.append(record(5), record(5).length), equalTo(true));
+        assertThat(text(segment.read()), equalTo(text(record(5))));
+        segment.commit();
+        assertThat(segment.isDone(), equalTo(true));
+        segment.force();
+
+        segment = new SpillSegment(file);
+        assertThat(segment.isDone(), equalTo(true));
+        assertThat(segment.read(), nullValue());
+    }
+
+    @Test
+    public void testBadCRC() throws Exception
+    {
+        final SpillSegment segment = new SpillSegment(file, SIZE);
+        for (int i=0; i<5; ++i)
+            segment.append(record(i), record(i).length);
+        segment.force();
+
+        // Corrupt data of the last record
+        final int last = findLastRecord();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.seek(last + SpillSegment.RECORD_HEADER);
+            raf.writeByte('X');
+        }
+
+        // Last record is ignored
+        final SpillSegment reopened = new SpillSegment(file);
+        for (int i=0; i<4; ++i)
+            assertThat(text(reopened.read()), equalTo(text(record(i))));
+        assertThat(reopened.read(), nullValue());
+    }
+
+    @Test
+    public void testTornRecord() throws Exception
+    {
+        final SpillSegment segment = new SpillSegment(file, SIZE);
+        for (int i=0; i<5; ++i)
+            segment.append(record(i), record(i).length);
+        segment.force();
+
+        // Simulate crash while the last record was written:
+        // Length is there, but CRC and data are not
+        final int last = findLastRecord();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.seek(last + 4);
+            raf.write(new byte[SpillSegment.RECORD_HEADER - 4 + record(4).length]);
+        }
+        SpillSegment reopened = new SpillSegment(file);
+        for (int i=0; i<4; ++i)
+            assertThat(text(reopened.read()), equalTo(text(record(i))));
+        assertThat(reopened.read(), nullValue());
+
+        // Length that extends beyond the end of the file
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.seek(last);
+            raf.writeInt(SIZE);
+        }
+        reopened = new SpillSegment(file);
+        for (int i=0; i<4; ++i)
+            assertThat(text(reopened.read()), equalTo(text(record(i))));
+        assertThat(reopened.read(), nullValue());
+
+        // New records replace the torn one
+        assertThat(reopened.append(record(9), record(9).length), equalTo(true));
+        assertThat(text(reopened.read()), equalTo(text(record(9))));
+    }
+}
@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.csstudio.archive.writer.WriteChannel;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.stats.Range;
+import org.epics.util.text.NumberFormats;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.EnumDisplay;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VNumber;
+import org.epics.vtype.VNumberArray;
+import org.epics.vtype.VString;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.phoebus.archive.reader.AveragedValueIterator;
+import org.phoebus.archive.reader.ValueIterator;
+import org.phoebus.archive.reader.column.ColumnArchiveReader;
+
+/** JUnit test that writes with the {@link ColumnArchiveWriter}
+ *  and reads with the data browser's ColumnArchiveReader
+ *
+ *  <p>While the golden bytes of ColumnBlockEncoderTest resp. ColumnBlockTest
+ *  check each side against the format description,
+ *  this test checks that the encoder and decoder agree
+ *  on a larger number of random values.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnArchiveRoundTripTest
+{
+    private static final Instant START = Instant.parse("2025-01-01T23:00:00Z");
+
+    private static final Display DISPLAY = Display.of(Range.of(0, 10), Range.of(1, 9), Range.of(2, 8), Range.of(0, 10), "V", NumberFormats.precisionFormat(2));
+
+    private static final Alarm[] ALARMS =
+    {
+        Alarm.none(),
+        Alarm.of(AlarmSeverity.MINOR, AlarmStatus.RECORD, "HIGH"),
+        Alarm.of(AlarmSeverity.INVALID, AlarmStatus.DEVICE, "Disconnected")
+    };
+
+    private File root;
+
+    @BeforeEach
+    public void createDirectory() throws Exception
+    {
+        root = Files.createTempDirectory("column").toFile();
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws Exception
+    {
+        try (Stream<Path> files = Files.walk(root.toPath()))
+        {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /** @return Time stamps with random spacing, from the same nanosecond to days */
+    private static List<Time> createTimes(final Random random, final int count)
+    {
+        final long[] deltas = { 0, 1, 1000, 1000000, 1000000000L, 100000000000L, 100000000000000L };
+        final List<Time> times = new ArrayList<>(count);
+        Instant stamp = START;
+        for (int i=0; i<count; ++i)
+        {
+            times.add(Time.of(stamp));
+            // Mostly constant period, sometimes jitter or a gap
+            if (random.nextInt(10) < 6)
+                stamp = stamp.plusMillis(100);
+            else
+                stamp = stamp.plusNanos(1 + (long) (random.nextDouble() * deltas[random.nextInt(deltas.length)]));
+        }
+        return times;
+    }
+
+    private static Alarm alarm(final Random random)
+    {
+        return random.nextInt(5) == 0 ? ALARMS[random.nextInt(ALARMS.length)] : ALARMS[0];
+    }
+
+    private static double randomDouble(final Random random)
+    {
+        switch (random.nextInt(10))
+        {
+        case 0:
+            return Double.longBitsToDouble(random.nextLong());
+        case 1:
+            return new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, Double.MIN_VALUE, Double.MAX_VALUE }[random.nextInt(6)];
+        case 2:
+        case 3:
+            return Math.round(random.nextGaussian() * 1000) / 1000.0;
+        default:
+            return 5.0;
+        }
+    }
+
+    private static long randomLong(final Random random)
+    {
+        switch (random.nextInt(5))
+        {
+        case 0:
+            return random.nextLong();
+        case 1:
+            return new long[] { Long.MIN_VALUE, Long.MAX_VALUE, -1, 0 }[random.nextInt(4)];
+        default:
+            return random.nextInt(100);
+        }
+    }
+
+    /** Write samples in batches, then read them back
+     *  @param samples Samples to write
+     *  @return Samples read from the archive
+     */
+    private List<VType> roundTrip(final List<VType> samples) throws Exception
+    {
+        final ColumnArchiveWriter writer = new ColumnArchiveWriter(root);
+        final WriteChannel channel = writer.getChannel("test:pv");
+        for (int i=0; i<samples.size(); ++i)
+        {
+            writer.addSample(channel, samples.get(i));
+            if (i % 97 == 96)
+                writer.flush();
+        }
+        writer.flush();
+        writer.close();
+        return read(Instant.EPOCH, Instant.parse("2100-01-01T00:00:00Z"));
+    }
+
+    private List<VType> read(final Instant start, final Instant end) throws Exception
+    {
+        final List<VType> result = new ArrayList<>();
+        try (ValueIterator values = new ColumnArchiveReader(root).getRawValues("test:pv", start, end))
+        {
+            while (values.hasNext())
+                result.add(values.next());
+        }
+        return result;
+    }
+
+    private static void checkMeta(final VType expected, final VType actual)
+    {
+        assertThat(Time.timeOf(actual).getTimestamp(), equalTo(Time.timeOf(expected).getTimestamp()));
+        final Alarm alarm = Alarm.alarmOf(actual);
+        assertThat(alarm.getSeverity(), equalTo(Alarm.alarmOf(expected).getSeverity()));
+        assertThat(alarm.getStatus(), equalTo(Alarm.alarmOf(expected).getStatus()));
+        assertThat(alarm.getName(), equalTo(Alarm.alarmOf(expected).getName()));
+    }
+
+    @Test
+    public void testDoubles() throws Exception
+    {
+        final Random random = new Random(42);
+        final List<VType> samples = new ArrayList<>();
+        for (Time time : createTimes(random, 1000))
+            samples.add(VDouble.of(randomDouble(random), alarm(random), time, DISPLAY));
+
+        final List<VType> read = roundTrip(samples);
+        assertThat(read.size(), equalTo(samples.size()));
+        for (int i=0; i<samples.size(); ++i)
+        {
+            checkMeta(samples.get(i), read.get(i));
+            assertThat(read.get(i), instanceOf(VDouble.class));
+            assertThat(Double.doubleToRawLongBits(((VDouble) read.get(i)).getValue()),
+                       equalTo(Double.doubleToRawLongBits(((VDouble) samples.get(i)).getValue())));
+        }
+        final Display display = ((VDouble) read.get(0)).getDisplay();
+        assertThat(display.getUnit(), equalTo("V"));
+        assertThat(display.getWarningRange().getMinimum(), equalTo(2.0));
+        assertThat(display.getWarningRange().getMaximum(), equalTo(8.0));
+    }
+
+    @Test
+    public void testLongs() throws Exception
+    {
+        final Random random = new Random(43);
+        final List<VType> samples = new ArrayList<>();
+        for (Time time : createTimes(random, 1000))
+            samples.add(VLong.of(randomLong(random), alarm(random), time, DISPLAY));
+
+        final List<VType> read = roundTrip(samples);
+        assertThat(read.size(), equalTo(samples.size()));
+        for (int i=0; i<samples.size(); ++i)
+        {
+            checkMeta(samples.get(i), read.get(i));
+            assertThat(((VNumber) read.get(i)).getValue().longValue(),
+                       equalTo(((VNumber) samples.get(i)).getValue().longValue()));
+        }
+    }
+
+    @Test
+    public void testArrays() throws Exception
+    {
+        final Random random = new Random(44);
+        final List<VType> samples = new ArrayList<>();
+        for (Time time : createTimes(random, 300))
+        {
+            final double[] data = new double[random.nextInt(4) == 0 ? 0 : random.nextInt(20)];
+            for (int e=0; e<data.length; ++e)
+                data[e] = randomDouble(random);
+            samples.add(VDoubleArray.of(ArrayDouble.of(data), alarm(random), time, DISPLAY));
+        }
+
+        final List<VType> read = roundTrip(samples);
+        assertThat(read.size(), equalTo(samples.size()));
+        for (int i=0; i<samples.size(); ++i)
+        {
+            checkMeta(samples.get(i), read.get(i));
+            final VNumberArray expected = (VNumberArray) samples.get(i), actual = (VNumberArray) read.get(i);
+            assertThat(actual.getData().size(), equalTo(expected.getData().size()));
+            for (int e=0; e<expected.getData().size(); ++e)
+                assertThat(Double.doubleToRawLongBits(actual.getData().getDouble(e)),
+                           equalTo(Double.doubleToRawLongBits(expected.getData().getDouble(e))));
+        }
+    }
+
+    @Test
+    public void testEnumsAndStrings() throws Exception
+    {
+        final Random random = new Random(45);
+        final EnumDisplay labels = EnumDisplay.of("Off", "On", "Fault");
+        final EnumDisplay other_labels = EnumDisplay.of("Closed", "Open");
+        final String[] texts = { "", "Hello", "ü", "Disconnected", "A somewhat longer text" };
+        final List<VType> samples = new ArrayList<>();
+        for (Time time : createTimes(random, 500))
+        {
+            final int r = random.nextInt(10);
+            if (r < 6)
+                samples.add(VEnum.of(random.nextInt(3), labels, alarm(random), time));
+            else if (r < 8)
+                samples.add(VEnum.of(random.nextInt(2), other_labels, alarm(random), time));
+            else
+                samples.add(VString.of(texts[random.nextInt(texts.length)], alarm(random), time));
+        }
+
+        final List<VType> read = roundTrip(samples);
+        assertThat(read.size(), equalTo(samples.size()));
+        for (int i=0; i<samples.size(); ++i)
+        {
+            checkMeta(samples.get(i), read.get(i));
+            if (samples.get(i) instanceof VEnum)
+            {
+                final VEnum expected = (VEnum) samples.get(i), actual = (VEnum) read.get(i);
+                assertThat(actual.getIndex(), equalTo(expected.getIndex()));
+                assertThat(actual.getDisplay().getChoices(), equalTo(expected.getDisplay().getChoices()));
+            }
+            else
+                assertThat(((VString) read.get(i)).getValue(), equalTo(((VString) samples.get(i)).getValue()));
+        }
+    }
+
+    private static VType sample(final int second)
+    {
+        return VDouble.of(second, Alarm.none(), Time.of(START.plusSeconds(second)), Display.none());
+    }
+
+    private static List<Integer> values(final List<VType> samples)
+    {
+        final List<Integer> values = new ArrayList<>();
+        for (VType sample : samples)
+            values.add(((VNumber) sample).getValue().intValue());
+        return values;
+    }
+
+    @Test
+    public void testOverlappingBlocks() throws Exception
+    {
+        final ColumnArchiveWriter writer = new ColumnArchiveWriter(root);
+        WriteChannel channel = writer.getChannel("test:pv");
+        // Current samples..
+        for (int s=10; s<20; ++s)
+            writer.addSample(channel, sample(s));
+        writer.flush();
+        // .. then older samples, some of them written again
+        // as when replaying spilled samples after an error
+        for (int s=0; s<15; ++s)
+            writer.addSample(channel, sample(s));
+        writer.flush();
+        writer.close();
+
+        // Writer checks existing partition when re-opened
+        final ColumnArchiveWriter writer2 = new ColumnArchiveWriter(root);
+        channel = writer2.getChannel("test:pv");
+        for (int s=20; s<30; ++s)
+            writer2.addSample(channel, sample(s));
+        writer2.flush();
+        writer2.close();
+
+        // Each sample is returned once, in time order
+        final List<Integer> expected = new ArrayList<>();
+        for (int s=0; s<30; ++s)
+            expected.add(s);
+        assertThat(values(read(START, START.plusSeconds(100))), equalTo(expected));
+
+        // Sample before the start, then those in range
+        assertThat(values(read(START.plusSeconds(12).plusMillis(500), START.plusSeconds(16))), equalTo(List.of(12, 13, 14, 15, 16)));
+
+        // Optimized request for the last 10 samples only counts the block in that range,
+        // not the blocks before, and returns raw data
+        try (ValueIterator values = new ColumnArchiveReader(root).getOptimizedValues("test:pv", START.plusSeconds(20), START.plusSeconds(29), 15))
+        {
+            assertThat(values instanceof AveragedValueIterator, equalTo(false));
+        }
+        // .. while a longer range is optimized
+        try (ValueIterator values = new ColumnArchiveReader(root).getOptimizedValues("test:pv", START, START.plusSeconds(29), 15))
+        {
+            assertThat(values instanceof AveragedValueIterator, equalTo(true));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.csstudio.archive.writer.WriteChannel;
+import org.epics.util.array.ArrayDouble;
+import org.epics.util.stats.Range;
+import org.epics.util.text.NumberFormats;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.junit.jupiter.api.Test;
+
+/** Write throughput of the column archive
+ *
+ *  <p>Writes a day of 1Hz samples with time stamp jitter
+ *  for several scalar channels and one array channel
+ *  into "column_archive" in the temp directory.
+ *  The data browser's ColumnArchiveReaderDemo reads it back.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnArchiveWriterDemo
+{
+    private static final int CHANNELS = 10, SAMPLES = 24*60*60, BATCH = 500;
+
+    @Test
+    public void demoWrite() throws Exception
+    {
+        final File root = new File(System.getProperty("java.io.tmpdir"), "column_archive");
+        if (root.exists())
+            try (Stream<Path> files = Files.walk(root.toPath()))
+            {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+
+        final Display display = Display.of(Range.of(0, 10), Range.of(1, 9), Range.of(2, 8), Range.of(0, 10), "V", NumberFormats.precisionFormat(2));
+        final Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        final ColumnArchiveWriter writer = new ColumnArchiveWriter(root);
+        final WriteChannel[] channels = new WriteChannel[CHANNELS];
+        for (int c=0; c<CHANNELS; ++c)
+            channels[c] = writer.getChannel("ca://demo:sensor" + c);
+        final WriteChannel array_channel = writer.getChannel("demo:waveform");
+
+        final long t0 = System.nanoTime();
+        long count = 0;
+        final double[] data = new double[100];
+        for (int i=0; i<SAMPLES; ++i)
+        {
+            // 1Hz with some jitter, value with noise and 3 decimal digits
+            final Time time = Time.of(start.plusSeconds(i).plusNanos((i % 7) * 1000000L));
+            for (int c=0; c<CHANNELS; ++c)
+            {
+                final double value = Math.round((5 + 3*Math.sin(i / 600.0 + c) + Math.random()*0.01) * 1000) / 1000.0;
+                final Alarm alarm = value > 7.9 ? Alarm.of(AlarmSeverity.MINOR, AlarmStatus.RECORD, "HIGH") : Alarm.none();
+                writer.addSample(channels[c], VDouble.of(value, alarm, time, display));
+                ++count;
+            }
+            if ((i % 10) == 0)
+            {
+                for (int e=0; e<data.length; ++e)
+                    data[e] = Math.sin((i + e) / 10.0);
+                writer.addSample(array_channel, VDoubleArray.of(ArrayDouble.of(data), Alarm.none(), time, display));
+                ++count;
+            }
+            if ((i % BATCH) == BATCH-1)
+                writer.flush();
+        }
+        writer.flush();
+        writer.close();
+        final double secs = (System.nanoTime() - t0) / 1e9;
+
+        long bytes = 0;
+        try (Stream<Path> files = Files.walk(root.toPath()))
+        {
+            bytes = files.map(Path::toFile).filter(File::isFile).mapToLong(File::length).sum();
+        }
+        System.out.format("Wrote %d samples in %.1f sec: %.0f samples/sec, %d bytes = %.1f bytes/sample\n",
+                          count, secs, count / secs, bytes, (double) bytes / count);
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.column;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.time.Instant;
+import java.util.HexFormat;
+
+import org.epics.util.array.ArrayDouble;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.AlarmSeverity;
+import org.epics.vtype.AlarmStatus;
+import org.epics.vtype.Display;
+import org.epics.vtype.EnumDisplay;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VEnum;
+import org.epics.vtype.VInt;
+import org.epics.vtype.VLong;
+import org.epics.vtype.VString;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.Test;
+
+/** JUnit test of the {@link ColumnBlockEncoder}
+ *
+ *  <p>Compares encoded blocks with 'golden' bytes
+ *  that were computed from the format description.
+ *  The data browser's ColumnBlockTest decodes the same bytes.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class ColumnBlockEncoderTest
+{
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+
+    private static final Alarm ALARM = Alarm.of(AlarmSeverity.NONE, AlarmStatus.NONE, "NO_ALARM");
+
+    private static Time time(final long nanos)
+    {
+        return Time.of(Instant.ofEpochSecond(0, nanos));
+    }
+
+    private static byte[] encode(final VType... samples) throws Exception
+    {
+        final ColumnBlockEncoder encoder = new ColumnBlockEncoder(ColumnBlockEncoder.kindOf(samples[0]));
+        for (VType sample : samples)
+            encoder.add(ColumnBlockEncoder.getTimestamp(sample), sample);
+        assertThat(encoder.getCount(), equalTo(samples.length));
+        return encoder.toByteArray();
+    }
+
+    /** @return Time stamp, alarm and value column of block, as hex */
+    private static String[] getColumns(final byte[] block) throws Exception
+    {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(block));
+        assertThat(in.readInt(), equalTo(ColumnBlockEncoder.MAGIC));
+        assertThat(in.readInt(), equalTo(block.length - 8));
+        in.readInt();
+        in.readLong();
+        in.readLong();
+        final byte kind = in.readByte();
+        if (kind == ColumnBlockEncoder.DOUBLE  ||  kind == ColumnBlockEncoder.LONG  ||  kind == ColumnBlockEncoder.DOUBLE_ARRAY)
+        {   // Skip display
+            in.skipBytes(8 * 8);
+            in.skipBytes(in.readInt());
+            in.readInt();
+        }
+        else if (kind == ColumnBlockEncoder.ENUM)
+            for (int i=in.readInt(); i>0; --i)
+                in.skipBytes(in.readInt());
+        final String[] columns = new String[3];
+        for (int c=0; c<3; ++c)
+            columns[c] = HEX.formatHex(in.readNBytes(in.readInt()));
+        assertThat(in.available(), equalTo(0));
+        return columns;
+    }
+
+    @Test
+    public void testTimes() throws Exception
+    {
+        // Delta of delta: 10 (20 bit), 0, -1 (20 bit), 2^19 (32 bit), -2^19 (20 bit),
+        // 2^31 (48 bit), 2^47 (64 bit), -2^47-2^31 (64 bit),
+        // 2^20 (32 bit), -2^20 (32 bit), 2^40 (48 bit), -2^40 (48 bit)
+        final long[] deltas = { 10, 10, 9, 9 + (1L<<19), 9, 9 + (1L<<31), 9 + (1L<<31) + (1L<<47), 9, 9 + (1L<<20), 9, 9 + (1L<<40), 9 };
+        final VType[] samples = new VType[deltas.length + 1];
+        long nanos = 0x0102030405060708L;
+        samples[0] = VString.of("x", ALARM, time(nanos));
+        for (int i=0; i<deltas.length; ++i)
+        {
+            nanos += deltas[i];
+            samples[i+1] = VString.of("x", ALARM, time(nanos));
+        }
+        final String[] columns = getColumns(encode(samples));
+        assertThat(columns[0], equalTo("01020304050607088000297FFFFE00080000A000038000200000003C0002000000000003FFFFDFFFE00000003000800006FFF00000E010000000000EFF0000000000"));
+    }
+
+    @Test
+    public void testDoubles() throws Exception
+    {
+        // First value, unchanged, new window, new window,
+        // re-use previous window, new window with leading zeros capped at 31,
+        // new window with 64 meaningful bits, re-use 64 bit window
+        final double[] values = { 1.0, 1.0, 1.5, 1.25, 1.0, Math.nextUp(1.0), -2.0, Double.longBitsToDouble(0x4000000000000001L) };
+        final VType[] samples = new VType[values.length];
+        for (int i=0; i<values.length; ++i)
+            samples[i] = VDouble.of(values[i], ALARM, time(1000000000L * (i+1)), Display.none());
+        final String[] columns = getColumns(encode(samples));
+        // Same period
+        assertThat(columns[0], equalTo("000000003B9ACA00C77359400000"));
+        assertThat(columns[1], equalTo("000000080000000000084E4F5F414C41524D"));
+        assertThat(columns[2], equalTo("3FF00000000000006C07B02E7FC200000001C007FF8000000000000D0000000000000002"));
+    }
+
+    @Test
+    public void testLongs() throws Exception
+    {
+        assertThat(ColumnBlockEncoder.kindOf(VInt.of(5, ALARM, time(0), Display.none())), equalTo(ColumnBlockEncoder.LONG));
+        // Leading zeros capped at 31, new window, 64 bit window, re-use
+        final long[] values = { 5, 7, Long.MAX_VALUE, Long.MIN_VALUE, -1 };
+        final VType[] samples = new VType[values.length];
+        for (int i=0; i<values.length; ++i)
+            samples[i] = VLong.of(values[i], ALARM, time(1000000000L * (i+1)), Display.none());
+        final String[] columns = getColumns(encode(samples));
+        assertThat(columns[2], equalTo("0000000000000005FF000000000E1F3FFFFFFFFFFFFFFF001FFFFFFFFFFFFFFFF3FFFFFFFFFFFFFFF8"));
+    }
+
+    @Test
+    public void testArrays() throws Exception
+    {
+        final String[] columns = getColumns(encode(VDoubleArray.of(ArrayDouble.of(1.0, 2.0), ALARM, time(1), Display.none()),
+                                                   VDoubleArray.of(ArrayDouble.of(), ALARM, time(2), Display.none()),
+                                                   VDoubleArray.of(ArrayDouble.of(2.0), ALARM, time(3), Display.none())));
+        // Element count, elements on one stream of XOR values
+        assertThat(columns[2], equalTo("000000023FF0000000000000C25FFF000000000000000100"));
+    }
+
+    @Test
+    public void testEnum() throws Exception
+    {
+        final EnumDisplay labels = EnumDisplay.of("Off", "On");
+        final byte[] block = encode(VEnum.of(1, labels, ALARM, time(1000000000L)),
+                                    VEnum.of(0, labels, Alarm.of(AlarmSeverity.MAJOR, AlarmStatus.RECORD, "HIGH"), time(2500000000L)));
+        assertThat(HEX.formatHex(block),
+                   equalTo("434F4C310000006700000002000000003B9ACA00000000009502F9000200000002000000034F6666000000024F6E0000000D000000003B9ACA00CB2D05E00000000020000000010000000000084E4F5F414C41524D0000000102030000000448494748000000080000000100000000"));
+    }
+
+    @Test
+    public void testStrings() throws Exception
+    {
+        final Alarm alarm = Alarm.of(AlarmSeverity.MINOR, AlarmStatus.RECORD, "LOW");
+        final byte[] block = encode(VString.of("Hi", alarm, time(10000000000L)),
+                                    VString.of("Hi", alarm, time(11000000000L)),
+                                    VString.of("ü", alarm, time(12000000000L)));
+        assertThat(HEX.formatHex(block),
+                   equalTo("434F4C310000004D0000000300000002540BE40000000002CB417800030000000D00000002540BE400C7735940000000000D000000030103000000034C4F570000001200000002486900000002486900000002C3BC"));
+    }
+}
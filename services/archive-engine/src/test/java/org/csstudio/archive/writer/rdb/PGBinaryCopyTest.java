@@ -0,0 +1,223 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+/** JUnit test of the {@link PGBinaryCopyPreparedStatement}
+ *
+ *  <p>Runs without a database.
+ *  Compares the COPY data with bytes in the PostgreSQL binary COPY format,
+ *  as written by <code>COPY .. TO STDOUT WITH (FORMAT binary)</code>.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class PGBinaryCopyTest
+{
+    private static final String HEADER = "5047434F50590AFF0D0A00" + "00000000" + "00000000";
+
+    private static final String TRAILER = "FFFF";
+
+    /** Row with channel_id 42, smpl_time 2024-01-02 03:04:05.123456, float_val 3.5, array_val { 1.0, -2.5 } */
+    private static final String ROW1 = "0004" +
+                                       "00000008" + "000000000000002A" +
+                                       "00000008" + "0002B0EC8517D580" +
+                                       "00000008" + "400C000000000000" +
+                                       "0000002C" + "00000001" + "00000000" + "000002BD" + "00000002" + "00000001" +
+                                                    "00000008" + "3FF0000000000000" +
+                                                    "00000008" + "C004000000000000";
+
+    /** Row with channel_id 7, smpl_time 1999-12-31 23:59:59.999999, float_val null, array_val {} */
+    private static final String ROW2 = "0004" +
+                                       "00000008" + "0000000000000007" +
+                                       "00000008" + "FFFFFFFFFFFFFFFF" +
+                                       "FFFFFFFF" +
+                                       "0000000C" + "00000000" + "00000000" + "000002BD";
+
+    /** Columns of the 'sample' table in database order: Name, type */
+    private static final List<List<String>> COLUMNS = List.of(List.of("channel_id", "int8"),
+                                                              List.of("smpl_time", "timestamp"),
+                                                              List.of("float_val", "float8"),
+                                                              List.of("array_val", "_float8"));
+
+    /** Data sent to COPY */
+    private final ByteArrayOutputStream copied = new ByteArrayOutputStream();
+
+    /** @return Connection that describes the table and captures COPY data */
+    private Connection createConnection()
+    {
+        final ResultSet columns = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler()
+        {
+            int row = -1;
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args)
+            {
+                switch (method.getName())
+                {
+                case "next":
+                    return ++row < COLUMNS.size();
+                case "getString":
+                    return "TYPE_NAME".equals(args[0]) ? COLUMNS.get(row).get(1) : COLUMNS.get(row).get(0);
+                case "getInt":
+                    return row + 1;
+                default:
+                    return null;
+                }
+            }
+        });
+        final DatabaseMetaData meta = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DatabaseMetaData.class },
+            (proxy, method, args) -> "getColumns".equals(method.getName()) ? columns : null);
+        final CopyIn copy_in = (CopyIn) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { CopyIn.class },
+            (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                case "writeToCopy":
+                    copied.write((byte[]) args[0], (Integer) args[1], (Integer) args[2]);
+                    return null;
+                case "isActive":
+                    return false;
+                default:
+                    return 0L;
+                }
+            });
+
+        final BaseConnection[] connection = new BaseConnection[1];
+        connection[0] = (BaseConnection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { BaseConnection.class },
+            (proxy, method, args) ->
+            {
+                switch (method.getName())
+                {
+                case "getMetaData":
+                    return meta;
+                case "getCopyAPI":
+                    return new CopyManager(connection[0])
+                    {
+                        @Override
+                        public CopyIn copyIn(final String sql)
+                        {
+                            assertThat(sql, equalTo("COPY sample FROM STDIN WITH (FORMAT binary)"));
+                            return copy_in;
+                        }
+                    };
+                default:
+                    return null;
+                }
+            });
+        return connection[0];
+    }
+
+    private static Timestamp timestamp(final LocalDateTime time)
+    {
+        return Timestamp.valueOf(time);
+    }
+
+    /** @param statement Statement
+     *  @return Hex of data sent to COPY when batch is executed
+     */
+    private String execute(final PGBinaryCopyPreparedStatement statement) throws Exception
+    {
+        copied.reset();
+        statement.executeBatch();
+        return HexFormat.of().withUpperCase().formatHex(copied.toByteArray());
+    }
+
+    @Test
+    public void testRows() throws Exception
+    {
+        // Parameters in different order than table columns
+        try
+        (
+            PGBinaryCopyPreparedStatement statement = new PGBinaryCopyPreparedStatement(createConnection(),
+                "INSERT INTO sample (smpl_time, channel_id, array_val, float_val) VALUES (?,?,?,?)");
+        )
+        {
+            statement.setTimestamp(1, timestamp(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456000)));
+            statement.setInt(2, 42);
+            statement.setObject(3, new double[] { 1.0, -2.5 });
+            statement.setDouble(4, 3.5);
+            statement.addBatch();
+
+            statement.setTimestamp(1, timestamp(LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999999000)));
+            statement.setLong(2, 7);
+            statement.setObject(3, new double[0]);
+            statement.setNull(4, Types.DOUBLE);
+            statement.addBatch();
+
+            assertThat(execute(statement), equalTo(HEADER + ROW1 + ROW2 + TRAILER));
+
+            // Batch is reset after execution
+            statement.setTimestamp(1, timestamp(LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999999000)));
+            statement.setLong(2, 7);
+            statement.setObject(3, new double[0]);
+            statement.addBatch();
+            assertThat(execute(statement), equalTo(HEADER + ROW2 + TRAILER));
+        }
+    }
+
+    @Test
+    public void testInvalidRow() throws Exception
+    {
+        try
+        (
+            PGBinaryCopyPreparedStatement statement = new PGBinaryCopyPreparedStatement(createConnection(),
+                "INSERT INTO sample (channel_id, smpl_time, float_val, array_val) VALUES (?,?,?,?)");
+        )
+        {
+            statement.setInt(1, 42);
+            statement.setTimestamp(2, timestamp(LocalDateTime.of(2024, 1, 2, 3, 4, 5, 123456000)));
+            statement.setDouble(3, 3.5);
+            statement.setObject(4, new double[] { 1.0, -2.5 });
+            statement.addBatch();
+
+            // Last column fails after the others have been encoded
+            statement.setInt(1, 1);
+            statement.setTimestamp(2, timestamp(LocalDateTime.of(2024, 1, 2, 3, 4, 5)));
+            statement.setDouble(3, 1.0);
+            statement.setString(4, "Not an array");
+            assertThrows(SQLException.class, () -> statement.addBatch());
+
+            // Number for time stamp
+            statement.setInt(1, 2);
+            statement.setLong(2, 1000);
+            assertThrows(SQLException.class, () -> statement.addBatch());
+
+            // Partial rows were dropped, batch is still usable
+            statement.clearParameters();
+            statement.setInt(1, 7);
+            statement.setTimestamp(2, timestamp(LocalDateTime.of(1999, 12, 31, 23, 59, 59, 999999000)));
+            statement.setObject(4, new double[0]);
+            statement.addBatch();
+
+            assertThat(execute(statement), equalTo(HEADER + ROW1 + ROW2 + TRAILER));
+        }
+    }
+}
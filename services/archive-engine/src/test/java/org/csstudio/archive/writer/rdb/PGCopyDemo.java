@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2025 Oak Ridge National Laboratory.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import java.time.Instant;
+
+import org.csstudio.archive.Preferences;
+import org.csstudio.archive.writer.WriteChannel;
+import org.epics.util.array.ArrayDouble;
+import org.epics.vtype.Alarm;
+import org.epics.vtype.Display;
+import org.epics.vtype.Time;
+import org.epics.vtype.VDouble;
+import org.epics.vtype.VDoubleArray;
+import org.epics.vtype.VType;
+import org.junit.jupiter.api.Test;
+
+/** Compare PostgreSQL COPY in CSV and binary format
+ *
+ *  <p>Requires a PostgreSQL archive configured in the preferences
+ *  with channels "jane" and "sim://noiseWaveform(0,10,100,10)",
+ *  see {@link RDBArchiveWriterDemo}.
+ *  Writes samples for those channels.
+ *
+ *  @author Kay Kasemir
+ */
+@SuppressWarnings("nls")
+public class PGCopyDemo
+{
+    private static final int SAMPLES = 100000, BATCH = 500;
+
+    private final String name = "jane", array_name = "sim://noiseWaveform(0,10,100,10)";
+
+    /** @param binary Use binary COPY?
+     *  @param array Write array samples?
+     *  @return Samples per second
+     */
+    private double write(final boolean binary, final boolean array) throws Exception
+    {
+        Preferences.use_postgres_copy = true;
+        Preferences.use_postgres_binary_copy = binary;
+        final RDBArchiveWriter writer = new RDBArchiveWriter(Preferences.url, Preferences.user, Preferences.password, Preferences.schema, Preferences.use_array_blob);
+        try
+        {
+            final WriteChannel channel = writer.getChannel(array ? array_name : name);
+            final double[] data = new double[100];
+            final Instant start = Instant.now();
+            final long t0 = System.nanoTime();
+            for (int i=0; i<SAMPLES; ++i)
+            {
+                final Time time = Time.of(start.plusNanos(i * 1000L));
+                final VType sample;
+                if (array)
+                {
+                    data[0] = i;
+                    sample = VDoubleArray.of(ArrayDouble.of(data), Alarm.none(), time, Display.none());
+                }
+                else
+                    sample = VDouble.of(i, Alarm.none(), time, Display.none());
+                writer.addSample(channel, sample);
+                if ((i % BATCH) == BATCH-1)
+                    writer.flush();
+            }
+            writer.flush();
+            final double secs = (System.nanoTime() - t0) / 1e9;
+            return SAMPLES / secs;
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void demoCopyFormats() throws Exception
+    {
+        if (! Preferences.url.startsWith("jdbc:postgresql"))
+            return;
+        for (boolean array : new boolean[] { false, true })
+        {
+            final double csv = write(false, array);
+            final double binary = write(true, array);
+            System.out.format("%s samples: CSV %.0f, binary %.0f samples/sec\n",
+                              array ? "Array" : "Scalar", csv, binary);
+        }
+    }
+}